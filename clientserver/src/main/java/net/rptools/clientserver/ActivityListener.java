@@ -35,4 +35,12 @@ public static enum State {
 
   public void notify(
       Direction direction, State state, int totalTransferSize, int currentTransferSize);
+
+  /**
+   * Called when the number of outbound messages waiting on a channel changes.
+   *
+   * @param channel the channel, or {@code null} for messages sent without one.
+   * @param depth the number of messages now waiting on the channel.
+   */
+  public default void notifyQueueDepth(Object channel, int depth) {}
 }
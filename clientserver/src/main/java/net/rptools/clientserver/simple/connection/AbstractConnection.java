@@ -17,16 +17,13 @@
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import net.rptools.clientserver.ActivityListener;
 import net.rptools.clientserver.simple.DisconnectHandler;
 import net.rptools.clientserver.simple.MessageHandler;
-import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
-import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -34,16 +31,19 @@ public abstract class AbstractConnection implements Connection {
   private static final Logger log = LogManager.getLogger(AbstractConnection.class);
 
   private final AtomicBoolean closed = new AtomicBoolean(false);
-  private final BlockingQueue<byte[]> outQueue = new LinkedBlockingQueue<>();
+  private final ChannelMessageQueue outQueue = new ChannelMessageQueue(this::notifyQueueDepth);
 
   private final List<DisconnectHandler> disconnectHandlers = new CopyOnWriteArrayList<>();
   private final List<ActivityListener> listeners = new CopyOnWriteArrayList<>();
   private final List<MessageHandler> messageHandlers = new CopyOnWriteArrayList<>();
 
+  private final MessageCompressor compressor = new MessageCompressor();
+
   @Override
   public final void close() {
     if (closed.compareAndSet(false, true)) {
       onClose();
+      compressor.close();
     }
   }
 
@@ -53,33 +53,32 @@ protected final boolean isClosed() {
 
   protected abstract void onClose();
 
-  private byte[] compress(byte[] message) {
-    try {
-      ByteArrayOutputStream baos = new ByteArrayOutputStream(message.length);
-      OutputStream ios = new ZstdCompressorOutputStream(baos);
-      ios.write(message);
-      ios.close();
-      var compressedMessage = baos.toByteArray();
-      return compressedMessage;
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+  protected void addMessage(Object channel, byte[] message) {
+    addMessage(channel, null, message);
   }
 
-  private byte[] inflate(byte[] compressedMessage) {
-    InputStream bytesIn = new ByteArrayInputStream(compressedMessage);
-    try {
-      InputStream ios = new ZstdCompressorInputStream(bytesIn);
-      var decompressed = ios.readAllBytes();
-      ios.close();
-      return decompressed;
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+  protected void addMessage(Object channel, Object coalesceKey, byte[] message) {
+    outQueue.add(channel, coalesceKey, compressor.compress(message));
   }
 
-  protected void addMessage(Object channel, byte[] message) {
-    outQueue.add(compress(message));
+  @Override
+  public int getPendingMessageCount() {
+    return outQueue.size();
+  }
+
+  @Override
+  public int getPendingMessageCount(Object channel) {
+    return outQueue.size(channel);
+  }
+
+  @Override
+  public Map<Object, Integer> getPendingMessageCounts() {
+    return outQueue.getDepths();
+  }
+
+  @Override
+  public void setChannelWeight(Object channel, int weight) {
+    outQueue.setWeight(channel, weight);
   }
 
   protected byte[] nextMessage() {
@@ -110,27 +109,50 @@ protected void dispatchMessage(byte[] message) {
     }
   }
 
+  @Override
+  public void setUseCompressionDictionary(boolean useDictionary) {
+    compressor.setUseDictionary(useDictionary);
+  }
+
+  @Override
+  public void setUseMessageEncoding(boolean useEncoding) {
+    compressor.setUseEncoding(useEncoding);
+  }
+
   protected final void dispatchCompressedMessage(byte[] compressedMessage) {
-    var message = inflate(compressedMessage);
+    byte[] message;
+    try {
+      message = compressor.decompress(compressedMessage);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
     dispatchMessage(message);
   }
 
+  /**
+   * Writes a length-prefixed message to the stream. The message is written in slices of {@link
+   * ActivityListener#CHUNK_SIZE}, with a progress notification after each slice.
+   *
+   * @param out the stream to write to.
+   * @param message the message to write.
+   * @throws IOException if the message could not be written.
+   */
   protected final void writeMessage(OutputStream out, byte[] message) throws IOException {
     int length = message.length;
 
     notifyListeners(ActivityListener.Direction.Outbound, ActivityListener.State.Start, length, 0);
 
-    out.write(length >> 24);
-    out.write(length >> 16);
-    out.write(length >> 8);
-    out.write(length);
+    out.write(ByteBuffer.allocate(Integer.BYTES).putInt(length).array());
 
-    for (int i = 0; i < message.length; i++) {
-      out.write(message[i]);
+    int offset = 0;
+    while (offset < length) {
+      int count = Math.min(ActivityListener.CHUNK_SIZE, length - offset);
+      out.write(message, offset, count);
+      offset += count;
 
-      if (i != 0 && i % ActivityListener.CHUNK_SIZE == 0) {
+      if (offset < length) {
         notifyListeners(
-            ActivityListener.Direction.Outbound, ActivityListener.State.Progress, length, i);
+            ActivityListener.Direction.Outbound, ActivityListener.State.Progress, length, offset);
       }
     }
     out.flush();
@@ -138,26 +160,35 @@ protected final void writeMessage(OutputStream out, byte[] message) throws IOExc
         ActivityListener.Direction.Outbound, ActivityListener.State.Complete, length, length);
   }
 
+  /**
+   * Reads a length-prefixed message from the stream. The message is read in slices of {@link
+   * ActivityListener#CHUNK_SIZE}, with a progress notification after each slice.
+   *
+   * @param in the stream to read from.
+   * @return the message.
+   * @throws IOException if the stream is closed before the whole message is read.
+   */
   protected final byte[] readMessage(InputStream in) throws IOException {
-    int b32 = in.read();
-    int b24 = in.read();
-    int b16 = in.read();
-    int b8 = in.read();
-
-    if (b32 < 0) {
+    byte[] header = new byte[Integer.BYTES];
+    if (in.readNBytes(header, 0, header.length) < header.length) {
       throw new IOException("Stream closed");
     }
-    int length = (b32 << 24) + (b24 << 16) + (b16 << 8) + b8;
+    int length = ByteBuffer.wrap(header).getInt();
 
     notifyListeners(ActivityListener.Direction.Inbound, ActivityListener.State.Start, length, 0);
 
     byte[] ret = new byte[length];
-    for (int i = 0; i < length; i++) {
-      ret[i] = (byte) in.read();
+    int offset = 0;
+    while (offset < length) {
+      int count = Math.min(ActivityListener.CHUNK_SIZE, length - offset);
+      if (in.readNBytes(ret, offset, count) < count) {
+        throw new EOFException("Stream closed after " + offset + " of " + length + " bytes");
+      }
+      offset += count;
 
-      if (i != 0 && i % ActivityListener.CHUNK_SIZE == 0) {
+      if (offset < length) {
         notifyListeners(
-            ActivityListener.Direction.Inbound, ActivityListener.State.Progress, length, i);
+            ActivityListener.Direction.Inbound, ActivityListener.State.Progress, length, offset);
       }
     }
     notifyListeners(
@@ -235,4 +266,10 @@ protected void notifyListeners(
       listener.notify(direction, state, totalTransferSize, currentTransferSize);
     }
   }
+
+  private void notifyQueueDepth(Object channel, int depth) {
+    for (ActivityListener listener : listeners) {
+      listener.notifyQueueDepth(channel, depth);
+    }
+  }
 }
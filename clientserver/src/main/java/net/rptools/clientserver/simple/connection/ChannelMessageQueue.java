@@ -0,0 +1,237 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.clientserver.simple.connection;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
+
+/**
+ * The queue of messages waiting to be sent on a connection. Each channel has its own lane, and
+ * lanes take turns in proportion to their weights, so that a backlog of bulk messages such as
+ * image chunks does not hold up the small messages behind it.
+ *
+ * <p>Messages sent without a channel go in the default lane, which is weighted heavily so that
+ * control and interaction messages are sent ahead of any backlog. Every lane still gets its share,
+ * so no lane is starved. Within a lane, messages are sent in the order they were queued.
+ *
+ * <p>A message can be queued with a coalescing key, for updates such as token drags that are made
+ * obsolete by the next update for the same thing. If a message with the same key is still waiting
+ * in the lane, the new message takes its place instead of being queued behind it. Any message
+ * queued without a key acts as a barrier: later updates never replace one queued before it, so
+ * coalescing never changes the order of an update relative to other messages.
+ */
+public class ChannelMessageQueue {
+  /** The weight of the lane for messages sent without a channel. */
+  public static final int DEFAULT_LANE_WEIGHT = 16;
+
+  /** The weight of a channel lane, unless set otherwise. */
+  public static final int DEFAULT_CHANNEL_WEIGHT = 1;
+
+  private static final class Pending {
+    private byte[] message;
+    private final @Nullable Object key;
+
+    private Pending(byte[] message, @Nullable Object key) {
+      this.message = message;
+      this.key = key;
+    }
+  }
+
+  private static final class Lane {
+    private final Queue<Pending> messages = new ArrayDeque<>();
+
+    /** The messages since the last barrier that can still be replaced, by coalescing key. */
+    private final Map<Object, Pending> coalescable = new HashMap<>();
+
+    private int weight;
+    private int credit;
+
+    private Lane(int weight) {
+      this.weight = weight;
+    }
+  }
+
+  private final Map<Object, Lane> lanes = new LinkedHashMap<>();
+  private final BiConsumer<Object, Integer> depthListener;
+  private int size;
+  private long coalescedCount;
+
+  /**
+   * Creates a new queue.
+   *
+   * @param depthListener called with the channel and its new depth whenever a lane grows or
+   *     shrinks. It is not called while the queue is locked.
+   */
+  public ChannelMessageQueue(BiConsumer<Object, Integer> depthListener) {
+    this.depthListener = depthListener;
+    // Created first so that it wins any ties.
+    lanes.put(null, new Lane(DEFAULT_LANE_WEIGHT));
+  }
+
+  /**
+   * Sets how many turns a channel gets relative to the others when several have messages waiting.
+   *
+   * @param channel the channel, or {@code null} for the default lane.
+   * @param weight the weight, at least 1.
+   */
+  public void setWeight(@Nullable Object channel, int weight) {
+    if (weight < 1) {
+      throw new IllegalArgumentException("Channel weight must be at least 1, was " + weight);
+    }
+    synchronized (this) {
+      lanes.computeIfAbsent(channel, c -> new Lane(weight)).weight = weight;
+    }
+  }
+
+  /**
+   * Adds a message to the end of its channel's lane.
+   *
+   * @param channel the channel, or {@code null} for the default lane.
+   * @param message the message.
+   */
+  public void add(@Nullable Object channel, byte[] message) {
+    add(channel, null, message);
+  }
+
+  /**
+   * Adds a message to the end of its channel's lane, or in place of a waiting message with the same
+   * coalescing key.
+   *
+   * @param channel the channel, or {@code null} for the default lane.
+   * @param coalesceKey the key identifying what the message updates, or {@code null} if it must
+   *     always be sent.
+   * @param message the message.
+   */
+  public void add(@Nullable Object channel, @Nullable Object coalesceKey, byte[] message) {
+    int depth;
+    synchronized (this) {
+      var lane = lanes.computeIfAbsent(channel, c -> new Lane(DEFAULT_CHANNEL_WEIGHT));
+      if (coalesceKey == null) {
+        lane.coalescable.clear();
+      } else {
+        var superseded = lane.coalescable.get(coalesceKey);
+        if (superseded != null) {
+          superseded.message = message;
+          coalescedCount++;
+          return;
+        }
+      }
+
+      var pending = new Pending(message, coalesceKey);
+      lane.messages.add(pending);
+      if (coalesceKey != null) {
+        lane.coalescable.put(coalesceKey, pending);
+      }
+      depth = lane.messages.size();
+      size++;
+      notifyAll();
+    }
+    depthListener.accept(channel, depth);
+  }
+
+  /**
+   * Takes the next message to send, waiting for one if the queue is empty.
+   *
+   * @param timeout how long to wait.
+   * @param unit the unit of {@code timeout}.
+   * @return the message, or {@code null} if none arrived in time.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public @Nullable byte[] poll(long timeout, TimeUnit unit) throws InterruptedException {
+    Object channel = null;
+    byte[] message;
+    int depth;
+    synchronized (this) {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      while (size == 0) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return null;
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      }
+
+      // Smooth weighted round robin over the lanes that have messages waiting.
+      Lane next = null;
+      int totalWeight = 0;
+      for (var entry : lanes.entrySet()) {
+        var lane = entry.getValue();
+        if (lane.messages.isEmpty()) {
+          continue;
+        }
+        lane.credit += lane.weight;
+        totalWeight += lane.weight;
+        if (next == null || lane.credit > next.credit) {
+          next = lane;
+          channel = entry.getKey();
+        }
+      }
+      next.credit -= totalWeight;
+
+      var pending = next.messages.remove();
+      if (pending.key != null) {
+        next.coalescable.remove(pending.key, pending);
+      }
+      message = pending.message;
+      depth = next.messages.size();
+      if (depth == 0) {
+        // A lane that runs dry starts again from scratch rather than carrying over its turns.
+        next.credit = 0;
+      }
+      size--;
+    }
+    depthListener.accept(channel, depth);
+    return message;
+  }
+
+  /**
+   * @return the number of messages waiting in all lanes.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * @param channel the channel, or {@code null} for the default lane.
+   * @return the number of messages waiting in the channel's lane.
+   */
+  public synchronized int size(@Nullable Object channel) {
+    var lane = lanes.get(channel);
+    return lane == null ? 0 : lane.messages.size();
+  }
+
+  /**
+   * @return the number of messages that were dropped because a newer one replaced them.
+   */
+  public synchronized long getCoalescedCount() {
+    return coalescedCount;
+  }
+
+  /**
+   * @return the number of messages waiting in each lane, keyed by channel.
+   */
+  public synchronized Map<Object, Integer> getDepths() {
+    var depths = new LinkedHashMap<Object, Integer>();
+    lanes.forEach((channel, lane) -> depths.put(channel, lane.messages.size()));
+    return Collections.unmodifiableMap(depths);
+  }
+}
@@ -15,6 +15,8 @@
 package net.rptools.clientserver.simple.connection;
 
 import java.io.IOException;
+import java.util.Map;
+import javax.annotation.Nullable;
 import net.rptools.clientserver.ActivityListener;
 import net.rptools.clientserver.simple.DisconnectHandler;
 import net.rptools.clientserver.simple.MessageHandler;
@@ -30,6 +32,68 @@ default void sendMessage(byte[] message) {
 
   void sendMessage(Object channel, byte[] message);
 
+  /**
+   * Sends a message that replaces any message with the same coalescing key that is still waiting
+   * to be sent. Use this for updates that are made obsolete by the next one, such as the position
+   * of a token being dragged. Connections that do not queue messages send every one.
+   *
+   * @param channel the channel, or {@code null} for control and interaction messages.
+   * @param coalesceKey the key identifying what the message updates, or {@code null} if it must
+   *     always be sent.
+   * @param message the message.
+   * @see ChannelMessageQueue
+   */
+  default void sendMessage(Object channel, @Nullable Object coalesceKey, byte[] message) {
+    sendMessage(channel, message);
+  }
+
+  /**
+   * Sets whether messages sent on this connection are compressed with the shared compression
+   * dictionary. Only enable this once the other end has confirmed it has the same dictionary.
+   *
+   * @param useDictionary {@code true} to use the dictionary.
+   * @see MessageCompressor#getDictionaryId()
+   */
+  void setUseCompressionDictionary(boolean useDictionary);
+
+  /**
+   * Sets whether messages sent on this connection start with the byte that says how they are
+   * encoded. Connections start out sending bare zstd frames, which older versions expect, so that
+   * the handshake can tell them about a version mismatch. Only enable this once the other end has
+   * confirmed it understands the encoding byte.
+   *
+   * @param useEncoding {@code true} to send the encoding byte.
+   * @see MessageCompressor#setUseEncoding(boolean)
+   */
+  void setUseMessageEncoding(boolean useEncoding);
+
+  /**
+   * @return the number of messages waiting to be sent, which grows if the other end cannot keep up.
+   */
+  int getPendingMessageCount();
+
+  /**
+   * @param channel the channel, or {@code null} for messages sent without one.
+   * @return the number of messages waiting to be sent on the channel.
+   */
+  int getPendingMessageCount(Object channel);
+
+  /**
+   * @return the number of messages waiting to be sent on each channel that has been used.
+   */
+  Map<Object, Integer> getPendingMessageCounts();
+
+  /**
+   * Sets how many turns a channel gets relative to the others when several have messages waiting
+   * to be sent. Messages sent without a channel are control and interaction messages, and by
+   * default are sent well ahead of any other channel.
+   *
+   * @param channel the channel, or {@code null} for messages sent without one.
+   * @param weight the weight, at least 1.
+   * @see ChannelMessageQueue
+   */
+  void setChannelWeight(Object channel, int weight);
+
   boolean isAlive();
 
   String getId();
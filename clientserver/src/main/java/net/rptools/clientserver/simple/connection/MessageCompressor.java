@@ -0,0 +1,306 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.clientserver.simple.connection;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import javax.annotation.Nullable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compresses the messages sent over a connection. Each connection has its own compressor so that
+ * the zstd contexts are set up once and reused for every message.
+ *
+ * <p>Each message starts with a byte giving its encoding. Small messages are sent uncompressed,
+ * since zstd cannot shrink them enough to pay for its frame header. Larger messages are compressed,
+ * optionally with a dictionary trained on typical messages. The dictionary only helps if both ends
+ * have the same one, so it is only used for sending once the peer has confirmed it during the
+ * handshake. Received messages that use the dictionary can always be read, as long as it is
+ * available locally.
+ *
+ * <p>Older versions send every message as a bare zstd frame, without the encoding byte. A new
+ * compressor sends messages that way too, so that the first handshake messages can be read by any
+ * version and an older peer is told about the version mismatch. The handshake then switches both
+ * ends to the encoding byte. Bare zstd frames are recognised by their magic number, which no
+ * encoding byte matches, so they can always be received.
+ */
+public class MessageCompressor {
+  private static final Logger log = LogManager.getLogger(MessageCompressor.class);
+
+  /** Messages smaller than this are sent uncompressed. */
+  public static final int MIN_COMPRESSED_SIZE = 64;
+
+  private static final int COMPRESSION_LEVEL = 3;
+
+  private static final byte UNCOMPRESSED = 0;
+  private static final byte COMPRESSED = 1;
+  private static final byte COMPRESSED_WITH_DICTIONARY = 2;
+
+  /** The first bytes of a zstd frame, as sent by versions without the encoding byte. */
+  private static final byte[] ZSTD_MAGIC = {(byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD};
+
+  /**
+   * The largest message that will be decompressed. The uncompressed length is sent by the peer, so
+   * it has to be checked before a buffer of that size is allocated.
+   */
+  static final int MAX_MESSAGE_SIZE = 256 * 1024 * 1024;
+
+  /** The size of the encoding byte and uncompressed length that precede compressed data. */
+  private static final int HEADER_SIZE = 1 + Integer.BYTES;
+
+  /** The classpath resource holding the trained dictionary, if it has been built. */
+  private static final String DICTIONARY_RESOURCE = "messages.zdict";
+
+  private static final @Nullable byte[] dictionary = loadDictionary();
+
+  private final Object compressLock = new Object();
+  private final Object decompressLock = new Object();
+
+  private @Nullable ZstdCompressCtx compressCtx;
+  private @Nullable ZstdDecompressCtx decompressCtx;
+  private @Nullable ZstdDecompressCtx dictionaryDecompressCtx;
+  private boolean useDictionary = false;
+  private volatile boolean useEncoding = false;
+
+  private static @Nullable byte[] loadDictionary() {
+    try (InputStream in = MessageCompressor.class.getResourceAsStream(DICTIONARY_RESOURCE)) {
+      if (in == null) {
+        return null;
+      }
+      return in.readAllBytes();
+    } catch (IOException e) {
+      log.warn("Unable to load the message compression dictionary", e);
+      return null;
+    }
+  }
+
+  /**
+   * @return the ID of the local compression dictionary, or 0 if there is none.
+   */
+  public static int getDictionaryId() {
+    return dictionary == null ? 0 : (int) Zstd.getDictIdFromDict(dictionary);
+  }
+
+  /**
+   * Trains a compression dictionary from sample messages. This is used to build the dictionary
+   * resource from captured traffic, and is not used at runtime.
+   *
+   * @param samples the uncompressed messages to train on.
+   * @param dictionarySize the maximum size of the dictionary in bytes.
+   * @return the dictionary.
+   */
+  public static byte[] trainDictionary(Collection<byte[]> samples, int dictionarySize) {
+    int sampleSize = samples.stream().mapToInt(sample -> sample.length).sum();
+    var trainer = new ZstdDictTrainer(sampleSize, dictionarySize);
+    for (byte[] sample : samples) {
+      trainer.addSample(sample);
+    }
+    return trainer.trainSamples();
+  }
+
+  /**
+   * Sets whether to compress messages with the dictionary. Only enable this once the peer has
+   * confirmed that it has the same dictionary.
+   *
+   * @param useDictionary {@code true} to use the dictionary, if there is one.
+   */
+  public void setUseDictionary(boolean useDictionary) {
+    synchronized (compressLock) {
+      boolean use = useDictionary && dictionary != null;
+      if (use != this.useDictionary) {
+        this.useDictionary = use;
+        closeCompressCtx();
+      }
+    }
+  }
+
+  /**
+   * Sets whether to send messages with the leading encoding byte. Until this is enabled, messages
+   * are sent as bare zstd frames that older versions can read. Only enable this once the peer has
+   * confirmed that it understands the encoding byte.
+   *
+   * @param useEncoding {@code true} to send the encoding byte.
+   */
+  public void setUseEncoding(boolean useEncoding) {
+    this.useEncoding = useEncoding;
+  }
+
+  /**
+   * Encodes a message for sending.
+   *
+   * @param message the message.
+   * @return the encoded message.
+   */
+  public byte[] compress(byte[] message) {
+    if (!useEncoding) {
+      return Zstd.compress(message, COMPRESSION_LEVEL);
+    }
+    if (message.length < MIN_COMPRESSED_SIZE) {
+      return uncompressed(message);
+    }
+
+    synchronized (compressLock) {
+      if (compressCtx == null) {
+        compressCtx = new ZstdCompressCtx();
+        compressCtx.setLevel(COMPRESSION_LEVEL);
+        if (useDictionary) {
+          compressCtx.loadDict(dictionary);
+        }
+      }
+
+      var encoded = new byte[HEADER_SIZE + (int) Zstd.compressBound(message.length)];
+      ByteBuffer.wrap(encoded)
+          .put(useDictionary ? COMPRESSED_WITH_DICTIONARY : COMPRESSED)
+          .putInt(message.length);
+      int size =
+          compressCtx.compressByteArray(
+              encoded,
+              HEADER_SIZE,
+              encoded.length - HEADER_SIZE,
+              message,
+              0,
+              message.length);
+
+      if (HEADER_SIZE + size >= 1 + message.length) {
+        // Not worth it, e.g. for data that is already compressed like most images.
+        return uncompressed(message);
+      }
+      return Arrays.copyOf(encoded, HEADER_SIZE + size);
+    }
+  }
+
+  /**
+   * Decodes a received message.
+   *
+   * @param encoded the message as received.
+   * @return the original message.
+   * @throws IOException if the message could not be decoded.
+   */
+  public byte[] decompress(byte[] encoded) throws IOException {
+    if (encoded.length == 0) {
+      throw new IOException("Empty message");
+    }
+
+    if (isZstdFrame(encoded)) {
+      try (var in = new ZstdInputStream(new ByteArrayInputStream(encoded))) {
+        var message = in.readNBytes(MAX_MESSAGE_SIZE);
+        if (in.read() != -1) {
+          throw new IOException("Message is larger than " + MAX_MESSAGE_SIZE + " bytes");
+        }
+        return message;
+      }
+    }
+
+    byte encoding = encoded[0];
+    if (encoding == UNCOMPRESSED) {
+      return Arrays.copyOfRange(encoded, 1, encoded.length);
+    }
+    if (encoding != COMPRESSED && encoding != COMPRESSED_WITH_DICTIONARY) {
+      throw new IOException("Unknown message encoding " + encoding);
+    }
+    if (encoding == COMPRESSED_WITH_DICTIONARY && dictionary == null) {
+      throw new IOException("Message uses a compression dictionary that is not available");
+    }
+    if (encoded.length < HEADER_SIZE) {
+      throw new IOException("Truncated message");
+    }
+
+    int length = ByteBuffer.wrap(encoded, 1, Integer.BYTES).getInt();
+    if (length < 0 || length > MAX_MESSAGE_SIZE) {
+      throw new IOException("Invalid message length " + length);
+    }
+    long frameSize =
+        Zstd.getFrameContentSize(encoded, HEADER_SIZE, encoded.length - HEADER_SIZE);
+    if (frameSize != length) {
+      throw new IOException(
+          "Message length " + length + " does not match the compressed frame size " + frameSize);
+    }
+    var message = new byte[length];
+    synchronized (decompressLock) {
+      ZstdDecompressCtx ctx;
+      if (encoding == COMPRESSED_WITH_DICTIONARY) {
+        if (dictionaryDecompressCtx == null) {
+          dictionaryDecompressCtx = new ZstdDecompressCtx();
+          dictionaryDecompressCtx.loadDict(dictionary);
+        }
+        ctx = dictionaryDecompressCtx;
+      } else {
+        if (decompressCtx == null) {
+          decompressCtx = new ZstdDecompressCtx();
+        }
+        ctx = decompressCtx;
+      }
+
+      int size;
+      try {
+        size =
+            ctx.decompressByteArray(
+                message, 0, length, encoded, HEADER_SIZE, encoded.length - HEADER_SIZE);
+      } catch (RuntimeException e) {
+        throw new IOException("Unable to decompress message", e);
+      }
+      if (size != length) {
+        throw new IOException("Expected " + length + " bytes but decompressed " + size);
+      }
+    }
+    return message;
+  }
+
+  /** Releases the native zstd contexts. The compressor can still be used afterwards. */
+  public void close() {
+    synchronized (compressLock) {
+      closeCompressCtx();
+    }
+    synchronized (decompressLock) {
+      if (decompressCtx != null) {
+        decompressCtx.close();
+        decompressCtx = null;
+      }
+      if (dictionaryDecompressCtx != null) {
+        dictionaryDecompressCtx.close();
+        dictionaryDecompressCtx = null;
+      }
+    }
+  }
+
+  private void closeCompressCtx() {
+    if (compressCtx != null) {
+      compressCtx.close();
+      compressCtx = null;
+    }
+  }
+
+  private static boolean isZstdFrame(byte[] encoded) {
+    return encoded.length >= ZSTD_MAGIC.length
+        && Arrays.equals(encoded, 0, ZSTD_MAGIC.length, ZSTD_MAGIC, 0, ZSTD_MAGIC.length);
+  }
+
+  private static byte[] uncompressed(byte[] message) {
+    var encoded = new byte[1 + message.length];
+    encoded[0] = UNCOMPRESSED;
+    System.arraycopy(message, 0, encoded, 1, message.length);
+    return encoded;
+  }
+}
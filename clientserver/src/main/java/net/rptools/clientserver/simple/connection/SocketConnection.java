@@ -71,6 +71,11 @@ public void sendMessage(Object channel, byte[] message) {
     addMessage(channel, message);
   }
 
+  @Override
+  public void sendMessage(Object channel, Object coalesceKey, byte[] message) {
+    addMessage(channel, coalesceKey, message);
+  }
+
   @Override
   protected void onClose() {
     receive.interrupt();
@@ -152,7 +157,7 @@ public void run() {
       try {
         final InputStream in;
         try {
-          in = socket.getInputStream();
+          in = new BufferedInputStream(socket.getInputStream());
         } catch (IOException e) {
           log.error("Unable to get socket input stream", e);
           return;
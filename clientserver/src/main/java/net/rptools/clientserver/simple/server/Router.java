@@ -65,20 +65,29 @@ public void removeConnection(Connection connection) {
   }
 
   public void broadcastMessage(byte[] message) {
-    synchronized (clients) {
-      for (Connection conn : clients.values()) {
-        conn.sendMessage(message);
-      }
-    }
+    broadcastMessage(new String[0], null, message);
   }
 
   public void broadcastMessage(String[] exclude, byte[] message) {
+    broadcastMessage(exclude, null, message);
+  }
+
+  /**
+   * Sends a message to every client except those excluded.
+   *
+   * @param exclude the IDs of the clients not to send to.
+   * @param coalesceKey the key identifying what the message updates, so that it can replace an
+   *     older update that has not been sent yet, or {@code null} if it must always be sent.
+   * @param message the message.
+   * @see Connection#sendMessage(Object, Object, byte[])
+   */
+  public void broadcastMessage(String[] exclude, @Nullable Object coalesceKey, byte[] message) {
     // Note: although we except an exclude array, reality is that it only has one element at most.
     // So don't bother setting up a hash set or anything, just loop to check if in the array.
     synchronized (clients) {
       for (Map.Entry<String, Connection> entry : clients.entrySet()) {
         if (!Arrays.asList(exclude).contains(entry.getKey())) {
-          entry.getValue().sendMessage(message);
+          entry.getValue().sendMessage(null, coalesceKey, message);
         }
       }
     }
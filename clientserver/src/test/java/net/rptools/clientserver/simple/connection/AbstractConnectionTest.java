@@ -0,0 +1,107 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.clientserver.simple.connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.rptools.clientserver.ActivityListener;
+import net.rptools.clientserver.ActivityListener.Direction;
+import net.rptools.clientserver.ActivityListener.State;
+import org.junit.jupiter.api.Test;
+
+public class AbstractConnectionTest {
+  private static class TestConnection extends AbstractConnection {
+    @Override
+    public void open() {}
+
+    @Override
+    public void sendMessage(Object channel, byte[] message) {}
+
+    @Override
+    public boolean isAlive() {
+      return true;
+    }
+
+    @Override
+    public String getId() {
+      return "test";
+    }
+
+    @Override
+    public String getError() {
+      return null;
+    }
+
+    @Override
+    protected void onClose() {}
+  }
+
+  private record Notification(Direction direction, State state, int total, int current) {}
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    var connection = new TestConnection();
+    var notifications = new ArrayList<Notification>();
+    connection.addActivityListener(
+        (direction, state, total, current) ->
+            notifications.add(new Notification(direction, state, total, current)));
+
+    var message = new byte[ActivityListener.CHUNK_SIZE * 3 + 7];
+    new Random(42).nextBytes(message);
+
+    var out = new ByteArrayOutputStream();
+    connection.writeMessage(out, message);
+    connection.writeMessage(out, new byte[0]);
+    assertEquals(Integer.BYTES * 2 + message.length, out.size());
+
+    var in = new ByteArrayInputStream(out.toByteArray());
+    assertArrayEquals(message, connection.readMessage(in));
+    assertArrayEquals(new byte[0], connection.readMessage(in));
+
+    // One progress notification per chunk, in both directions.
+    var expected = new ArrayList<Notification>();
+    for (var direction : List.of(Direction.Outbound, Direction.Inbound)) {
+      expected.add(new Notification(direction, State.Start, message.length, 0));
+      for (int i = 1; i <= 3; i++) {
+        expected.add(
+            new Notification(
+                direction, State.Progress, message.length, ActivityListener.CHUNK_SIZE * i));
+      }
+      expected.add(new Notification(direction, State.Complete, message.length, message.length));
+      expected.add(new Notification(direction, State.Start, 0, 0));
+      expected.add(new Notification(direction, State.Complete, 0, 0));
+    }
+    assertEquals(expected, notifications);
+  }
+
+  @Test
+  public void testTruncatedMessage() throws IOException {
+    var connection = new TestConnection();
+    var out = new ByteArrayOutputStream();
+    connection.writeMessage(out, new byte[ActivityListener.CHUNK_SIZE * 2]);
+
+    var truncated = new ByteArrayInputStream(out.toByteArray(), 0, out.size() - 1);
+    assertThrows(IOException.class, () -> connection.readMessage(truncated));
+
+    var empty = new ByteArrayInputStream(new byte[0]);
+    assertThrows(IOException.class, () -> connection.readMessage(empty));
+  }
+}
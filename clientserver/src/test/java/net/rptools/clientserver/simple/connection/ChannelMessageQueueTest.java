@@ -0,0 +1,114 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.clientserver.simple.connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class ChannelMessageQueueTest {
+  private static final String IMAGE = "image";
+
+  private static byte[] message(int id) {
+    return new byte[] {(byte) id};
+  }
+
+  private static List<Integer> drain(ChannelMessageQueue queue) throws InterruptedException {
+    var ids = new ArrayList<Integer>();
+    byte[] message;
+    while ((message = queue.poll(0, TimeUnit.MILLISECONDS)) != null) {
+      ids.add((int) message[0]);
+    }
+    return ids;
+  }
+
+  @Test
+  public void testDefaultLaneJumpsBacklog() throws InterruptedException {
+    var queue = new ChannelMessageQueue((channel, depth) -> {});
+    for (int i = 0; i < 5; i++) {
+      queue.add(IMAGE, message(i));
+    }
+    assertEquals(0, queue.poll(0, TimeUnit.MILLISECONDS)[0]);
+
+    queue.add(null, message(100));
+    queue.add(null, message(101));
+
+    assertEquals(List.of(100, 101, 1, 2, 3, 4), drain(queue));
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void testWeightsShareTurns() throws InterruptedException {
+    var queue = new ChannelMessageQueue((channel, depth) -> {});
+    queue.setWeight(null, 2);
+    for (int i = 0; i < 4; i++) {
+      queue.add(IMAGE, message(i));
+      queue.add(null, message(100 + i));
+    }
+    assertEquals(8, queue.size());
+    assertEquals(4, queue.size(IMAGE));
+
+    // Neither lane is starved, but the default lane gets two turns for every image turn.
+    assertEquals(List.of(100, 0, 101, 102, 1, 103, 2, 3), drain(queue));
+    assertThrows(IllegalArgumentException.class, () -> queue.setWeight(IMAGE, 0));
+  }
+
+  @Test
+  public void testDepthNotifications() throws InterruptedException {
+    var depths = new ArrayList<String>();
+    var queue = new ChannelMessageQueue((channel, depth) -> depths.add(channel + "=" + depth));
+    queue.add(IMAGE, message(1));
+    queue.add(IMAGE, message(2));
+    queue.add(null, message(3));
+    assertEquals(2, (int) queue.getDepths().get(IMAGE));
+    assertEquals(1, (int) queue.getDepths().get(null));
+
+    drain(queue);
+
+    assertEquals(List.of("image=1", "image=2", "null=1", "null=0", "image=1", "image=0"), depths);
+  }
+
+  @Test
+  public void testCoalescing() throws InterruptedException {
+    var queue = new ChannelMessageQueue((channel, depth) -> {});
+    queue.add(null, "token1", message(1));
+    queue.add(null, "token2", message(2));
+    queue.add(null, "token1", message(3));
+    assertEquals(2, queue.size());
+
+    // A message without a key is a barrier: later updates must not jump ahead of it.
+    queue.add(null, message(4));
+    queue.add(null, "token1", message(5));
+    queue.add(null, "token1", message(6));
+    assertEquals(4, queue.size());
+    assertEquals(2, queue.getCoalescedCount());
+
+    assertEquals(3, queue.poll(0, TimeUnit.MILLISECONDS)[0]);
+    // Once sent, an update can't be replaced.
+    queue.add(null, "token2", message(7));
+
+    assertEquals(List.of(2, 4, 6, 7), drain(queue));
+  }
+
+  @Test
+  public void testPollTimesOut() throws InterruptedException {
+    var queue = new ChannelMessageQueue((channel, depth) -> {});
+    assertNull(queue.poll(5, TimeUnit.MILLISECONDS));
+    assertEquals(0, queue.size(IMAGE));
+  }
+}
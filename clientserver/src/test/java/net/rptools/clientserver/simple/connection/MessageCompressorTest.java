@@ -0,0 +1,141 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.clientserver.simple.connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+
+public class MessageCompressorTest {
+  @Test
+  public void testSmallMessageIsNotCompressed() throws IOException {
+    var compressor = new MessageCompressor();
+    compressor.setUseEncoding(true);
+    var message = new byte[] {1, 2, 3, 4};
+
+    var encoded = compressor.compress(message);
+
+    assertEquals(message.length + 1, encoded.length);
+    assertArrayEquals(message, compressor.decompress(encoded));
+  }
+
+  @Test
+  public void testLargeMessageIsCompressed() throws IOException {
+    var compressor = new MessageCompressor();
+    compressor.setUseEncoding(true);
+    var message = "token moved to 100, 200; ".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    // Reuse the same contexts for several messages.
+    for (int i = 0; i < 3; i++) {
+      var encoded = compressor.compress(message);
+      assertTrue(encoded.length < message.length);
+      assertArrayEquals(message, compressor.decompress(encoded));
+    }
+  }
+
+  @Test
+  public void testIncompressibleMessage() throws IOException {
+    var compressor = new MessageCompressor();
+    compressor.setUseEncoding(true);
+    var message = new byte[4096];
+    new Random(42).nextBytes(message);
+
+    var encoded = compressor.compress(message);
+
+    assertEquals(message.length + 1, encoded.length);
+    assertArrayEquals(message, compressor.decompress(encoded));
+  }
+
+  @Test
+  public void testSeparateCompressors() throws IOException {
+    var sender = new MessageCompressor();
+    sender.setUseEncoding(true);
+    var receiver = new MessageCompressor();
+    var message = "a fairly repetitive message ".repeat(50).getBytes(StandardCharsets.UTF_8);
+
+    assertArrayEquals(message, receiver.decompress(sender.compress(message)));
+
+    sender.close();
+    receiver.close();
+    // The contexts are recreated if the compressor is used after being closed.
+    assertArrayEquals(message, receiver.decompress(sender.compress(message)));
+  }
+
+  @Test
+  public void testLegacyFramesAreSentUntilEncodingIsEnabled() throws IOException {
+    var sender = new MessageCompressor();
+    var message = new byte[] {1, 2, 3, 4};
+
+    // Older versions read each message as a bare zstd frame.
+    var encoded = sender.compress(message);
+    try (var in = new ZstdCompressorInputStream(new ByteArrayInputStream(encoded))) {
+      assertArrayEquals(message, in.readAllBytes());
+    }
+
+    sender.setUseEncoding(true);
+    assertEquals(message.length + 1, sender.compress(message).length);
+  }
+
+  @Test
+  public void testLegacyFramesAreAlwaysReceived() throws IOException {
+    var receiver = new MessageCompressor();
+    receiver.setUseEncoding(true);
+    var message = "sent by an older version ".repeat(20).getBytes(StandardCharsets.UTF_8);
+
+    var out = new ByteArrayOutputStream();
+    try (var zstd = new ZstdCompressorOutputStream(out)) {
+      zstd.write(message);
+    }
+
+    assertArrayEquals(message, receiver.decompress(out.toByteArray()));
+  }
+
+  @Test
+  public void testInvalidMessage() {
+    var compressor = new MessageCompressor();
+
+    assertThrows(IOException.class, () -> compressor.decompress(new byte[0]));
+    assertThrows(IOException.class, () -> compressor.decompress(new byte[] {42, 0, 0}));
+    assertThrows(IOException.class, () -> compressor.decompress(new byte[] {1, 0, 0, 0, 8, 1}));
+  }
+
+  @Test
+  public void testInvalidMessageLength() throws IOException {
+    var compressor = new MessageCompressor();
+    compressor.setUseEncoding(true);
+    var message = "a message long enough to compress ".repeat(20).getBytes(StandardCharsets.UTF_8);
+    var encoded = compressor.compress(message);
+
+    var negative = encoded.clone();
+    ByteBuffer.wrap(negative, 1, Integer.BYTES).putInt(-1);
+    assertThrows(IOException.class, () -> compressor.decompress(negative));
+
+    var tooLarge = encoded.clone();
+    ByteBuffer.wrap(tooLarge, 1, Integer.BYTES).putInt(MessageCompressor.MAX_MESSAGE_SIZE + 1);
+    assertThrows(IOException.class, () -> compressor.decompress(tooLarge));
+
+    var mismatched = encoded.clone();
+    ByteBuffer.wrap(mismatched, 1, Integer.BYTES).putInt(Integer.MAX_VALUE / 2);
+    assertThrows(IOException.class, () -> compressor.decompress(mismatched));
+  }
+}
@@ -43,6 +43,7 @@
 import java.util.zip.ZipInputStream;
 import net.rptools.maptool.client.ui.token.BarTokenOverlay;
 import net.rptools.maptool.model.AStarCellPointConverter;
+import net.rptools.maptool.model.ExposedAreaTilesConverter;
 import net.rptools.maptool.model.ShapeType;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -484,6 +485,7 @@ public static XStream getConfiguredXStream() {
     XStream.setupDefaultSecurity(xStream);
     xStream.allowTypesByWildcard(new String[] {"net.rptools.**", "java.awt.**", "sun.awt.**"});
     xStream.registerConverter(new AStarCellPointConverter());
+    xStream.registerConverter(new ExposedAreaTilesConverter());
     xStream.addImmutableType(ShapeType.class, true);
     xStream.addImmutableType(BarTokenOverlay.Side.class, true);
     return xStream;
@@ -105,8 +105,8 @@
  */
 public class PackedFile implements AutoCloseable {
 
-  private static final String PROPERTY_FILE = "properties.xml";
-  private static final String CONTENT_FILE = "content.xml";
+  static final String PROPERTY_FILE = "properties.xml";
+  static final String CONTENT_FILE = "content.xml";
 
   private static final Logger log = LogManager.getLogger(PackedFile.class);
 
@@ -0,0 +1,325 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.io;
+
+import com.thoughtworks.xstream.XStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import javax.annotation.Nullable;
+import net.rptools.lib.FileUtil;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes a new packed file in a single pass, in the same format as {@link PackedFile}.
+ *
+ * <p>Unlike {@link PackedFile}, nothing is staged in a temporary directory or held in memory: each
+ * entry is written straight to the zip as it is added. Entries that are known to be unchanged can
+ * instead be copied from the file being replaced in their compressed form, without inflating and
+ * deflating them again. The new file is written next to the one it replaces and only moved into
+ * place by {@link #commit()}, so a failed save leaves the original untouched.
+ */
+public class PackedFileWriter implements AutoCloseable {
+  private static final Logger log = LogManager.getLogger(PackedFileWriter.class);
+
+  private final XStream xstream = FileUtil.getConfiguredXStream();
+
+  private final File file;
+  private final File tmpFile;
+  private final ZipArchiveOutputStream zout;
+  private @Nullable ZipFile previous;
+  private @Nullable Set<String> previousPaths;
+  private final Map<File, ZipFile> sources = new HashMap<>();
+
+  private final Map<String, Object> propertyMap = new HashMap<>();
+  private final Set<String> writtenPaths = new HashSet<>();
+  private boolean committed = false;
+
+  /**
+   * Starts writing a packed file. If the file already exists, its entries are available to {@link
+   * #copyFromPrevious(String)} until the new file is committed.
+   *
+   * @param file the file to write.
+   * @throws IOException if the new file cannot be created.
+   */
+  public PackedFileWriter(File file) throws IOException {
+    this.file = file;
+
+    File dir = file.getAbsoluteFile().getParentFile();
+    File tmp;
+    try {
+      // Write next to the target so that the final move is a rename within the same file system.
+      tmp = File.createTempFile(file.getName(), ".tmp", dir);
+    } catch (IOException e) {
+      log.debug("Unable to write temporary file in {}, using the temporary directory", dir, e);
+      tmp = File.createTempFile(file.getName(), ".tmp", PackedFile.getTmpDir());
+    }
+    tmpFile = tmp;
+
+    if (file.exists()) {
+      try {
+        previous = ZipFile.builder().setFile(file).get();
+      } catch (IOException e) {
+        // Not a readable zip, so just don't copy anything from it.
+        log.warn("Unable to read {} to copy unchanged entries from", file, e);
+      }
+    }
+
+    zout = new ZipArchiveOutputStream(tmpFile);
+    zout.setLevel(Deflater.BEST_COMPRESSION);
+  }
+
+  /**
+   * Useful for configuring the xstream for object serialization
+   *
+   * @return the configured {@link XStream}
+   */
+  public XStream getXStream() {
+    return xstream;
+  }
+
+  /**
+   * Sets a property to write to the 'properties.xml' file in the archive.
+   *
+   * @param key the key of the property.
+   * @param value the value of the property.
+   */
+  public void setProperty(String key, Object value) {
+    propertyMap.put(key, value);
+  }
+
+  /**
+   * Writes the given object as the 'content.xml' file in the archive.
+   *
+   * @param content the content to be stored
+   * @throws IOException If an I/O error occurs
+   */
+  public void setContent(Object content) throws IOException {
+    putFile(PackedFile.CONTENT_FILE, content);
+  }
+
+  /**
+   * @return the paths of the entries in the file being replaced, or an empty set if there is none.
+   */
+  public Set<String> getPreviousPaths() {
+    if (previousPaths == null) {
+      Set<String> paths = new HashSet<>();
+      if (previous != null) {
+        previous
+            .getEntries()
+            .asIterator()
+            .forEachRemaining(
+                entry -> {
+                  if (!entry.isDirectory()) {
+                    paths.add(entry.getName());
+                  }
+                });
+      }
+      previousPaths = Collections.unmodifiableSet(paths);
+    }
+    return previousPaths;
+  }
+
+  /**
+   * Copies an entry from the file being replaced without decompressing it.
+   *
+   * @param path location within the ZIP file
+   * @return {@code true} if the entry was copied, or {@code false} if there is no such entry.
+   * @throws IOException If an I/O error occurs
+   */
+  public boolean copyFromPrevious(String path) throws IOException {
+    return copyRaw(previous, path);
+  }
+
+  /**
+   * Copies an entry from another packed file without decompressing it. Copying from the file being
+   * replaced is the same as {@link #copyFromPrevious(String)}.
+   *
+   * @param source the packed file to copy from.
+   * @param path location within both ZIP files
+   * @return {@code true} if the entry was copied, or {@code false} if there is no such entry.
+   * @throws IOException If an I/O error occurs
+   */
+  public boolean copyFrom(File source, String path) throws IOException {
+    if (source.getAbsoluteFile().equals(file.getAbsoluteFile())) {
+      return copyFromPrevious(path);
+    }
+    ZipFile zip = sources.get(source);
+    if (zip == null) {
+      zip = ZipFile.builder().setFile(source).get();
+      sources.put(source, zip);
+    }
+    return copyRaw(zip, path);
+  }
+
+  private boolean copyRaw(@Nullable ZipFile zip, String path) throws IOException {
+    if (writtenPaths.contains(path)) {
+      return true;
+    }
+    ZipArchiveEntry entry = zip == null ? null : zip.getEntry(path);
+    if (entry == null || entry.isDirectory()) {
+      return false;
+    }
+
+    try (InputStream raw = zip.getRawInputStream(entry)) {
+      zout.addRawArchiveEntry(entry, raw);
+    }
+    writtenPaths.add(path);
+    return true;
+  }
+
+  /**
+   * Write the <code>byte</code> data to the given path in the ZIP file. Only the first data written
+   * to each path is kept.
+   *
+   * @param path location within the ZIP file
+   * @param data the binary data to be written
+   * @throws IOException If an I/O error occurs
+   */
+  public void putFile(String path, byte[] data) throws IOException {
+    if (!startEntry(path)) {
+      return;
+    }
+    zout.write(data);
+    zout.closeArchiveEntry();
+  }
+
+  /**
+   * Write the serialized object to the given path in the ZIP file, encoded as UTF-8 XML. Only the
+   * first data written to each path is kept.
+   *
+   * @param path location within the ZIP file
+   * @param obj the object to be written
+   * @throws IOException If an I/O error occurs
+   */
+  public void putFile(String path, Object obj) throws IOException {
+    if (!startEntry(path)) {
+      return;
+    }
+    Writer writer =
+        new BufferedWriter(
+            new OutputStreamWriter(CloseShieldOutputStream.wrap(zout), StandardCharsets.UTF_8));
+    try (writer) {
+      xstream.toXML(obj, writer);
+      writer.write(System.lineSeparator()); // Matches PackedFile.
+    }
+    zout.closeArchiveEntry();
+  }
+
+  /**
+   * Finishes the new file and moves it over the file it replaces.
+   *
+   * @throws IOException If an I/O error occurs, in which case the original file is left as it was.
+   */
+  public void commit() throws IOException {
+    if (!propertyMap.isEmpty()) {
+      putFile(PackedFile.PROPERTY_FILE, propertyMap);
+    }
+    zout.finish();
+    zout.close();
+    closePrevious();
+
+    try {
+      moveIntoPlace(tmpFile.toPath(), file.toPath());
+    } catch (IOException e) {
+      // Some sync tools lock files in a way that stops them being replaced, but they can still be
+      // overwritten.
+      log.info("Unable to move {} to {}, copying it instead", tmpFile, file, e);
+      FileUtil.copyFile(tmpFile, file);
+      Files.deleteIfExists(tmpFile.toPath());
+    }
+    committed = true;
+  }
+
+  /**
+   * Moves the finished file over the file it replaces, atomically if the file system allows it.
+   * Package private so that tests can make the move fail.
+   *
+   * @param source the finished file.
+   * @param target the file to replace.
+   * @throws IOException if the file cannot be moved.
+   */
+  void moveIntoPlace(Path source, Path target) throws IOException {
+    try {
+      Files.move(
+          source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /** Abandons the new file if it has not been committed. */
+  @Override
+  public void close() {
+    closePrevious();
+    if (!committed) {
+      try {
+        zout.close();
+      } catch (IOException e) {
+        // Ignore it, the file is being thrown away.
+      }
+      if (tmpFile.exists() && !tmpFile.delete()) {
+        log.warn("Unable to delete {}", tmpFile);
+      }
+    }
+  }
+
+  private boolean startEntry(String path) throws IOException {
+    if (!writtenPaths.add(path)) {
+      log.debug("Skipping second copy of {}", path);
+      return false;
+    }
+    zout.putArchiveEntry(new ZipArchiveEntry(path));
+    return true;
+  }
+
+  private void closePrevious() {
+    if (previous != null) {
+      try {
+        previous.close();
+      } catch (IOException e) {
+        // Ignore it
+      }
+      previous = null;
+    }
+    for (ZipFile source : sources.values()) {
+      try {
+        source.close();
+      } catch (IOException e) {
+        // Ignore it
+      }
+    }
+    sources.clear();
+  }
+}
@@ -2525,6 +2525,20 @@ protected File getImageFileOfSelectedFile() {
   }
 
   public static void loadCampaign(final File campaignFile) {
+    loadCampaign(campaignFile, false);
+  }
+
+  /**
+   * Loads a campaign after a crash, replaying the autosave journal on top of the file it is based
+   * on.
+   *
+   * @param baseFile the file the journal is based on.
+   */
+  public static void recoverCampaign(final File baseFile) {
+    loadCampaign(baseFile, true);
+  }
+
+  private static void loadCampaign(final File campaignFile, boolean replayJournal) {
 
     // By default all SwingWorkers run sequentially off the AWT event thread
     // Until we reconfigure that (load/save is really not something that's
@@ -2542,7 +2556,7 @@ public static void loadCampaign(final File campaignFile) {
       MapTool.showWarning("msg.warning.loadCampaignFromInstallDir");
     }
 
-    new CampaignLoader(campaignFile).execute();
+    new CampaignLoader(campaignFile, replayJournal).execute();
   }
 
   /**
@@ -2551,10 +2565,13 @@ public static void loadCampaign(final File campaignFile) {
    */
   private static class CampaignLoader extends SwingWorker<PersistedCampaign, String> {
     private File campaignFile;
+    private boolean replayJournal;
+    private volatile boolean replayed = false;
     private int maxWaitForLock = 30;
 
-    public CampaignLoader(File campaignFile) {
+    public CampaignLoader(File campaignFile, boolean replayJournal) {
       this.campaignFile = campaignFile;
+      this.replayJournal = replayJournal;
     }
 
     /**
@@ -2578,7 +2595,16 @@ protected PersistedCampaign doInBackground() throws Exception {
           MapTool.getBackupManager().backup(campaignFile);
         }
         // Load
-        return PersistenceUtil.loadCampaign(campaignFile);
+        PersistedCampaign campaign = PersistenceUtil.loadCampaign(campaignFile);
+        if (campaign != null && replayJournal) {
+          try {
+            MapTool.getAutoSaveManager().getJournal().replay(campaign);
+            replayed = true;
+          } catch (IOException e) {
+            log.error("Unable to replay the autosave journal", e);
+          }
+        }
+        return campaign;
       } finally {
         AppState.releaseBackgroundTaskLock();
       }
@@ -2614,7 +2640,11 @@ protected void done() {
           }
           current.getZoneScale().reset();
         }
-        MapTool.getAutoSaveManager().tidy();
+        if (replayed) {
+          MapTool.getAutoSaveManager().recovered();
+        } else {
+          MapTool.getAutoSaveManager().tidy();
+        }
 
         // UI related stuff
         MapTool.getFrame().getCommandPanel().clearAllIdentities();
@@ -2712,10 +2742,16 @@ private static class CampaignSaver extends SwingWorker<Object, String> {
     private File file;
     private Runnable onSuccess;
     private int maxWaitForLock = 30;
+    private final GUID campaignId;
+    private final CampaignJournal.Changes journalChanges;
 
     public CampaignSaver(File file, Runnable onSuccess) {
       this.file = file;
       this.onSuccess = onSuccess;
+      // The journal starts again from the saved file, so it only tracks changes from here on.
+      Campaign campaign = MapTool.getCampaign();
+      campaignId = campaign.getId();
+      journalChanges = MapTool.getAutoSaveManager().getJournal().beginFullSave(campaign);
     }
 
     @Override
@@ -2750,14 +2786,21 @@ protected void process(List<String> list) {
     protected void done() {
       MapTool.getFrame().hideGlassPane();
 
+      var journal = MapTool.getAutoSaveManager().getJournal();
+      boolean saved = false;
       try {
         get();
+        saved = true;
+        journal.fullSaveSucceeded(file, campaignId, journalChanges);
         MapTool.getFrame().setStatusMessage(I18N.getString("msg.info.campaignSaved"));
         AppMenuBar.getMruManager().addMRUCampaign(AppState.getCampaignFile());
         if (onSuccess != null) {
           onSuccess.run();
         }
       } catch (Throwable t) {
+        if (!saved) {
+          journal.fullSaveFailed(journalChanges);
+        }
         if (t.getCause() instanceof AppState.FailedToAcquireLockException)
           MapTool.showError("msg.error.failedSaveCampaignLock");
         else MapTool.showError("msg.error.failedSaveCampaign", t.getCause());
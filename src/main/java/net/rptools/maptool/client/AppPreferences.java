@@ -303,6 +303,15 @@ public class AppPreferences {
   private static final String KEY_VBL_BLOCKS_MOVE = "vblBlocksMove";
   private static final boolean DEFAULT_VBL_BLOCKS_MOVE = true;
 
+  private static final String KEY_PARALLEL_VISIBILITY = "parallelVisibility";
+  private static final boolean DEFAULT_PARALLEL_VISIBILITY = false;
+
+  private static final String KEY_ASSET_CACHE_SIZE = "assetCacheSize";
+  private static final int DEFAULT_ASSET_CACHE_SIZE = 512;
+
+  private static final String KEY_IMAGE_CACHE_SIZE = "imageCacheSize";
+  private static final int DEFAULT_IMAGE_CACHE_SIZE = 1024;
+
   private static final String MACRO_EDITOR_THEME = "macroEditorTheme";
   private static final String DEFAULT_MACRO_EDITOR_THEME = "Default";
 
@@ -1639,6 +1648,55 @@ public static void setVblBlocksMove(boolean use) {
     prefs.putBoolean(KEY_VBL_BLOCKS_MOVE, use);
   }
 
+  /**
+   * Returns whether visibility should be solved on the background visibility pool rather than on
+   * the calling thread.
+   *
+   * @return {@code true} if topology sweeps and token visibility are solved in parallel.
+   */
+  public static boolean getParallelVisibility() {
+    return prefs.getBoolean(KEY_PARALLEL_VISIBILITY, DEFAULT_PARALLEL_VISIBILITY);
+  }
+
+  /**
+   * Sets whether visibility should be solved in parallel.
+   *
+   * @param parallel {@code true} to solve topology sweeps and token visibility in parallel.
+   */
+  public static void setParallelVisibility(boolean parallel) {
+    prefs.putBoolean(KEY_PARALLEL_VISIBILITY, parallel);
+  }
+
+  /**
+   * Returns how much raw asset data to keep in memory. Assets used by the current map are kept
+   * regardless. Changes take effect on restart.
+   *
+   * @return the size of the asset cache in megabytes.
+   */
+  public static int getAssetCacheSize() {
+    int result = prefs.getInt(KEY_ASSET_CACHE_SIZE, DEFAULT_ASSET_CACHE_SIZE);
+    return result > 0 ? result : DEFAULT_ASSET_CACHE_SIZE;
+  }
+
+  public static void setAssetCacheSize(int megabytes) {
+    prefs.putInt(KEY_ASSET_CACHE_SIZE, megabytes);
+  }
+
+  /**
+   * Returns how much decoded image data to keep in memory. Images used by the current map are kept
+   * regardless. Changes take effect on restart.
+   *
+   * @return the size of the image cache in megabytes.
+   */
+  public static int getImageCacheSize() {
+    int result = prefs.getInt(KEY_IMAGE_CACHE_SIZE, DEFAULT_IMAGE_CACHE_SIZE);
+    return result > 0 ? result : DEFAULT_IMAGE_CACHE_SIZE;
+  }
+
+  public static void setImageCacheSize(int megabytes) {
+    prefs.putInt(KEY_IMAGE_CACHE_SIZE, megabytes);
+  }
+
   public static String getDefaultMacroEditorTheme() {
     return prefs.get(MACRO_EDITOR_THEME, DEFAULT_MACRO_EDITOR_THEME);
   }
@@ -15,7 +15,9 @@
 package net.rptools.maptool.client;
 
 import java.io.File;
+import java.io.IOException;
 import javax.swing.*;
+import net.rptools.maptool.events.MapToolEventBus;
 import net.rptools.maptool.language.I18N;
 import net.rptools.maptool.model.Campaign;
 import net.rptools.maptool.util.PersistenceUtil;
@@ -25,6 +27,8 @@
 /**
  * @author tylere
  *     <p>Attempts to recover campaigns when the application crashes.
+ *     <p>Only the first autosave after the campaign is loaded or saved writes the whole campaign.
+ *     After that the changes are appended to a {@link CampaignJournal}.
  */
 public class AutoSaveManager {
 
@@ -32,12 +36,24 @@ public class AutoSaveManager {
 
   private Timer autoSaveTimer;
   private long lastAutoSave = -1;
+  private final CampaignJournal journal = new CampaignJournal();
 
   public static final File AUTOSAVE_FILE =
       new File(
           AppUtil.getAppHome("autosave"), // $NON-NLS-1$
           "AutoSave" + AppConstants.CAMPAIGN_FILE_EXTENSION);
 
+  public AutoSaveManager() {
+    new MapToolEventBus().getMainEventBus().register(journal);
+  }
+
+  /**
+   * @return the journal of changes since the campaign was last saved in full.
+   */
+  public CampaignJournal getJournal() {
+    return journal;
+  }
+
   /**
    * Queries the auto-save increment from {@link AppPreferences} and starts a new timer.
    *
@@ -89,8 +105,24 @@ private boolean executeAndContinue() {
       return true;
     }
 
+    if (journal.isFullSaveInProgress()) {
+      log.info("Delaying autosave until the campaign has been saved"); // $NON-NLS-1$
+      return true;
+    }
+
     MapTool.getFrame().setStatusMessage(I18N.getString("AutoSaveManager.status.autoSaving"));
 
+    if (!journal.needsFullSave(MapTool.getCampaign())) {
+      long startCopy = System.currentTimeMillis();
+      final CampaignJournal.Delta delta = journal.prepareDelta(MapTool.getCampaign());
+      log.info(
+          "Time to copy campaign changes (ms): "
+              + (System.currentTimeMillis() - startCopy)); // $NON-NLS-1$
+
+      new DeltaWorker(delta).execute();
+      return false;
+    }
+
     long startCopy = System.currentTimeMillis();
     // This occurs on the event dispatch thread, so it's ok to mess with the models.  (XXX Is this
     // true?  What about
@@ -101,22 +133,27 @@ private boolean executeAndContinue() {
     // NOTE: This is a cheesy way to clone the campaign, but it makes it so that I
     // don't have to keep all the various models' clone methods updated on each change.
     final Campaign campaign = new Campaign(MapTool.getCampaign());
+    final CampaignJournal.Changes changes = journal.beginFullSave(MapTool.getCampaign());
     log.info(
         "Time to copy Campaign object (ms): "
             + (System.currentTimeMillis() - startCopy)); // $NON-NLS-1$
 
-    new SaveWorker(campaign).execute();
+    new SaveWorker(campaign, changes).execute();
 
     return false;
   }
 
-  private class SaveWorker extends SwingWorker<String, String> {
+  private abstract class AutoSaveWorker extends SwingWorker<String, String> {
 
-    private Campaign campaign;
+    /** Writes the autosave. */
+    protected abstract void save() throws Exception;
 
-    private SaveWorker(Campaign campaign) {
-      this.campaign = campaign;
-    }
+    /**
+     * Called on the event dispatch thread once the autosave has finished.
+     *
+     * @param success whether the autosave was written.
+     */
+    protected abstract void saved(boolean success);
 
     @Override
     protected String doInBackground() throws Exception {
@@ -126,7 +163,7 @@ protected String doInBackground() throws Exception {
       try {
         long startSave = System.currentTimeMillis();
         log.info("Starting autosave..."); // $NON-NLS-1$
-        PersistenceUtil.saveCampaign(campaign, AUTOSAVE_FILE);
+        save();
         String msg =
             I18N.getText(
                 "AutoSaveManager.status.autoSaveComplete", System.currentTimeMillis() - startSave);
@@ -141,8 +178,11 @@ protected String doInBackground() throws Exception {
     @Override
     protected void done() {
 
+      boolean success = false;
       try {
-        MapTool.getFrame().setStatusMessage(get());
+        String msg = get();
+        success = true;
+        MapTool.getFrame().setStatusMessage(msg);
       } catch (Throwable t) {
         log.debug("Throwable during autosave: " + t.getCause());
         if (t.getCause() instanceof AppState.FailedToAcquireLockException)
@@ -150,15 +190,66 @@ protected void done() {
         else MapTool.showError("AutoSaveManager.failed", t.getCause());
       }
 
+      saved(success);
       next(true);
     }
   }
 
+  /** Saves the whole campaign to {@link #AUTOSAVE_FILE}, which the journal then builds on. */
+  private class SaveWorker extends AutoSaveWorker {
+
+    private final Campaign campaign;
+    private final CampaignJournal.Changes changes;
+
+    private SaveWorker(Campaign campaign, CampaignJournal.Changes changes) {
+      this.campaign = campaign;
+      this.changes = changes;
+    }
+
+    @Override
+    protected void save() throws Exception {
+      PersistenceUtil.saveCampaign(campaign, AUTOSAVE_FILE);
+    }
+
+    @Override
+    protected void saved(boolean success) {
+      if (success) {
+        journal.fullSaveSucceeded(AUTOSAVE_FILE, campaign.getId(), changes);
+      } else {
+        journal.fullSaveFailed(changes);
+      }
+    }
+  }
+
+  /** Appends the changes since the last autosave to the journal. */
+  private class DeltaWorker extends AutoSaveWorker {
+
+    private final CampaignJournal.Delta delta;
+
+    private DeltaWorker(CampaignJournal.Delta delta) {
+      this.delta = delta;
+    }
+
+    @Override
+    protected void save() throws Exception {
+      int records = journal.write(delta);
+      log.info("Wrote {} changes to the autosave journal", records); // $NON-NLS-1$
+    }
+
+    @Override
+    protected void saved(boolean success) {
+      if (!success) {
+        journal.deltaFailed(delta);
+      }
+    }
+  }
+
   /** Removes any autosaved files */
   public void purge() {
     if (AUTOSAVE_FILE.exists()) {
       AUTOSAVE_FILE.delete();
     }
+    journal.delete();
   }
 
   /** Removes the campaignFile if it's from Autosave, forcing to save as new */
@@ -167,10 +258,38 @@ public void tidy() {
       AppState.setCampaignFile(null);
     }
     purge();
+    if (MapTool.getCampaign() != null) {
+      journal.reset(AppState.getCampaignFile(), MapTool.getCampaign());
+    }
+  }
+
+  /**
+   * Carries on appending to the journal that the campaign was just recovered from, so that its
+   * changes are not lost if the application crashes again before the campaign is saved.
+   */
+  public void recovered() {
+    if (AUTOSAVE_FILE.equals(AppState.getCampaignFile())) {
+      AppState.setCampaignFile(null);
+    }
+    try {
+      journal.resume(MapTool.getCampaign());
+    } catch (IOException e) {
+      log.warn("Unable to resume the autosave journal", e); // $NON-NLS-1$
+      journal.delete();
+    }
   }
 
   /** Check to see if autosave recovery is necessary. */
   public boolean check() {
+    File journalBase = journal.getRecoveryFile();
+    if (journalBase != null) {
+      if (MapTool.confirm(
+          "msg.confirm.recoverAutosave", CampaignJournal.JOURNAL_FILE.lastModified())) {
+        AppActions.recoverCampaign(journalBase);
+        return true;
+      }
+      return false;
+    }
     if (AUTOSAVE_FILE.exists()) {
       boolean okay;
       okay = MapTool.confirm("msg.confirm.recoverAutosave", AUTOSAVE_FILE.lastModified());
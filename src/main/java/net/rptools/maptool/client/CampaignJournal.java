@@ -0,0 +1,999 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import com.google.common.eventbus.Subscribe;
+import com.thoughtworks.xstream.XStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+import net.rptools.lib.FileUtil;
+import net.rptools.lib.MD5Key;
+import net.rptools.maptool.model.Campaign;
+import net.rptools.maptool.model.CampaignProperties;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Grid;
+import net.rptools.maptool.model.MacroButtonProperties;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.gamedata.DataStoreManager;
+import net.rptools.maptool.model.gamedata.GameDataImporter;
+import net.rptools.maptool.model.gamedata.proto.GameDataDto;
+import net.rptools.maptool.model.zones.BoardChanged;
+import net.rptools.maptool.model.zones.DrawableAdded;
+import net.rptools.maptool.model.zones.DrawableChanged;
+import net.rptools.maptool.model.zones.DrawableRemoved;
+import net.rptools.maptool.model.zones.FogChanged;
+import net.rptools.maptool.model.zones.GridChanged;
+import net.rptools.maptool.model.zones.InitiativeListChanged;
+import net.rptools.maptool.model.zones.LabelAdded;
+import net.rptools.maptool.model.zones.LabelChanged;
+import net.rptools.maptool.model.zones.LabelRemoved;
+import net.rptools.maptool.model.zones.TokenEdited;
+import net.rptools.maptool.model.zones.TokensAdded;
+import net.rptools.maptool.model.zones.TokensChanged;
+import net.rptools.maptool.model.zones.TokensRemoved;
+import net.rptools.maptool.model.zones.TopologyChanged;
+import net.rptools.maptool.model.zones.ZoneAdded;
+import net.rptools.maptool.model.zones.ZoneReadFromCampaignFile;
+import net.rptools.maptool.model.zones.ZoneRemoved;
+import net.rptools.maptool.util.PersistenceUtil.PersistedCampaign;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Records the changes made to the campaign since it was last saved in full, so that autosave only
+ * has to write what has changed rather than the whole campaign.
+ *
+ * <p>The journal builds on a full save of the campaign, which is either the campaign file the user
+ * last loaded or saved, or the last full autosave. Zones and tokens are marked as dirty from the
+ * model events. Campaign properties, macros, game data and the settings of each zone have no
+ * events, so they are compared to what was last written instead. Each autosave appends the
+ * changed objects to the journal as one delta, which only counts once its commit record has been
+ * written. After a crash, the base file is loaded and the committed deltas are replayed on top of
+ * it.
+ *
+ * <p>Assets are not journaled, as any asset in use is already in the asset cache.
+ */
+public class CampaignJournal {
+
+  private static final Logger log = LogManager.getLogger(CampaignJournal.class);
+
+  public static final File JOURNAL_FILE =
+      new File(AppUtil.getAppHome("autosave"), "AutoSave.journal"); // $NON-NLS-1$
+
+  /** Once the journal is bigger than this the next autosave writes the whole campaign again. */
+  static final long MAX_JOURNAL_SIZE = 64L * 1024 * 1024;
+
+  private static final int MAGIC = 0x4d544a31; // "MTJ1"
+
+  private static final byte ZONE = 1;
+  private static final byte ZONE_REMOVED = 2;
+  private static final byte TOKEN = 3;
+  private static final byte TOKEN_REMOVED = 4;
+  private static final byte CAMPAIGN_PROPERTIES = 5;
+  private static final byte CAMPAIGN_MACROS = 6;
+  private static final byte GM_MACROS = 7;
+  private static final byte GAME_DATA = 8;
+  private static final byte GAME_DATA_REMOVED = 9;
+  private static final byte COMMIT = 10;
+
+  /** The zones and tokens that have changed since they were last written. */
+  public static final class Changes {
+    private final Set<GUID> zones = new HashSet<>();
+    private final Set<GUID> removedZones = new HashSet<>();
+    private final Map<GUID, Set<GUID>> tokens = new HashMap<>();
+    private final Map<GUID, Set<GUID>> removedTokens = new HashMap<>();
+
+    /** The settings of the zones as of a full save, from {@link #beginFullSave(Campaign)}. */
+    private Map<GUID, Integer> zoneSettings = new HashMap<>();
+
+    private void zoneChanged(GUID zoneId) {
+      removedZones.remove(zoneId);
+      zones.add(zoneId);
+    }
+
+    private void zoneRemoved(GUID zoneId) {
+      zones.remove(zoneId);
+      tokens.remove(zoneId);
+      removedTokens.remove(zoneId);
+      removedZones.add(zoneId);
+    }
+
+    private void tokenChanged(GUID zoneId, GUID tokenId) {
+      var removed = removedTokens.get(zoneId);
+      if (removed != null) {
+        removed.remove(tokenId);
+      }
+      tokens.computeIfAbsent(zoneId, id -> new HashSet<>()).add(tokenId);
+    }
+
+    private void tokenRemoved(GUID zoneId, GUID tokenId) {
+      var changed = tokens.get(zoneId);
+      if (changed != null) {
+        changed.remove(tokenId);
+      }
+      removedTokens.computeIfAbsent(zoneId, id -> new HashSet<>()).add(tokenId);
+    }
+
+    /**
+     * Applies changes that were made after these ones.
+     *
+     * @param later the later changes.
+     */
+    private void addAll(Changes later) {
+      later.removedZones.forEach(this::zoneRemoved);
+      later.zones.forEach(this::zoneChanged);
+      later.removedTokens.forEach((zoneId, ids) -> ids.forEach(id -> tokenRemoved(zoneId, id)));
+      later.tokens.forEach((zoneId, ids) -> ids.forEach(id -> tokenChanged(zoneId, id)));
+    }
+  }
+
+  /** Changes copied out of the campaign so they can be written to the journal in the background. */
+  public static final class Delta {
+    private final long generation;
+    private final Changes changes;
+    private final List<Zone> zones = new ArrayList<>();
+    private final Map<GUID, List<Token>> tokens = new HashMap<>();
+    private final Map<GUID, List<GUID>> removedTokens = new HashMap<>();
+    private final CampaignProperties campaignProperties;
+    private final List<MacroButtonProperties> macros;
+    private final List<MacroButtonProperties> gmMacros;
+    private Map<GUID, Integer> zoneSettings = new HashMap<>();
+
+    private Delta(long generation, Changes changes, Campaign campaign) {
+      this.generation = generation;
+      this.changes = changes;
+      campaignProperties = campaign.getCampaignProperties();
+      macros = new ArrayList<>(campaign.getMacroButtonPropertiesArray());
+      gmMacros = new ArrayList<>(campaign.getGmMacroButtonPropertiesArray());
+    }
+  }
+
+  private record Header(GUID campaignId, File baseFile, long baseModified, long baseLength) {}
+
+  private record GameDataKey(String type, String namespace) {}
+
+  /** A change read from the journal, applied once the rest of its delta has been read. */
+  private interface Change {
+    void apply(PersistedCampaign persisted) throws IOException;
+  }
+
+  private final File journalFile;
+  private @Nullable XStream xStream;
+
+  private @Nullable Header header;
+  private boolean headerWritten;
+  private long generation;
+  private int fullSavesInProgress;
+  private Changes changes = new Changes();
+
+  // What was last written, or null if it has not been written since the last full save.
+  private @Nullable MD5Key campaignPropertiesHash;
+  private @Nullable MD5Key macrosHash;
+  private @Nullable MD5Key gmMacrosHash;
+  private @Nullable Map<GameDataKey, MD5Key> gameDataHashes;
+
+  // The settings of each loaded zone as of the base file or the last delta.
+  private Map<GUID, Integer> zoneSettings = new HashMap<>();
+
+  public CampaignJournal() {
+    this(JOURNAL_FILE);
+  }
+
+  CampaignJournal(File journalFile) {
+    this.journalFile = journalFile;
+  }
+
+  private synchronized XStream getXStream() {
+    if (xStream == null) {
+      xStream = FileUtil.getConfiguredXStream();
+    }
+    return xStream;
+  }
+
+  /**
+   * Starts a new journal based on the campaign that was just loaded, discarding the old one. This
+   * must be called on the event dispatch thread, as it reads the live model.
+   *
+   * @param baseFile the file the campaign was loaded from, or {@code null} if it has not been
+   *     saved.
+   * @param campaign the campaign.
+   */
+  public void reset(@Nullable File baseFile, Campaign campaign) {
+    var settings = getZoneSettings(campaign);
+    synchronized (this) {
+      reset(baseFile, campaign.getId());
+      zoneSettings = settings;
+    }
+  }
+
+  private synchronized void reset(@Nullable File baseFile, GUID campaignId) {
+    generation++;
+    journalFile.delete();
+    headerWritten = false;
+    header =
+        baseFile == null
+            ? null
+            : new Header(
+                campaignId, baseFile.getAbsoluteFile(), baseFile.lastModified(), baseFile.length());
+    changes = new Changes();
+    campaignPropertiesHash = null;
+    macrosHash = null;
+    gmMacrosHash = null;
+    gameDataHashes = null;
+    zoneSettings = new HashMap<>();
+  }
+
+  /**
+   * Discards the journal, e.g. when the application is closed cleanly.
+   *
+   * <p>The journal is deleted rather than compacted into a full save, as it is only kept to recover
+   * from a crash. By the time the application closes cleanly the user has saved or discarded their
+   * changes, so there is nothing left to recover and a compacted copy would never be read.
+   */
+  public synchronized void delete() {
+    generation++;
+    journalFile.delete();
+    header = null;
+    headerWritten = false;
+  }
+
+  /**
+   * @param campaign the campaign about to be autosaved.
+   * @return {@code true} if the campaign must be saved in full, as the journal can't be used.
+   */
+  public synchronized boolean needsFullSave(Campaign campaign) {
+    if (header == null || !header.campaignId().equals(campaign.getId())) {
+      return true;
+    }
+    return !isBaseUnchanged(header) || journalFile.length() > MAX_JOURNAL_SIZE;
+  }
+
+  /**
+   * @return {@code true} if the campaign is being saved in full, during which no deltas are
+   *     written.
+   */
+  public synchronized boolean isFullSaveInProgress() {
+    return fullSavesInProgress > 0;
+  }
+
+  /**
+   * Called on the event dispatch thread as a full save of the campaign starts. Changes made from
+   * here on are tracked against the new save.
+   *
+   * @param campaign the campaign being saved.
+   * @return the changes that the save will include, to be passed back when it finishes.
+   */
+  public Changes beginFullSave(Campaign campaign) {
+    var settings = getZoneSettings(campaign);
+    synchronized (this) {
+      fullSavesInProgress++;
+      var saved = changes;
+      saved.zoneSettings = settings;
+      changes = new Changes();
+      return saved;
+    }
+  }
+
+  /**
+   * Starts a new journal based on a full save that has completed.
+   *
+   * @param file the file the campaign was saved to.
+   * @param campaignId the id of the campaign.
+   * @param saved the changes returned by {@link #beginFullSave(Campaign)}.
+   */
+  public synchronized void fullSaveSucceeded(File file, GUID campaignId, Changes saved) {
+    fullSavesInProgress--;
+    var later = changes;
+    reset(file, campaignId);
+    changes = later;
+    zoneSettings = saved.zoneSettings;
+  }
+
+  /**
+   * Keeps tracking the changes that a failed full save should have included.
+   *
+   * @param saved the changes returned by {@link #beginFullSave(Campaign)}.
+   */
+  public synchronized void fullSaveFailed(Changes saved) {
+    fullSavesInProgress--;
+    restore(saved);
+  }
+
+  /**
+   * Keeps tracking the changes in a delta that could not be written.
+   *
+   * @param delta the changes from {@link #prepareDelta(Campaign)}.
+   */
+  public void deltaFailed(Delta delta) {
+    restore(delta.changes);
+  }
+
+  private synchronized void restore(Changes saved) {
+    saved.addAll(changes);
+    changes = saved;
+  }
+
+  /**
+   * Copies everything that has changed out of the campaign. This must be called on the event
+   * dispatch thread, as it reads the live model.
+   *
+   * @param campaign the campaign being autosaved.
+   * @return the changes to pass to {@link #write(Delta)}.
+   */
+  public Delta prepareDelta(Campaign campaign) {
+    var settings = getZoneSettings(campaign);
+    Delta delta;
+    synchronized (this) {
+      delta = new Delta(generation, changes, campaign);
+      changes = new Changes();
+      // Zones with nothing to compare to, such as those read from the campaign file while a full
+      // save was running, are written too.
+      settings.forEach(
+          (zoneId, hash) -> {
+            if (!hash.equals(zoneSettings.get(zoneId))) {
+              delta.changes.zoneChanged(zoneId);
+            }
+          });
+    }
+    delta.zoneSettings = settings;
+
+    for (GUID zoneId : delta.changes.zones) {
+      Zone zone = campaign.getZone(zoneId);
+      if (zone != null) {
+        delta.zones.add(new Zone(zone, true));
+      }
+    }
+    delta.changes.removedTokens.forEach(
+        (zoneId, ids) -> {
+          if (!delta.changes.zones.contains(zoneId) && !ids.isEmpty()) {
+            delta.removedTokens.put(zoneId, new ArrayList<>(ids));
+          }
+        });
+    delta.changes.tokens.forEach(
+        (zoneId, ids) -> {
+          Zone zone = campaign.getZone(zoneId);
+          if (zone == null || delta.changes.zones.contains(zoneId)) {
+            return;
+          }
+          var copies = new ArrayList<Token>();
+          for (GUID id : ids) {
+            Token token = zone.getToken(id);
+            if (token != null) {
+              copies.add(new Token(token, true));
+            }
+          }
+          if (!copies.isEmpty()) {
+            delta.tokens.put(zoneId, copies);
+          }
+        });
+    return delta;
+  }
+
+  /**
+   * Appends a delta to the journal. If it can't be written, pass it to {@link
+   * #deltaFailed(Delta)} so that the next autosave tries again.
+   *
+   * @param delta the changes from {@link #prepareDelta(Campaign)}.
+   * @return the number of records written.
+   * @throws IOException if the journal could not be written.
+   */
+  public int write(Delta delta) throws IOException {
+    Header base;
+    boolean writeHeader;
+    Map<GameDataKey, MD5Key> oldGameDataHashes;
+    MD5Key oldPropertiesHash;
+    MD5Key oldMacrosHash;
+    MD5Key oldGmMacrosHash;
+    synchronized (this) {
+      if (delta.generation != generation || header == null) {
+        // The journal has been replaced since the changes were copied.
+        return 0;
+      }
+      base = header;
+      writeHeader = !headerWritten;
+      oldGameDataHashes = gameDataHashes;
+      oldPropertiesHash = campaignPropertiesHash;
+      oldMacrosHash = macrosHash;
+      oldGmMacrosHash = gmMacrosHash;
+    }
+
+    long length = writeHeader ? 0 : journalFile.length();
+    int records = 0;
+    try {
+      byte[] properties = toXml(delta.campaignProperties);
+      byte[] macros = toXml(delta.macros);
+      byte[] gmMacros = toXml(delta.gmMacros);
+      var propertiesHash = new MD5Key(properties);
+      var macrosHash = new MD5Key(macros);
+      var gmMacrosHash = new MD5Key(gmMacros);
+
+      var gameData = new HashMap<GameDataKey, byte[]>();
+      var gameDataHashes = new HashMap<GameDataKey, MD5Key>();
+      for (var data : new DataStoreManager().toDto().get().getDataList()) {
+        var key = new GameDataKey(data.getType(), data.getNamespace());
+        byte[] bytes = data.toByteArray();
+        var hash = new MD5Key(bytes);
+        gameDataHashes.put(key, hash);
+        if (oldGameDataHashes == null || !hash.equals(oldGameDataHashes.get(key))) {
+          gameData.put(key, bytes);
+        }
+      }
+      var removedGameData = new ArrayList<GameDataKey>();
+      if (oldGameDataHashes != null) {
+        for (var key : oldGameDataHashes.keySet()) {
+          if (!gameDataHashes.containsKey(key)) {
+            removedGameData.add(key);
+          }
+        }
+      }
+
+      boolean empty =
+          delta.changes.removedZones.isEmpty()
+              && delta.zones.isEmpty()
+              && delta.removedTokens.isEmpty()
+              && delta.tokens.isEmpty()
+              && propertiesHash.equals(oldPropertiesHash)
+              && macrosHash.equals(oldMacrosHash)
+              && gmMacrosHash.equals(oldGmMacrosHash)
+              && gameData.isEmpty()
+              && removedGameData.isEmpty();
+      if (empty) {
+        return 0;
+      }
+
+      try (var out =
+          new DataOutputStream(
+              new BufferedOutputStream(new FileOutputStream(journalFile, !writeHeader)))) {
+        if (writeHeader) {
+          writeHeader(out, base);
+        }
+        for (GUID zoneId : delta.changes.removedZones) {
+          writeRecord(out, ZONE_REMOVED, data -> data.writeUTF(zoneId.toString()));
+          records++;
+        }
+        for (Zone zone : delta.zones) {
+          writeRecord(out, ZONE, data -> writeXml(data, zone));
+          records++;
+        }
+        for (var entry : delta.removedTokens.entrySet()) {
+          for (GUID tokenId : entry.getValue()) {
+            writeRecord(
+                out,
+                TOKEN_REMOVED,
+                data -> {
+                  data.writeUTF(entry.getKey().toString());
+                  data.writeUTF(tokenId.toString());
+                });
+            records++;
+          }
+        }
+        for (var entry : delta.tokens.entrySet()) {
+          for (Token token : entry.getValue()) {
+            writeRecord(
+                out,
+                TOKEN,
+                data -> {
+                  data.writeUTF(entry.getKey().toString());
+                  writeXml(data, token);
+                });
+            records++;
+          }
+        }
+        if (!propertiesHash.equals(oldPropertiesHash)) {
+          writeRecord(out, CAMPAIGN_PROPERTIES, data -> data.write(properties));
+          records++;
+        }
+        if (!macrosHash.equals(oldMacrosHash)) {
+          writeRecord(out, CAMPAIGN_MACROS, data -> data.write(macros));
+          records++;
+        }
+        if (!gmMacrosHash.equals(oldGmMacrosHash)) {
+          writeRecord(out, GM_MACROS, data -> data.write(gmMacros));
+          records++;
+        }
+        for (var entry : gameData.entrySet()) {
+          writeRecord(out, GAME_DATA, data -> data.write(entry.getValue()));
+          records++;
+        }
+        for (var key : removedGameData) {
+          writeRecord(
+              out,
+              GAME_DATA_REMOVED,
+              data -> {
+                data.writeUTF(key.type());
+                data.writeUTF(key.namespace());
+              });
+          records++;
+        }
+        writeRecord(out, COMMIT, data -> {});
+      }
+
+      synchronized (this) {
+        if (delta.generation == generation) {
+          headerWritten = true;
+          campaignPropertiesHash = propertiesHash;
+          this.macrosHash = macrosHash;
+          this.gmMacrosHash = gmMacrosHash;
+          this.gameDataHashes = gameDataHashes;
+          zoneSettings = delta.zoneSettings;
+        }
+      }
+      return records;
+    } catch (IOException | RuntimeException | ExecutionException | InterruptedException e) {
+      // Drop whatever part of the delta made it into the journal, and try again next time.
+      if (writeHeader) {
+        journalFile.delete();
+      } else if (journalFile.exists()) {
+        try (var file = new RandomAccessFile(journalFile, "rw")) {
+          file.setLength(length);
+        }
+      }
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      throw e instanceof IOException ioe ? ioe : new IOException(e);
+    }
+  }
+
+  /**
+   * @return the file the journal is based on, or {@code null} if there is no journal that can be
+   *     recovered.
+   */
+  public @Nullable File getRecoveryFile() {
+    if (!journalFile.isFile()) {
+      return null;
+    }
+    try (var in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+      var header = readHeader(in);
+      return isBaseUnchanged(header) ? header.baseFile() : null;
+    } catch (IOException e) {
+      log.warn("Ignoring unreadable autosave journal", e);
+      return null;
+    }
+  }
+
+  /**
+   * Applies the committed deltas in the journal to the campaign loaded from its base file. Any
+   * partly written delta at the end of the journal is discarded, as is everything from a record
+   * whose length is impossible.
+   *
+   * @param persisted the campaign loaded from the base file.
+   * @throws IOException if the journal could not be read, or is for another campaign.
+   */
+  public void replay(PersistedCampaign persisted) throws IOException {
+    long length = journalFile.length();
+    long committed;
+    int deltas = 0;
+    try (var in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+      var header = readHeader(in);
+      if (!header.campaignId().equals(persisted.campaign.getId())) {
+        throw new IOException("Autosave journal is for a different campaign");
+      }
+      committed = 2 * Integer.BYTES + headerSize(header);
+      long position = committed;
+      var pending = new ArrayList<Change>();
+      while (true) {
+        byte type;
+        byte[] payload;
+        try {
+          type = in.readByte();
+          int size = in.readInt();
+          if (size < 0 || size > length - position - 1 - Integer.BYTES) {
+            // A torn or corrupt record, so nothing from here on can be trusted either.
+            break;
+          }
+          payload = new byte[size];
+          in.readFully(payload);
+        } catch (EOFException e) {
+          break;
+        }
+        position += 1 + Integer.BYTES + payload.length;
+        if (type == COMMIT) {
+          for (Change change : pending) {
+            change.apply(persisted);
+          }
+          pending.clear();
+          committed = position;
+          deltas++;
+        } else {
+          pending.add(readRecord(type, payload));
+        }
+      }
+    }
+    try (var file = new RandomAccessFile(journalFile, "rw")) {
+      file.setLength(committed);
+    }
+    log.info("Replayed {} autosave deltas", deltas); // $NON-NLS-1$
+  }
+
+  /**
+   * Carries on appending to the journal that the campaign was just recovered from. This must be
+   * called on the event dispatch thread, as it reads the live model.
+   *
+   * @param campaign the recovered campaign.
+   * @throws IOException if the journal could not be read.
+   */
+  public void resume(Campaign campaign) throws IOException {
+    var settings = getZoneSettings(campaign);
+    synchronized (this) {
+      resume();
+      zoneSettings = settings;
+    }
+  }
+
+  private synchronized void resume() throws IOException {
+    try (var in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+      header = readHeader(in);
+    }
+    generation++;
+    headerWritten = true;
+    changes = new Changes();
+    campaignPropertiesHash = null;
+    macrosHash = null;
+    gmMacrosHash = null;
+    gameDataHashes = null;
+  }
+
+  private Change readRecord(byte type, byte[] payload) throws IOException {
+    try (var data =
+        new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+      switch (type) {
+        case ZONE -> {
+          var zone = (Zone) readXml(data);
+          return persisted -> {
+            zone.optimize();
+            persisted.campaign.putZone(zone);
+          };
+        }
+        case ZONE_REMOVED -> {
+          var zoneId = new GUID(data.readUTF());
+          return persisted -> {
+            persisted.campaign.removeZone(zoneId);
+            if (zoneId.equals(persisted.currentZoneId)) {
+              persisted.currentZoneId = null;
+            }
+          };
+        }
+        case TOKEN -> {
+          var zoneId = new GUID(data.readUTF());
+          var token = (Token) readXml(data);
+          return persisted -> {
+            Zone zone = persisted.campaign.getZone(zoneId);
+            if (zone != null) {
+              zone.putToken(token);
+            }
+          };
+        }
+        case TOKEN_REMOVED -> {
+          var zoneId = new GUID(data.readUTF());
+          var tokenId = new GUID(data.readUTF());
+          return persisted -> {
+            Zone zone = persisted.campaign.getZone(zoneId);
+            if (zone != null) {
+              zone.removeToken(tokenId);
+            }
+          };
+        }
+        case CAMPAIGN_PROPERTIES -> {
+          var properties = (CampaignProperties) readXml(data);
+          return persisted -> persisted.campaign.replaceCampaignProperties(properties);
+        }
+        case CAMPAIGN_MACROS -> {
+          @SuppressWarnings("unchecked")
+          var macros = (List<MacroButtonProperties>) readXml(data);
+          return persisted -> persisted.campaign.setMacroButtonPropertiesArray(macros);
+        }
+        case GM_MACROS -> {
+          @SuppressWarnings("unchecked")
+          var macros = (List<MacroButtonProperties>) readXml(data);
+          return persisted -> persisted.campaign.setGmMacroButtonPropertiesArray(macros);
+        }
+        case GAME_DATA -> {
+          var gameData = GameDataDto.parseFrom(data);
+          return persisted -> {
+            var dataStore = new DataStoreManager().getDefaultDataStore();
+            try {
+              dataStore.clearNamespace(gameData.getType(), gameData.getNamespace()).get();
+              new GameDataImporter(dataStore).importData(gameData);
+            } catch (ExecutionException | InterruptedException e) {
+              throw new IOException(e);
+            }
+          };
+        }
+        case GAME_DATA_REMOVED -> {
+          var key = new GameDataKey(data.readUTF(), data.readUTF());
+          return persisted -> {
+            try {
+              new DataStoreManager()
+                  .getDefaultDataStore()
+                  .clearNamespace(key.type(), key.namespace())
+                  .get();
+            } catch (ExecutionException | InterruptedException e) {
+              throw new IOException(e);
+            }
+          };
+        }
+        default -> throw new IOException("Unknown autosave journal record " + type);
+      }
+    }
+  }
+
+  private boolean isBaseUnchanged(Header header) {
+    File base = header.baseFile();
+    return base.isFile()
+        && base.lastModified() == header.baseModified()
+        && base.length() == header.baseLength();
+  }
+
+  private static byte[] headerBytes(Header header) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var data = new DataOutputStream(bytes)) {
+      data.writeUTF(header.campaignId().toString());
+      data.writeUTF(header.baseFile().getPath());
+      data.writeLong(header.baseModified());
+      data.writeLong(header.baseLength());
+    }
+    return bytes.toByteArray();
+  }
+
+  private static int headerSize(Header header) throws IOException {
+    return headerBytes(header).length;
+  }
+
+  private static void writeHeader(DataOutputStream out, Header header) throws IOException {
+    byte[] bytes = headerBytes(header);
+    out.writeInt(MAGIC);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static Header readHeader(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not an autosave journal");
+    }
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    try (var data = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      return new Header(
+          new GUID(data.readUTF()), new File(data.readUTF()), data.readLong(), data.readLong());
+    }
+  }
+
+  private interface RecordWriter {
+    void write(DataOutputStream data) throws IOException;
+  }
+
+  private static void writeRecord(DataOutputStream out, byte type, RecordWriter writer)
+      throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var data = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+      writer.write(data);
+    }
+    out.writeByte(type);
+    out.writeInt(bytes.size());
+    bytes.writeTo(out);
+  }
+
+  private byte[] toXml(Object object) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var data = new DataOutputStream(bytes)) {
+      writeXml(data, object);
+    }
+    return bytes.toByteArray();
+  }
+
+  private void writeXml(DataOutputStream data, Object object) throws IOException {
+    var writer = new OutputStreamWriter(data, StandardCharsets.UTF_8);
+    getXStream().toXML(object, writer);
+    writer.flush();
+  }
+
+  private Object readXml(InputStream in) {
+    return getXStream().fromXML(new InputStreamReader(in, StandardCharsets.UTF_8));
+  }
+
+  private static Map<GUID, Integer> getZoneSettings(Campaign campaign) {
+    var settings = new HashMap<GUID, Integer>();
+    for (Zone zone : campaign.getLoadedZones()) {
+      settings.put(zone.getId(), getZoneSettings(zone));
+    }
+    return settings;
+  }
+
+  /**
+   * @param zone the zone.
+   * @return a hash of the zone's settings, such as its name, visibility, lighting and fog, which
+   *     are changed without posting an event.
+   */
+  private static int getZoneSettings(Zone zone) {
+    Grid grid = zone.getGrid();
+    return Objects.hash(
+        zone.getName(),
+        zone.getPlayerAlias(),
+        zone.isVisible(),
+        zone.getVisionType(),
+        zone.getLightingStyle(),
+        zone.getTokenSelection(),
+        zone.getTokenVisionDistance(),
+        zone.hasFog(),
+        zone.getFogResolution(),
+        zone.getFogPaint(),
+        zone.getBackgroundPaint(),
+        zone.getMapAssetId(),
+        zone.getBoardX(),
+        zone.getBoardY(),
+        zone.drawBoard(),
+        zone.getImageScaleX(),
+        zone.getImageScaleY(),
+        zone.getUnitsPerCell(),
+        zone.getAStarRounding(),
+        zone.getTopologyTypes().toString(),
+        zone.getWaypointExposureToggle(),
+        zone.getWidth(),
+        zone.getHeight(),
+        zone.getGridColor(),
+        grid == null
+            ? null
+            : List.of(grid.getClass(), grid.getSize(), grid.getOffsetX(), grid.getOffsetY()));
+  }
+
+  private synchronized void zoneChanged(Zone zone) {
+    if (MapTool.isCampaignZone(zone)) {
+      changes.zoneChanged(zone.getId());
+    }
+  }
+
+  private synchronized void tokensChanged(Zone zone, List<Token> tokens) {
+    if (MapTool.isCampaignZone(zone)) {
+      for (Token token : tokens) {
+        changes.tokenChanged(zone.getId(), token.getId());
+      }
+    }
+  }
+
+  @Subscribe
+  void tokensAdded(TokensAdded event) {
+    tokensChanged(event.zone(), event.tokens());
+  }
+
+  @Subscribe
+  void tokensChanged(TokensChanged event) {
+    tokensChanged(event.zone(), event.tokens());
+  }
+
+  @Subscribe
+  void tokenEdited(TokenEdited event) {
+    tokensChanged(event.zone(), List.of(event.token()));
+  }
+
+  @Subscribe
+  synchronized void tokensRemoved(TokensRemoved event) {
+    if (MapTool.isCampaignZone(event.zone())) {
+      for (Token token : event.tokens()) {
+        changes.tokenRemoved(event.zone().getId(), token.getId());
+      }
+    }
+  }
+
+  @Subscribe
+  void zoneAdded(ZoneAdded event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  synchronized void zoneReadFromCampaignFile(ZoneReadFromCampaignFile event) {
+    // It is as it was in the campaign file until it is changed.
+    if (event.campaign() == MapTool.getCampaign()) {
+      zoneSettings.putIfAbsent(event.zone().getId(), getZoneSettings(event.zone()));
+    }
+  }
+
+  @Subscribe
+  synchronized void zoneRemoved(ZoneRemoved event) {
+    Campaign campaign = MapTool.getCampaign();
+    if (campaign != null && campaign.getZone(event.zone().getId()) == null) {
+      changes.zoneRemoved(event.zone().getId());
+    }
+  }
+
+  @Subscribe
+  void drawableAdded(DrawableAdded event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  void drawableChanged(DrawableChanged event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  void drawableRemoved(DrawableRemoved event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  void labelAdded(LabelAdded event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  void labelChanged(LabelChanged event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  void labelRemoved(LabelRemoved event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  void fogChanged(FogChanged event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  void gridChanged(GridChanged event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  void boardChanged(BoardChanged event) {
+    zoneChanged(event.zone());
+  }
+
+  @Subscribe
+  void topologyChanged(TopologyChanged event) {
+    // Changes to token topology are picked up with the token.
+    if (event.area() != null) {
+      zoneChanged(event.zone());
+    }
+  }
+
+  @Subscribe
+  void initiativeListChanged(InitiativeListChanged event) {
+    if (event.initiativeList().getZone() != null) {
+      zoneChanged(event.initiativeList().getZone());
+    }
+  }
+}
@@ -41,6 +41,12 @@ public enum Toggle {
 
     /** When enabled, recalculates the grid shape each time it is needed. */
     IgnoreGridShapeCache("ignoreGridShapeCache"),
+
+    /**
+     * When enabled, saves each map in its own entry in the campaign file, so that maps are only
+     * loaded once they are needed.
+     */
+    SaveZonesSeparately("saveZonesSeparately"),
     ;
 
     private final String key;
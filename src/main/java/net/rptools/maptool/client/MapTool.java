@@ -89,6 +89,7 @@
 import net.rptools.maptool.model.TextMessage;
 import net.rptools.maptool.model.Zone;
 import net.rptools.maptool.model.ZoneFactory;
+import net.rptools.maptool.model.ZoneSummary;
 import net.rptools.maptool.model.library.LibraryManager;
 import net.rptools.maptool.model.library.url.LibraryURLStreamHandler;
 import net.rptools.maptool.model.player.LocalPlayer;
@@ -880,6 +881,21 @@ public static Campaign getCampaign() {
     return client.getCampaign();
   }
 
+  /**
+   * Model events are also posted for zones that are not the client's own, such as those of the
+   * server's copy of the campaign or of copies made for saving. Subscribers that update the UI use
+   * this to ignore them.
+   *
+   * @param zone the zone an event was posted for.
+   * @return {@code true} if {@code zone} is a loaded zone of the current campaign.
+   */
+  public static boolean isCampaignZone(Zone zone) {
+    Campaign campaign = getCampaign();
+    return campaign != null
+        && campaign.isZoneLoaded(zone.getId())
+        && campaign.getZone(zone.getId()) == zone;
+  }
+
   public static MapToolLineParser getParser() {
     return parser;
   }
@@ -899,8 +915,10 @@ public static void setCampaign(Campaign campaign, GUID defaultRendererId) {
     clientFrame.getInitiativePanel().setZone(null);
     clientFrame.clearTokenTree();
 
-    // Install new campaign
-    for (Zone zone : campaign.getZones()) {
+    // Install new campaign. Zones that are still in the campaign file are left there until they
+    // are opened, apart from the one to show and any holding library tokens, which get their
+    // renderers as they are read.
+    for (Zone zone : campaign.getLoadedZones()) {
       ZoneRenderer renderer = ZoneRendererFactory.newRenderer(zone);
       clientFrame.addZoneRenderer(renderer);
       if ((currRenderer == null || zone.getId().equals(defaultRendererId))
@@ -911,6 +929,21 @@ public static void setCampaign(Campaign campaign, GUID defaultRendererId) {
       // Now we have fire off adding the tokens in the zone
       new MapToolEventBus().getMainEventBus().post(new TokensAdded(zone, zone.getAllTokens()));
     }
+    if (defaultRendererId != null && !campaign.isZoneLoaded(defaultRendererId)) {
+      ZoneRenderer renderer = loadZone(defaultRendererId);
+      if (renderer != null && (getPlayer().isGM() || renderer.getZone().isVisible())) {
+        currRenderer = renderer;
+      }
+    }
+    campaign.getZones(ZoneSummary::hasLibraryTokens);
+    if (currRenderer == null) {
+      for (ZoneSummary summary : campaign.getUnloadedZones()) {
+        if (getPlayer().isGM() || summary.isVisible()) {
+          currRenderer = loadZone(summary.getId());
+          break;
+        }
+      }
+    }
     clientFrame.setCurrentZoneRenderer(currRenderer);
     clientFrame.getInitiativePanel().setOwnerPermissions(campaign.isInitiativeOwnerPermissions());
     clientFrame.getInitiativePanel().setMovementLock(campaign.isInitiativeMovementLock());
@@ -1062,6 +1095,40 @@ public static List<String> getGMs() {
     return gms;
   }
 
+  /**
+   * Gets the renderer for a zone of the current campaign, reading the zone from the campaign file
+   * first if it has not been loaded yet. This must be called on the event dispatch thread.
+   *
+   * @param zoneId the id of the zone.
+   * @return the renderer, or {@code null} if there is no such zone or it could not be read.
+   */
+  public static @Nullable ZoneRenderer loadZone(GUID zoneId) {
+    Zone zone = getCampaign().getZone(zoneId);
+    // Reading the zone has already given it a renderer, unless another thread read it first.
+    return zone == null ? null : clientFrame.addLoadedZone(zone);
+  }
+
+  /**
+   * Gets the renderer for the first zone of the current campaign with the given name, reading the
+   * zone from the campaign file if no loaded zone has that name. This must be called on the event
+   * dispatch thread.
+   *
+   * @param zoneName the name of the zone.
+   * @return the renderer, or {@code null} if there is no such zone or it could not be read.
+   */
+  public static @Nullable ZoneRenderer loadZone(String zoneName) {
+    ZoneRenderer renderer = clientFrame.getZoneRenderer(zoneName);
+    if (renderer != null) {
+      return renderer;
+    }
+    for (ZoneSummary summary : getCampaign().getUnloadedZones()) {
+      if (zoneName.equals(summary.getName())) {
+        return loadZone(summary.getId());
+      }
+    }
+    return null;
+  }
+
   public static void removeZone(Zone zone) {
     MapTool.serverCommand().removeZone(zone.getId());
     MapTool.getFrame().removeZoneRenderer(MapTool.getFrame().getZoneRenderer(zone.getId()));
@@ -1078,7 +1145,7 @@ public static void addZone(Zone zone) {
 
   public static void addZone(Zone zone, boolean changeZone) {
     Zone zoneToRemove = null;
-    if (getCampaign().getZones().size() == 1) {
+    if (getCampaign().getZoneCount() == 1) {
       // Remove the default map
       Zone singleZone = getCampaign().getZones().get(0);
       if (ZoneFactory.DEFAULT_MAP_NAME.equals(singleZone.getName()) && singleZone.isEmpty()) {
@@ -1333,7 +1400,7 @@ else if (AppPreferences.getLoadMRUCampaignAtStart()) {
    */
   public static boolean isCampaignDirty() {
     // TODO: This is a very naive check, but it's better than nothing
-    if (getCampaign().getZones().size() == 1) {
+    if (getCampaign().getZoneCount() == 1) {
       Zone singleZone = MapTool.getCampaign().getZones().get(0);
       if (ZoneFactory.DEFAULT_MAP_NAME.equals(singleZone.getName()) && singleZone.isEmpty()) {
         return false;
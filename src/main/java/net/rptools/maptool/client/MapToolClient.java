@@ -256,6 +256,13 @@ public void setServerPolicy(ServerPolicy serverPolicy) {
     this.serverPolicy = new ServerPolicy(serverPolicy);
   }
 
+  /**
+   * @return the server running in this process, or {@code null} if connected to a remote server.
+   */
+  public @Nullable MapToolServer getLocalServer() {
+    return localServer;
+  }
+
   public Campaign getCampaign() {
     return this.campaign;
   }
@@ -22,6 +22,7 @@
 import net.rptools.maptool.client.ui.ActivityMonitorPanel;
 import net.rptools.maptool.model.player.LocalPlayer;
 import net.rptools.maptool.server.Handshake;
+import net.rptools.maptool.server.MessageCoalescing;
 import net.rptools.maptool.server.proto.Message;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -107,6 +108,6 @@ public void close() {
 
   public void sendMessage(Message msg) {
     log.debug("{} sent {}", player.getName(), msg.getMessageTypeCase());
-    connection.sendMessage(msg.toByteArray());
+    connection.sendMessage(null, MessageCoalescing.keyFor(msg), msg.toByteArray());
   }
 }
@@ -14,6 +14,8 @@
  */
 package net.rptools.maptool.client;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import java.math.BigDecimal;
@@ -28,12 +30,12 @@
 import net.rptools.maptool.client.ui.htmlframe.HTMLFrameFactory;
 import net.rptools.maptool.client.ui.htmlframe.HTMLFrameFactory.FrameType;
 import net.rptools.maptool.client.ui.macrobuttons.buttons.MacroButtonPrefs;
-import net.rptools.maptool.client.ui.zone.renderer.ZoneRenderer;
 import net.rptools.maptool.language.I18N;
 import net.rptools.maptool.model.MacroButtonProperties;
 import net.rptools.maptool.model.Token;
 import net.rptools.maptool.model.Zone;
 import net.rptools.maptool.model.library.LibraryManager;
+import net.rptools.maptool.model.library.token.LibraryTokenIndex;
 import net.rptools.parser.ParserException;
 import net.rptools.parser.function.Function;
 import org.apache.commons.lang.StringUtils;
@@ -79,16 +81,16 @@ public class MapToolLineParser {
   private int maxLoopIterations = DEFAULT_MAX_LOOP_ITERATIONS;
 
   /** The dice rolls that occurred. */
-  private List<Integer> lastRolled = new LinkedList<>();
+  private final Rolls lastRolled = new Rolls();
 
   /** The dice rolls that occurred in the previous parse this one. */
-  private List<Integer> rolled = new LinkedList<>();
+  private final Rolls rolled = new Rolls();
 
   /**
    * The dice rolls that occurred since either start of the macro or the previous time {@link
    * #getNewRolls()} was called.
    */
-  private List<Integer> newRolls = new LinkedList<>();
+  private final Rolls newRolls = new Rolls();
 
   private enum Output { // Mutually exclusive output formats
     NONE,
@@ -134,6 +136,76 @@ private enum ScanState {
     SKIP_NEXT_CHAR
   }
 
+  /**
+   * The inline rolls found in each line that has been parsed. Finding them only depends on the
+   * text, so loops and macros that run the same text again skip the scan.
+   */
+  private static final Cache<String, List<InlineRollMatch>> INLINE_ROLL_CACHE =
+      CacheBuilder.newBuilder().softValues().build();
+
+  /** Matches any text not containing a ";" (skipping over strings). */
+  private static final String NO_CODE_BRANCH_REGEX = "((?:[^\";]|\"[^\"]*\"|'[^']*')*)";
+
+  /**
+   * Matches text inside braces "{...}", skipping over strings (one level of {} nesting allowed).
+   */
+  private static final String CODE_BRANCH_REGEX =
+      "\\{((?:[^{}\"]|\"[^\"]*\"|'[^']*'|\\{(?:[^}\"]|\"[^\"]*\"|'[^']*')*})*)}";
+
+  /** The patterns used to split the body of a roll into branches without code blocks. */
+  private static final BranchPatterns NO_CODE_BRANCHES = new BranchPatterns(NO_CODE_BRANCH_REGEX);
+
+  /** The patterns used to split the body of a roll into code block branches. */
+  private static final BranchPatterns CODE_BRANCHES = new BranchPatterns(CODE_BRANCH_REGEX);
+
+  /**
+   * The compiled patterns for extracting the branches of a roll body. branchRegex defines one
+   * matcher group for the parseable content of the branch.
+   */
+  private static class BranchPatterns {
+    /** Separates the branches. */
+    private static final String BRANCH_SEP_REGEX = ";";
+
+    /** The last clause doesn't have to end with a separator. */
+    private static final String BRANCH_LAST_SEP_REGEX = ";?";
+
+    /**
+     * Matches 'default', 'case 123:', 'case "123":', 'case "abc":', but not 'case abc:' in front of
+     * a branch.
+     */
+    private static final String CASE_REGEX =
+        "(?:case\\s*\"?((?<!\")(?:\\+|-)?[\\d]+(?!\")|(?<=\")[^\"]*(?=\"))\"?|(default))\\s*:\\s*";
+
+    /** Matches a body with only one branch. */
+    final Pattern single;
+
+    /** Matches the one or two branches of an IF. */
+    final Pattern ifElse;
+
+    /** Checks that the body of a SWITCH is well-formed. */
+    final Pattern switchTest;
+
+    /** Finds each case of a SWITCH in turn. */
+    final Pattern switchScan;
+
+    BranchPatterns(String branchRegex) {
+      single = Pattern.compile(String.format("^\\s*%s\\s*$", branchRegex));
+      ifElse =
+          Pattern.compile(
+              String.format(
+                  "^\\s*%s\\s*(?:%s\\s*%s\\s*%s)?\\s*$",
+                  branchRegex, BRANCH_SEP_REGEX, branchRegex, BRANCH_LAST_SEP_REGEX));
+      String caseRegex = CASE_REGEX + branchRegex;
+      switchTest =
+          Pattern.compile(
+              String.format(
+                  "^(?:\\s*%s\\s*%s\\s*)*\\s*%s\\s*%s\\s*$",
+                  caseRegex, BRANCH_SEP_REGEX, caseRegex, BRANCH_LAST_SEP_REGEX));
+      switchScan =
+          Pattern.compile(String.format("\\s*%s\\s*(?:%s)?", caseRegex, BRANCH_SEP_REGEX));
+    }
+  }
+
   public Map<String, String> listAllMacroFunctions() {
     Map<String, String> functionList = new HashMap<String, String>();
 
@@ -152,19 +224,75 @@ public Map<String, String> listAllMacroFunctions() {
     return functionList;
   }
 
+  /**
+   * A list of dice rolls kept in a growable int array, so that recording a roll does not allocate.
+   * The generation changes whenever the list does, so callers can tell if it was changed by a
+   * nested parse without keeping a copy of it.
+   */
+  private static class Rolls {
+    private int[] values = new int[16];
+    private int size = 0;
+    private int generation = 0;
+
+    void addAll(List<Integer> rolls) {
+      if (rolls.isEmpty()) {
+        return;
+      }
+      ensureCapacity(size + rolls.size());
+      for (int roll : rolls) {
+        values[size++] = roll;
+      }
+      generation++;
+    }
+
+    void addAll(Rolls rolls) {
+      if (rolls.size == 0) {
+        return;
+      }
+      ensureCapacity(size + rolls.size);
+      System.arraycopy(rolls.values, 0, values, size, rolls.size);
+      size += rolls.size;
+      generation++;
+    }
+
+    void clear() {
+      if (size > 0) {
+        size = 0;
+        generation++;
+      }
+    }
+
+    int getGeneration() {
+      return generation;
+    }
+
+    List<Integer> toList() {
+      var list = new ArrayList<Integer>(size);
+      for (int i = 0; i < size; i++) {
+        list.add(values[i]);
+      }
+      return Collections.unmodifiableList(list);
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > values.length) {
+        values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+      }
+    }
+  }
+
   // Class to hold the inline rolls and where they start and end.
   private static class InlineRollMatch {
     final int start;
     final int end;
     final String match;
     final int optEnd;
+    final String opt;
+    final String roll;
 
     @SuppressWarnings("unused")
     InlineRollMatch(int start, int end, String match) {
-      this.start = start;
-      this.end = end;
-      this.match = match;
-      this.optEnd = -1;
+      this(start, end, match, -1);
     }
 
     InlineRollMatch(int start, int end, String match, int optEnd) {
@@ -172,6 +300,14 @@ private static class InlineRollMatch {
       this.end = end;
       this.match = match;
       this.optEnd = optEnd;
+      // Matches are cached and reused, so split the options from the roll once up front.
+      if (optEnd > 0) {
+        this.opt = match.substring(1, optEnd - start);
+        this.roll = match.substring(optEnd + 1 - start, end - start);
+      } else {
+        this.opt = "";
+        this.roll = match.substring(1, end - start);
+      }
     }
 
     public int getStart() {
@@ -192,19 +328,11 @@ public int getOptEnd() {
     }
 
     public String getOpt() {
-      if (optEnd > 0) {
-        return match.substring(1, optEnd - start);
-      } else {
-        return "";
-      }
+      return opt;
     }
 
     public String getRoll() {
-      if (optEnd > 0) {
-        return match.substring(optEnd + 1 - start, end - start);
-      } else {
-        return match.substring(1, end - start);
-      }
+      return roll;
     }
   }
 
@@ -688,25 +816,10 @@ public String parseLine(
               }
             }
 
-            // Set up regexes for scanning through the branches.
-            // branchRegex then defines one matcher group for the parseable content of the branch.
+            // Pick the patterns for scanning through the branches.
             String rollBranch = roll;
-            String branchRegex, branchSepRegex, branchLastSepRegex;
-            if (codeType != CodeType.CODEBLOCK) {
-              // matches any text not containing a ";" (skipping over strings)
-              String noCodeRegex = "((?:[^\";]|\"[^\"]*\"|'[^']*')*)";
-              branchRegex = noCodeRegex;
-              branchSepRegex = ";";
-              branchLastSepRegex = ";?"; // The last clause doesn't have to end with a separator
-            } else {
-              // matches text inside braces "{...}", skipping over strings (one level of {} nesting
-              // allowed)
-              String codeRegex =
-                  "\\{((?:[^{}\"]|\"[^\"]*\"|'[^']*'|\\{(?:[^}\"]|\"[^\"]*\"|'[^']*')*})*)}";
-              branchRegex = codeRegex;
-              branchSepRegex = ";";
-              branchLastSepRegex = ";?"; // The last clause doesn't have to end with a separator
-            }
+            BranchPatterns branchPatterns =
+                codeType != CodeType.CODEBLOCK ? NO_CODE_BRANCHES : CODE_BRANCHES;
 
             // Extract the branch to use
             switch (branchType) {
@@ -716,8 +829,7 @@ public String parseLine(
               case NO_BRANCH:
                 {
                   // There's only one branch, so our regex is very simple
-                  String testRegex = String.format("^\\s*%s\\s*$", branchRegex);
-                  Matcher testMatcher = Pattern.compile(testRegex).matcher(roll);
+                  Matcher testMatcher = branchPatterns.single.matcher(roll);
                   if (testMatcher.find()) {
                     rollBranch = testMatcher.group(1);
                   } else {
@@ -739,11 +851,7 @@ public String parseLine(
                         roll);
                   }
                   int whichBranch = (branchConditionValue != 0) ? 0 : 1;
-                  String testRegex =
-                      String.format(
-                          "^\\s*%s\\s*(?:%s\\s*%s\\s*%s)?\\s*$",
-                          branchRegex, branchSepRegex, branchRegex, branchLastSepRegex);
-                  Matcher testMatcher = Pattern.compile(testRegex).matcher(roll);
+                  Matcher testMatcher = branchPatterns.ifElse.matcher(roll);
                   if (testMatcher.find()) { // verifies that roll body is well-formed
                     rollBranch = testMatcher.group(1 + whichBranch);
                     if (rollBranch == null) {
@@ -758,24 +866,12 @@ public String parseLine(
                 }
               case SWITCH:
                 {
-                  // We augment the branch regex to detect the "case xxx:" or "default:" prefixes,
-                  // and search for a match. An error is thrown if no case match is found.
-
-                  // Regex matches 'default', 'case 123:', 'case "123":', 'case "abc":', but not
-                  // 'case abc:'
-                  branchRegex =
-                      "(?:case\\s*\"?((?<!\")(?:\\+|-)?[\\d]+(?!\")|(?<=\")[^\"]*(?=\"))\"?|(default))\\s*:\\s*"
-                          + branchRegex;
+                  // The branch patterns detect the "case xxx:" or "default:" prefixes, and we
+                  // search for a match. An error is thrown if no case match is found.
                   String caseTarget = branchConditionParsed.toString();
-                  String testRegex =
-                      String.format(
-                          "^(?:\\s*%s\\s*%s\\s*)*\\s*%s\\s*%s\\s*$",
-                          branchRegex, branchSepRegex, branchRegex, branchLastSepRegex);
-                  Matcher testMatcher = Pattern.compile(testRegex).matcher(roll);
+                  Matcher testMatcher = branchPatterns.switchTest.matcher(roll);
                   if (testMatcher.find()) { // verifies that roll body is well-formed
-                    String scanRegex =
-                        String.format("\\s*%s\\s*(?:%s)?", branchRegex, branchSepRegex);
-                    Matcher scanMatcher = Pattern.compile(scanRegex).matcher(roll);
+                    Matcher scanMatcher = branchPatterns.switchScan.matcher(roll);
                     boolean foundMatch = false;
                     while (!foundMatch && scanMatcher.find()) {
                       String caseLabel = scanMatcher.group(1); // "case (xxx):"
@@ -1048,10 +1144,10 @@ public Result parseExpression(
         String b = " ".repeat(Math.max(0, parserRecurseDepth - 1)) + expression;
         log.debug(b);
       }
-      List<Integer> origRolled = List.copyOf(rolled);
+      int rolledGeneration = rolled.getGeneration();
       Result res = expressionParser.evaluate(expression, resolver, makeDeterministic);
       // if rolled has changed, we've been in a context that has updated it already
-      if (origRolled.equals(rolled)) {
+      if (rolledGeneration == rolled.getGeneration()) {
         rolled.addAll(res.getRolled());
         newRolls.addAll(res.getRolled());
       }
@@ -1185,26 +1281,14 @@ public String runMacro(
       }
       macroContext = new MapToolMacroContext(macroName, "token", trusted);
     } else if (macroLocation.equalsIgnoreCase("CAMPAIGN")) {
-      MacroButtonProperties mbp = null;
-      for (MacroButtonProperties m : MapTool.getCampaign().getMacroButtonPropertiesArray()) {
-        if (m.getLabel().equals(macroName)) {
-          mbp = m;
-          break;
-        }
-      }
+      MacroButtonProperties mbp = MapTool.getCampaign().getMacroButtonProperty(macroName);
       if (mbp == null) {
         throw new ParserException(I18N.getText("lineParser.unknownCampaignMacro", macroName));
       }
       macroBody = mbp.getCommand();
       macroContext = new MapToolMacroContext(macroName, "campaign", !mbp.getAllowPlayerEdits());
     } else if (macroLocation.equalsIgnoreCase("Gm")) {
-      MacroButtonProperties mbp = null;
-      for (MacroButtonProperties m : MapTool.getCampaign().getGmMacroButtonPropertiesArray()) {
-        if (m.getLabel().equals(macroName)) {
-          mbp = m;
-          break;
-        }
-      }
+      MacroButtonProperties mbp = MapTool.getCampaign().getGmMacroButtonProperty(macroName);
       if (mbp == null) {
         throw new ParserException(I18N.getText("lineParser.unknownCampaignMacro", macroName));
       }
@@ -1365,7 +1449,7 @@ String runMacroBlock(
   }
 
   /**
-   * Searches all maps for a token and returns the the requested lib: macro.
+   * Finds a lib:token in the current campaign and returns the the requested lib: macro.
    *
    * @param location the location of the library macro.
    * @return The token which holds the library.
@@ -1373,40 +1457,12 @@ String runMacroBlock(
    *     the caller doesn't have access to the token.
    */
   public Token getTokenMacroLib(String location) throws ParserException {
-    if (location == null) {
-      return null;
-    }
-    if (!location.matches("(?i)^lib:.*")) {
-      throw new ParserException(I18N.getText("lineParser.notALibToken"));
-    }
-    final String libTokenName = location;
-    Token libToken = null;
-    if (libTokenName.length() > 0) {
-      List<ZoneRenderer> zrenderers = MapTool.getFrame().getZoneRenderers();
-      for (ZoneRenderer zr : zrenderers) {
-        List<Token> tokenList =
-            zr.getZone().getTokensFiltered(t -> t.getName().equalsIgnoreCase(libTokenName));
-
-        for (Token token : tokenList) {
-          // If we are not the GM and the token is not visible to players then we don't
-          // let them get functions from it.
-          if (!MapTool.getPlayer().isGM() && !token.isVisible()) {
-            throw new ParserException(I18N.getText("lineParser.libUnableToExec", libTokenName));
-          }
-          if (libToken != null) {
-            throw new ParserException(I18N.getText("lineParser.duplicateLibTokens", libTokenName));
-          }
-
-          libToken = token;
-        }
-      }
-      return libToken;
-    }
-    return null;
+    var entry = findTokenMacroLib(location);
+    return entry == null ? null : entry.getToken();
   }
 
   /**
-   * Searches all maps for a token and returns the zone that the lib: macro is in.
+   * Finds a lib:token in the current campaign and returns the zone that the lib: macro is in.
    *
    * @param location the location of the library macro.
    * @return The zone which holds the library.
@@ -1414,37 +1470,29 @@ public Token getTokenMacroLib(String location) throws ParserException {
    *     the caller doesn't have access to the token.
    */
   public Zone getTokenMacroLibZone(String location) throws ParserException {
+    var entry = findTokenMacroLib(location);
+    return entry == null ? null : entry.getZone();
+  }
+
+  private LibraryTokenIndex.Entry findTokenMacroLib(String location) throws ParserException {
     if (location == null) {
       return null;
     }
-    if (!location.matches("(?i)^lib:.*")) {
+    if (!location.regionMatches(true, 0, "lib:", 0, 4)) {
       throw new ParserException(I18N.getText("lineParser.notALibToken"));
     }
-    final String libTokenName = location;
-    Zone libTokenZone = null;
-    if (libTokenName.length() > 0) {
-      List<ZoneRenderer> zrenderers = MapTool.getFrame().getZoneRenderers();
-      for (ZoneRenderer zr : zrenderers) {
-        List<Token> tokenList =
-            zr.getZone().getTokensFiltered(t -> t.getName().equalsIgnoreCase(libTokenName));
-
-        for (Token token : tokenList) {
-          // If we are not the GM and the token is not visible to players then we don't
-          // let them get functions from it.
-          if (!MapTool.getPlayer().isGM() && !token.isVisible()) {
-            throw new ParserException(I18N.getText("lineParser.libUnableToExec", libTokenName));
-          }
-
-          if (libTokenZone != null) {
-            throw new ParserException(I18N.getText("lineParser.duplicateLibTokens", libTokenName));
-          }
-
-          libTokenZone = zr.getZone();
-        }
+    var entries = LibraryTokenIndex.getInstance().find(location);
+    for (var entry : entries) {
+      // If we are not the GM and the token is not visible to players then we don't
+      // let them get functions from it.
+      if (!MapTool.getPlayer().isGM() && !entry.getToken().isVisible()) {
+        throw new ParserException(I18N.getText("lineParser.libUnableToExec", location));
       }
-      return libTokenZone;
     }
-    return null;
+    if (entries.size() > 1) {
+      throw new ParserException(I18N.getText("lineParser.duplicateLibTokens", location));
+    }
+    return entries.isEmpty() ? null : entries.get(0);
   }
 
   /**
@@ -1628,7 +1676,12 @@ public boolean isMacroTrusted() {
    * @return A list of the rolls.
    */
   private List<InlineRollMatch> locateInlineRolls(String line) {
-    List<InlineRollMatch> matches = new ArrayList<InlineRollMatch>();
+    List<InlineRollMatch> matches = INLINE_ROLL_CACHE.getIfPresent(line);
+    if (matches != null) {
+      return matches;
+    }
+
+    matches = new ArrayList<InlineRollMatch>();
     ScanState scanState = ScanState.SEARCHING_FOR_ROLL;
     int startMatch = 0;
     int bracketLevel = 0;
@@ -1692,6 +1745,8 @@ private List<InlineRollMatch> locateInlineRolls(String line) {
           break;
       }
     }
+    matches = Collections.unmodifiableList(matches);
+    INLINE_ROLL_CACHE.put(line, matches);
     return matches;
   }
 
@@ -1771,7 +1826,7 @@ public int getContextStackSize() {
    * @return the raw dice rolls that have occurred during this parse / execution.
    */
   public List<Integer> getRolled() {
-    return List.copyOf(rolled);
+    return rolled.toList();
   }
 
   /**
@@ -1780,7 +1835,7 @@ public List<Integer> getRolled() {
    * @return the raw dice rolls that occurred during the last parse / execution.
    */
   public List<Integer> getLastRolled() {
-    return List.copyOf(lastRolled);
+    return lastRolled.toList();
   }
 
   /**
@@ -1792,7 +1847,7 @@ public List<Integer> getLastRolled() {
    * @return the raw dice rolls that occurred since last call to this funnction.
    */
   public List<Integer> getNewRolls() {
-    List<Integer> rolls = List.copyOf(newRolls);
+    List<Integer> rolls = newRolls.toList();
     newRolls.clear();
     return rolls;
   }
@@ -233,7 +233,7 @@ public void heartBeat() {
     body.addProperty("clientId", MapTool.getClientId());
     body.addProperty("address", getAddress());
     body.addProperty("number_players", MapTool.getPlayerList().size());
-    body.addProperty("number_maps", MapTool.getCampaign().getZones().size());
+    body.addProperty("number_maps", MapTool.getCampaign().getZoneCount());
 
     OkHttpClient client = new OkHttpClient();
     RequestBody requestBody = RequestBody.create(body.toString(), JSON);
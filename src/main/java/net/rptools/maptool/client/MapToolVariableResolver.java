@@ -239,18 +239,11 @@ public Object getVariable(String name, VariableModifiers mods) throws ParserExce
       } else {
         // If the token has no property of that name check to see if there s a defaulted
         // value for the property for the token type.
-        List<TokenProperty> propertyList =
-            MapTool.getCampaign()
-                .getCampaignProperties()
-                .getTokenPropertyList(tokenInContext.getPropertyType());
-        if (propertyList != null) {
-          for (TokenProperty property : propertyList) {
-            if (name.equalsIgnoreCase(property.getName())) {
-              result = property.getDefaultValue();
-              evaluate = true;
-              break;
-            }
-          }
+        TokenProperty property =
+            MapTool.getCampaign().getTokenProperty(tokenInContext.getPropertyType(), name);
+        if (property != null) {
+          result = property.getDefaultValue();
+          evaluate = true;
         }
       }
     } else {
@@ -17,6 +17,7 @@
 import com.google.protobuf.BoolValue;
 import com.google.protobuf.StringValue;
 import java.awt.geom.Area;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
@@ -35,6 +36,7 @@
 import net.rptools.maptool.model.gamedata.proto.GameDataValueDto;
 import net.rptools.maptool.model.library.addon.TransferableAddOnLibrary;
 import net.rptools.maptool.model.player.Player;
+import net.rptools.maptool.server.MapToolServer;
 import net.rptools.maptool.server.Mapper;
 import net.rptools.maptool.server.ServerCommand;
 import net.rptools.maptool.server.ServerMessageHandler;
@@ -76,10 +78,23 @@ public void bootPlayer(String player) {
   }
 
   public void setCampaign(Campaign campaign) {
+    MapToolServer server = client.getLocalServer();
+    if (server != null && server.isPersonalServer() && campaign.hasUnloadedZones()) {
+      // Nobody else needs the whole campaign, so let the server read the zones it needs from the
+      // campaign file itself instead of serializing every one of them.
+      var copy = new Campaign(campaign);
+      server.getModelExecutor().execute(() -> server.setCampaign(copy));
+      return;
+    }
+
     var msg = SetCampaignMsg.newBuilder();
     try {
       campaign.setBeingSerialized(true);
       msg.setCampaign(campaign.toDto());
+    } catch (UncheckedIOException e) {
+      // Sending it without the map would remove the map for the server and every other client.
+      MapTool.showError("msg.error.failedSendCampaign", e);
+      return;
     } finally {
       campaign.setBeingSerialized(false);
     }
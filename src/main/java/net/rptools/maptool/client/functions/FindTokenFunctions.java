@@ -434,7 +434,7 @@ private static Object getTokenList(
       zoneRenderer = MapTool.getFrame().getCurrentZoneRenderer();
     } else {
       mapName = jobj.get("mapName").getAsString();
-      zoneRenderer = MapTool.getFrame().getZoneRenderer(mapName);
+      zoneRenderer = MapTool.loadZone(mapName);
       if (zoneRenderer == null) {
         throw new ParserException(
             I18N.getText(
@@ -885,7 +885,7 @@ public static Token findToken(String identifier, String zoneNameOrId) {
     } else {
       if (!GUID.isNotGUID(zoneNameOrId)) {
         try {
-          final var zr = MapTool.getFrame().getZoneRenderer(GUID.valueOf(zoneNameOrId));
+          final var zr = MapTool.loadZone(GUID.valueOf(zoneNameOrId));
           if (zr != null) {
             Token token = zr.getZone().resolveToken(identifier);
             if (token != null) {
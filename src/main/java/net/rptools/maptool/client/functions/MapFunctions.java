@@ -16,6 +16,7 @@
 
 import com.google.gson.JsonObject;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -87,12 +88,17 @@ public Object childEvaluate(
       FunctionUtil.checkNumberParam(functionName, parameters, 1, 2);
       final var mapName = parameters.get(0).toString();
       final var delim = parameters.size() < 2 ? "," : parameters.get(1).toString();
-      final var zoneIds =
-          MapTool.getCampaign().getZones().stream()
-              .filter(zone -> mapName.equals(zone.getName()))
-              .map(Zone::getId)
-              .map(GUID::toString)
-              .toList();
+      final var zoneIds = new ArrayList<String>();
+      for (var zone : MapTool.getCampaign().getLoadedZones()) {
+        if (mapName.equals(zone.getName())) {
+          zoneIds.add(zone.getId().toString());
+        }
+      }
+      for (var summary : MapTool.getCampaign().getUnloadedZones()) {
+        if (mapName.equals(summary.getName())) {
+          zoneIds.add(summary.getId().toString());
+        }
+      }
       return FunctionUtil.delimitedResult(delim, zoneIds);
     } else if (functionName.equalsIgnoreCase("getCurrentMapName")) {
       FunctionUtil.checkNumberParam(functionName, parameters, 0, 0);
@@ -365,7 +371,7 @@ public Object childEvaluate(
       ZoneRenderer match = null;
       if (!GUID.isNotGUID(map)) {
         try {
-          match = MapTool.getFrame().getZoneRenderer(GUID.valueOf(map));
+          match = MapTool.loadZone(GUID.valueOf(map));
         } catch (InvalidGUIDException ignored) {
           // Wasn't a GUID after all.
         }
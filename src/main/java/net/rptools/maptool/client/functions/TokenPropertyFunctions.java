@@ -411,15 +411,9 @@ public Object childEvaluate(
       }
       Object val = null;
 
-      List<TokenProperty> propertyList =
-          MapTool.getCampaign().getCampaignProperties().getTokenPropertyList(propType);
-      if (propertyList != null) {
-        for (TokenProperty property : propertyList) {
-          if (name.equalsIgnoreCase(property.getName())) {
-            val = property.getDefaultValue();
-            break;
-          }
-        }
+      TokenProperty property = MapTool.getCampaign().getTokenProperty(propType, name);
+      if (property != null) {
+        val = property.getDefaultValue();
       }
       if (val == null) {
         return "";
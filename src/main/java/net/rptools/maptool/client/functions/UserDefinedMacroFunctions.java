@@ -366,14 +366,10 @@ public String getFunctionTooltip(String functionName) {
       MacroButtonProperties buttonProps;
       if ("CAMPAIGN".equalsIgnoreCase(macroLocation)) {
         // campaign macro
-        List<MacroButtonProperties> mbps = MapTool.getCampaign().getMacroButtonPropertiesArray();
-        buttonProps =
-            mbps.stream().filter(m -> m.getLabel().equals(macroName)).findFirst().orElse(null);
+        buttonProps = MapTool.getCampaign().getMacroButtonProperty(macroName);
       } else if ("GM".equalsIgnoreCase(macroLocation)) {
         // GM macro
-        List<MacroButtonProperties> mbps = MapTool.getCampaign().getGmMacroButtonPropertiesArray();
-        buttonProps =
-            mbps.stream().filter(m -> m.getLabel().equals(macroName)).findFirst().orElse(null);
+        buttonProps = MapTool.getCampaign().getGmMacroButtonProperty(macroName);
       } else if ("GLOBAL".equalsIgnoreCase(macroLocation)) {
         // Global macro
         List<MacroButtonProperties> mbps = MacroButtonPrefs.getButtonProperties();
@@ -37,6 +37,7 @@
 import net.rptools.maptool.language.I18N;
 import net.rptools.maptool.model.Campaign;
 import net.rptools.maptool.model.CampaignProperties;
+import net.rptools.maptool.model.GUID;
 import net.rptools.maptool.model.Grid;
 import net.rptools.maptool.model.GridFactory;
 import net.rptools.maptool.model.Light;
@@ -358,9 +359,16 @@ private JsonObject getCampaignInfo() throws ParserException {
 
     JsonArray zoneIds = new JsonArray();
     JsonObject zinfo = new JsonObject();
-    for (Zone z : c.getZones()) {
-      zoneIds.add(z.getId().toString());
-      zinfo.addProperty(z.getName(), z.getId().toString());
+    // Don't load the zones that are still in the campaign file just for their names.
+    Map<GUID, String> zoneNames = new HashMap<>();
+    c.getLoadedZones().forEach(z -> zoneNames.put(z.getId(), z.getName()));
+    c.getUnloadedZones().forEach(z -> zoneNames.put(z.getId(), z.getName()));
+    for (GUID id : c.getZoneIds()) {
+      String name = zoneNames.get(id);
+      if (name != null) {
+        zoneIds.add(id.toString());
+        zinfo.addProperty(name, id.toString());
+      }
     }
     cinfo.add("zoneIDs", zoneIds);
     cinfo.add("zones", zinfo);
@@ -849,23 +849,6 @@ private Object handleJsonPathFunctions(String functionName, List<Object> paramet
     }
   }
 
-  /**
-   * Returns a shallow copy of the passed in {@link JsonElement}. If the value is immutable then
-   * this method may just return the value itself without making a copy.
-   *
-   * @param jsonElement The {@link JsonElement} to copy.
-   * @return The resulting json data.
-   */
-  private JsonElement shallowCopy(JsonElement jsonElement) {
-    if (jsonElement.isJsonObject()) {
-      return jsonObjectFunctions.shallowCopy(jsonElement.getAsJsonObject());
-    } else if (jsonElement.isJsonArray()) {
-      return jsonArrayFunctions.shallowCopy(jsonElement.getAsJsonArray());
-    } else {
-      return jsonElement; // Is immutable so no need to return copy,
-    }
-  }
-
   /**
    * Returns a copy of the passed in json with the specified path removed.
    *
@@ -875,7 +858,9 @@ private JsonElement shallowCopy(JsonElement jsonElement) {
    */
   private JsonElement jsonPathDelete(JsonElement json, String path) {
     try {
-      return JsonPath.using(jaywayConfig).parse(shallowCopy(json)).delete(path).json();
+      // Jayway changes nested objects in place, and those may be shared with a token's cached
+      // property value, so the whole tree has to be copied.
+      return JsonPath.using(jaywayConfig).parse(json.deepCopy()).delete(path).json();
     } catch (PathNotFoundException ex) {
       // Return original json, this is to preserve backwards compatability pre library update
       return json;
@@ -895,7 +880,7 @@ private JsonElement jsonPathPut(JsonElement json, String path, String key, Objec
     Object value = asJsonElement(info);
 
     try {
-      return JsonPath.using(jaywayConfig).parse(shallowCopy(json)).put(path, key, value).json();
+      return JsonPath.using(jaywayConfig).parse(json.deepCopy()).put(path, key, value).json();
     } catch (PathNotFoundException ex) {
       // Return original json, this is to preserve backwards compatability pre library update
       return json;
@@ -914,7 +899,7 @@ private JsonElement jsonPathSet(JsonElement json, String path, Object info) {
     Object value = asJsonElement(info);
 
     try {
-      return JsonPath.using(jaywayConfig).parse(shallowCopy(json)).set(path, value).json();
+      return JsonPath.using(jaywayConfig).parse(json.deepCopy()).set(path, value).json();
     } catch (PathNotFoundException ex) {
       // Return original json, this is to preserve backwards compatability pre library update
       return json;
@@ -148,17 +148,10 @@ public String getProperty(String name) {
       // especially when the value gets unset if it matches the default.
       // Evaluation is not performed automatically, use getEvaluatedProperty for that.
       if (val == null) {
-        List<TokenProperty> propertyList =
-            MapTool.getCampaign()
-                .getCampaignProperties()
-                .getTokenPropertyList(this.token.getPropertyType());
-        if (propertyList != null) {
-          for (TokenProperty property : propertyList) {
-            if (name.equalsIgnoreCase(property.getName())) {
-              val = property.getDefaultValue();
-              break;
-            }
-          }
+        TokenProperty property =
+            MapTool.getCampaign().getTokenProperty(this.token.getPropertyType(), name);
+        if (property != null) {
+          val = property.getDefaultValue();
         }
       }
       if (val == null) {
@@ -32,6 +32,7 @@
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import javax.swing.*;
 import javax.swing.Timer;
 import javax.swing.border.BevelBorder;
@@ -94,19 +95,23 @@
 import net.rptools.maptool.client.ui.zone.PointerToolOverlay;
 import net.rptools.maptool.client.ui.zone.ZoneMiniMapPanel;
 import net.rptools.maptool.client.ui.zone.renderer.ZoneRenderer;
+import net.rptools.maptool.client.ui.zone.renderer.ZoneRendererFactory;
 import net.rptools.maptool.events.MapToolEventBus;
 import net.rptools.maptool.language.I18N;
 import net.rptools.maptool.model.Asset;
+import net.rptools.maptool.model.AssetManager;
 import net.rptools.maptool.model.GUID;
 import net.rptools.maptool.model.Token;
 import net.rptools.maptool.model.Zone;
 import net.rptools.maptool.model.ZoneFactory;
 import net.rptools.maptool.model.ZonePoint;
+import net.rptools.maptool.model.ZoneSummary;
 import net.rptools.maptool.model.drawing.DrawableColorPaint;
 import net.rptools.maptool.model.drawing.DrawablePaint;
 import net.rptools.maptool.model.drawing.DrawableTexturePaint;
 import net.rptools.maptool.model.drawing.DrawnElement;
 import net.rptools.maptool.model.drawing.Pen;
+import net.rptools.maptool.model.zones.ZoneReadFromCampaignFile;
 import net.rptools.maptool.util.ImageManager;
 import org.apache.commons.collections4.map.LinkedMap;
 import org.apache.commons.lang.ArrayUtils;
@@ -1589,9 +1594,26 @@ public void setCurrentZoneRenderer(ZoneRenderer renderer) {
     if (renderer != null) {
       new MapToolEventBus().getMainEventBus().post(new ZoneLoading(renderer.getZone()));
 
-      ImageManager.flush(renderer.getZone().getAllAssetIds());
+      Set<MD5Key> assetIds = renderer.getZone().getAllAssetIds();
+      ImageManager.flush(assetIds);
+      // Keep what the new zone uses in memory, however full the caches get.
+      AssetManager.setPinnedAssets(assetIds);
+      ImageManager.setPinnedImages(assetIds);
+      // Get the rest of the new zone ready in the background, after what is on screen, and make
+      // sure the other zones' assets are at hand for when they are activated.
+      ImageManager.prefetch(assetIds, AssetManager.LoadPriority.ZONE);
+      for (Zone zone : MapTool.getCampaign().getLoadedZones()) {
+        if (zone != renderer.getZone()) {
+          AssetManager.prefetchAssets(zone.getAllAssetIds(), AssetManager.LoadPriority.CAMPAIGN);
+        }
+      }
+      for (ZoneSummary summary : MapTool.getCampaign().getUnloadedZones()) {
+        AssetManager.prefetchAssets(summary.getAssetIds(), AssetManager.LoadPriority.CAMPAIGN);
+      }
     } else {
       ImageManager.flush();
+      AssetManager.setPinnedAssets(Set.of());
+      ImageManager.setPinnedImages(Set.of());
       // zoneRendererList.remove(currentRenderer);
     }
     // Handle new renderers
@@ -1690,7 +1712,8 @@ public ZoneRenderer getZoneRenderer(Zone zone) {
   }
 
   /**
-   * Return the first ZoneRender for which the zone has the zoneGUID (should be only one).
+   * Return the first ZoneRender for which the zone has the zoneGUID (should be only one). Zones
+   * that are still in the campaign file have no renderer, see {@link MapTool#loadZone(GUID)}.
    *
    * @param zoneGUID the zoneGUID of the zone.
    * @return the ZoneRenderer.
@@ -1916,6 +1939,41 @@ void onZoneActivated(ZoneActivated event) {
     }
   }
 
+  @Subscribe
+  void onZoneReadFromCampaignFile(ZoneReadFromCampaignFile event) {
+    if (event.campaign() != MapTool.getCampaign()) {
+      // The server's own copy of the campaign.
+      return;
+    }
+    if (SwingUtilities.isEventDispatchThread()) {
+      addLoadedZone(event.zone());
+    } else {
+      SwingUtilities.invokeLater(() -> addLoadedZone(event.zone()));
+    }
+  }
+
+  /**
+   * Gives a zone that has been read from the campaign file its renderer, if it doesn't have one
+   * yet. Every zone that is loaded after the campaign is installed comes through here.
+   *
+   * @param zone the zone.
+   * @return the renderer, or {@code null} if the zone is no longer part of the campaign.
+   */
+  public @Nullable ZoneRenderer addLoadedZone(Zone zone) {
+    if (MapTool.getCampaign().getZone(zone.getId()) != zone) {
+      return null;
+    }
+    ZoneRenderer renderer = getZoneRenderer(zone.getId());
+    if (renderer == null) {
+      // Facings are shared by every grid of a type, and may have been changed in the preferences
+      // while no map with this type of grid was loaded.
+      zone.getGrid().setFacings(AppPreferences.getFaceEdge(), AppPreferences.getFaceVertex());
+      renderer = ZoneRendererFactory.newRenderer(zone);
+      addZoneRenderer(renderer);
+    }
+    return renderer;
+  }
+
   // WINDOW LISTENER
   public void windowOpened(WindowEvent e) {}
 
@@ -27,9 +27,23 @@
 import net.rptools.maptool.client.ui.theme.RessourceManager;
 import net.rptools.maptool.client.ui.zone.renderer.ZoneRenderer;
 import net.rptools.maptool.language.I18N;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.ZoneSummary;
 
 public class ZoneSelectionPopup extends JScrollPopupMenu {
 
+  /** A map to list, whether or not it has been loaded from the campaign file yet. */
+  private record MapEntry(GUID id, String name, String label, boolean visible) {
+    MapEntry(Zone zone) {
+      this(zone.getId(), zone.getName(), zone.toString(), zone.isVisible());
+    }
+
+    MapEntry(ZoneSummary summary) {
+      this(summary.getId(), summary.getName(), summary.toString(), summary.isVisible());
+    }
+  }
+
   private JMenuItem selection;
 
   public ZoneSelectionPopup() {
@@ -48,36 +62,44 @@ private JMenuItem createEntries() {
     if (MapTool.getServerPolicy().getMapSelectUIHidden() && !MapTool.getPlayer().isGM()) {
       MapTool.getFrame().getToolbarPanel().getMapselect().setVisible(false);
     } else {
-      List<ZoneRenderer> rendererList =
-          new LinkedList<ZoneRenderer>(MapTool.getFrame().getZoneRenderers());
+      List<MapEntry> mapList = new LinkedList<MapEntry>();
+      for (ZoneRenderer renderer : MapTool.getFrame().getZoneRenderers()) {
+        mapList.add(new MapEntry(renderer.getZone()));
+      }
+      // Maps that are still in the campaign file are loaded when they are chosen.
+      for (ZoneSummary summary : MapTool.getCampaign().getUnloadedZones()) {
+        mapList.add(new MapEntry(summary));
+      }
       if (!MapTool.getPlayer().isGM()) {
-        rendererList.removeIf(renderer -> !renderer.getZone().isVisible());
+        mapList.removeIf(entry -> !entry.visible());
       }
 
       if (AppPreferences.getMapSortType().equals(AppPreferences.MapSortType.GMNAME))
-        rendererList.sort(
+        mapList.sort(
             (o1, o2) -> {
-              String name1 = o1.getZone().getName();
-              String name2 = o2.getZone().getName();
+              String name1 = o1.name();
+              String name2 = o2.name();
 
               return String.CASE_INSENSITIVE_ORDER.compare(name1, name2);
             });
       else
-        rendererList.sort(
+        mapList.sort(
             (o1, o2) -> {
-              String name1 = o1.getZone().toString();
-              String name2 = o2.getZone().toString();
+              String name1 = o1.label();
+              String name2 = o2.label();
 
               return String.CASE_INSENSITIVE_ORDER.compare(name1, name2);
             });
 
-      for (ZoneRenderer renderer : rendererList) {
-        ZoneItem item = new ZoneItem(renderer);
-        boolean current = renderer == MapTool.getFrame().getCurrentZoneRenderer();
+      ZoneRenderer currentRenderer = MapTool.getFrame().getCurrentZoneRenderer();
+      for (MapEntry entry : mapList) {
+        ZoneItem item = new ZoneItem(entry);
+        boolean current =
+            currentRenderer != null && entry.id().equals(currentRenderer.getZone().getId());
         if (current) {
           item.setSelected(true);
           selection = item;
-        } else if (!renderer.getZone().isVisible()) {
+        } else if (!entry.visible()) {
           item.setIcon(RessourceManager.getSmallIcon(Icons.TOOLBAR_ZONE_NOT_VISIBLE));
         }
         add(item);
@@ -89,11 +111,11 @@ private JMenuItem createEntries() {
 
   private static class ZoneItem extends JCheckBoxMenuItem implements ActionListener {
 
-    private ZoneRenderer renderer;
+    private final GUID zoneId;
 
-    ZoneItem(ZoneRenderer renderer) {
-      this.renderer = renderer;
-      String name = renderer.getZone().toString();
+    ZoneItem(MapEntry entry) {
+      this.zoneId = entry.id();
+      String name = entry.label();
       if ("".equals(name)) {
         name = I18N.getText("Button.map");
       }
@@ -118,6 +140,11 @@ public boolean isShowing() {
     @Override
     public void actionPerformed(ActionEvent e) {
 
+      ZoneRenderer renderer = MapTool.loadZone(zoneId);
+      if (renderer == null) {
+        return;
+      }
+
       // Set current zone renderer if new
       if (MapTool.getFrame().getCurrentZoneRenderer() != renderer) {
         MapTool.getFrame().setCurrentZoneRenderer(renderer);
@@ -85,6 +85,7 @@ public void copyUIToCampaign(Campaign campaign) {
         .keySet()
         .forEach(tt -> campaign.setTokenTypeDefaultSheetId(tt, tokenTypeStatSheetMap.get(tt)));
     campaign.setDefaultTokenPropertyType(defaultPropertyType);
+    campaign.tokenPropertiesChanged();
   }
 
   public void finalizeCellEditing() {
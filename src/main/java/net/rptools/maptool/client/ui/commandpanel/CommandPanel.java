@@ -270,12 +270,18 @@ private Token getImpersonatedAmongList(List<Token> list) {
 
   @Subscribe
   private void onTokenPanelChanged(TokenPanelChanged event) {
-    updateIdentityIfImpersonatedChanged(Collections.singletonList(event.token()));
+    if (MapTool.isCampaignZone(event.zone())) {
+      SwingUtilities.invokeLater(
+          () -> updateIdentityIfImpersonatedChanged(Collections.singletonList(event.token())));
+    }
   }
 
   @Subscribe
   private void onTokenEdited(TokenEdited event) {
-    updateIdentityIfImpersonatedChanged(Collections.singletonList(event.token()));
+    if (MapTool.isCampaignZone(event.zone())) {
+      SwingUtilities.invokeLater(
+          () -> updateIdentityIfImpersonatedChanged(Collections.singletonList(event.token())));
+    }
   }
 
   private void updateIdentityIfImpersonatedChanged(List<Token> tokens) {
@@ -165,6 +165,9 @@ private void onSelectionChanged(SelectionModel.SelectionChanged event) {
 
   @Subscribe
   private void onTokenMacroChanged(TokenMacroChanged event) {
+    if (!MapTool.isCampaignZone(event.zone())) {
+      return;
+    }
     SwingUtilities.invokeLater(
         () -> {
           resetIfAnyImpersonated(Collections.singletonList(event.token()));
@@ -173,6 +176,9 @@ private void onTokenMacroChanged(TokenMacroChanged event) {
 
   @Subscribe
   private void onTokenPanelChanged(TokenPanelChanged event) {
+    if (!MapTool.isCampaignZone(event.zone())) {
+      return;
+    }
     SwingUtilities.invokeLater(
         () -> {
           resetIfAnyImpersonated(Collections.singletonList(event.token()));
@@ -181,6 +187,9 @@ private void onTokenPanelChanged(TokenPanelChanged event) {
 
   @Subscribe
   private void onTokensRemoved(TokensRemoved event) {
+    if (!MapTool.isCampaignZone(event.zone())) {
+      return;
+    }
     SwingUtilities.invokeLater(
         () -> {
           resetIfAnyImpersonated(event.tokens());
@@ -189,6 +198,9 @@ private void onTokensRemoved(TokensRemoved event) {
 
   @Subscribe
   private void onTokensEdited(TokenEdited event) {
+    if (!MapTool.isCampaignZone(event.zone())) {
+      return;
+    }
     SwingUtilities.invokeLater(
         () -> {
           resetIfAnyImpersonated(Collections.singletonList(event.token()));
@@ -120,6 +120,9 @@ private void onSelectionChanged(SelectionModel.SelectionChanged event) {
 
   @Subscribe
   private void onTokenMacroChanged(TokenMacroChanged event) {
+    if (!MapTool.isCampaignZone(event.zone())) {
+      return;
+    }
     SwingUtilities.invokeLater(
         () -> {
           resetIfSelected(Collections.singletonList(event.token()));
@@ -128,6 +131,9 @@ private void onTokenMacroChanged(TokenMacroChanged event) {
 
   @Subscribe
   private void onTokenPanelChanged(TokenPanelChanged event) {
+    if (!MapTool.isCampaignZone(event.zone())) {
+      return;
+    }
     SwingUtilities.invokeLater(
         () -> {
           resetIfSelected(Collections.singletonList(event.token()));
@@ -136,6 +142,9 @@ private void onTokenPanelChanged(TokenPanelChanged event) {
 
   @Subscribe
   private void onTokensRemoved(TokensRemoved event) {
+    if (!MapTool.isCampaignZone(event.zone())) {
+      return;
+    }
     SwingUtilities.invokeLater(
         () -> {
           resetIfSelected(event.tokens());
@@ -144,6 +153,9 @@ private void onTokensRemoved(TokensRemoved event) {
 
   @Subscribe
   private void onTokenEdited(TokenEdited event) {
+    if (!MapTool.isCampaignZone(event.zone())) {
+      return;
+    }
     SwingUtilities.invokeLater(
         () -> {
           resetIfSelected(Collections.singletonList(event.token()));
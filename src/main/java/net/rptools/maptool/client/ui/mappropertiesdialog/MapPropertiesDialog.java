@@ -289,6 +289,7 @@ private void copyZoneToUI() {
     getDistanceTextField().setText(StringUtil.formatDecimal(zone.getUnitsPerCell(), 1));
     getPixelsPerCellTextField().setText(Integer.toString(zone.getGrid().getSize()));
     getDefaultVisionTextField().setText(Integer.toString(zone.getTokenVisionDistance()));
+    getFogResolutionTextField().setText(Integer.toString(zone.getFogResolution()));
     getHexVerticalRadio().setSelected(zone.getGrid() instanceof HexGridVertical);
     getIsometricRadio().setSelected(zone.getGrid() instanceof IsometricGrid);
     getHexHorizontalRadio().setSelected(zone.getGrid() instanceof HexGridHorizontal);
@@ -315,6 +316,9 @@ private void copyUIToZone() {
     zone.setTokenVisionDistance(
         StringUtil.parseInteger(
             getDefaultVisionTextField().getText(), zone.getTokenVisionDistance()));
+    // Also converts the exposed areas when only the grid size changed.
+    zone.setFogResolution(
+        StringUtil.parseInteger(getFogResolutionTextField().getText(), zone.getFogResolution()));
 
     zone.setVisionType((Zone.VisionType) getVisionTypeCombo().getSelectedItem());
     zone.setLightingStyle((Zone.LightingStyle) getLightingStyleCombo().getSelectedItem());
@@ -520,6 +524,10 @@ private void initDefaultVisionTextField() {
         .setText(Integer.toString(AppPreferences.getDefaultVisionDistance()));
   }
 
+  public JTextField getFogResolutionTextField() {
+    return formPanel.getTextField("fogResolution");
+  }
+
   private void initVisionTypeCombo() {
     DefaultComboBoxModel<Zone.VisionType> model = new DefaultComboBoxModel<>();
     for (Zone.VisionType vt : Zone.VisionType.values()) {
@@ -1530,12 +1530,12 @@ public void setVisible(boolean b) {
    * Used by the ActionListeners of the facing checkboxes to update the facings for all of the
    * current zones. Redundant to go through all zones because all zones using the same grid type
    * share facings but it doesn't hurt anything and avoids having to track what grid types are being
-   * used.
+   * used. Maps that are still in the campaign file get the facings when they are read.
    */
   private void updateFacings() {
     // List<Zone> zlist = MapTool.getServer().getCampaign().getZones(); // generated NPE
     // http://forums.rptools.net/viewtopic.php?f=3&t=17334
-    List<Zone> zlist = MapTool.getCampaign().getZones();
+    List<Zone> zlist = MapTool.getCampaign().getLoadedZones();
     boolean faceEdges = AppPreferences.getFaceEdge();
     boolean faceVertices = AppPreferences.getFaceVertex();
     for (Zone z : zlist) {
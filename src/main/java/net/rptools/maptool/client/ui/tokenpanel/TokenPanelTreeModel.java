@@ -23,6 +23,7 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.JTree;
 import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
@@ -61,8 +62,11 @@ public String getDisplayName() {
   private Zone zone;
   private final JTree tree;
 
-  /** Is an updateInternal pending? */
-  private volatile boolean updatePending = false;
+  /**
+   * Is an updateInternal pending? Set from the model thread as well as the EDT, so it is claimed
+   * atomically to queue a single update.
+   */
+  private final AtomicBoolean updatePending = new AtomicBoolean(false);
 
   public TokenPanelTreeModel(JTree tree) {
     this.tree = tree;
@@ -163,11 +167,10 @@ public void update() {
     // better solution would be to use a timeout to invoke the internal update to give more
     // token events the chance to arrive, but in this case EventQueue overload will
     // manage to delay it quite nicely
-    if (!updatePending) {
-      updatePending = true;
+    if (updatePending.compareAndSet(false, true)) {
       EventQueue.invokeLater(
           () -> {
-            updatePending = false;
+            updatePending.set(false);
             updateInternal();
           });
     }
@@ -351,22 +354,30 @@ public boolean test(Token token) {
 
   @Subscribe
   private void onTokensAdded(TokensAdded event) {
-    update();
+    if (event.zone() == zone) {
+      update();
+    }
   }
 
   @Subscribe
   private void onTokensRemoved(TokensRemoved event) {
-    update();
+    if (event.zone() == zone) {
+      update();
+    }
   }
 
   @Subscribe
   private void onTokensChanged(TokensChanged event) {
-    update();
+    if (event.zone() == zone) {
+      update();
+    }
   }
 
   @Subscribe
   private void onTokensEdited(TokenEdited event) {
-    update();
+    if (event.zone() == zone) {
+      update();
+    }
   }
 
   ////
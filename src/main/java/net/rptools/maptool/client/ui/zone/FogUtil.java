@@ -18,15 +18,21 @@
 import java.awt.Rectangle;
 import java.awt.geom.Area;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import net.rptools.lib.CodeTimer;
 import net.rptools.lib.GeometryUtil;
+import net.rptools.maptool.client.AppPreferences;
 import net.rptools.maptool.client.AppUtil;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.client.ui.zone.renderer.ZoneRenderer;
@@ -55,9 +61,42 @@ public class FogUtil {
   private static final Logger log = LogManager.getLogger(FogUtil.class);
   private static final GeometryFactory geometryFactory = GeometryUtil.getGeometryFactory();
 
+  /**
+   * Bounded pool used to solve visibility in parallel when {@link
+   * AppPreferences#getParallelVisibility()} is enabled. The sweeps are purely CPU-bound, so the
+   * pool never has more workers than there are cores, and leaves one core free for the calling
+   * thread.
+   */
+  private static final ForkJoinPool visibilityPool =
+      new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+  /**
+   * The inputs for a single visibility calculation.
+   *
+   * @param origin the vision origin.
+   * @param vision the lightSourceArea.
+   */
+  public record VisibilityRequest(Point origin, Area vision) {}
+
+  /**
+   * The result of solving visibility against a single type of topology.
+   *
+   * @param visionBlocked {@code true} if no vision is possible, either because the topology blocks
+   *     it completely, the calculation failed, or another topology already blocked vision.
+   * @param visibleArea The visibility polygon, or {@code null} if vision is unobstructed by the
+   *     topology.
+   */
+  private record TopologySolution(boolean visionBlocked, Coordinate[] visibleArea) {
+    private static final TopologySolution BLOCKED = new TopologySolution(true, null);
+  }
+
   /**
    * Return the visible area for an origin, a lightSourceArea and a VBL.
    *
+   * <p>If parallel visibility is enabled, each topology type is solved as a separate task on the
+   * visibility pool. Otherwise each topology is solved in turn on the calling thread. Either way
+   * the result is the same.
+   *
    * @param origin the vision origin.
    * @param vision the lightSourceArea.
    * @param wallVbl the VBL topology.
@@ -70,6 +109,71 @@ public class FogUtil {
       AreaTree hillVbl,
       AreaTree pitVbl,
       AreaTree coverVbl) {
+    return calculateVisibility(
+        origin, vision, wallVbl, hillVbl, pitVbl, coverVbl, AppPreferences.getParallelVisibility());
+  }
+
+  /**
+   * Return the visible areas for several origins against the same topology.
+   *
+   * <p>If parallel visibility is enabled, the requests are solved concurrently on the visibility
+   * pool. The returned list is in the same order as {@code requests}.
+   *
+   * @param requests the origins and lightSourceAreas to solve.
+   * @param wallVbl the Wall VBL topology.
+   * @param hillVbl the Hill VBL topology.
+   * @param pitVbl the Pit VBL topology.
+   * @param coverVbl the Cover VBL topology.
+   * @return the visible area for each request.
+   */
+  public static @Nonnull List<Area> calculateVisibility(
+      List<VisibilityRequest> requests,
+      AreaTree wallVbl,
+      AreaTree hillVbl,
+      AreaTree pitVbl,
+      AreaTree coverVbl) {
+    final var parallel = AppPreferences.getParallelVisibility();
+    if (!parallel || requests.size() < 2) {
+      final var results = new ArrayList<Area>(requests.size());
+      for (final var request : requests) {
+        results.add(
+            calculateVisibility(
+                request.origin(), request.vision(), wallVbl, hillVbl, pitVbl, coverVbl, parallel));
+      }
+      return results;
+    }
+
+    final var tasks = new ArrayList<ForkJoinTask<Area>>(requests.size());
+    for (final var request : requests) {
+      tasks.add(
+          ForkJoinTask.adapt(
+              () ->
+                  calculateVisibility(
+                      request.origin(),
+                      request.vision(),
+                      wallVbl,
+                      hillVbl,
+                      pitVbl,
+                      coverVbl,
+                      true)));
+    }
+    invokeAllOnVisibilityPool(tasks);
+
+    final var results = new ArrayList<Area>(tasks.size());
+    for (final var task : tasks) {
+      results.add(task.join());
+    }
+    return results;
+  }
+
+  private static @Nonnull Area calculateVisibility(
+      Point origin,
+      Area vision,
+      AreaTree wallVbl,
+      AreaTree hillVbl,
+      AreaTree pitVbl,
+      AreaTree coverVbl,
+      boolean parallel) {
     var timer = CodeTimer.get();
     timer.start("FogUtil::calculateVisibility");
     var originCoordinate = new Coordinate(origin.x, origin.y);
@@ -95,46 +199,28 @@ public class FogUtil {
        * we combine them.
        */
 
-      List<Coordinate[]> visibilityPolygons = new ArrayList<>();
       var topologies = new EnumMap<Zone.TopologyType, AreaTree>(Zone.TopologyType.class);
       topologies.put(Zone.TopologyType.WALL_VBL, wallVbl);
       topologies.put(Zone.TopologyType.HILL_VBL, hillVbl);
       topologies.put(Zone.TopologyType.PIT_VBL, pitVbl);
       topologies.put(Zone.TopologyType.COVER_VBL, coverVbl);
-      for (final var topology : topologies.entrySet()) {
 
-        timer.start("get pooled vision blocking set");
-        final var solver = new VisibilityProblem(originCoordinate, visionBounds);
-        timer.stop("get pooled vision blocking set");
+      timer.start("solve topologies");
+      final List<TopologySolution> solutions =
+          parallel
+              ? solveTopologiesInParallel(originCoordinate, visionBounds, topologies)
+              : solveTopologies(originCoordinate, visionBounds, topologies);
+      timer.stop("solve topologies");
 
-        timer.start("accumulate blocking walls");
-        final var accumulator =
-            new VisionBlockingAccumulator(originCoordinate, visionBounds, solver);
-
-        final var isVisionCompletelyBlocked =
-            accumulator.add(topology.getKey(), topology.getValue());
-        timer.stop("accumulate blocking walls");
-        if (!isVisionCompletelyBlocked) {
+      List<Coordinate[]> visibilityPolygons = new ArrayList<>();
+      for (final var solution : solutions) {
+        if (solution.visionBlocked()) {
           // Vision has been completely blocked by this topology. Short circuit.
           return new Area();
         }
-
-        timer.start("calculate visible area");
-        final Coordinate[] visibleArea;
-        try {
-          visibleArea = solver.solve();
-        } catch (Exception e) {
-          log.error("Unexpected error while calculating visible area.", e);
-          // Play it safe and dont consider anything to be visible.
-          return new Area();
-        }
-        timer.stop("calculate visible area");
-
-        timer.start("add visibility polygon");
-        if (visibleArea != null) {
-          visibilityPolygons.add(visibleArea);
+        if (solution.visibleArea() != null) {
+          visibilityPolygons.add(solution.visibleArea());
         }
-        timer.stop("add visibility polygon");
       }
 
       if (visibilityPolygons.isEmpty()) {
@@ -164,6 +250,105 @@ public class FogUtil {
     }
   }
 
+  private static List<TopologySolution> solveTopologies(
+      Coordinate origin, Envelope visionBounds, Map<Zone.TopologyType, AreaTree> topologies) {
+    final var solutions = new ArrayList<TopologySolution>(topologies.size());
+    for (final var topology : topologies.entrySet()) {
+      final var solution =
+          solveTopology(origin, visionBounds, topology.getKey(), topology.getValue(), () -> false);
+      solutions.add(solution);
+      if (solution.visionBlocked()) {
+        // No need to look at the remaining topology.
+        break;
+      }
+    }
+    return solutions;
+  }
+
+  private static List<TopologySolution> solveTopologiesInParallel(
+      Coordinate origin, Envelope visionBounds, Map<Zone.TopologyType, AreaTree> topologies) {
+    // Set as soon as any topology blocks vision, so that the remaining tasks can bail out.
+    final var visionBlocked = new AtomicBoolean(false);
+
+    final var tasks = new ArrayList<ForkJoinTask<TopologySolution>>(topologies.size());
+    for (final var topology : topologies.entrySet()) {
+      tasks.add(
+          ForkJoinTask.adapt(
+              () -> {
+                final var solution =
+                    solveTopology(
+                        origin,
+                        visionBounds,
+                        topology.getKey(),
+                        topology.getValue(),
+                        visionBlocked::get);
+                if (solution.visionBlocked()) {
+                  visionBlocked.set(true);
+                }
+                return solution;
+              }));
+    }
+    invokeAllOnVisibilityPool(tasks);
+
+    // Keep the topology order so that the polygons are intersected exactly as in the serial case.
+    final var solutions = new ArrayList<TopologySolution>(tasks.size());
+    for (final var task : tasks) {
+      solutions.add(task.join());
+    }
+    return solutions;
+  }
+
+  /**
+   * Find the visibility polygon for a single type of topology.
+   *
+   * @param origin The vision origin.
+   * @param visionBounds The bounding box of the vision.
+   * @param type The type of topology.
+   * @param topology The topology tree.
+   * @param cancelled Reports whether vision has already been blocked elsewhere, in which case there
+   *     is no point in continuing.
+   * @return The solution for {@code topology}.
+   */
+  private static TopologySolution solveTopology(
+      Coordinate origin,
+      Envelope visionBounds,
+      Zone.TopologyType type,
+      AreaTree topology,
+      BooleanSupplier cancelled) {
+    if (cancelled.getAsBoolean()) {
+      return TopologySolution.BLOCKED;
+    }
+
+    final var solver = new VisibilityProblem(origin, visionBounds);
+    final var accumulator = new VisionBlockingAccumulator(origin, visionBounds, solver);
+    final var isVisionPossible = accumulator.add(type, topology);
+    if (!isVisionPossible || cancelled.getAsBoolean()) {
+      return TopologySolution.BLOCKED;
+    }
+
+    try {
+      return new TopologySolution(false, solver.solve());
+    } catch (Exception e) {
+      log.error("Unexpected error while calculating visible area.", e);
+      // Play it safe and dont consider anything to be visible.
+      return TopologySolution.BLOCKED;
+    }
+  }
+
+  /**
+   * Runs all {@code tasks} to completion on {@link #visibilityPool}.
+   *
+   * <p>If the current thread is already a worker of the pool, the tasks are forked directly so that
+   * the worker helps out rather than blocking.
+   */
+  private static void invokeAllOnVisibilityPool(Collection<? extends ForkJoinTask<?>> tasks) {
+    if (ForkJoinTask.getPool() == visibilityPool) {
+      ForkJoinTask.invokeAll(tasks);
+    } else {
+      visibilityPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+  }
+
   /**
    * Expose visible area and previous path of all tokens in the token set. Server and clients are
    * updated.
@@ -389,10 +574,8 @@ public static void exposeLastPath(final ZoneRenderer renderer, final Set<GUID> t
 
             if (lastPath == null) return;
 
-            Map<GUID, ExposedAreaMetaData> fullMeta = zone.getExposedAreaMetaData();
             GUID exposedGUID = token.getExposedAreaGUID();
-            final ExposedAreaMetaData meta =
-                fullMeta.computeIfAbsent(exposedGUID, guid -> new ExposedAreaMetaData());
+            final ExposedAreaMetaData meta = zone.getExposedAreaMetaData(exposedGUID);
 
             final Token tokenClone = new Token(token);
             final ZoneView zoneView = renderer.getZoneView();
@@ -19,12 +19,15 @@
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import net.rptools.maptool.client.AppPreferences;
 import net.rptools.maptool.client.AppUtil;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.client.ui.zone.Illumination.LumensLevel;
@@ -32,6 +35,7 @@
 import net.rptools.maptool.client.ui.zone.IlluminationModel.LightInfo;
 import net.rptools.maptool.client.ui.zone.Illuminator.LitArea;
 import net.rptools.maptool.client.ui.zone.vbl.AreaTree;
+import net.rptools.maptool.client.walker.PassabilityGrid;
 import net.rptools.maptool.events.MapToolEventBus;
 import net.rptools.maptool.model.*;
 import net.rptools.maptool.model.player.Player;
@@ -154,6 +158,18 @@ private void addLightSourceToken(Token token, Set<Player.Role> roles) {
   private final Map<Zone.TopologyType, AreaTree> topologyTrees =
       new EnumMap<>(Zone.TopologyType.class);
 
+  /**
+   * Which moves are blocked by topology, for tokens with no topology of their own. Keyed by whether
+   * wall, hill and pit VBL block movement as well as MBL.
+   */
+  private final Map<Boolean, PassabilityGrid> topologyPassability = new HashMap<>();
+
+  /** The bounds of topology changes not yet applied to {@link #topologyPassability}. */
+  private final Map<Boolean, Rectangle2D> pendingPassabilityChanges = new HashMap<>();
+
+  /** Which moves are blocked by fog for each view. */
+  private final Map<PlayerView, PassabilityGrid> fogPassability = new ConcurrentHashMap<>();
+
   /**
    * Construct ZoneView from zone. Build lightSourceMap, and add ZoneView to Zone as listener.
    *
@@ -184,14 +200,28 @@ public Area getExposedArea(PlayerView view) {
         // tokens' exposed areas to build the soft FoW. Note that not all owned tokens may still
         // have sight (so weren't included in the PlayerView), but could still have previously
         // exposed areas.
-        exposed = new Area();
-        for (Token tok : zone.getTokensForLayers(Zone.Layer::supportsVision)) {
-          if (!AppUtil.playerOwns(tok)) {
-            continue;
+        ExposedAreaTiles zoneTiles = zone.getExposedAreaTiles();
+        if (zoneTiles != null) {
+          // Tiled fog can be combined without building each token's area.
+          var tiles = new ExposedAreaTiles(zoneTiles.getCellSize());
+          for (Token tok : zone.getTokensForLayers(Zone.Layer::supportsVision)) {
+            if (!AppUtil.playerOwns(tok)) {
+              continue;
+            }
+            ExposedAreaMetaData meta = zone.getExposedAreaMetaData(tok.getExposedAreaGUID());
+            tiles.add(meta.getExposedAreaTiles());
+          }
+          exposed = tiles.toArea();
+        } else {
+          exposed = new Area();
+          for (Token tok : zone.getTokensForLayers(Zone.Layer::supportsVision)) {
+            if (!AppUtil.playerOwns(tok)) {
+              continue;
+            }
+            ExposedAreaMetaData meta = zone.getExposedAreaMetaData(tok.getExposedAreaGUID());
+            Area exposedArea = meta.getExposedAreaHistory();
+            exposed.add(new Area(exposedArea));
           }
-          ExposedAreaMetaData meta = zone.getExposedAreaMetaData(tok.getExposedAreaGUID());
-          Area exposedArea = meta.getExposedAreaHistory();
-          exposed.add(new Area(exposedArea));
         }
       }
 
@@ -214,7 +244,9 @@ public Area getExposedArea(PlayerView view) {
         view,
         view2 -> {
           final var visibleArea = new Area();
-          getTokensForView(view2)
+          final var tokens = getTokensForView(view2).toList();
+          cacheTokenVisibleAreas(tokens);
+          tokens.stream()
               .map(token -> this.getVisibleArea(token, view2))
               .forEach(visibleArea::add);
           return visibleArea;
@@ -285,6 +317,67 @@ private synchronized AreaTree getTopologyTree(Zone.TopologyType topologyType) {
     return topologyTree;
   }
 
+  /**
+   * Get the area that blocks movement.
+   *
+   * @param vblBlocksMove whether wall, hill and pit VBL block movement as well as MBL.
+   * @return the area.
+   */
+  public synchronized Area getMovementBlockingArea(boolean vblBlocksMove) {
+    if (!vblBlocksMove) {
+      return getTopology(Zone.TopologyType.MBL);
+    }
+
+    var area = new Area(getTopology(Zone.TopologyType.WALL_VBL));
+    area.add(getTopology(Zone.TopologyType.HILL_VBL));
+    area.add(getTopology(Zone.TopologyType.PIT_VBL));
+    area.add(getTopology(Zone.TopologyType.MBL));
+    return area;
+  }
+
+  /**
+   * Get which moves between cells are blocked by topology. The result is shared by all walkers on
+   * the zone, and is brought up to date as the topology changes rather than being rebuilt.
+   *
+   * @param vblBlocksMove whether wall, hill and pit VBL block movement as well as MBL.
+   * @return which moves are blocked.
+   */
+  public synchronized PassabilityGrid getTopologyPassability(boolean vblBlocksMove) {
+    var passability = topologyPassability.get(vblBlocksMove);
+    var changedBounds = pendingPassabilityChanges.remove(vblBlocksMove);
+    if (passability == null || !passability.isFor(zone.getGrid())) {
+      passability =
+          new PassabilityGrid(
+              zone.getGrid(),
+              getMovementBlockingArea(vblBlocksMove),
+              PassabilityGrid.Mode.BLOCKED_INSIDE);
+      topologyPassability.put(vblBlocksMove, passability);
+    } else if (changedBounds != null) {
+      passability = passability.update(getMovementBlockingArea(vblBlocksMove), changedBounds);
+      topologyPassability.put(vblBlocksMove, passability);
+    }
+    return passability;
+  }
+
+  /**
+   * Get which moves between cells are blocked by fog, i.e., leave the exposed area.
+   *
+   * @param view the player view.
+   * @return which moves are blocked.
+   */
+  public PassabilityGrid getFogPassability(PlayerView view) {
+    var exposedArea = getExposedArea(view);
+    var passability = fogPassability.get(view);
+    if (passability == null
+        || passability.getArea() != exposedArea
+        || !passability.isFor(zone.getGrid())) {
+      passability =
+          new PassabilityGrid(zone.getGrid(), exposedArea, PassabilityGrid.Mode.BLOCKED_OUTSIDE);
+      fogPassability.put(view, passability);
+    }
+    return passability;
+  }
+
   private IlluminationModel getIlluminationModel(IlluminationKey illuminationKey) {
     final var illuminationModel =
         illuminationModels.computeIfAbsent(illuminationKey, key -> new IlluminationModel());
@@ -534,12 +627,13 @@ public Illumination getIllumination(PlayerView view) {
       final var baseIllumination = getIllumination(illuminationKey);
 
       final var extraLights = new ArrayList<LitArea>();
-      getTokensForView(view)
-          .forEach(
-              token -> {
-                final var personalLights = getPersonalTokenContributions(view.getRole(), token);
-                extraLights.addAll(Lists.transform(personalLights, ContributedLight::litArea));
-              });
+      final var tokens = getTokensForView(view).toList();
+      cacheTokenVisibleAreas(tokens);
+      tokens.forEach(
+          token -> {
+            final var personalLights = getPersonalTokenContributions(view.getRole(), token);
+            extraLights.addAll(Lists.transform(personalLights, ContributedLight::litArea));
+          });
 
       illumination = baseIllumination.withExtraLights(extraLights);
       illuminationsPerView.put(view, illumination);
@@ -587,13 +681,11 @@ private Area getTokenVisibleArea(@Nonnull Token token) {
 
     if (tokenVisibleArea == null) {
       // Not cached yet.
-      Point p = FogUtil.calculateVisionCenter(token, zone);
-      Area visibleArea = sight.getVisionShape(token, zone);
-      visibleArea.transform(AffineTransform.getTranslateInstance(p.x, p.y));
+      final var request = createVisibilityRequest(token, sight);
       tokenVisibleArea =
           FogUtil.calculateVisibility(
-              p,
-              visibleArea,
+              request.origin(),
+              request.vision(),
               getTopologyTree(Zone.TopologyType.WALL_VBL),
               getTopologyTree(Zone.TopologyType.HILL_VBL),
               getTopologyTree(Zone.TopologyType.PIT_VBL),
@@ -605,6 +697,63 @@ private Area getTokenVisibleArea(@Nonnull Token token) {
     return new Area(tokenVisibleArea);
   }
 
+  private FogUtil.VisibilityRequest createVisibilityRequest(
+      @Nonnull Token token, @Nonnull SightType sight) {
+    Point p = FogUtil.calculateVisionCenter(token, zone);
+    Area visibleArea = sight.getVisionShape(token, zone);
+    visibleArea.transform(AffineTransform.getTranslateInstance(p.x, p.y));
+    return new FogUtil.VisibilityRequest(p, visibleArea);
+  }
+
+  /**
+   * Populate {@link #tokenVisibleAreaCache} for all {@code tokens} at once.
+   *
+   * <p>When parallel visibility is enabled, this lets the tokens' visible areas be solved
+   * concurrently rather than one at a time as each is requested. Otherwise nothing is done here and
+   * the areas are calculated lazily by {@link #getTokenVisibleArea(Token)}.
+   *
+   * @param tokens The tokens whose visible areas will be needed.
+   */
+  private void cacheTokenVisibleAreas(List<Token> tokens) {
+    if (!AppPreferences.getParallelVisibility()) {
+      return;
+    }
+
+    final var uncachedTokens = new ArrayList<Token>();
+    final var requests = new ArrayList<FogUtil.VisibilityRequest>();
+    final var seen = new HashSet<GUID>();
+    for (final var token : tokens) {
+      if (!token.getHasSight()
+          || tokenVisibleAreaCache.containsKey(token.getId())
+          || !seen.add(token.getId())) {
+        continue;
+      }
+      final var sight = MapTool.getCampaign().getSightType(token.getSightType());
+      if (sight == null) {
+        continue;
+      }
+
+      uncachedTokens.add(token);
+      requests.add(createVisibilityRequest(token, sight));
+    }
+
+    if (requests.size() < 2) {
+      // Nothing to be gained over the lazy calculation.
+      return;
+    }
+
+    final var visibleAreas =
+        FogUtil.calculateVisibility(
+            requests,
+            getTopologyTree(Zone.TopologyType.WALL_VBL),
+            getTopologyTree(Zone.TopologyType.HILL_VBL),
+            getTopologyTree(Zone.TopologyType.PIT_VBL),
+            getTopologyTree(Zone.TopologyType.COVER_VBL));
+    for (int i = 0; i < uncachedTokens.size(); ++i) {
+      tokenVisibleAreaCache.put(uncachedTokens.get(i).getId(), visibleAreas.get(i));
+    }
+  }
+
   /**
    * Return the token visible area from tokenVisionCache. If null, create it.
    *
@@ -796,10 +945,12 @@ public void flush() {
 
     drawableLights.clear();
     drawableAuras.clear();
+    fogPassability.clear();
   }
 
   public void flushFog() {
     exposedAreaMap.clear();
+    fogPassability.clear();
   }
 
   /**
@@ -856,8 +1007,72 @@ private void onTopologyChanged(TopologyChanged event) {
     }
 
     flush();
+    if (event.topologyType() == null || event.area() == null) {
+      clearTopology();
+      return;
+    }
+
+    updateTopology(event.topologyType(), event.area(), event.removed());
+  }
+
+  /**
+   * Bring the cached topology for {@code topologyType} up-to-date after a change to the zone's
+   * topology.
+   *
+   * <p>Rather than discarding the cached {@link AreaTree}, only the part of the tree affected by
+   * {@code changedArea} is rebuilt. The cached area and tree are replaced rather than modified, so
+   * anyone still holding the old ones is unaffected.
+   *
+   * @param topologyType The type of topology that changed.
+   * @param changedArea The area that was added to or removed from the zone's topology.
+   * @param removed Whether {@code changedArea} was removed rather than added.
+   */
+  private synchronized void updateTopology(
+      Zone.TopologyType topologyType, Area changedArea, boolean removed) {
+    // Only MBL blocks movement, unless wall, hill and pit VBL do too.
+    for (var vblBlocksMove : topologyPassability.keySet()) {
+      if (topologyType == Zone.TopologyType.MBL
+          || (vblBlocksMove && topologyType != Zone.TopologyType.COVER_VBL)) {
+        pendingPassabilityChanges.merge(
+            vblBlocksMove, changedArea.getBounds2D(), Rectangle2D::createUnion);
+      }
+    }
+
+    final var oldTopology = topologyAreas.get(topologyType);
+    if (oldTopology == null) {
+      // Nothing cached, so it will be built fresh when next needed.
+      topologyTrees.remove(topologyType);
+      return;
+    }
+
+    final var topology = new Area(oldTopology);
+    final var changedBounds = changedArea.getBounds2D();
+    if (removed) {
+      topology.subtract(changedArea);
+      // Token topology is unaffected by changes to the map's topology, so put back any we removed.
+      for (final var token : zone.getTokensWithTopology(topologyType)) {
+        final var tokenTopology = token.getTransformedTopology(topologyType);
+        if (tokenTopology.intersects(changedBounds)) {
+          topology.add(tokenTopology);
+        }
+      }
+    } else {
+      topology.add(changedArea);
+    }
+    topologyAreas.put(topologyType, topology);
+
+    final var topologyTree = topologyTrees.get(topologyType);
+    if (topologyTree != null) {
+      log.debug("Updating ZoneView topology tree for {}", topologyType.name());
+      topologyTrees.put(topologyType, topologyTree.update(topology, changedBounds));
+    }
+  }
+
+  private synchronized void clearTopology() {
     topologyAreas.clear();
     topologyTrees.clear();
+    topologyPassability.clear();
+    pendingPassabilityChanges.clear();
   }
 
   private boolean flushExistingTokens(List<Token> tokens) {
@@ -902,8 +1117,7 @@ private void onTokensRemoved(TokensRemoved event) {
 
     if (event.tokens().stream().anyMatch(Token::hasAnyTopology)) {
       flush();
-      topologyAreas.clear();
-      topologyTrees.clear();
+      clearTopology();
     }
   }
 
@@ -933,8 +1147,7 @@ private void processTokenAddChangeEvent(List<Token> tokens) {
 
     if (tokens.stream().anyMatch(Token::hasAnyTopology)) {
       flush();
-      topologyAreas.clear();
-      topologyTrees.clear();
+      clearTopology();
     }
   }
 
@@ -0,0 +1,208 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone.renderer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.twelvemonkeys.image.ResampleOp;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.rptools.maptool.client.AppPreferences;
+import net.rptools.maptool.client.AppPreferences.RenderQuality;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps copies of token images scaled down by powers of two, so that zoomed out tokens can be drawn
+ * from an image close to their size on screen instead of scaling the full image every frame.
+ *
+ * <p>Each level of an image is half the size of the one before it, and is scaled from the original
+ * image in the background with the filter for the current render quality. Until a level is ready,
+ * {@link #getImage(BufferedImage, AffineTransform)} returns the original image and the renderer
+ * scales it as before. The scaled images of all renderers share one cache, a quarter of the size of
+ * the image cache, and the least recently used are evicted first.
+ */
+class TokenImageCache {
+  private static final Logger log = LogManager.getLogger(TokenImageCache.class);
+
+  /** The scaled images, with the least recently used evicted once they use too much memory. */
+  private static final Cache<Key, BufferedImage> scaledImages =
+      CacheBuilder.newBuilder()
+          .maximumWeight(AppPreferences.getImageCacheSize() * 1024L * 1024L / 4)
+          .weigher((Key key, BufferedImage image) -> image.getWidth() * image.getHeight() * 4)
+          .build();
+
+  /** The levels that are being scaled. */
+  private static final Set<Key> pending = ConcurrentHashMap.newKeySet();
+
+  /** The images that could not be scaled, which are drawn as they are. */
+  private static final Set<BufferedImage> unscalable =
+      Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+  private static final ExecutorService scaler =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder()
+              .setNameFormat("token-image-scaler-%d")
+              .setDaemon(true)
+              .build());
+
+  /** Called when a level has been scaled, so that the tokens can be drawn with it. */
+  private final Runnable onReady;
+
+  /**
+   * Identifies a level of an image. The image is only weakly held, so that the cache does not
+   * keep images that are no longer used by anything else.
+   */
+  private static final class Key {
+    private final WeakReference<BufferedImage> source;
+    private final int hash;
+    private final int level;
+    private final RenderQuality quality;
+
+    Key(BufferedImage source, int level, RenderQuality quality) {
+      this.source = new WeakReference<>(source);
+      this.hash = 31 * (31 * System.identityHashCode(source) + level) + quality.hashCode();
+      this.level = level;
+      this.quality = quality;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key other)) {
+        return false;
+      }
+      BufferedImage image = source.get();
+      return image != null
+          && image == other.source.get()
+          && level == other.level
+          && quality == other.quality;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * Creates a cache for a renderer.
+   *
+   * @param onReady called on a background thread when a scaled image becomes available.
+   */
+  TokenImageCache(Runnable onReady) {
+    this.onReady = onReady;
+  }
+
+  /**
+   * Returns the image to draw for a token. If a scaled down copy of the image is available it is
+   * returned, and the transform is adjusted to draw it at the same size as the original.
+   *
+   * @param image the image of the token.
+   * @param transform the transform that draws the image on screen. Changed if a scaled copy is
+   *     returned.
+   * @return the image to draw with the transform.
+   */
+  BufferedImage getImage(BufferedImage image, AffineTransform transform) {
+    int level = getLevel(transform, image.getWidth(), image.getHeight());
+    if (level == 0 || unscalable.contains(image)) {
+      return image;
+    }
+
+    var key = new Key(image, level, AppPreferences.getRenderQuality());
+    BufferedImage scaled = scaledImages.getIfPresent(key);
+    if (scaled == null) {
+      if (pending.add(key)) {
+        scaler.execute(() -> createLevel(key, image));
+      }
+      return image;
+    }
+
+    adjustTransform(transform, image, scaled);
+    return scaled;
+  }
+
+  /**
+   * Works out which level of an image to draw, which is the smallest level that is still at least
+   * as big as the image on screen.
+   *
+   * @param transform the transform that draws the image on screen.
+   * @param width the width of the image.
+   * @param height the height of the image.
+   * @return the level, or 0 if the image should be drawn as it is.
+   */
+  static int getLevel(AffineTransform transform, int width, int height) {
+    // How much the image is shrunk by on screen, ignoring any rotation.
+    double scale =
+        Math.min(
+            Math.hypot(transform.getScaleX(), transform.getShearY()),
+            Math.hypot(transform.getShearX(), transform.getScaleY()));
+    if (!(scale > 0 && scale <= 0.5)) {
+      return 0;
+    }
+    int level = Math.min(30, (int) Math.floor(-Math.log(scale) / Math.log(2)));
+    if ((width >> level) < 1 || (height >> level) < 1) {
+      return 0;
+    }
+    return level;
+  }
+
+  /**
+   * Adjusts a transform so that it draws a scaled copy of an image at the size of the original.
+   *
+   * @param transform the transform that draws the original image. Changed in place.
+   * @param image the original image.
+   * @param scaled the scaled copy of the image.
+   */
+  static void adjustTransform(
+      AffineTransform transform, BufferedImage image, BufferedImage scaled) {
+    transform.scale(
+        (double) image.getWidth() / scaled.getWidth(),
+        (double) image.getHeight() / scaled.getHeight());
+  }
+
+  private void createLevel(Key key, BufferedImage image) {
+    try {
+      int width = image.getWidth() >> key.level;
+      int height = image.getHeight() >> key.level;
+      var resampleOp = new ResampleOp(width, height, key.quality.getResampleOpFilter());
+      scaledImages.put(key, resampleOp.filter(image, null));
+      onReady.run();
+    } catch (RuntimeException e) {
+      // Draw the original image instead, rather than trying again every frame. It is not put in
+      // the cache, where it would keep its own key alive and count against the cache size.
+      log.warn("Unable to scale token image", e);
+      unscalable.add(image);
+    } finally {
+      pending.remove(key);
+    }
+  }
+
+  /** Removes all the scaled images. */
+  static void flush() {
+    scaledImages.invalidateAll();
+    unscalable.clear();
+  }
+}
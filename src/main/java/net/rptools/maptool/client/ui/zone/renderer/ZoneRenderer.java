@@ -121,6 +121,7 @@ public class ZoneRenderer extends JComponent implements DropTargetListener {
   final Map<GUID, BufferedImage> labelRenderingCache = new HashMap<GUID, BufferedImage>();
   private final Map<Token, BufferedImage> flipImageMap = new HashMap<Token, BufferedImage>();
   private final Map<Token, BufferedImage> flipIsoImageMap = new HashMap<Token, BufferedImage>();
+  private final TokenImageCache tokenImageCache;
   private Token tokenUnderMouse;
 
   private ScreenPoint pointUnderMouse;
@@ -185,6 +186,7 @@ public ZoneRenderer(Zone zone) {
     this.visionOverlayRenderer = new VisionOverlayRenderer(renderHelper, zone, zoneView);
     this.debugRenderer = new DebugRenderer(renderHelper);
     repaintDebouncer = new DebounceExecutor(1000 / AppPreferences.getFrameRateCap(), this::repaint);
+    tokenImageCache = new TokenImageCache(repaintDebouncer::dispatch);
 
     setFocusable(true);
     selectionModel = new SelectionModel(zone);
@@ -621,6 +623,7 @@ public void flush() {
     flushDrawableRenderer();
     flipImageMap.clear();
     flipIsoImageMap.clear();
+    TokenImageCache.flush();
     zoneView.flushFog();
 
     isLoaded = false;
@@ -944,6 +947,17 @@ public void renderZone(Graphics2D g2d, PlayerView view) {
       timer.stop("createTransformedArea");
     }
 
+    // Only tokens near this part of the zone can be on screen.
+    ZonePoint viewTopLeft = new ScreenPoint(0, 0).convertToZone(this);
+    ZonePoint viewBottomRight =
+        new ScreenPoint(viewRect.width, viewRect.height).convertToZone(this);
+    Rectangle zoneViewRect =
+        new Rectangle(
+            viewTopLeft.x,
+            viewTopLeft.y,
+            viewBottomRight.x - viewTopLeft.x + 1,
+            viewBottomRight.y - viewTopLeft.y + 1);
+
     timer.stop("calcs-1");
 
     // Rendering pipeline
@@ -959,7 +973,7 @@ public void renderZone(Graphics2D g2d, PlayerView view) {
       renderDrawableOverlay(g2d, drawableRenderers.get(Layer.BACKGROUND), view, drawables);
       timer.stop("drawableBackground");
       // }
-      List<Token> background = zone.getTokensOnLayer(Layer.BACKGROUND, false);
+      List<Token> background = zone.getTokensOnLayer(Layer.BACKGROUND, false, zoneViewRect);
       if (!background.isEmpty()) {
         timer.start("tokensBackground");
         renderTokens(g2d, background, view);
@@ -982,7 +996,7 @@ public void renderZone(Graphics2D g2d, PlayerView view) {
 
     if (shouldRenderLayer(Zone.Layer.OBJECT, view)) {
       // ... Images on the object layer are always ABOVE the grid.
-      List<Token> stamps = zone.getTokensOnLayer(Layer.OBJECT, false);
+      List<Token> stamps = zone.getTokensOnLayer(Layer.OBJECT, false, zoneViewRect);
       if (!stamps.isEmpty()) {
         timer.start("tokensStamp");
         renderTokens(g2d, stamps, view);
@@ -1033,14 +1047,14 @@ public void renderZone(Graphics2D g2d, PlayerView view) {
         renderDrawableOverlay(g2d, drawableRenderers.get(Layer.GM), view, drawables);
         timer.stop("drawableGM");
         // }
-        List<Token> stamps = zone.getTokensOnLayer(Layer.GM, false);
+        List<Token> stamps = zone.getTokensOnLayer(Layer.GM, false, zoneViewRect);
         if (!stamps.isEmpty()) {
           timer.start("tokensGM");
           renderTokens(g2d, stamps, view);
           timer.stop("tokensGM");
         }
       }
-      List<Token> tokens = zone.getTokensOnLayer(Layer.TOKEN, false);
+      List<Token> tokens = zone.getTokensOnLayer(Layer.TOKEN, false, zoneViewRect);
       if (!tokens.isEmpty()) {
         timer.start("tokens");
         renderTokens(g2d, tokens, view);
@@ -2384,6 +2398,8 @@ protected void renderTokens(
           at.scale(scaledWidth / workImage.getWidth(), scaledHeight / workImage.getHeight());
         }
       }
+      // Use a copy of the image scaled close to its size on screen, if there is one ready.
+      workImage = tokenImageCache.getImage(workImage, at);
       timer.stop("tokenlist-6");
 
       // Render Halo
@@ -75,6 +75,53 @@ public Coordinate getInteriorPoint() {
     return interiorPoint;
   }
 
+  /**
+   * @return A copy of the bounding box of the boundary, or {@code null} if this represents the
+   *     entire plane.
+   */
+  public Envelope getBoundingBox() {
+    if (vertices.length == 0) {
+      return null;
+    }
+
+    return new Envelope(boundingBox);
+  }
+
+  /**
+   * Checks whether the bounding box of the boundary intersects {@code envelope}.
+   *
+   * @param envelope The envelope to check.
+   * @return {@code true} if the bounding box intersects {@code envelope}.
+   */
+  public boolean intersects(Envelope envelope) {
+    if (vertices.length == 0) {
+      return true;
+    }
+
+    return boundingBox.intersects(envelope);
+  }
+
+  /**
+   * Checks whether {@code envelope} lies entirely within the boundary.
+   *
+   * @param envelope The envelope to check.
+   * @return {@code true} if no part of {@code envelope} lies outside the boundary.
+   */
+  public boolean contains(Envelope envelope) {
+    if (vertices.length == 0) {
+      return true;
+    }
+
+    if (!boundingBox.contains(envelope)) {
+      return false;
+    }
+
+    final var geometryFactory = GeometryUtil.getGeometryFactory();
+    return geometryFactory
+        .createPolygon(vertices)
+        .contains(geometryFactory.toGeometry(envelope));
+  }
+
   public boolean contains(Coordinate point) {
     if (vertices.length == 0) {
       return true;
@@ -120,7 +167,7 @@ public void getFacingSegments(
       Facing facing,
       Envelope visionBounds,
       Consumer<List<Coordinate>> resultConsumer) {
-    if (vertices.length == 0) {
+    if (vertices.length == 0 || !boundingBox.intersects(visionBounds)) {
       return;
     }
 
@@ -16,6 +16,8 @@
 
 import com.google.common.collect.Iterables;
 import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -25,6 +27,8 @@
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
 
 /**
  * Represents a topology area as a tree of nested polygons.
@@ -37,6 +41,12 @@
 public class AreaTree {
   private static final Logger log = LogManager.getLogger(AreaTree.class);
 
+  /**
+   * How far apart unchanged islands must be from a changed region in order to be kept as-is during
+   * an incremental update.
+   */
+  private static final double UPDATE_MARGIN = 1.0;
+
   /** The original area digested. */
   private final @Nonnull Node theOcean;
 
@@ -56,6 +66,28 @@ public AreaTree() {
   public AreaTree(@Nonnull Area area) {
     this();
 
+    if (!addIslands(theOcean, area)) {
+      // This shouldn't happen unless we messed up somewhere. Can't add islands to other islands.
+      log.warn("Unable to find a parent container for an island. Returning an empty tree");
+      this.theOcean.clearChildren();
+    }
+  }
+
+  private AreaTree(@Nonnull Node theOcean) {
+    this.theOcean = theOcean;
+  }
+
+  /**
+   * Digests {@code area} into islands and adds them to the tree below {@code container}.
+   *
+   * @param container The ocean under which to add the islands. Each polygon in {@code area} must be
+   *     contained in {@code container}, and must not overlap any existing child of {@code
+   *     container}.
+   * @param area The area to digest.
+   * @return {@code true} if all islands could be added, {@code false} if there was an island that
+   *     could not be placed.
+   */
+  private static boolean addIslands(@Nonnull Node container, @Nonnull Area area) {
     final var islands = new ArrayList<Node>();
     // Each polygon is an association of a parent polygon with polygonal holes. So we can easily map
     // each polygon to a parent island node with child ocean nodes for each hole.
@@ -63,7 +95,7 @@ public AreaTree(@Nonnull Area area) {
       final var island = new Node(new AreaMeta(polygon.getExteriorRing()));
       for (int i = 0; i < polygon.getNumInteriorRing(); ++i) {
         final var hole = polygon.getInteriorRingN(i);
-        island.children.add(new Node(new AreaMeta(hole)));
+        island.addChild(new Node(new AreaMeta(hole)));
       }
       islands.add(island);
     }
@@ -74,16 +106,150 @@ public AreaTree(@Nonnull Area area) {
     for (var island : islands) {
       // This interior point check is only valid because we sorted the islands, ensuring parents are
       // added to the tree before any possible children.
-      final var location = this.locate(island.getMeta().getInteriorPoint());
+      final var location = locate(container, island.getMeta().getInteriorPoint());
       if (location.island() != null) {
-        // This shouldn't happen unless we messed up somewhere. Can't add islands to other islands.
-        log.warn("Unable to find a parent container for an island. Returning an empty tree");
-        this.theOcean.children.clear();
-        return;
+        return false;
+      }
+
+      location.nearestOcean().addChild(island);
+    }
+    return true;
+  }
+
+  /**
+   * Creates a new tree that reflects a change to the topology within {@code changedRegion}.
+   *
+   * <p>Only the part of the tree near {@code changedRegion} is rebuilt. The deepest ocean that
+   * fully contains the changed region is found, and any of its islands that overlap the region are
+   * replaced by islands digested from the corresponding part of {@code area}. All other nodes are
+   * shared with this tree, which is left unmodified so that it remains safe to use by concurrent
+   * readers.
+   *
+   * @param area The complete topology after the change.
+   * @param changedRegion The bounds of the changed part of the topology.
+   * @return The updated tree.
+   */
+  public @Nonnull AreaTree update(@Nonnull Area area, @Nonnull Rectangle2D changedRegion) {
+    final var region =
+        new Envelope(
+            changedRegion.getMinX(),
+            changedRegion.getMaxX(),
+            changedRegion.getMinY(),
+            changedRegion.getMaxY());
+
+    // Oceans from the root down to the deepest ocean that contains the region, along with the
+    // islands that join them.
+    final var path = new ArrayList<Node>();
+    path.add(theOcean);
+    findDeepestContainer(region, path);
+
+    var updated = tryUpdate(path, area, region);
+    if (updated == null && path.size() > 1) {
+      // The affected islands spilled outside the deepest ocean. Fall back to the root, which can
+      // always accommodate the change.
+      path.subList(1, path.size()).clear();
+      updated = tryUpdate(path, area, region);
+    }
+    if (updated == null) {
+      log.warn("Unable to update the topology tree incrementally. Rebuilding the entire tree.");
+      return new AreaTree(area);
+    }
+    return updated;
+  }
+
+  /**
+   * Extend {@code path} to the deepest ocean that strictly contains {@code region}.
+   *
+   * @param region The region to find a container for.
+   * @param path The path to extend. It must start with the root ocean. Each added ocean is preceded
+   *     by its parent island.
+   */
+  private static void findDeepestContainer(Envelope region, List<Node> path) {
+    final var paddedRegion = new Envelope(region);
+    paddedRegion.expandBy(2 * UPDATE_MARGIN);
+
+    @Nullable Node nextOcean = path.getLast();
+    while (nextOcean != null) {
+      final var ocean = nextOcean;
+      nextOcean = null;
+
+      outer:
+      for (final var island : ocean.getChildrenIntersecting(paddedRegion)) {
+        for (final var childOcean : island.children) {
+          if (childOcean.getMeta().contains(paddedRegion)) {
+            path.add(island);
+            path.add(childOcean);
+            nextOcean = childOcean;
+            break outer;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Rebuild the islands of the last ocean in {@code path} that are affected by {@code region}.
+   *
+   * @return The new tree, or {@code null} if the change could not be contained to the ocean.
+   */
+  private @Nullable AreaTree tryUpdate(List<Node> path, Area area, Envelope region) {
+    final var container = path.getLast();
+
+    // Find all islands that interact with the region. Since these islands are replaced as a whole,
+    // the region grows to include them, which can in turn bring in more islands.
+    final var dirtyRegion = new Envelope(region);
+    final var unaffected = new ArrayList<>(container.children);
+    boolean grew = true;
+    while (grew) {
+      grew = false;
+      final var paddedRegion = new Envelope(dirtyRegion);
+      paddedRegion.expandBy(2 * UPDATE_MARGIN);
+      for (final var iterator = unaffected.iterator(); iterator.hasNext(); ) {
+        final var island = iterator.next();
+        if (island.getMeta().intersects(paddedRegion)) {
+          iterator.remove();
+          dirtyRegion.expandToInclude(island.getMeta().getBoundingBox());
+          grew = true;
+        }
       }
+    }
+
+    final var paddedRegion = new Envelope(dirtyRegion);
+    paddedRegion.expandBy(2 * UPDATE_MARGIN);
+    if (!container.getMeta().contains(paddedRegion)) {
+      return null;
+    }
+
+    // No polygon of the new topology straddles the dirty region, so clipping to it leaves exactly
+    // the polygons that replace the affected islands.
+    final var clipRegion = new Envelope(dirtyRegion);
+    clipRegion.expandBy(UPDATE_MARGIN);
+    final var clippedArea = new Area(area);
+    clippedArea.intersect(
+        new Area(
+            new Rectangle2D.Double(
+                clipRegion.getMinX(),
+                clipRegion.getMinY(),
+                clipRegion.getWidth(),
+                clipRegion.getHeight())));
+
+    var replacement = new Node(container.getMeta());
+    unaffected.forEach(replacement::addChild);
+    if (!addIslands(replacement, clippedArea)) {
+      return null;
+    }
 
-      location.nearestOcean().children.add(island);
+    // Copy the path back up to the root so that the existing tree is not modified.
+    for (int i = path.size() - 2; i >= 0; --i) {
+      final var original = path.get(i);
+      final var copy = new Node(original.getMeta());
+      for (final var child : original.children) {
+        copy.addChild(child == path.get(i + 1) ? replacement : child);
+      }
+      replacement = copy;
     }
+
+    return new AreaTree(replacement);
   }
 
   /**
@@ -103,16 +269,20 @@ public AreaTree(@Nonnull Area area) {
    * @return The location of {@code point} within the tree.
    */
   public @Nonnull TreeLocation locate(Coordinate point) {
+    return locate(theOcean, point);
+  }
+
+  private static @Nonnull TreeLocation locate(@Nonnull Node root, Coordinate point) {
     @Nullable Node parentIsland = null;
-    @Nonnull Node nearestOcean = theOcean;
+    @Nonnull Node nearestOcean = root;
     @Nullable Node containingIsland = null;
 
-    @Nullable Node nextNodeToCheck = theOcean;
+    @Nullable Node nextNodeToCheck = root;
     while (nextNodeToCheck != null) {
       final var nodeToCheck = nextNodeToCheck;
       nextNodeToCheck = null;
 
-      for (final var child : nodeToCheck.getChildren()) {
+      for (final var child : nodeToCheck.getChildrenIntersecting(new Envelope(point))) {
         if (child.getMeta().contains(point)) {
           if (!child.getMeta().isOcean()) {
             containingIsland = child;
@@ -131,6 +301,28 @@ public AreaTree(@Nonnull Area area) {
     return new TreeLocation(parentIsland, nearestOcean, containingIsland);
   }
 
+  /**
+   * Find all nodes in the tree whose bounding box intersects {@code bounds}.
+   *
+   * <p>The root ocean is not included in the results. Since every node is bounded by its parent,
+   * only the branches of the tree that intersect {@code bounds} are visited.
+   *
+   * @param bounds The region to look up.
+   * @return All islands and oceans that may intersect {@code bounds}.
+   */
+  public @Nonnull List<Node> nodesIntersecting(Envelope bounds) {
+    final var result = new ArrayList<Node>();
+    final var pending = new ArrayDeque<Node>();
+    pending.add(theOcean);
+    while (!pending.isEmpty()) {
+      for (final var child : pending.removeFirst().getChildrenIntersecting(bounds)) {
+        result.add(child);
+        pending.addLast(child);
+      }
+    }
+    return result;
+  }
+
   /**
    * The results of locating a point in the {@code AreaTree}.
    *
@@ -148,13 +340,32 @@ public record TreeLocation(
    * <p>A node in the tree references its children and has a boundary ({@code AreaMeta}) as a value.
    */
   public static final class Node {
+    /** Nodes with at least this many children will index them for lookup by bounds. */
+    private static final int CHILD_INDEX_THRESHOLD = 16;
+
     private final @Nonnull AreaMeta meta;
     private final List<Node> children = new ArrayList<>();
 
+    /**
+     * Spatial index over {@link #children}, built on first use. It is not modified once built, so
+     * it can be queried concurrently.
+     */
+    private volatile @Nullable STRtree childIndex;
+
     private Node(@Nonnull AreaMeta meta) {
       this.meta = meta;
     }
 
+    private void addChild(@Nonnull Node child) {
+      children.add(child);
+      childIndex = null;
+    }
+
+    private void clearChildren() {
+      children.clear();
+      childIndex = null;
+    }
+
     public @Nonnull AreaMeta getMeta() {
       return meta;
     }
@@ -162,5 +373,44 @@ private Node(@Nonnull AreaMeta meta) {
     public Iterable<Node> getChildren() {
       return Iterables.unmodifiableIterable(this.children);
     }
+
+    /**
+     * Find the children of this node whose bounding box intersects {@code bounds}.
+     *
+     * @param bounds The region to look up.
+     * @return The children that may intersect {@code bounds}.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Node> getChildrenIntersecting(Envelope bounds) {
+      if (children.size() < CHILD_INDEX_THRESHOLD) {
+        final var result = new ArrayList<Node>(children.size());
+        for (final var child : children) {
+          if (child.getMeta().intersects(bounds)) {
+            result.add(child);
+          }
+        }
+        return result;
+      }
+
+      var index = childIndex;
+      if (index == null) {
+        index = buildChildIndex();
+      }
+      return (List<Node>) index.query(bounds);
+    }
+
+    private synchronized STRtree buildChildIndex() {
+      var index = childIndex;
+      if (index == null) {
+        index = new STRtree();
+        for (final var child : children) {
+          index.insert(child.getMeta().getBoundingBox(), child);
+        }
+        // Build now so that later queries don't modify the index.
+        index.build();
+        childIndex = index;
+      }
+      return index;
+    }
   }
 }
@@ -37,7 +37,7 @@ private void blockVisionBeyondContainer(AreaTree.Node container) {
             : Facing.ISLAND_SIDE_FACES_ORIGIN;
 
     container.getMeta().getFacingSegments(origin, facing, visionBounds, visibilityProblem::add);
-    for (var child : container.getChildren()) {
+    for (var child : container.getChildrenIntersecting(visionBounds)) {
       child.getMeta().getFacingSegments(origin, facing, visionBounds, visibilityProblem::add);
     }
   }
@@ -103,7 +103,7 @@ private boolean addHillBlocking(AreaTree topology) {
     }
 
     // Check each contained island.
-    for (var containedIsland : location.nearestOcean().getChildren()) {
+    for (var containedIsland : location.nearestOcean().getChildrenIntersecting(visionBounds)) {
       if (containedIsland == location.island()) {
         // We don't want to block vision for the hill we're currently in.
         // TODO Ideally we could block the second occurence of the current island, but we need
@@ -117,8 +117,8 @@ private boolean addHillBlocking(AreaTree topology) {
     if (location.island() != null) {
       // Same basics as the nearestOcean logic above, but applied to children of this island
       // (grandchildren of nearestOcean).
-      for (final var childOcean : location.island().getChildren()) {
-        for (final var containedIsland : childOcean.getChildren()) {
+      for (final var childOcean : location.island().getChildrenIntersecting(visionBounds)) {
+        for (final var containedIsland : childOcean.getChildrenIntersecting(visionBounds)) {
           blockVisionBeyondContainer(containedIsland);
         }
       }
@@ -169,7 +169,7 @@ private boolean addCoverBlocking(AreaTree topology) {
     blockVisionBeyondContainer(location.nearestOcean());
 
     if (location.island() != null) {
-      for (var ocean : location.island().getChildren()) {
+      for (var ocean : location.island().getChildrenIntersecting(visionBounds)) {
         blockVisionBeyondContainer(ocean);
       }
     }
@@ -0,0 +1,397 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.walker;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import net.rptools.lib.GeometryUtil;
+import net.rptools.maptool.model.CellPoint;
+import net.rptools.maptool.model.Grid;
+import net.rptools.maptool.model.TokenFootprint;
+import net.rptools.maptool.model.ZonePoint;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.locationtech.jts.algorithm.ConvexHull;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+
+/**
+ * Records which moves between neighbouring cells are blocked by an area, such as movement blocking
+ * topology or the parts of the map not yet exposed by fog.
+ *
+ * <p>Each answer is worked out with JTS the first time it is asked for, and then kept in a bitset
+ * so that asking again is a couple of array lookups. The bitsets are split into square chunks of
+ * cells, so only the parts of the map that pathfinding actually visits take up memory. A grid is
+ * shared by all walkers on a zone and kept until the area changes. When it changes, {@link
+ * #update(Area, Rectangle2D)} keeps the answers for cells away from the change.
+ */
+public class PassabilityGrid {
+  private static final Logger log = LogManager.getLogger(PassabilityGrid.class);
+
+  /** How an area blocks movement. */
+  public enum Mode {
+    /** Movement is blocked by anything inside the area. */
+    BLOCKED_INSIDE,
+    /** Movement is blocked by anything outside the area. */
+    BLOCKED_OUTSIDE
+  }
+
+  private static final int CHUNK_SHIFT = 6;
+  private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+  private static final int CELLS_PER_CHUNK = 1 << (2 * CHUNK_SHIFT);
+
+  /** Neighbours are at most one cell away in each direction, giving 3 x 3 directions. */
+  private static final int DIRECTIONS = 9;
+
+  /** Whether the answer for each slot is known yet, and if so whether it is blocked. */
+  private static final class Chunk {
+    private final long[] known;
+    private final long[] blocked;
+
+    private Chunk(int slots) {
+      known = new long[(slots + Long.SIZE - 1) / Long.SIZE];
+      blocked = new long[known.length];
+    }
+
+    private Chunk(Chunk other) {
+      known = other.known.clone();
+      blocked = other.blocked.clone();
+    }
+
+    /**
+     * @return 0 if not known yet, 1 if not blocked, 2 if blocked.
+     */
+    private synchronized int get(int slot) {
+      long bit = 1L << slot;
+      if ((known[slot >>> 6] & bit) == 0) {
+        return 0;
+      }
+      return (blocked[slot >>> 6] & bit) == 0 ? 1 : 2;
+    }
+
+    private synchronized void set(int slot, boolean isBlocked) {
+      long bit = 1L << slot;
+      if (isBlocked) {
+        blocked[slot >>> 6] |= bit;
+      } else {
+        blocked[slot >>> 6] &= ~bit;
+      }
+      known[slot >>> 6] |= bit;
+    }
+
+    private synchronized void forget(int firstSlot, int count) {
+      for (int slot = firstSlot; slot < firstSlot + count; slot++) {
+        known[slot >>> 6] &= ~(1L << slot);
+      }
+    }
+  }
+
+  private final GeometryFactory geometryFactory = new GeometryFactory();
+  private final Grid grid;
+  private final int gridSize;
+  private final int gridOffsetX;
+  private final int gridOffsetY;
+  private final Area area;
+  private final Mode mode;
+  private final @Nullable PreparedGeometry geometry;
+
+  private final Map<Long, Chunk> moveChunks;
+  private final Map<TokenFootprint, Map<Long, Chunk>> footprintChunks;
+
+  /**
+   * The chunk last used, so that looking up cells near each other doesn't need to box the key.
+   *
+   * @param footprint the footprint the chunk is for, or {@code null} for moves.
+   * @param key the key of the chunk.
+   * @param chunk the chunk.
+   */
+  private record LastChunk(@Nullable TokenFootprint footprint, long key, Chunk chunk) {}
+
+  private volatile @Nullable LastChunk lastMoveChunk;
+  private volatile @Nullable LastChunk lastFootprintChunk;
+
+  /**
+   * Creates a grid with nothing worked out yet.
+   *
+   * @param grid the grid of the zone.
+   * @param area the area that blocks movement.
+   * @param mode how the area blocks movement.
+   */
+  public PassabilityGrid(Grid grid, Area area, Mode mode) {
+    this(grid, area, mode, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+  }
+
+  private PassabilityGrid(
+      Grid grid,
+      Area area,
+      Mode mode,
+      Map<Long, Chunk> moveChunks,
+      Map<TokenFootprint, Map<Long, Chunk>> footprintChunks) {
+    this.grid = grid;
+    this.gridSize = grid.getSize();
+    this.gridOffsetX = grid.getOffsetX();
+    this.gridOffsetY = grid.getOffsetY();
+    this.area = area;
+    this.mode = mode;
+    this.moveChunks = moveChunks;
+    this.footprintChunks = footprintChunks;
+
+    PreparedGeometry prepared = null;
+    if (!area.isEmpty()) {
+      try {
+        prepared = PreparedGeometryFactory.prepare(GeometryUtil.toJts(area));
+      } catch (Exception e) {
+        log.info("Unable to convert movement blocking area to JTS geometry", e);
+      }
+    }
+    this.geometry = prepared;
+  }
+
+  /**
+   * @return the area that blocks movement.
+   */
+  public Area getArea() {
+    return area;
+  }
+
+  /**
+   * @param grid the grid of the zone.
+   * @return {@code true} if this was built for the grid as it is now.
+   */
+  public boolean isFor(Grid grid) {
+    return this.grid == grid
+        && gridSize == grid.getSize()
+        && gridOffsetX == grid.getOffsetX()
+        && gridOffsetY == grid.getOffsetY();
+  }
+
+  /**
+   * Creates a grid for a changed area, keeping what has been worked out for cells away from the
+   * change.
+   *
+   * @param newArea the new area that blocks movement.
+   * @param changedBounds the bounds of the part of the area that changed.
+   * @return the new grid.
+   */
+  public PassabilityGrid update(Area newArea, Rectangle2D changedBounds) {
+    var newMoveChunks = copy(moveChunks);
+    // A move can cross any point of the cells it is between.
+    forget(newMoveChunks, changedBounds, gridSize, DIRECTIONS);
+
+    var newFootprintChunks = new ConcurrentHashMap<TokenFootprint, Map<Long, Chunk>>();
+    footprintChunks.forEach(
+        (footprint, chunks) -> {
+          var copied = copy(chunks);
+          var bounds = footprint.getBounds(grid);
+          forget(copied, changedBounds, Math.max(bounds.width, bounds.height), 1);
+          newFootprintChunks.put(footprint, copied);
+        });
+
+    return new PassabilityGrid(grid, newArea, mode, newMoveChunks, newFootprintChunks);
+  }
+
+  /**
+   * Returns whether moving from a cell to one of its neighbours is blocked, i.e., whether the line
+   * between the cell centres is blocked.
+   *
+   * @param from the cell moved from.
+   * @param dx the change in x, from -1 to 1.
+   * @param dy the change in y, from -1 to 1.
+   * @return {@code true} if the move is blocked.
+   */
+  public boolean isMoveBlocked(CellPoint from, int dx, int dy) {
+    if (geometry == null) {
+      return false;
+    }
+
+    long key = chunkKey(from);
+    var last = lastMoveChunk;
+    if (last == null || last.key() != key) {
+      var chunk = moveChunks.computeIfAbsent(key, k -> new Chunk(CELLS_PER_CHUNK * DIRECTIONS));
+      last = new LastChunk(null, key, chunk);
+      lastMoveChunk = last;
+    }
+    var chunk = last.chunk();
+    int slot = cellIndex(from) * DIRECTIONS + (dx + 1) * 3 + (dy + 1);
+    int known = chunk.get(slot);
+    if (known != 0) {
+      return known == 2;
+    }
+
+    Rectangle startBounds = grid.getBounds(from);
+    Rectangle goalBounds = grid.getBounds(new CellPoint(from.x + dx, from.y + dy));
+    if (goalBounds.isEmpty() || startBounds.isEmpty()) {
+      return false;
+    }
+
+    LineString centerRay =
+        geometryFactory.createLineString(
+            new Coordinate[] {
+              new Coordinate(startBounds.getCenterX(), startBounds.getCenterY()),
+              new Coordinate(goalBounds.getCenterX(), goalBounds.getCenterY())
+            });
+    boolean blocked;
+    try {
+      blocked =
+          mode == Mode.BLOCKED_INSIDE
+              ? geometry.intersects(centerRay)
+              : !geometry.covers(centerRay);
+    } catch (Exception e) {
+      log.info("Unable to test movement against blocking area", e);
+      return true;
+    }
+    chunk.set(slot, blocked);
+    return blocked;
+  }
+
+  /**
+   * Returns whether a token with the given footprint would overlap the area if it were at a
+   * position, using the convex hull of the centres of the cells it would occupy.
+   *
+   * @param footprint the footprint of the token.
+   * @param position the position of the token.
+   * @return {@code true} if the token would overlap the area.
+   */
+  public boolean isFootprintBlocked(TokenFootprint footprint, CellPoint position) {
+    return isFootprintBlocked(footprint, position.x, position.y);
+  }
+
+  /**
+   * Returns whether a token with the given footprint would overlap the area if it were at a
+   * position. Unlike {@link #isFootprintBlocked(TokenFootprint, CellPoint)}, this does not need a
+   * {@link CellPoint} unless the answer has to be worked out.
+   *
+   * @param footprint the footprint of the token.
+   * @param x the x of the position of the token.
+   * @param y the y of the position of the token.
+   * @return {@code true} if the token would overlap the area.
+   */
+  public boolean isFootprintBlocked(TokenFootprint footprint, int x, int y) {
+    if (geometry == null) {
+      return false;
+    }
+
+    long key = chunkKey(x, y);
+    var last = lastFootprintChunk;
+    if (last == null || last.footprint() != footprint || last.key() != key) {
+      var chunks = footprintChunks.computeIfAbsent(footprint, f -> new ConcurrentHashMap<>());
+      var chunk = chunks.computeIfAbsent(key, k -> new Chunk(CELLS_PER_CHUNK));
+      last = new LastChunk(footprint, key, chunk);
+      lastFootprintChunk = last;
+    }
+    var chunk = last.chunk();
+    int slot = cellIndex(x, y);
+    int known = chunk.get(slot);
+    if (known != 0) {
+      return known == 2;
+    }
+
+    var points =
+        footprint.getOccupiedCells(new CellPoint(x, y)).stream()
+            .map(
+                cellPoint -> {
+                  var bounds = grid.getBounds(cellPoint);
+                  return new Coordinate(bounds.getCenterX(), bounds.getCenterY());
+                })
+            .toArray(Coordinate[]::new);
+
+    boolean blocked;
+    try {
+      Geometry footprintGeometry = new ConvexHull(points, geometryFactory).getConvexHull();
+      blocked =
+          mode == Mode.BLOCKED_INSIDE
+              ? geometry.intersects(footprintGeometry)
+              : !geometry.covers(footprintGeometry);
+    } catch (Exception e) {
+      log.info("Unable to test token footprint against blocking area", e);
+      return true;
+    }
+    chunk.set(slot, blocked);
+    return blocked;
+  }
+
+  private static long chunkKey(CellPoint cell) {
+    return chunkKey(cell.x, cell.y);
+  }
+
+  private static long chunkKey(int x, int y) {
+    return ((long) (x >> CHUNK_SHIFT) << 32) | ((y >> CHUNK_SHIFT) & 0xFFFFFFFFL);
+  }
+
+  private static int cellIndex(CellPoint cell) {
+    return cellIndex(cell.x, cell.y);
+  }
+
+  private static int cellIndex(int x, int y) {
+    return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+  }
+
+  private static Map<Long, Chunk> copy(Map<Long, Chunk> chunks) {
+    var copy = new ConcurrentHashMap<Long, Chunk>();
+    chunks.forEach((key, chunk) -> copy.put(key, new Chunk(chunk)));
+    return copy;
+  }
+
+  /**
+   * Forgets the answers for every cell within {@code margin} of the changed bounds.
+   *
+   * @param chunks the chunks to forget answers in.
+   * @param changedBounds the bounds of the change.
+   * @param margin how far from a cell's position a change can affect its answers.
+   * @param slotsPerCell the number of answers kept for each cell.
+   */
+  private void forget(
+      Map<Long, Chunk> chunks, Rectangle2D changedBounds, int margin, int slotsPerCell) {
+    if (chunks.isEmpty()) {
+      return;
+    }
+
+    var topLeft =
+        grid.convert(
+            new ZonePoint(
+                (int) Math.floor(changedBounds.getMinX()) - margin,
+                (int) Math.floor(changedBounds.getMinY()) - margin));
+    var bottomRight =
+        grid.convert(
+            new ZonePoint(
+                (int) Math.ceil(changedBounds.getMaxX()) + margin,
+                (int) Math.ceil(changedBounds.getMaxY()) + margin));
+    // Allow an extra cell all round for grids whose cells are not aligned rectangles, e.g., hexes.
+    int minX = Math.min(topLeft.x, bottomRight.x) - 1;
+    int maxX = Math.max(topLeft.x, bottomRight.x) + 1;
+    int minY = Math.min(topLeft.y, bottomRight.y) - 1;
+    int maxY = Math.max(topLeft.y, bottomRight.y) + 1;
+
+    // Only visit the chunks that have been used, since the change may cover a huge area.
+    chunks.forEach(
+        (key, chunk) -> {
+          int chunkX = (int) (key >> 32) << CHUNK_SHIFT;
+          int chunkY = key.intValue() << CHUNK_SHIFT;
+          for (int y = Math.max(minY, chunkY); y <= Math.min(maxY, chunkY + CHUNK_MASK); y++) {
+            for (int x = Math.max(minX, chunkX); x <= Math.min(maxX, chunkX + CHUNK_MASK); x++) {
+              chunk.forget(cellIndex(x, y) * slotsPerCell, slotsPerCell);
+            }
+          }
+        });
+  }
+}
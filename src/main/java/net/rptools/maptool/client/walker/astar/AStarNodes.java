@@ -0,0 +1,345 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.walker.astar;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The nodes visited by an A* search, kept in parallel arrays and addressed by index so that a
+ * search does not create an object for each cell it visits.
+ *
+ * <p>A node is a cell together with whether an odd number of diagonal steps were taken to reach it
+ * under 1-2-1 movement. Nodes are looked up by cell in an open addressing table. The open set is a
+ * binary heap of node indexes ordered by f cost, which supports lowering the cost of a node that
+ * is already in it. The closed set is a bitset of node indexes.
+ *
+ * <p>The arrays are kept between searches by calling {@link #reset()}, so a search on a map of
+ * similar size to the last one does not allocate at all. Instances are not thread-safe.
+ */
+final class AStarNodes {
+  /** The index used for no node, e.g., as the parent of the start node. */
+  static final int NONE = -1;
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  private int size = 0;
+  private int[] xs = new int[INITIAL_CAPACITY];
+  private int[] ys = new int[INITIAL_CAPACITY];
+  private boolean[] odd = new boolean[INITIAL_CAPACITY];
+  private double[] g = new double[INITIAL_CAPACITY];
+  private double[] h = new double[INITIAL_CAPACITY];
+  private double[] distanceTraveled = new double[INITIAL_CAPACITY];
+  private double[] distanceTraveledWithoutTerrain = new double[INITIAL_CAPACITY];
+  private int[] parents = new int[INITIAL_CAPACITY];
+
+  /** The position of each node in {@link #heap}, or {@link #NONE} if it is not in the open set. */
+  private int[] heapIndexes = new int[INITIAL_CAPACITY];
+
+  private final BitSet closed = new BitSet();
+
+  /** Open addressing table holding each node's index plus one, or 0 for an empty slot. */
+  private int[] table = new int[INITIAL_CAPACITY * 2];
+
+  private int[] heap = new int[INITIAL_CAPACITY];
+  private int heapSize = 0;
+
+  /** Forget all nodes, keeping the arrays for the next search. */
+  void reset() {
+    if (size > 0) {
+      Arrays.fill(table, 0);
+    }
+    size = 0;
+    heapSize = 0;
+    closed.clear();
+  }
+
+  /**
+   * @return the number of nodes.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return the number of nodes the arrays can hold without growing.
+   */
+  int capacity() {
+    return xs.length;
+  }
+
+  /**
+   * @param x the x of the cell.
+   * @param y the y of the cell.
+   * @param isOdd whether an odd number of diagonal steps were taken to reach the cell.
+   * @return the index of the node, or {@link #NONE} if it has not been added.
+   */
+  int find(int x, int y, boolean isOdd) {
+    int mask = table.length - 1;
+    for (int slot = hash(x, y, isOdd) & mask; ; slot = (slot + 1) & mask) {
+      int node = table[slot] - 1;
+      if (node == NONE || (xs[node] == x && ys[node] == y && odd[node] == isOdd)) {
+        return node;
+      }
+    }
+  }
+
+  /**
+   * Adds a node that is not in the open or closed sets, and has no parent or costs.
+   *
+   * @param x the x of the cell.
+   * @param y the y of the cell.
+   * @param isOdd whether an odd number of diagonal steps were taken to reach the cell.
+   * @return the index of the new node.
+   */
+  int add(int x, int y, boolean isOdd) {
+    if (size == xs.length) {
+      grow();
+    }
+    if ((size + 1) * 2 > table.length) {
+      rehash(table.length * 2);
+    }
+
+    int node = size++;
+    xs[node] = x;
+    ys[node] = y;
+    odd[node] = isOdd;
+    g[node] = 0;
+    h[node] = 0;
+    distanceTraveled[node] = 0;
+    distanceTraveledWithoutTerrain[node] = 0;
+    parents[node] = NONE;
+    heapIndexes[node] = NONE;
+    insert(node);
+    return node;
+  }
+
+  /**
+   * Returns the node for a cell, adding it if it has not been added yet.
+   *
+   * @param x the x of the cell.
+   * @param y the y of the cell.
+   * @param isOdd whether an odd number of diagonal steps were taken to reach the cell.
+   * @return the index of the node.
+   */
+  int findOrAdd(int x, int y, boolean isOdd) {
+    int node = find(x, y, isOdd);
+    return node == NONE ? add(x, y, isOdd) : node;
+  }
+
+  int getX(int node) {
+    return xs[node];
+  }
+
+  int getY(int node) {
+    return ys[node];
+  }
+
+  boolean isOddStepOfOneTwoOneMovement(int node) {
+    return odd[node];
+  }
+
+  double getG(int node) {
+    return g[node];
+  }
+
+  double getH(int node) {
+    return h[node];
+  }
+
+  void setH(int node, double value) {
+    h[node] = value;
+  }
+
+  double fCost(int node) {
+    return g[node] + h[node];
+  }
+
+  double getDistanceTraveled(int node) {
+    return distanceTraveled[node];
+  }
+
+  double getDistanceTraveledWithoutTerrain(int node) {
+    return distanceTraveledWithoutTerrain[node];
+  }
+
+  int getParent(int node) {
+    return parents[node];
+  }
+
+  /**
+   * Sets how a node is reached. If the node is in the open set, the new cost must not be higher
+   * than the old one, and {@link #decreased(int)} must be called afterwards.
+   *
+   * @param node the node.
+   * @param parent the node it is reached from.
+   * @param gCost the cost of reaching it.
+   * @param traveled the distance traveled to reach it.
+   * @param traveledWithoutTerrain the distance traveled to reach it, ignoring terrain modifiers.
+   */
+  void setPath(int node, int parent, double gCost, double traveled, double traveledWithoutTerrain) {
+    parents[node] = parent;
+    g[node] = gCost;
+    distanceTraveled[node] = traveled;
+    distanceTraveledWithoutTerrain[node] = traveledWithoutTerrain;
+  }
+
+  boolean isClosed(int node) {
+    return closed.get(node);
+  }
+
+  void close(int node) {
+    closed.set(node);
+  }
+
+  boolean isOpen(int node) {
+    return heapIndexes[node] != NONE;
+  }
+
+  boolean isOpenEmpty() {
+    return heapSize == 0;
+  }
+
+  int getOpenSize() {
+    return heapSize;
+  }
+
+  /**
+   * Adds a node to the open set.
+   *
+   * @param node a node that is not in the open set.
+   */
+  void offer(int node) {
+    if (heapSize == heap.length) {
+      heap = Arrays.copyOf(heap, heap.length * 2);
+    }
+    heap[heapSize] = node;
+    heapIndexes[node] = heapSize;
+    heapSize++;
+    siftUp(heapIndexes[node]);
+  }
+
+  /**
+   * Moves a node towards the front of the open set after its cost has been lowered.
+   *
+   * @param node a node in the open set.
+   */
+  void decreased(int node) {
+    siftUp(heapIndexes[node]);
+  }
+
+  /**
+   * Removes the node with the lowest f cost from the open set.
+   *
+   * @return the node, or {@link #NONE} if the open set is empty.
+   */
+  int poll() {
+    if (heapSize == 0) {
+      return NONE;
+    }
+    int first = heap[0];
+    heapIndexes[first] = NONE;
+    heapSize--;
+    if (heapSize > 0) {
+      heap[0] = heap[heapSize];
+      heapIndexes[heap[0]] = 0;
+      siftDown(0);
+    }
+    return first;
+  }
+
+  /** Empties the open set. */
+  void clearOpen() {
+    for (int i = 0; i < heapSize; i++) {
+      heapIndexes[heap[i]] = NONE;
+    }
+    heapSize = 0;
+  }
+
+  private void siftUp(int index) {
+    int node = heap[index];
+    double cost = fCost(node);
+    while (index > 0) {
+      int parentIndex = (index - 1) >>> 1;
+      int parent = heap[parentIndex];
+      if (fCost(parent) <= cost) {
+        break;
+      }
+      heap[index] = parent;
+      heapIndexes[parent] = index;
+      index = parentIndex;
+    }
+    heap[index] = node;
+    heapIndexes[node] = index;
+  }
+
+  private void siftDown(int index) {
+    int node = heap[index];
+    double cost = fCost(node);
+    int half = heapSize >>> 1;
+    while (index < half) {
+      int childIndex = 2 * index + 1;
+      int child = heap[childIndex];
+      int rightIndex = childIndex + 1;
+      if (rightIndex < heapSize && fCost(heap[rightIndex]) < fCost(child)) {
+        childIndex = rightIndex;
+        child = heap[childIndex];
+      }
+      if (cost <= fCost(child)) {
+        break;
+      }
+      heap[index] = child;
+      heapIndexes[child] = index;
+      index = childIndex;
+    }
+    heap[index] = node;
+    heapIndexes[node] = index;
+  }
+
+  private void grow() {
+    int capacity = xs.length * 2;
+    xs = Arrays.copyOf(xs, capacity);
+    ys = Arrays.copyOf(ys, capacity);
+    odd = Arrays.copyOf(odd, capacity);
+    g = Arrays.copyOf(g, capacity);
+    h = Arrays.copyOf(h, capacity);
+    distanceTraveled = Arrays.copyOf(distanceTraveled, capacity);
+    distanceTraveledWithoutTerrain = Arrays.copyOf(distanceTraveledWithoutTerrain, capacity);
+    parents = Arrays.copyOf(parents, capacity);
+    heapIndexes = Arrays.copyOf(heapIndexes, capacity);
+  }
+
+  private void rehash(int tableSize) {
+    table = new int[tableSize];
+    for (int node = 0; node < size; node++) {
+      insert(node);
+    }
+  }
+
+  private void insert(int node) {
+    int mask = table.length - 1;
+    int slot = hash(xs[node], ys[node], odd[node]) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = node + 1;
+  }
+
+  private static int hash(int x, int y, boolean isOdd) {
+    long hash = (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL) ^ (isOdd ? 1 : 0);
+    hash ^= hash >>> 29;
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
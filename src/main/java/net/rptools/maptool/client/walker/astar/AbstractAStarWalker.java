@@ -21,22 +21,19 @@
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import net.rptools.lib.GeometryUtil;
+import java.util.concurrent.atomic.AtomicReference;
 import net.rptools.maptool.client.DeveloperOptions;
 import net.rptools.maptool.client.MapTool;
+import net.rptools.maptool.client.ui.zone.ZoneView;
 import net.rptools.maptool.client.walker.AbstractZoneWalker;
+import net.rptools.maptool.client.walker.PassabilityGrid;
 import net.rptools.maptool.model.CellPoint;
 import net.rptools.maptool.model.GUID;
 import net.rptools.maptool.model.Label;
@@ -45,13 +42,6 @@
 import net.rptools.maptool.model.Zone;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.locationtech.jts.algorithm.ConvexHull;
-import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.LineString;
-import org.locationtech.jts.geom.prep.PreparedGeometry;
-import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
 
 public abstract class AbstractAStarWalker extends AbstractZoneWalker {
   private record TerrainModifier(Token.TerrainModifierOperation operation, double value) {}
@@ -63,24 +53,30 @@ private static boolean isInteger(double d) {
   private static final Logger log = LogManager.getLogger(AbstractAStarWalker.class);
   // Manually set this in order to view H, G & F costs as rendered labels
 
-  private final GeometryFactory geometryFactory = new GeometryFactory();
   protected int crossX = 0;
   protected int crossY = 0;
-  private Area vbl = new Area();
-  private Area fowExposedArea = new Area();
   private double cell_cost = zone.getUnitsPerCell();
   private double distance = -1;
-  private PreparedGeometry vblGeometry = null;
-  private PreparedGeometry fowExposedAreaGeometry = null;
-  // private long avgRetrieveTime;
-  // private long avgTestTime;
-  // private long retrievalCount;
-  // private long testCount;
   private TokenFootprint footprint = new TokenFootprint();
-  private Map<CellPoint, Map<CellPoint, Boolean>> vblBlockedMovesByGoal = new ConcurrentHashMap<>();
-  private Map<CellPoint, Map<CellPoint, Boolean>> fowBlockedMovesByGoal = new ConcurrentHashMap<>();
+
+  /** Which moves are blocked by MBL and VBL. */
+  private PassabilityGrid vblPassability =
+      new PassabilityGrid(zone.getGrid(), new Area(), PassabilityGrid.Mode.BLOCKED_INSIDE);
+
+  /** Which moves are blocked by fog. */
+  private PassabilityGrid fowPassability =
+      new PassabilityGrid(zone.getGrid(), new Area(), PassabilityGrid.Mode.BLOCKED_OUTSIDE);
+
+  /** The moves found to be blocked, by goal, for debugging. */
+  private final Map<CellPoint, Set<CellPoint>> blockedMovesByGoal = new ConcurrentHashMap<>();
   private final Map<CellPoint, List<TerrainModifier>> terrainCells = new HashMap<>();
 
+  /** Searches with more nodes than this don't keep their arrays for the next search. */
+  private static final int MAX_POOLED_NODES = 1 << 16;
+
+  /** The nodes of the last search, kept so the next search doesn't need to allocate them. */
+  private static final AtomicReference<AStarNodes> nodePool = new AtomicReference<>();
+
   /**
    * The IDs of all debugging labels, so we can remove them again later. Only access this on the
    * Swing thread _or else_. TODO Make this per-walker. Unfortunately we create new walkers all the
@@ -121,7 +117,17 @@ public AbstractAStarWalker(Zone zone) {
    */
   protected abstract int[][] getNeighborMap(int x, int y);
 
-  protected abstract double hScore(AStarCellPoint p1, CellPoint p2);
+  /**
+   * Estimates the cost of the remaining path from a cell to the goal.
+   *
+   * @param x the x of the cell.
+   * @param y the y of the cell.
+   * @param isOddStepOfOneTwoOneMovement if the movement is 1-2-1 and an odd path was taken so far.
+   * @param goal the goal.
+   * @return the estimated cost.
+   */
+  protected abstract double hScore(
+      int x, int y, boolean isOddStepOfOneTwoOneMovement, CellPoint goal);
 
   protected abstract double getDiagonalMultiplier(int[] neighborArray);
 
@@ -135,21 +141,8 @@ public double getDistance() {
 
   public Map<CellPoint, Set<CellPoint>> getBlockedMoves() {
     final Map<CellPoint, Set<CellPoint>> result = new HashMap<>();
-    for (var entry : vblBlockedMovesByGoal.entrySet()) {
-      result.put(
-          entry.getKey(),
-          entry.getValue().entrySet().stream()
-              .filter(Map.Entry::getValue)
-              .map(Map.Entry::getKey)
-              .collect(Collectors.toSet()));
-    }
-    for (var entry : fowBlockedMovesByGoal.entrySet()) {
-      result.put(
-          entry.getKey(),
-          entry.getValue().entrySet().stream()
-              .filter(Map.Entry::getValue)
-              .map(Map.Entry::getKey)
-              .collect(Collectors.toSet()));
+    for (var entry : blockedMovesByGoal.entrySet()) {
+      result.put(entry.getKey(), new HashSet<>(entry.getValue()));
     }
     return result;
   }
@@ -161,14 +154,24 @@ public void setFootprint(TokenFootprint footprint) {
 
   @Override
   protected List<CellPoint> calculatePath(CellPoint start, CellPoint goal) {
+    AStarNodes nodes = nodePool.getAndSet(null);
+    if (nodes == null) {
+      nodes = new AStarNodes();
+    }
+    try {
+      return calculatePath(nodes, start, goal);
+    } finally {
+      nodes.reset();
+      if (nodes.capacity() <= MAX_POOLED_NODES) {
+        nodePool.set(nodes);
+      }
+    }
+  }
+
+  private List<CellPoint> calculatePath(AStarNodes nodes, CellPoint start, CellPoint goal) {
     crossX = start.x - goal.x;
     crossY = start.y - goal.y;
 
-    Queue<AStarCellPoint> openList =
-        new PriorityQueue<>(Comparator.comparingDouble(AStarCellPoint::fCost));
-    Map<AStarCellPoint, AStarCellPoint> openSet = new HashMap<>(); // For faster lookups
-    Set<AStarCellPoint> closedSet = new HashSet<>();
-
     // Current fail safe... bail out after 10 seconds of searching just in case, shouldn't hang UI
     // as this is off the AWT thread
     long timeOut = System.currentTimeMillis();
@@ -177,97 +180,46 @@ protected List<CellPoint> calculatePath(CellPoint start, CellPoint goal) {
     // if (start.equals(end))
     // log.info("NO WORK!");
 
-    var startNode = new AStarCellPoint(start, !isInteger(start.distanceTraveledWithoutTerrain));
-    openList.add(startNode);
-    openSet.put(startNode, startNode);
+    int startNode = nodes.add(start.x, start.y, !isInteger(start.distanceTraveledWithoutTerrain));
+    nodes.setPath(
+        startNode,
+        AStarNodes.NONE,
+        0,
+        start.distanceTraveled,
+        start.distanceTraveledWithoutTerrain);
+    nodes.offer(startNode);
 
-    AStarCellPoint currentNode = null;
+    int currentNode = AStarNodes.NONE;
 
-    // Get current VBL for map...
-    // Using JTS because AWT Area can only intersect with Area and we want to use simple lines here.
-    // Render VBL to Geometry class once and store.
+    // Get which moves are blocked by MBL/VBL and fog. These are shared by all walkers on the zone
+    // and only worked out once for each move, until the topology or fog changes.
     // Note: zoneRenderer will be null if map is not visible to players.
-    Area newVbl = new Area();
-    Area newFowExposedArea = new Area();
     final var zoneRenderer = MapTool.getFrame().getZoneRenderer(zone);
     if (zoneRenderer != null) {
       final var zoneView = zoneRenderer.getZoneView();
-
-      var mbl = zoneView.getTopology(Zone.TopologyType.MBL);
-      if (tokenMbl != null) {
-        mbl = new Area(mbl);
-        mbl.subtract(tokenMbl);
-      }
-
-      if (MapTool.getServerPolicy().getVblBlocksMove()) {
-        var wallVbl = zoneView.getTopology(Zone.TopologyType.WALL_VBL);
-        var hillVbl = zoneView.getTopology(Zone.TopologyType.HILL_VBL);
-        var pitVbl = zoneView.getTopology(Zone.TopologyType.PIT_VBL);
-
-        // A token's topology should not be used to block itself!
-        if (tokenWallVbl != null) {
-          wallVbl = new Area(wallVbl);
-          wallVbl.subtract(tokenWallVbl);
-        }
-        if (tokenHillVbl != null) {
-          hillVbl = new Area(hillVbl);
-          hillVbl.subtract(tokenHillVbl);
-        }
-        if (tokenPitVbl != null) {
-          pitVbl = new Area(pitVbl);
-          pitVbl.subtract(tokenPitVbl);
+      final boolean vblBlocksMove = MapTool.getServerPolicy().getVblBlocksMove();
+
+      if (hasOwnTopology(vblBlocksMove)) {
+        // A token's topology should not be used to block itself! This is rare enough that the
+        // token gets a grid of its own.
+        var newVbl = getMovementBlockingAreaWithoutToken(zoneView, vblBlocksMove);
+        if (!newVbl.equals(vblPassability.getArea())) {
+          vblPassability =
+              new PassabilityGrid(zone.getGrid(), newVbl, PassabilityGrid.Mode.BLOCKED_INSIDE);
         }
-
-        newVbl.add(wallVbl);
-        newVbl.add(hillVbl);
-        newVbl.add(pitVbl);
-
-        // Finally, add the Move Blocking Layer!
-        newVbl.add(mbl);
       } else {
-        newVbl = mbl;
+        vblPassability = zoneView.getTopologyPassability(vblBlocksMove);
       }
 
       var view = zoneRenderer.getPlayerView();
-      newFowExposedArea =
-          zone.hasFog() && !view.isGMView() ? zoneView.getExposedArea(view) : new Area();
-    }
-
-    if (!newVbl.equals(vbl)) {
-      // The move cache may no longer accurately reflect the VBL limitations.
-      this.vblBlockedMovesByGoal.clear();
-
-      vbl = newVbl;
-      // VBL has changed. Let's update the JTS geometry to match.
-      if (vbl.isEmpty()) {
-        this.vblGeometry = null;
-      } else {
-        try {
-          this.vblGeometry = PreparedGeometryFactory.prepare(GeometryUtil.toJts(vbl));
-        } catch (Exception e) {
-          log.info("vblGeometry oh oh: ", e);
-        }
-      }
-
-      // log.info("vblGeometry bounds: " + vblGeometry.toString());
-    }
-    if (!Objects.equals(newFowExposedArea, fowExposedArea)) {
-      // The move cache may no longer accurately reflect the FOW limitations.
-      this.fowBlockedMovesByGoal.clear();
-
-      fowExposedArea = newFowExposedArea;
-      // FoW has changed. Let's update the JTS geometry to match.
-      if (fowExposedArea.isEmpty()) {
-        this.fowExposedAreaGeometry = null;
-      } else {
-        try {
-          this.fowExposedAreaGeometry =
-              PreparedGeometryFactory.prepare(GeometryUtil.toJts(fowExposedArea));
-        } catch (Exception e) {
-          log.info("FoW Geometry oh oh: ", e);
-        }
+      if (zone.hasFog() && !view.isGMView()) {
+        fowPassability = zoneView.getFogPassability(view);
+      } else if (!fowPassability.getArea().isEmpty()) {
+        fowPassability =
+            new PassabilityGrid(zone.getGrid(), new Area(), PassabilityGrid.Mode.BLOCKED_OUTSIDE);
       }
     }
+    blockedMovesByGoal.clear();
 
     // Erase previous debug labels.
     EventQueue.invokeLater(
@@ -289,49 +241,26 @@ protected List<CellPoint> calculatePath(CellPoint start, CellPoint goal) {
 
     log.debug("Starting pathfinding");
     log.debug("Pathfinding bounds are {}", pathfindingBounds);
-    while (!openList.isEmpty()) {
-      log.debug("Open list has {} elements", openList.size());
+    while (!nodes.isOpenEmpty()) {
+      if (log.isDebugEnabled()) {
+        log.debug("Open list has {} elements", nodes.getOpenSize());
+      }
 
       if (System.currentTimeMillis() > timeOut + estimatedTimeoutNeeded) {
         log.info("Timing out after " + estimatedTimeoutNeeded);
         break;
       }
 
-      currentNode = openList.remove();
-      log.debug("Current node is {}", currentNode.position);
-      openSet.remove(currentNode);
-      if (currentNode.position.equals(goal)) {
+      currentNode = nodes.poll();
+      if (nodes.getX(currentNode) == goal.x && nodes.getY(currentNode) == goal.y) {
         log.debug("Achieved our goal at {}", goal);
         break;
       }
 
-      for (AStarCellPoint currentNeighbor :
-          getNeighbors(currentNode, closedSet, pathfindingBounds)) {
-        currentNeighbor.h = hScore(currentNeighbor, goal);
-        showDebugInfo(currentNeighbor);
-
-        if (openSet.containsKey(currentNeighbor)) {
-          // check if it is cheaper to get here the way that we just came, versus the previous path
-          AStarCellPoint oldNode = openSet.get(currentNeighbor);
-          if (currentNeighbor.g < oldNode.g) {
-            // We're about to modify the node cost, so we have to reinsert the node.
-            openList.remove(oldNode);
-
-            oldNode.replaceG(currentNeighbor);
-            oldNode.parent = currentNode;
-
-            openList.add(oldNode);
-          }
-          continue;
-        }
-
-        openList.add(currentNeighbor);
-        openSet.put(currentNeighbor, currentNeighbor);
-        log.debug("Added neighbor to open set: {}", currentNeighbor.position);
-      }
+      expand(nodes, currentNode, goal, pathfindingBounds);
 
-      closedSet.add(currentNode);
-      currentNode = null;
+      nodes.close(currentNode);
+      currentNode = AStarNodes.NONE;
 
       /*
         We now calculate paths off the main UI thread but only one at a time.
@@ -340,20 +269,24 @@ protected List<CellPoint> calculatePath(CellPoint start, CellPoint goal) {
       */
       if (Thread.interrupted()) {
         log.debug("Pathfinding cancelled");
-        openList.clear();
+        nodes.clearOpen();
       }
     }
 
-    if (currentNode == null) {
+    if (currentNode == AStarNodes.NONE) {
       log.debug("Failed pathfinding");
     } else {
       log.debug("Completed pathfinding at {}", goal);
     }
 
     List<CellPoint> returnedCellPointList = new LinkedList<>();
-    while (currentNode != null) {
-      returnedCellPointList.add(currentNode.position);
-      currentNode = currentNode.parent;
+    for (int node = currentNode; node != AStarNodes.NONE; node = nodes.getParent(node)) {
+      returnedCellPointList.add(
+          new CellPoint(
+              nodes.getX(node),
+              nodes.getY(node),
+              nodes.getDistanceTraveled(node),
+              nodes.getDistanceTraveledWithoutTerrain(node)));
     }
 
     // We don't need to "calculate" distance after the fact as it's already stored as the G cost...
@@ -401,8 +334,8 @@ protected List<CellPoint> calculatePath(CellPoint start, CellPoint goal) {
    */
   protected Rectangle getPathfindingBounds(CellPoint start, CellPoint goal) {
     // Bounding box must contain all VBL/MBL ...
-    Rectangle pathfindingBounds = vbl.getBounds();
-    pathfindingBounds = pathfindingBounds.union(fowExposedArea.getBounds());
+    Rectangle pathfindingBounds = vblPassability.getArea().getBounds();
+    pathfindingBounds = pathfindingBounds.union(fowPassability.getArea().getBounds());
     // ... and the footprints of all terrain tokens ...
     for (var cellPoint : terrainCells.keySet()) {
       pathfindingBounds = pathfindingBounds.union(zone.getGrid().getBounds(cellPoint));
@@ -418,13 +351,38 @@ protected Rectangle getPathfindingBounds(CellPoint start, CellPoint goal) {
     return pathfindingBounds;
   }
 
-  protected List<AStarCellPoint> getNeighbors(
-      AStarCellPoint node, Set<AStarCellPoint> closedSet, Rectangle pathfindingBounds) {
-    List<AStarCellPoint> neighbors = new ArrayList<>();
-    int[][] neighborMap = getNeighborMap(node.position.x, node.position.y);
+  /**
+   * Adds the valid neighbors of a node to the open set, or lowers their cost if they are already in
+   * it and this node gives a cheaper path to them.
+   *
+   * @param nodes the nodes of the search.
+   * @param node the node to expand.
+   * @param goal the goal of the search.
+   * @param pathfindingBounds the bounds outside of which nodes are not expanded.
+   */
+  private void expand(AStarNodes nodes, int node, CellPoint goal, Rectangle pathfindingBounds) {
+    final int x = nodes.getX(node);
+    final int y = nodes.getY(node);
+    final var position = new CellPoint(x, y);
+    int[][] neighborMap = getNeighborMap(x, y);
+
+    // This position is too far out to possibly be part of the optimal path.
+    final boolean outOfBounds = !zone.getGrid().getBounds(position).intersects(pathfindingBounds);
+    // The cells the token occupies are the same for every neighbor, so only look them up once.
+    final Set<CellPoint> occupiedCells =
+        restrictMovement && !outOfBounds
+            ? footprint.getOccupiedCells(position)
+            : Collections.emptySet();
 
     // Find all the neighbors.
     for (int[] neighborArray : neighborMap) {
+      final int dx = neighborArray[0];
+      final int dy = neighborArray[1];
+      if (dx == 0 && dy == 0) {
+        // Hex neighbor maps are padded with empty moves.
+        continue;
+      }
+
       double terrainMultiplier = 0;
       double terrainAdder = 0;
       boolean terrainIsFree = false;
@@ -434,49 +392,39 @@ protected List<AStarCellPoint> getNeighbors(
       double diagonalMultiplier = getDiagonalMultiplier(neighborArray);
       boolean invertEvenOddDiagonals = !isInteger(diagonalMultiplier);
 
-      AStarCellPoint neighbor =
-          new AStarCellPoint(
-              node.position.x + neighborArray[0],
-              node.position.y + neighborArray[1],
-              node.isOddStepOfOneTwoOneMovement ^ invertEvenOddDiagonals);
-      log.debug("Checking neighbor: {}", neighbor.position);
-      if (closedSet.contains(neighbor)) {
-        log.debug("Rejected neighbor for being in the closed set: {}", neighbor.position);
+      final int neighborX = x + dx;
+      final int neighborY = y + dy;
+      final boolean neighborIsOdd =
+          nodes.isOddStepOfOneTwoOneMovement(node) ^ invertEvenOddDiagonals;
+      int neighbor = nodes.find(neighborX, neighborY, neighborIsOdd);
+      if (neighbor != AStarNodes.NONE && nodes.isClosed(neighbor)) {
         continue;
       }
 
-      if (!zone.getGrid().getBounds(node.position).intersects(pathfindingBounds)) {
-        log.debug("Rejected neighbor for being out of bounds: {}", neighbor.position);
-        // This position is too far out to possibly be part of the optimal path.
-        closedSet.add(neighbor);
+      if (outOfBounds) {
+        nodes.close(nodes.findOrAdd(neighborX, neighborY, neighborIsOdd));
         continue;
       }
 
-      // Add the cell we're coming from
-      neighbor.parent = node;
-
       // Don't count VBL or Terrain Modifiers
       if (restrictMovement) {
-        if (tokenFootprintIntersectsVBL(neighbor.position)) {
+        if (vblPassability.isFootprintBlocked(footprint, neighborX, neighborY)) {
           // The token would overlap VBL if moved to this position, so it is not a valid position.
-          closedSet.add(neighbor);
-          log.debug("Rejected neighbor for being inside MBL: {}", neighbor.position);
+          nodes.close(nodes.findOrAdd(neighborX, neighborY, neighborIsOdd));
           continue;
         }
 
-        Set<CellPoint> occupiedCells = footprint.getOccupiedCells(node.position);
         for (CellPoint cellPoint : occupiedCells) {
           // Check whether moving the occupied cell to its new location would be prohibited by VBL.
-          var cellNeighbor =
-              new CellPoint(cellPoint.x + neighborArray[0], cellPoint.y + neighborArray[1]);
-          if (vblBlocksMovement(cellPoint, cellNeighbor)) {
-            blockNode = true;
-            log.debug("MBL blocked movement to neighbor: {}", neighbor.position);
-            break;
-          }
-          if (fowBlocksMovement(cellPoint, cellNeighbor)) {
-            log.debug("FOW blocked movement to neighbor to {}", neighbor.position);
+          if (vblPassability.isMoveBlocked(cellPoint, dx, dy)
+              || fowPassability.isMoveBlocked(cellPoint, dx, dy)) {
             blockNode = true;
+            if (DeveloperOptions.Toggle.ShowAiDebugging.isEnabled()) {
+              var cellNeighbor = new CellPoint(cellPoint.x + dx, cellPoint.y + dy);
+              blockedMovesByGoal
+                  .computeIfAbsent(cellNeighbor, pos -> ConcurrentHashMap.newKeySet())
+                  .add(cellPoint);
+            }
             break;
           }
         }
@@ -486,8 +434,12 @@ protected List<AStarCellPoint> getNeighbors(
         }
 
         // Check for terrain modifiers
-        for (TerrainModifier terrainModifier :
-            terrainCells.getOrDefault(neighbor.position, Collections.emptyList())) {
+        List<TerrainModifier> terrainModifiers =
+            terrainCells.isEmpty()
+                ? Collections.emptyList()
+                : terrainCells.getOrDefault(
+                    new CellPoint(neighborX, neighborY), Collections.emptyList());
+        for (TerrainModifier terrainModifier : terrainModifiers) {
           if (!terrainModifiersIgnored.contains(terrainModifier.operation)) {
             switch (terrainModifier.operation) {
               case MULTIPLY:
@@ -498,8 +450,8 @@ protected List<AStarCellPoint> getNeighbors(
                 break;
               case BLOCK:
                 // Terrain blocking applies equally regardless of even/odd diagonals.
-                closedSet.add(new AStarCellPoint(neighbor.position, false));
-                closedSet.add(new AStarCellPoint(neighbor.position, true));
+                nodes.close(nodes.findOrAdd(neighborX, neighborY, false));
+                nodes.close(nodes.findOrAdd(neighborX, neighborY, true));
                 blockNode = true;
                 continue;
               case FREE:
@@ -514,7 +466,6 @@ protected List<AStarCellPoint> getNeighbors(
       terrainAdder = terrainAdder / cell_cost;
 
       if (blockNode) {
-        log.debug("Terrain blocked movement to neighbor to {}", neighbor.position);
         continue;
       }
 
@@ -526,170 +477,103 @@ protected List<AStarCellPoint> getNeighbors(
 
       terrainMultiplier = Math.abs(terrainMultiplier); // net negative multipliers screw with the AI
 
+      double g;
+      double distanceTraveled;
+      double distanceTraveledWithoutTerrain = 0;
       if (terrainIsFree) {
-        neighbor.g = node.g;
-        neighbor.position.distanceTraveled = node.position.distanceTraveled;
+        g = nodes.getG(node);
+        distanceTraveled = nodes.getDistanceTraveled(node);
       } else {
-        neighbor.position.distanceTraveledWithoutTerrain =
-            node.position.distanceTraveledWithoutTerrain + diagonalMultiplier;
+        distanceTraveledWithoutTerrain =
+            nodes.getDistanceTraveledWithoutTerrain(node) + diagonalMultiplier;
 
-        if (neighbor.isOddStepOfOneTwoOneMovement()) {
-          neighbor.g = node.g + terrainAdder + terrainMultiplier;
-
-          neighbor.position.distanceTraveled =
-              node.position.distanceTraveled + terrainAdder + terrainMultiplier;
+        if (neighborIsOdd) {
+          g = nodes.getG(node) + terrainAdder + terrainMultiplier;
+          distanceTraveled = nodes.getDistanceTraveled(node) + terrainAdder + terrainMultiplier;
         } else {
-          neighbor.g = node.g + terrainAdder + terrainMultiplier * Math.ceil(diagonalMultiplier);
-
-          neighbor.position.distanceTraveled =
-              node.position.distanceTraveled
+          g = nodes.getG(node) + terrainAdder + terrainMultiplier * Math.ceil(diagonalMultiplier);
+          distanceTraveled =
+              nodes.getDistanceTraveled(node)
                   + terrainAdder
                   + terrainMultiplier * Math.ceil(diagonalMultiplier);
         }
       }
 
-      log.debug("Accepted neighbor: {}", neighbor.position);
-      neighbors.add(neighbor);
-    }
-
-    return neighbors;
-  }
-
-  private boolean tokenFootprintIntersectsVBL(CellPoint position) {
-    if (vblGeometry == null) {
-      return false;
+      if (neighbor == AStarNodes.NONE) {
+        neighbor = nodes.add(neighborX, neighborY, neighborIsOdd);
+      }
+      if (!nodes.isOpen(neighbor)) {
+        nodes.setH(neighbor, hScore(neighborX, neighborY, neighborIsOdd, goal));
+        nodes.setPath(neighbor, node, g, distanceTraveled, distanceTraveledWithoutTerrain);
+        nodes.offer(neighbor);
+      } else if (g < nodes.getG(neighbor)) {
+        // It is cheaper to get here the way that we just came than by the previous path.
+        nodes.setPath(neighbor, node, g, distanceTraveled, distanceTraveledWithoutTerrain);
+        nodes.decreased(neighbor);
+      }
+      showDebugInfo(nodes, neighbor);
     }
-
-    var points =
-        footprint.getOccupiedCells(position).stream()
-            .map(
-                cellPoint -> {
-                  var bounds = zone.getGrid().getBounds(cellPoint);
-                  return new Coordinate(bounds.getCenterX(), bounds.getCenterY());
-                })
-            .toArray(Coordinate[]::new);
-    Geometry footprintGeometry = new ConvexHull(points, geometryFactory).getConvexHull();
-
-    return vblGeometry.intersects(footprintGeometry);
   }
 
-  private boolean vblBlocksMovement(CellPoint start, CellPoint goal) {
-    if (vblGeometry == null) {
-      return false;
-    }
-
-    // Stopwatch stopwatch = Stopwatch.createStarted();
-    Map<CellPoint, Boolean> blockedMoves =
-        vblBlockedMovesByGoal.computeIfAbsent(goal, pos -> new HashMap<>());
-    Boolean test = blockedMoves.get(start);
-    // if it's null then the test for that direction hasn't been set yet otherwise just return the
-    // previous result
-    if (test != null) {
-      // log.info("Time to retrieve: " + stopwatch.elapsed(TimeUnit.NANOSECONDS));
-      // avgRetrieveTime += stopwatch.elapsed(TimeUnit.NANOSECONDS);
-      // retrievalCount++;
-      return test;
-    }
-
-    Rectangle startBounds = zone.getGrid().getBounds(start);
-    Rectangle goalBounds = zone.getGrid().getBounds(goal);
-
-    if (goalBounds.isEmpty() || startBounds.isEmpty()) {
-      return false;
-    }
-
-    // If the goal center point is in vbl, allow to maintain path through vbl (should be GM only?)
-    /*
-    if (vbl.contains(goal.toPoint())) {
-      // Allow GM to move through VBL
-       return !MapTool.getPlayer().isGM();
-    }
-    */
-
-    // NEW WAY - use polygon test
-    double x1 = startBounds.getCenterX();
-    double y1 = startBounds.getCenterY();
-    double x2 = goalBounds.getCenterX();
-    double y2 = goalBounds.getCenterY();
-    LineString centerRay =
-        geometryFactory.createLineString(
-            new Coordinate[] {new Coordinate(x1, y1), new Coordinate(x2, y2)});
-
-    boolean blocksMovement;
-    try {
-      blocksMovement = vblGeometry.intersects(centerRay);
-    } catch (Exception e) {
-      log.info("clipped.intersects oh oh: ", e);
+  /**
+   * @param vblBlocksMove whether wall, hill and pit VBL block movement as well as MBL.
+   * @return {@code true} if the moving token has topology of its own that would block movement.
+   */
+  private boolean hasOwnTopology(boolean vblBlocksMove) {
+    if (tokenMbl != null && !tokenMbl.isEmpty()) {
       return true;
     }
-
-    // avgTestTime += stopwatch.elapsed(TimeUnit.NANOSECONDS);
-    // testCount++;
-
-    blockedMoves.put(start, blocksMovement);
-
-    return blocksMovement;
+    return vblBlocksMove
+        && ((tokenWallVbl != null && !tokenWallVbl.isEmpty())
+            || (tokenHillVbl != null && !tokenHillVbl.isEmpty())
+            || (tokenPitVbl != null && !tokenPitVbl.isEmpty()));
   }
 
-  private boolean fowBlocksMovement(CellPoint start, CellPoint goal) {
-    if (fowExposedAreaGeometry == null) {
-      return false;
+  private Area getMovementBlockingAreaWithoutToken(ZoneView zoneView, boolean vblBlocksMove) {
+    var mbl = zoneView.getTopology(Zone.TopologyType.MBL);
+    if (tokenMbl != null) {
+      mbl = new Area(mbl);
+      mbl.subtract(tokenMbl);
     }
-
-    // Stopwatch stopwatch = Stopwatch.createStarted();
-    Map<CellPoint, Boolean> blockedMoves =
-        fowBlockedMovesByGoal.computeIfAbsent(goal, pos -> new HashMap<>());
-    Boolean test = blockedMoves.get(start);
-    // if it's null then the test for that direction hasn't been set yet otherwise just return the
-    // previous result
-    if (test != null) {
-      // log.info("Time to retrieve: " + stopwatch.elapsed(TimeUnit.NANOSECONDS));
-      // avgRetrieveTime += stopwatch.elapsed(TimeUnit.NANOSECONDS);
-      // retrievalCount++;
-      return test;
+    if (!vblBlocksMove) {
+      return mbl;
     }
 
-    Rectangle startBounds = zone.getGrid().getBounds(start);
-    Rectangle goalBounds = zone.getGrid().getBounds(goal);
-
-    if (goalBounds.isEmpty() || startBounds.isEmpty()) {
-      return false;
+    var wallVbl = zoneView.getTopology(Zone.TopologyType.WALL_VBL);
+    var hillVbl = zoneView.getTopology(Zone.TopologyType.HILL_VBL);
+    var pitVbl = zoneView.getTopology(Zone.TopologyType.PIT_VBL);
+    if (tokenWallVbl != null) {
+      wallVbl = new Area(wallVbl);
+      wallVbl.subtract(tokenWallVbl);
     }
-
-    // Check whether a center-to-center line touches hard FoW.
-    double x1 = startBounds.getCenterX();
-    double y1 = startBounds.getCenterY();
-    double x2 = goalBounds.getCenterX();
-    double y2 = goalBounds.getCenterY();
-    LineString centerRay =
-        geometryFactory.createLineString(
-            new Coordinate[] {new Coordinate(x1, y1), new Coordinate(x2, y2)});
-
-    boolean blocksMovement;
-    try {
-      blocksMovement = !fowExposedAreaGeometry.covers(centerRay);
-    } catch (Exception e) {
-      log.info("clipped.intersects oh oh: ", e);
-      return true;
+    if (tokenHillVbl != null) {
+      hillVbl = new Area(hillVbl);
+      hillVbl.subtract(tokenHillVbl);
+    }
+    if (tokenPitVbl != null) {
+      pitVbl = new Area(pitVbl);
+      pitVbl.subtract(tokenPitVbl);
     }
 
-    // avgTestTime += stopwatch.elapsed(TimeUnit.NANOSECONDS);
-    // testCount++;
-
-    blockedMoves.put(start, blocksMovement);
-
-    return blocksMovement;
+    var newVbl = new Area();
+    newVbl.add(wallVbl);
+    newVbl.add(hillVbl);
+    newVbl.add(pitVbl);
+    // Finally, add the Move Blocking Layer!
+    newVbl.add(mbl);
+    return newVbl;
   }
 
-  protected void showDebugInfo(AStarCellPoint node) {
+  private void showDebugInfo(AStarNodes nodes, int node) {
     if (!DeveloperOptions.Toggle.ShowAiDebugging.isEnabled()) {
       return;
     }
 
     final int basis = zone.getGrid().getSize() / 10;
-    final int xOffset = basis * (node.isOddStepOfOneTwoOneMovement ? 7 : 3);
+    final int xOffset = basis * (nodes.isOddStepOfOneTwoOneMovement(node) ? 7 : 3);
 
-    Rectangle cellBounds = zone.getGrid().getBounds(node.position);
+    Rectangle cellBounds =
+        zone.getGrid().getBounds(new CellPoint(nodes.getX(node), nodes.getY(node)));
     DecimalFormat f = new DecimalFormat("##.00");
 
     Label gScore = new Label();
@@ -697,26 +581,27 @@ protected void showDebugInfo(AStarCellPoint node) {
     Label fScore = new Label();
     Label parent = new Label();
 
-    gScore.setLabel(f.format(node.g));
+    gScore.setLabel(f.format(nodes.getG(node)));
     gScore.setX(cellBounds.x + xOffset);
     gScore.setY(cellBounds.y + 1 * basis);
 
-    hScore.setLabel(f.format(node.h));
+    hScore.setLabel(f.format(nodes.getH(node)));
     hScore.setX(cellBounds.x + xOffset);
     hScore.setY(cellBounds.y + 3 * basis);
 
-    fScore.setLabel(f.format(node.fCost()));
+    fScore.setLabel(f.format(nodes.fCost(node)));
     fScore.setX(cellBounds.x + xOffset);
     fScore.setY(cellBounds.y + 5 * basis);
     fScore.setForegroundColor(Color.RED);
 
-    if (node.parent != null) {
+    int parentNode = nodes.getParent(node);
+    if (parentNode != AStarNodes.NONE) {
       parent.setLabel(
           String.format(
               "(%d, %d | %s)",
-              node.parent.position.x,
-              node.parent.position.y,
-              node.parent.isOddStepOfOneTwoOneMovement() ? "O" : "E"));
+              nodes.getX(parentNode),
+              nodes.getY(parentNode),
+              nodes.isOddStepOfOneTwoOneMovement(parentNode) ? "O" : "E"));
     } else {
       parent.setLabel("(none)");
     }
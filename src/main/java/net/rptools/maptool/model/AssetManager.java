@@ -14,6 +14,9 @@
  */
 package net.rptools.maptool.model;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -27,6 +30,7 @@
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -41,9 +45,11 @@
 import java.util.concurrent.Executors;
 import net.rptools.lib.FileUtil;
 import net.rptools.lib.MD5Key;
+import net.rptools.maptool.client.AppPreferences;
 import net.rptools.maptool.client.AppUtil;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.language.I18N;
+import net.rptools.maptool.util.PriorityExecutor;
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -64,9 +70,30 @@ public class AssetManager {
 
   private static final Logger log = LogManager.getLogger(AssetManager.class);
 
-  /** Assets are associated with the MD5 sum of their raw data */
-  private static final Map<MD5Key, Asset> assetMap =
-      Collections.synchronizedMap(new HashMap<MD5Key, Asset>());
+  /**
+   * Assets are associated with the MD5 sum of their raw data. Least recently used assets are
+   * evicted once their total size exceeds {@link AppPreferences#getAssetCacheSize()}, and are
+   * reloaded from the persistent cache when next needed.
+   */
+  private static final Cache<MD5Key, Asset> assetCache =
+      CacheBuilder.newBuilder()
+          .maximumWeight(AppPreferences.getAssetCacheSize() * 1024L * 1024L)
+          .weigher(
+              (MD5Key key, Asset asset) -> asset.getData() == null ? 0 : asset.getData().length)
+          .recordStats()
+          .build();
+
+  /**
+   * Assets that must stay in memory even if evicted from {@link #assetCache}. These are the pinned
+   * assets, and those that can't be reloaded because they aren't in the persistent cache yet.
+   */
+  private static final Map<MD5Key, Asset> retainedAssets = new ConcurrentHashMap<>();
+
+  /** The assets that should stay in memory. See {@link #setPinnedAssets(Set)}. */
+  private static volatile Set<MD5Key> pinnedAssetIds = Set.of();
+
+  /** Guards updates to the assets in memory. */
+  private static final Object assetMutex = new Object();
 
   /** Location of the cache on the filesystem */
   private static File cacheDir;
@@ -90,7 +117,18 @@ public class AssetManager {
   /** Used to load assets from storage */
   private static AssetLoader assetLoader = new AssetLoader();
 
-  private static ExecutorService assetLoaderThreadPool = Executors.newFixedThreadPool(1);
+  /** The order in which queued assets are loaded. */
+  public enum LoadPriority {
+    /** Assets needed to draw what is currently on screen. */
+    VISIBLE,
+    /** Assets used elsewhere on the current map. */
+    ZONE,
+    /** Assets used by the other maps in the campaign. */
+    CAMPAIGN
+  }
+
+  private static PriorityExecutor<LoadPriority> assetLoaderThreadPool =
+      new PriorityExecutor<>(Runtime.getRuntime().availableProcessors(), "asset-loader-%d");
   private static ExecutorService assetWriterThreadPool = Executors.newFixedThreadPool(1);
 
   static {
@@ -212,7 +250,7 @@ public static boolean hasAsset(Asset asset) {
    * @return true if the asset manager has the key
    */
   public static boolean hasAsset(MD5Key key) {
-    return assetMap.containsKey(key)
+    return hasAssetInMemory(key)
         || assetIsInPersistentCache(key)
         || assetHasLocalReference(key);
   }
@@ -224,7 +262,94 @@ public static boolean hasAsset(MD5Key key) {
    * @return True if the asset is loaded, false otherwise
    */
   public static boolean hasAssetInMemory(MD5Key key) {
-    return assetMap.containsKey(key);
+    return getAssetInMemory(key) != null;
+  }
+
+  private static Asset getAssetInMemory(MD5Key key) {
+    if (key == null) {
+      return null;
+    }
+    Asset asset = assetCache.getIfPresent(key);
+    if (asset == null) {
+      asset = retainedAssets.get(key);
+    }
+    return asset;
+  }
+
+  /**
+   * Keep an asset in memory, unless an asset with data is already there.
+   *
+   * @param id MD5 of the asset
+   * @param asset the asset to keep
+   */
+  private static void putAssetInMemory(MD5Key id, Asset asset) {
+    synchronized (assetMutex) {
+      var oldAsset = getAssetInMemory(id);
+      if (oldAsset == null || oldAsset.getData() == null || oldAsset.getData().length == 0) {
+        assetCache.put(id, asset);
+        if (pinnedAssetIds.contains(id) || !canReloadAsset(id)) {
+          retainedAssets.put(id, asset);
+        }
+      }
+    }
+  }
+
+  /**
+   * Allow an asset that no longer needs to be retained to be evicted from memory.
+   *
+   * @param id MD5 of the asset
+   */
+  private static void releaseAsset(MD5Key id) {
+    synchronized (assetMutex) {
+      if (!pinnedAssetIds.contains(id) && canReloadAsset(id)) {
+        retainedAssets.remove(id);
+      }
+    }
+  }
+
+  /**
+   * Determines whether an asset evicted from memory can be loaded again without the server.
+   *
+   * @param id MD5 of the asset
+   * @return true if the asset is in the persistent cache or has a local reference
+   */
+  private static boolean canReloadAsset(MD5Key id) {
+    return (usePersistentCache && assetIsInPersistentCache(id)) || assetHasLocalReference(id);
+  }
+
+  /**
+   * Keep the given assets in memory, however large the asset cache gets. This replaces any assets
+   * that were previously pinned, which may then be evicted.
+   *
+   * @param ids MD5s of the assets to keep, usually those used by the current map
+   */
+  public static void setPinnedAssets(Set<MD5Key> ids) {
+    synchronized (assetMutex) {
+      var previous = pinnedAssetIds;
+      var pinned = new HashSet<>(ids);
+      pinned.remove(null);
+      pinnedAssetIds = Collections.unmodifiableSet(pinned);
+
+      for (MD5Key id : previous) {
+        if (!pinned.contains(id)) {
+          releaseAsset(id);
+        }
+      }
+      for (MD5Key id : pinned) {
+        Asset asset = assetCache.getIfPresent(id);
+        if (asset != null) {
+          retainedAssets.put(id, asset);
+        }
+      }
+    }
+    log.debug("Asset cache: {}", assetCache.stats());
+  }
+
+  /**
+   * @return the hit, miss and eviction counts of the asset cache.
+   */
+  public static CacheStats getAssetCacheStats() {
+    return assetCache.stats();
   }
 
   /**
@@ -249,12 +374,7 @@ public static void putAsset(Asset asset) {
       }
     }
 
-    synchronized (assetMap) {
-      var oldAsset = assetMap.get(asset.getMD5Key());
-      if (oldAsset == null || oldAsset.getData() == null || oldAsset.getData().length == 0) {
-        assetMap.put(asset.getMD5Key(), asset);
-      }
-    }
+    putAssetInMemory(asset.getMD5Key(), asset);
 
     // Invalid images are represented by empty assets.
     // Don't persist those
@@ -285,8 +405,25 @@ public static void putAsset(Asset asset) {
    */
   public static void getAssetAsynchronously(
       final MD5Key id, final AssetAvailableListener... listeners) {
+    getAssetAsynchronously(id, LoadPriority.VISIBLE, listeners);
+  }
 
-    assetLoaderThreadPool.submit(
+  /**
+   * Similar to getAsset(), but does not block. It will always use the listeners to pass the data.
+   * Requests are handled in order of priority, so assets needed on screen are not held up by
+   * prefetching.
+   *
+   * @param id MD5 of the asset requested
+   * @param priority how urgently the asset is needed
+   * @param listeners instances of {@link AssetAvailableListener} that will be notified when the
+   *     asset is available
+   */
+  public static void getAssetAsynchronously(
+      final MD5Key id, final LoadPriority priority, final AssetAvailableListener... listeners) {
+
+    assetLoaderThreadPool.execute(
+        priority,
+        0,
         () -> {
           Asset asset = getAsset(id);
 
@@ -307,6 +444,26 @@ public static void getAssetAsynchronously(
         });
   }
 
+  /**
+   * Request any of the assets that are not available locally from the server, without loading them
+   * into memory. Requests are handled in order of priority after assets that are needed sooner.
+   *
+   * @param ids MD5 of the assets to prefetch
+   * @param priority how urgently the assets are needed
+   */
+  public static void prefetchAssets(Collection<MD5Key> ids, LoadPriority priority) {
+    for (MD5Key id : ids) {
+      assetLoaderThreadPool.execute(
+          priority,
+          0,
+          () -> {
+            if (!hasAsset(id) && !isAssetRequested(id)) {
+              assetLoader.requestAsset(id);
+            }
+          });
+    }
+  }
+
   /**
    * Get the asset from the cache. If the asset is not currently available, will return null. Does
    * not request the asset from the server
@@ -327,7 +484,7 @@ public static Asset getAsset(MD5Key id) {
       log.error(I18N.getText("msg.error.errorResolvingCacheDir", id, e));
     }
 
-    Asset asset = assetMap.get(assetId);
+    Asset asset = getAssetInMemory(assetId);
 
     if (asset == null && usePersistentCache && assetIsInPersistentCache(assetId)) {
       // Guaranteed that asset is in the cache.
@@ -393,7 +550,10 @@ private static MD5Key sanitizeAssetId(MD5Key md5Key) throws IOException {
    */
   public static void removeAsset(MD5Key id) {
     if (!REQUIRED_ASSETS.contains(id)) {
-      assetMap.remove(id);
+      synchronized (assetMutex) {
+        assetCache.invalidate(id);
+        retainedAssets.remove(id);
+      }
     }
   }
 
@@ -480,12 +640,7 @@ private static Asset getFromPersistentCache(MD5Key id) {
         return null;
       }
 
-      synchronized (assetMap) {
-        var oldAsset = assetMap.get(id);
-        if (oldAsset == null || oldAsset.getData() == null || oldAsset.getData().length == 0) {
-          assetMap.put(id, asset);
-        }
-      }
+      putAssetInMemory(id, asset);
 
       return asset;
     } catch (IOException ioe) {
@@ -580,6 +735,9 @@ private static void putInPersistentCache(final Asset asset) {
 
               // Now that the data is in a file, we move it to its final resting place.
               operation.commit();
+
+              // It can be reloaded now, so no need to keep it in memory.
+              releaseAsset(asset.getMD5Key());
             } catch (IOException ioe) {
               log.error("Could not persist asset while writing image data", ioe);
             } catch (NullPointerException npe) {
@@ -888,12 +1046,20 @@ public static Map<MD5Key, Asset> findAllAssetsNotInRepositories(List<String> rep
      * Unfortunately, the repository is a Map<String, String> while the return value is going to be a Map<MD5Key, Asset>, which means each individual entry needs to be checked and references
      * copied. If both were the same data type, converting both to Set<String> would allow for an addAll() and removeAll() and be done with it!
      */
-    Map<MD5Key, Asset> missing =
-        new HashMap<MD5Key, Asset>(Math.min(assetMap.size(), aggregate.size()));
-
-    for (var entry : assetMap.entrySet()) {
-      if (aggregate.contains(entry.getKey()) == false) // Not in any repository so add it.
-      missing.put(entry.getKey(), entry.getValue());
+    // Assets may have been evicted from memory, so walk the campaign's asset ids as well as the
+    // ones in memory and reload any that are missing.
+    Set<MD5Key> ids = new HashSet<>(MapTool.getCampaign().getAllAssetIds());
+    ids.addAll(retainedAssets.keySet());
+    ids.addAll(assetCache.asMap().keySet());
+    Map<MD5Key, Asset> missing = new HashMap<MD5Key, Asset>(Math.min(ids.size(), aggregate.size()));
+
+    for (MD5Key id : ids) {
+      if (aggregate.contains(id) == false) { // Not in any repository so add it.
+        Asset asset = getAsset(id);
+        if (asset != null) {
+          missing.put(id, asset);
+        }
+      }
     }
     return missing;
   }
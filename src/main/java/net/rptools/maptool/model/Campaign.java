@@ -15,10 +15,15 @@
 package net.rptools.maptool.model;
 
 import com.google.protobuf.BoolValue;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import net.rptools.lib.MD5Key;
 import net.rptools.lib.net.Location;
 import net.rptools.maptool.client.MapTool;
@@ -31,8 +36,12 @@
 import net.rptools.maptool.client.ui.token.MultipleImageBarTokenOverlay;
 import net.rptools.maptool.client.ui.token.SingleImageBarTokenOverlay;
 import net.rptools.maptool.client.ui.token.TwoImageBarTokenOverlay;
+import net.rptools.maptool.events.MapToolEventBus;
 import net.rptools.maptool.model.sheet.stats.StatSheetProperties;
+import net.rptools.maptool.model.zones.ZoneReadFromCampaignFile;
 import net.rptools.maptool.server.proto.CampaignDto;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * This object contains {@link Zone}s and {@link Asset}s that make up a campaign as well as links to
@@ -43,11 +52,24 @@
  * images that will appear on it (and also campaign macro buttons).
  */
 public class Campaign {
+  private static final Logger log = LogManager.getLogger(Campaign.class);
+
   private GUID id = new GUID();
 
-  /** The {@link Zone}s that make up this {@code Campaign}. */
-  private final Map<GUID, Zone> zones =
-      Collections.synchronizedMap(new LinkedHashMap<GUID, Zone>());
+  /**
+   * The {@link Zone}s that make up this {@code Campaign}. Zones that have not been read from the
+   * campaign file yet are mapped to {@code null} so that they keep their place.
+   */
+  private Map<GUID, Zone> zones = Collections.synchronizedMap(new LinkedHashMap<GUID, Zone>());
+
+  /** The zones that have not been read from the campaign file yet. Guarded by {@link #zones}. */
+  private transient Map<GUID, ZoneSummary> unloadedZones = new LinkedHashMap<>();
+
+  /** The zones being read from the campaign file. Guarded by {@link #zones}. */
+  private transient Map<GUID, CompletableFuture<Zone>> loadingZones = new HashMap<>();
+
+  /** Where to read the unloaded zones from. */
+  private transient @Nullable ZoneSource zoneSource;
 
   private String name; // the name of the campaign, to be displayed in the MapToolFrame title bar
 
@@ -77,6 +99,12 @@ public class Campaign {
   // as of 1.5.6
   private List<MacroButtonProperties> gmMacroButtonProperties;
 
+  /** Finds the campaign macros by label. */
+  private transient MacroLabelIndex macroLabelIndex = new MacroLabelIndex();
+
+  /** Finds the GM macros by label. */
+  private transient MacroLabelIndex gmMacroLabelIndex = new MacroLabelIndex();
+
   // DEPRECATED: As of 1.3b20 these are now in campaignProperties, but are here for backward
   // compatibility
   private Map<String, List<TokenProperty>> tokenTypeMap;
@@ -123,6 +151,16 @@ private Object readResolve() {
     if (exportSettings == null) {
       exportSettings = new HashMap<>();
     }
+    if (zones == null) {
+      // The zones were saved separately, see PersistenceUtil.saveCampaign().
+      zones = Collections.synchronizedMap(new LinkedHashMap<>());
+    }
+    if (unloadedZones == null) {
+      unloadedZones = new LinkedHashMap<>();
+    }
+    loadingZones = new HashMap<>();
+    macroLabelIndex = new MacroLabelIndex();
+    gmMacroLabelIndex = new MacroLabelIndex();
 
     return this;
   }
@@ -170,10 +208,17 @@ public Campaign(Campaign campaign) {
      *  map must lock the map.
      */
     Map<GUID, Zone> zonesToCopy;
-    synchronized (zones) {
+    synchronized (campaign.zones) {
       zonesToCopy = new LinkedHashMap<>(campaign.zones);
+      unloadedZones.putAll(campaign.unloadedZones);
+      zoneSource = campaign.zoneSource;
     }
     for (Entry<GUID, Zone> entry : zonesToCopy.entrySet()) {
+      if (entry.getValue() == null) {
+        // Not loaded yet, so this copy will read its own from the campaign file when needed.
+        zones.put(entry.getKey(), null);
+        continue;
+      }
       Zone copy = new Zone(entry.getValue(), true);
       zones.put(copy.getId(), copy);
     }
@@ -273,8 +318,28 @@ public List<TokenProperty> getTokenPropertyList(String tokenType) {
         : new ArrayList<TokenProperty>();
   }
 
+  /**
+   * Stub that calls <code>campaignProperties.getTokenProperty()</code>. Unlike going through
+   * {@link #getCampaignProperties()}, this does not copy the campaign properties.
+   *
+   * @param tokenType the token type.
+   * @param name the name of the property, ignoring case.
+   * @return the property, or {@code null} if there is no such property.
+   */
+  public @Nullable TokenProperty getTokenProperty(String tokenType, String name) {
+    checkCampaignPropertyConversion(); // TODO: Remove, for compatibility 1.3b19-1.3b20
+    return campaignProperties.getTokenProperty(tokenType, name);
+  }
+
   public void putTokenType(String name, List<TokenProperty> propertyList) {
     getTokenTypeMap().put(name, propertyList);
+    campaignProperties.tokenPropertiesChanged();
+  }
+
+  /** Stub that calls <code>campaignProperties.tokenPropertiesChanged()</code>. */
+  public void tokenPropertiesChanged() {
+    checkCampaignPropertyConversion(); // TODO: Remove, for compatibility 1.3b19-1.3b20
+    campaignProperties.tokenPropertiesChanged();
   }
 
   /**
@@ -373,24 +438,219 @@ public void setId(GUID id) {
 
   /**
    * Returns an <code>ArrayList</code> of all available <code>Zone</code>s from the <code>zones
-   * </code> <code>LinkedHashMap</code>.
+   * </code> <code>LinkedHashMap</code>. Any zones that are still in the campaign file are read
+   * first.
    *
    * @return a list of zones
    */
   public List<Zone> getZones() {
-    synchronized (zones) { // Must lock synchronized map while iterating over contents.
-      return new ArrayList<Zone>(zones.values());
+    return getZones(summary -> true);
+  }
+
+  /**
+   * Returns the zones that are already loaded, along with any zones still in the campaign file
+   * whose summary matches the filter. This avoids reading zones that the caller has no use for.
+   *
+   * @param load the filter for the zones to read from the campaign file.
+   * @return a list of zones
+   */
+  public List<Zone> getZones(Predicate<ZoneSummary> load) {
+    for (ZoneSummary summary : getUnloadedZones()) {
+      if (load.test(summary)) {
+        getZone(summary.getId());
+      }
+    }
+    return getLoadedZones();
+  }
+
+  /**
+   * @return the zones that have been loaded, without reading any from the campaign file.
+   */
+  public List<Zone> getLoadedZones() {
+    synchronized (zones) {
+      List<Zone> loaded = new ArrayList<>(zones.size());
+      for (Zone zone : zones.values()) {
+        if (zone != null) {
+          loaded.add(zone);
+        }
+      }
+      return loaded;
     }
   }
 
   /**
-   * Return the <code>Zone</code> with the given GUID.
+   * @return the summaries of the zones that are still in the campaign file.
+   */
+  public List<ZoneSummary> getUnloadedZones() {
+    synchronized (zones) {
+      return new ArrayList<>(unloadedZones.values());
+    }
+  }
+
+  /**
+   * @return {@code true} if any zones are still in the campaign file.
+   */
+  public boolean hasUnloadedZones() {
+    synchronized (zones) {
+      return !unloadedZones.isEmpty();
+    }
+  }
+
+  /**
+   * @param id the id of the zone.
+   * @return {@code true} if the zone is in the campaign and has been read from the campaign file.
+   */
+  public boolean isZoneLoaded(GUID id) {
+    return zones.get(id) != null;
+  }
+
+  /**
+   * @return the ids of all the zones in order, whether they have been loaded or not.
+   */
+  public List<GUID> getZoneIds() {
+    synchronized (zones) {
+      return new ArrayList<>(zones.keySet());
+    }
+  }
+
+  /**
+   * @return the number of zones, whether they have been loaded or not.
+   */
+  public int getZoneCount() {
+    return zones.size();
+  }
+
+  /**
+   * Adds zones that are left in the campaign file until they are needed.
+   *
+   * @param summaries the summaries of the zones.
+   * @param source where to read the zones from.
+   */
+  public void setUnloadedZones(List<ZoneSummary> summaries, ZoneSource source) {
+    synchronized (zones) {
+      for (ZoneSummary summary : summaries) {
+        if (zones.get(summary.getId()) == null) {
+          zones.put(summary.getId(), null);
+          unloadedZones.put(summary.getId(), summary);
+        }
+      }
+      zoneSource = source;
+    }
+  }
+
+  /**
+   * @return where the unloaded zones are read from, or {@code null} if there are none.
+   */
+  public @Nullable ZoneSource getZoneSource() {
+    synchronized (zones) {
+      return unloadedZones.isEmpty() ? null : zoneSource;
+    }
+  }
+
+  /**
+   * Changes where the unloaded zones are read from, such as when the campaign has been saved to a
+   * new file.
+   *
+   * @param source where to read the zones from.
+   */
+  public void setZoneSource(ZoneSource source) {
+    synchronized (zones) {
+      zoneSource = source;
+    }
+  }
+
+  /**
+   * Return the <code>Zone</code> with the given GUID. If it is still in the campaign file, it is
+   * read first and {@link ZoneReadFromCampaignFile} is posted.
    *
    * @param id the id to look for
    * @return the Zone for the id
    */
   public Zone getZone(GUID id) {
-    return zones.get(id);
+    CompletableFuture<Zone> loading;
+    ZoneSource source;
+    boolean reading;
+    synchronized (zones) {
+      Zone zone = zones.get(id);
+      if (zone != null || !unloadedZones.containsKey(id)) {
+        return zone;
+      }
+      loading = loadingZones.get(id);
+      reading = loading == null;
+      if (reading) {
+        loading = new CompletableFuture<>();
+        loadingZones.put(id, loading);
+      }
+      source = zoneSource;
+    }
+    if (!reading) {
+      // Another thread is already reading it.
+      return loading.join();
+    }
+
+    // Read it without holding the lock, so that the other zones can be used in the meantime.
+    Zone zone = readZone(id, source);
+    boolean loaded = false;
+    synchronized (zones) {
+      loadingZones.remove(id);
+      if (zone != null && unloadedZones.remove(id) != null) {
+        zones.put(id, zone);
+        loaded = true;
+      } else {
+        // It could not be read, or was replaced or removed in the meantime.
+        zone = zones.get(id);
+      }
+    }
+    loading.complete(zone);
+    if (loaded) {
+      new MapToolEventBus().getMainEventBus().post(new ZoneReadFromCampaignFile(this, zone));
+    }
+    return zone;
+  }
+
+  /**
+   * Returns a zone without adding it to the campaign if it is still in the campaign file, for
+   * callers that only need to copy it.
+   *
+   * @throws IOException if the zone is still in the campaign file but could not be read.
+   */
+  private @Nullable Zone getZoneWithoutLoading(GUID id) throws IOException {
+    CompletableFuture<Zone> loading;
+    ZoneSource source;
+    synchronized (zones) {
+      Zone zone = zones.get(id);
+      if (zone != null || !unloadedZones.containsKey(id)) {
+        return zone;
+      }
+      loading = loadingZones.get(id);
+      source = zoneSource;
+    }
+    if (loading == null) {
+      try {
+        return source.readZone(id);
+      } catch (RuntimeException e) {
+        throw new IOException("Unable to read zone " + id + " from " + source.getFile(), e);
+      }
+    }
+
+    Zone zone = loading.join();
+    synchronized (zones) {
+      if (zone == null && unloadedZones.containsKey(id)) {
+        // The other thread failed to read it, rather than it being removed in the meantime.
+        throw new IOException("Unable to read zone " + id + " from " + source.getFile());
+      }
+    }
+    return zone;
+  }
+
+  private static @Nullable Zone readZone(GUID id, ZoneSource source) {
+    try {
+      return source.readZone(id);
+    } catch (IOException | RuntimeException e) {
+      // Leave it for next time rather than losing it when the campaign is saved.
+      log.error("Unable to read zone {} from {}", id, source.getFile(), e);
+      return null;
+    }
   }
 
   /**
@@ -400,11 +660,17 @@ public Zone getZone(GUID id) {
    * @param zone the zone to put into zones.
    */
   public void putZone(Zone zone) {
-    zones.put(zone.getId(), zone);
+    synchronized (zones) {
+      zones.put(zone.getId(), zone);
+      unloadedZones.remove(zone.getId());
+    }
   }
 
   public void removeAllZones() {
-    zones.clear();
+    synchronized (zones) {
+      zones.clear();
+      unloadedZones.clear();
+    }
   }
 
   /**
@@ -413,7 +679,10 @@ public void removeAllZones() {
    * @param id the GUID of the zone.
    */
   public void removeZone(GUID id) {
-    zones.remove(id);
+    synchronized (zones) {
+      zones.remove(id);
+      unloadedZones.remove(id);
+    }
   }
 
   public boolean containsAsset(Asset asset) {
@@ -421,12 +690,12 @@ public boolean containsAsset(Asset asset) {
   }
 
   public boolean containsAsset(MD5Key key) {
-    Collection<Zone> zonesToCheck;
-    synchronized (zones) { // iteration over synchronized map must lock the map
-      zonesToCheck = zones.values();
+    for (ZoneSummary summary : getUnloadedZones()) {
+      if (summary.getAssetIds().contains(key)) {
+        return true;
+      }
     }
-
-    for (Zone zone : zonesToCheck) {
+    for (Zone zone : getLoadedZones()) {
       Set<MD5Key> assetSet = zone.getAllAssetIds();
       if (assetSet.contains(key)) {
         return true;
@@ -488,6 +757,17 @@ public List<MacroButtonProperties> getMacroButtonPropertiesArray() {
    */
   public void setMacroButtonPropertiesArray(List<MacroButtonProperties> properties) {
     macroButtonProperties = properties;
+    macroLabelIndex.invalidate();
+  }
+
+  /**
+   * Finds a Campaign macro by its label.
+   *
+   * @param label the label of the macro
+   * @return the first Campaign macro with the label, or {@code null} if there is none
+   */
+  public @Nullable MacroButtonProperties getMacroButtonProperty(String label) {
+    return macroLabelIndex.find(label, getMacroButtonPropertiesArray());
   }
 
   /**
@@ -510,6 +790,21 @@ public List<MacroButtonProperties> getGmMacroButtonPropertiesArray() {
    */
   public void setGmMacroButtonPropertiesArray(List<MacroButtonProperties> properties) {
     gmMacroButtonProperties = properties;
+    gmMacroLabelIndex.invalidate();
+  }
+
+  /**
+   * Finds a GM macro by its label.
+   *
+   * @param label the label of the macro
+   * @return the first GM macro with the label, or {@code null} if there is none
+   */
+  public @Nullable MacroButtonProperties getGmMacroButtonProperty(String label) {
+    return gmMacroLabelIndex.find(label, getGmMacroButtonPropertiesArray());
+  }
+
+  private MacroLabelIndex getMacroLabelIndex(boolean gmPanel) {
+    return gmPanel ? gmMacroLabelIndex : macroLabelIndex;
   }
 
   /**
@@ -536,6 +831,7 @@ public void addMacroButtonPropertiesAtNextIndex(
       newProp.setIndex(++lastIndex);
     }
     macroButtonList.addAll(toSave);
+    getMacroLabelIndex(gmPanel).invalidate();
 
     // update the ButtonLastIndex prop as appropriate
     if (gmPanel) {
@@ -560,6 +856,7 @@ public void saveMacroButtonProperty(MacroButtonProperties properties, boolean gm
         gmPanel ? gmMacroButtonProperties : macroButtonProperties;
     AbstractMacroPanel macroPanel =
         gmPanel ? MapTool.getFrame().getGmPanel() : MapTool.getFrame().getCampaignPanel();
+    getMacroLabelIndex(gmPanel).invalidate();
 
     for (MacroButtonProperties prop : macroButtonList) {
       if (prop.getIndex() == properties.getIndex()) {
@@ -614,11 +911,13 @@ public int getGmMacroButtonNextIndex() {
 
   public void deleteMacroButton(MacroButtonProperties properties) {
     macroButtonProperties.remove(properties);
+    macroLabelIndex.invalidate();
     MapTool.getFrame().getCampaignPanel().reset();
   }
 
   public void deleteGmMacroButton(MacroButtonProperties properties) {
     gmMacroButtonProperties.remove(properties);
+    gmMacroLabelIndex.invalidate();
     MapTool.getFrame().getGmPanel().reset();
   }
 
@@ -632,9 +931,12 @@ public Set<MD5Key> getAllAssetIds() {
 
     // Maps (tokens are implicit)
     Set<MD5Key> assetSet = new HashSet<MD5Key>();
-    for (Zone zone : getZones()) {
+    for (Zone zone : getLoadedZones()) {
       assetSet.addAll(zone.getAllAssetIds());
     }
+    for (ZoneSummary summary : getUnloadedZones()) {
+      assetSet.addAll(summary.getAssetIds());
+    }
 
     // States
     for (BooleanTokenOverlay overlay : getCampaignProperties().getTokenStatesMap().values()) {
@@ -760,6 +1062,11 @@ public static Campaign fromDto(CampaignDto dto) {
     return campaign;
   }
 
+  /**
+   * @return the campaign, including every zone that is still in the campaign file.
+   * @throws UncheckedIOException if a zone could not be read from the campaign file, rather than
+   *     leaving it out.
+   */
   public CampaignDto toDto() {
     var dto = CampaignDto.newBuilder();
     dto.setId(id.toString());
@@ -778,7 +1085,19 @@ public CampaignDto toDto() {
         macroButtonProperties.stream()
             .map(MacroButtonProperties::toDto)
             .collect(Collectors.toList()));
-    dto.addAllZones(zones.values().stream().map(Zone::toDto).collect(Collectors.toList()));
+    // Zones that are still in the campaign file are only read for the copy, so that sending the
+    // campaign doesn't leave every one of them loaded.
+    for (GUID zoneId : getZoneIds()) {
+      Zone zone;
+      try {
+        zone = getZoneWithoutLoading(zoneId);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      if (zone != null) {
+        dto.addZones(zone.toDto());
+      }
+    }
     // gmMacroButtonProperties is null if you are loading an old campaign file < 1.5.6
     if (gmMacroButtonProperties != null) {
       dto.addAllGmMacroButtonProperties(
@@ -27,7 +27,9 @@
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import net.rptools.lib.MD5Key;
 import net.rptools.maptool.client.AppPreferences;
 import net.rptools.maptool.client.MapTool;
@@ -63,6 +65,16 @@ public class CampaignProperties {
 
   private Map<String, List<TokenProperty>> tokenTypeMap = new HashMap<>();
 
+  /**
+   * The properties of each token type by lower case name, so that looking up a default value does
+   * not have to scan the list. An entry is rebuilt when the type's list is replaced or resized, and
+   * the whole index is cleared by {@link #tokenPropertiesChanged()}.
+   */
+  private transient Map<String, TokenPropertyIndex> tokenPropertyIndex;
+
+  private record TokenPropertyIndex(
+      List<TokenProperty> source, int size, Map<String, TokenProperty> byName) {}
+
   /** Mapping between property types and default stat sheets for them. */
   private Map<String, StatSheetProperties> tokenTypeStatSheetMap = new HashMap<>();
 
@@ -149,6 +161,7 @@ public CampaignProperties(CampaignProperties properties) {
   public void mergeInto(CampaignProperties properties) {
     // This will replace any dups
     properties.tokenTypeMap.putAll(tokenTypeMap);
+    properties.tokenPropertiesChanged();
     properties.tokenTypeStatSheetMap.putAll(tokenTypeStatSheetMap);
 
     // Need to cull out dups
@@ -212,12 +225,60 @@ public void setSightTypeMap(Map<String, SightType> map) {
   public void setTokenTypeMap(Map<String, List<TokenProperty>> map) {
     tokenTypeMap.clear();
     tokenTypeMap.putAll(map);
+    tokenPropertiesChanged();
   }
 
   public List<TokenProperty> getTokenPropertyList(String tokenType) {
     return getTokenTypeMap().get(tokenType);
   }
 
+  /**
+   * Returns the property of a token type with the given name, ignoring case.
+   *
+   * @param tokenType the token type.
+   * @param name the name of the property.
+   * @return the property, or {@code null} if the token type does not exist or has no such
+   *     property.
+   */
+  public @Nullable TokenProperty getTokenProperty(String tokenType, String name) {
+    List<TokenProperty> propertyList = getTokenPropertyList(tokenType);
+    if (propertyList == null) {
+      return null;
+    }
+
+    var indexes = getTokenPropertyIndex();
+    var index = indexes.get(tokenType);
+    if (index == null || index.source() != propertyList || index.size() != propertyList.size()) {
+      var byName = new HashMap<String, TokenProperty>();
+      for (TokenProperty property : propertyList) {
+        // The first property with a name wins, as it would when searching the list.
+        if (property.getName() != null) {
+          byName.putIfAbsent(property.getName().toLowerCase(), property);
+        }
+      }
+      index = new TokenPropertyIndex(propertyList, propertyList.size(), byName);
+      indexes.put(tokenType, index);
+    }
+    return index.byName().get(name.toLowerCase());
+  }
+
+  /**
+   * Clears the index used by {@link #getTokenProperty(String, String)}. Call this after editing the
+   * token properties in place, such as renaming a property in a list from {@link
+   * #getTokenTypeMap()}, since the index can only detect lists that are replaced or resized.
+   */
+  public void tokenPropertiesChanged() {
+    getTokenPropertyIndex().clear();
+  }
+
+  private Map<String, TokenPropertyIndex> getTokenPropertyIndex() {
+    // Transient fields are not restored when the campaign properties are deserialized.
+    if (tokenPropertyIndex == null) {
+      tokenPropertyIndex = new ConcurrentHashMap<>();
+    }
+    return tokenPropertyIndex;
+  }
+
   public List<String> getRemoteRepositoryList() {
     return remoteRepositoryList;
   }
@@ -15,12 +15,21 @@
 package net.rptools.maptool.model;
 
 import java.awt.geom.Area;
+import javax.annotation.Nullable;
 
-/** Stores the exposed area of a token. */
+/**
+ * Stores the exposed area of a token.
+ *
+ * <p>The exposed area is either kept as an exact {@link Area}, or as {@link ExposedAreaTiles} when
+ * the zone uses tiled fog.
+ */
 public class ExposedAreaMetaData {
-  /** Area exposed so far. */
+  /** Area exposed so far. Unused when {@link #exposedAreaTiles} is set. */
   private Area exposedAreaHistory;
 
+  /** Cells exposed so far, if the zone uses tiled fog. */
+  private @Nullable ExposedAreaTiles exposedAreaTiles;
+
   public ExposedAreaMetaData() {
     exposedAreaHistory = new Area();
   }
@@ -29,26 +38,87 @@ public ExposedAreaMetaData(Area area) {
     exposedAreaHistory = new Area(area);
   }
 
+  public ExposedAreaMetaData(ExposedAreaTiles tiles) {
+    exposedAreaHistory = new Area();
+    exposedAreaTiles = new ExposedAreaTiles(tiles);
+  }
+
+  /**
+   * Returns the area exposed so far. If the exposed area is tiled, the result is built from the
+   * tiles on demand.
+   *
+   * @return the exposed area.
+   */
   public Area getExposedAreaHistory() {
+    if (exposedAreaTiles != null) {
+      return exposedAreaTiles.toArea();
+    }
     // if (exposedAreaHistory == null) {
     // exposedAreaHistory = new Area();
     // }
     return exposedAreaHistory;
   }
 
+  /**
+   * @return the exposed cells, or {@code null} if the exposed area is not tiled.
+   */
+  public @Nullable ExposedAreaTiles getExposedAreaTiles() {
+    return exposedAreaTiles;
+  }
+
+  /**
+   * Switch between an exact and a tiled exposed area, converting what has been exposed so far.
+   *
+   * @param cellSize the size of the tiled cells, or {@code 0} to use an exact area.
+   */
+  public void setTileCellSize(int cellSize) {
+    final var currentCellSize = exposedAreaTiles == null ? 0 : exposedAreaTiles.getCellSize();
+    if (cellSize == currentCellSize) {
+      return;
+    }
+
+    final var exposed = getExposedAreaHistory();
+    if (cellSize > 0) {
+      exposedAreaTiles = new ExposedAreaTiles(cellSize);
+      exposedAreaTiles.add(exposed);
+      exposedAreaHistory = new Area();
+    } else {
+      exposedAreaHistory = new Area(exposed);
+      exposedAreaTiles = null;
+    }
+  }
+
   public void addToExposedAreaHistory(Area newArea) {
     if (newArea != null && !newArea.isEmpty()) {
-      exposedAreaHistory.add(newArea);
+      if (exposedAreaTiles != null) {
+        exposedAreaTiles.add(newArea);
+      } else {
+        exposedAreaHistory.add(newArea);
+      }
     }
   }
 
   public void removeExposedAreaHistory(Area newArea) {
     if (newArea != null && !newArea.isEmpty()) {
-      exposedAreaHistory.subtract(newArea);
+      if (exposedAreaTiles != null) {
+        exposedAreaTiles.subtract(newArea);
+      } else {
+        exposedAreaHistory.subtract(newArea);
+      }
     }
   }
 
   public void clearExposedAreaHistory() {
     exposedAreaHistory = new Area();
+    if (exposedAreaTiles != null) {
+      exposedAreaTiles.clear();
+    }
+  }
+
+  private Object readResolve() {
+    if (exposedAreaHistory == null) {
+      exposedAreaHistory = new Area();
+    }
+    return this;
   }
 }
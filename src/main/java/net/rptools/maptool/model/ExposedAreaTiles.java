@@ -0,0 +1,471 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A raster representation of an exposed area.
+ *
+ * <p>The plane is divided into square cells of {@link #getCellSize()} zone pixels, and each cell is
+ * either exposed or not. A cell is exposed by an {@link Area} if the centre of the cell lies within
+ * the area. Cells are grouped into square tiles of {@link #TILE_SIZE} cells, and only tiles that
+ * contain at least one exposed cell are stored.
+ *
+ * <p>Unlike {@link Area}, the cost of adding to or combining exposed areas only depends on the
+ * number of tiles involved, not on how complicated the accumulated area has become. An equivalent
+ * {@link Area} is built on demand by {@link #toArea()} and cached until the next modification.
+ */
+public class ExposedAreaTiles {
+  /** The number of cells along each side of a tile. Each row of a tile is a single {@code long}. */
+  public static final int TILE_SIZE = Long.SIZE;
+
+  /** The version of the format written by {@link #toBytes()}. */
+  private static final int FORMAT_VERSION = 1;
+
+  /** The flatness used when reading curved areas. */
+  private static final double FLATNESS = 0.5;
+
+  /** The size of each cell in zone pixels. */
+  private final int cellSize;
+
+  /** Each tile, keyed by {@link #tileKey(int, int)}. Each tile has {@link #TILE_SIZE} rows. */
+  private final Map<Long, long[]> tiles = new HashMap<>();
+
+  /** The result of {@link #toArea()}, or {@code null} if it needs to be rebuilt. */
+  private transient @Nullable Area cachedArea;
+
+  /**
+   * Creates an empty exposed area.
+   *
+   * @param cellSize The size of each cell in zone pixels.
+   */
+  public ExposedAreaTiles(int cellSize) {
+    if (cellSize < 1) {
+      throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+    }
+    this.cellSize = cellSize;
+  }
+
+  /**
+   * Creates a copy of another exposed area.
+   *
+   * @param other The exposed area to copy.
+   */
+  public ExposedAreaTiles(@Nonnull ExposedAreaTiles other) {
+    this(other.cellSize);
+    other.tiles.forEach((key, rows) -> tiles.put(key, rows.clone()));
+    cachedArea = other.cachedArea == null ? null : new Area(other.cachedArea);
+  }
+
+  public int getCellSize() {
+    return cellSize;
+  }
+
+  public boolean isEmpty() {
+    return tiles.isEmpty();
+  }
+
+  /**
+   * @return The number of tiles that contain any exposed cells.
+   */
+  public int getTileCount() {
+    return tiles.size();
+  }
+
+  /** Hide everything. */
+  public void clear() {
+    tiles.clear();
+    cachedArea = null;
+  }
+
+  /**
+   * Expose all cells whose centres are in {@code area}.
+   *
+   * @param area The area to expose.
+   */
+  public void add(@Nullable Area area) {
+    rasterize(area, true);
+  }
+
+  /**
+   * Hide all cells whose centres are in {@code area}.
+   *
+   * @param area The area to hide.
+   */
+  public void subtract(@Nullable Area area) {
+    rasterize(area, false);
+  }
+
+  /**
+   * Expose all cells that are exposed in {@code other}.
+   *
+   * <p>This only touches the tiles of {@code other}. If the cell sizes differ, {@code other} is
+   * converted to an {@link Area} first.
+   *
+   * @param other The exposed area to add.
+   */
+  public void add(@Nullable ExposedAreaTiles other) {
+    if (other == null || other.isEmpty()) {
+      return;
+    }
+    if (other.cellSize != cellSize) {
+      add(other.toArea());
+      return;
+    }
+
+    other.tiles.forEach(
+        (key, otherRows) -> {
+          final var rows = tiles.get(key);
+          if (rows == null) {
+            tiles.put(key, otherRows.clone());
+          } else {
+            for (int i = 0; i < TILE_SIZE; ++i) {
+              rows[i] |= otherRows[i];
+            }
+          }
+        });
+    cachedArea = null;
+  }
+
+  /**
+   * Checks whether the cell containing a point is exposed.
+   *
+   * @param x The x-coordinate of the point.
+   * @param y The y-coordinate of the point.
+   * @return {@code true} if the point is exposed.
+   */
+  public boolean contains(double x, double y) {
+    final int column = (int) Math.floor(x / cellSize);
+    final int row = (int) Math.floor(y / cellSize);
+    final var rows =
+        tiles.get(tileKey(Math.floorDiv(column, TILE_SIZE), Math.floorDiv(row, TILE_SIZE)));
+    if (rows == null) {
+      return false;
+    }
+    return (rows[Math.floorMod(row, TILE_SIZE)] & (1L << Math.floorMod(column, TILE_SIZE))) != 0;
+  }
+
+  /**
+   * Builds the {@link Area} covered by the exposed cells.
+   *
+   * <p>The area is cached until the next modification. Each call returns a new copy of it, so the
+   * caller is free to modify the result.
+   *
+   * @return The exposed area.
+   */
+  public @Nonnull Area toArea() {
+    var area = cachedArea;
+    if (area == null) {
+      final var path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+      tiles.forEach(
+          (key, rows) -> {
+            final int tileX = (int) (key >> 32) * TILE_SIZE;
+            final int tileY = (int) (long) key * TILE_SIZE;
+
+            // Identical consecutive rows are emitted as a single strip to keep the path small.
+            int row = 0;
+            while (row < TILE_SIZE) {
+              final long bits = rows[row];
+              int height = 1;
+              while (row + height < TILE_SIZE && rows[row + height] == bits) {
+                ++height;
+              }
+              appendRuns(path, bits, tileX, tileY + row, height);
+              row += height;
+            }
+          });
+      area = new Area(path);
+      cachedArea = area;
+    }
+    return new Area(area);
+  }
+
+  private void appendRuns(Path2D path, long bits, int column, int row, int height) {
+    while (bits != 0) {
+      final int start = Long.numberOfTrailingZeros(bits);
+      final int end = start + Long.numberOfTrailingZeros(~(bits >>> start));
+      final double x0 = (double) (column + start) * cellSize;
+      final double x1 = (double) (column + end) * cellSize;
+      final double y0 = (double) row * cellSize;
+      final double y1 = (double) (row + height) * cellSize;
+      path.moveTo(x0, y0);
+      path.lineTo(x1, y0);
+      path.lineTo(x1, y1);
+      path.lineTo(x0, y1);
+      path.closePath();
+
+      bits = end >= Long.SIZE ? 0 : bits & (-1L << end);
+    }
+  }
+
+  private void rasterize(@Nullable Area area, boolean expose) {
+    if (area == null || area.isEmpty()) {
+      return;
+    }
+
+    final var bounds = area.getBounds2D();
+    // The rows whose centres could possibly lie in the area.
+    final int minRow = (int) Math.ceil(bounds.getMinY() / cellSize - 0.5);
+    final int maxRow = (int) Math.ceil(bounds.getMaxY() / cellSize - 0.5) - 1;
+    if (maxRow < minRow) {
+      return;
+    }
+
+    // For each row, collect the x-coordinates where the boundary crosses the row's centre line.
+    final var crossings = new double[maxRow - minRow + 1][];
+    final var crossingCounts = new int[crossings.length];
+    final var coords = new double[6];
+    double startX = 0, startY = 0, lastX = 0, lastY = 0;
+    for (var iterator = area.getPathIterator(null, FLATNESS);
+        !iterator.isDone();
+        iterator.next()) {
+      switch (iterator.currentSegment(coords)) {
+        case PathIterator.SEG_MOVETO -> {
+          startX = lastX = coords[0];
+          startY = lastY = coords[1];
+        }
+        case PathIterator.SEG_LINETO -> {
+          addCrossings(lastX, lastY, coords[0], coords[1], minRow, crossings, crossingCounts);
+          lastX = coords[0];
+          lastY = coords[1];
+        }
+        case PathIterator.SEG_CLOSE -> {
+          addCrossings(lastX, lastY, startX, startY, minRow, crossings, crossingCounts);
+          lastX = startX;
+          lastY = startY;
+        }
+        default -> {
+          // The iterator is flattened, so there are no curves.
+        }
+      }
+    }
+
+    // Pair up the crossings to find the spans that are inside the area.
+    for (int i = 0; i < crossings.length; ++i) {
+      final var xs = crossings[i];
+      final var count = crossingCounts[i];
+      if (count < 2) {
+        continue;
+      }
+      Arrays.sort(xs, 0, count);
+      for (int j = 0; j + 1 < count; j += 2) {
+        final int firstColumn = (int) Math.ceil(xs[j] / cellSize - 0.5);
+        final int endColumn = (int) Math.ceil(xs[j + 1] / cellSize - 0.5);
+        if (endColumn > firstColumn) {
+          setSpan(minRow + i, firstColumn, endColumn, expose);
+        }
+      }
+    }
+  }
+
+  private void addCrossings(
+      double x0,
+      double y0,
+      double x1,
+      double y1,
+      int minRow,
+      double[][] crossings,
+      int[] crossingCounts) {
+    if (y0 == y1) {
+      return;
+    }
+    final double top = Math.min(y0, y1);
+    final double bottom = Math.max(y0, y1);
+    // Rows whose centre c satisfies top <= c < bottom, so that shared vertices are only counted
+    // once.
+    final int firstRow = Math.max(minRow, (int) Math.ceil(top / cellSize - 0.5));
+    final int endRow =
+        Math.min(minRow + crossings.length, (int) Math.ceil(bottom / cellSize - 0.5));
+    final double slope = (x1 - x0) / (y1 - y0);
+    for (int row = firstRow; row < endRow; ++row) {
+      final double centre = (row + 0.5) * cellSize;
+      final int index = row - minRow;
+      var xs = crossings[index];
+      if (xs == null) {
+        xs = new double[4];
+        crossings[index] = xs;
+      } else if (crossingCounts[index] == xs.length) {
+        xs = Arrays.copyOf(xs, xs.length * 2);
+        crossings[index] = xs;
+      }
+      xs[crossingCounts[index]++] = x0 + (centre - y0) * slope;
+    }
+  }
+
+  /** Set or clear the cells in {@code row} from {@code firstColumn} up to {@code endColumn}. */
+  private void setSpan(int row, int firstColumn, int endColumn, boolean expose) {
+    final int tileY = Math.floorDiv(row, TILE_SIZE);
+    final int rowInTile = Math.floorMod(row, TILE_SIZE);
+
+    int column = firstColumn;
+    while (column < endColumn) {
+      final int tileX = Math.floorDiv(column, TILE_SIZE);
+      final int start = Math.floorMod(column, TILE_SIZE);
+      final int end = Math.min(TILE_SIZE, start + (endColumn - column));
+      final long mask = (end == TILE_SIZE ? -1L : (1L << end) - 1) & (-1L << start);
+      column += end - start;
+
+      final var key = tileKey(tileX, tileY);
+      var rows = tiles.get(key);
+      if (expose) {
+        if (rows == null) {
+          rows = new long[TILE_SIZE];
+          tiles.put(key, rows);
+        }
+        rows[rowInTile] |= mask;
+      } else if (rows != null) {
+        rows[rowInTile] &= ~mask;
+        if (isBlank(rows)) {
+          tiles.remove(key);
+        }
+      }
+    }
+    cachedArea = null;
+  }
+
+  private static boolean isBlank(long[] rows) {
+    for (final var bits : rows) {
+      if (bits != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long tileKey(int tileX, int tileY) {
+    return ((long) tileX << 32) | (tileY & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Encodes the exposed area in a compact binary form.
+   *
+   * <p>Each tile is stored as the lengths of its alternating runs of hidden and exposed cells.
+   *
+   * @return The encoded exposed area.
+   * @see #fromBytes(byte[])
+   */
+  public byte[] toBytes() {
+    final var bytes = new ByteArrayOutputStream();
+    try (final var out = new DataOutputStream(bytes)) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(cellSize);
+      out.writeInt(tiles.size());
+      for (final var entry : tiles.entrySet()) {
+        out.writeLong(entry.getKey());
+
+        final var rows = entry.getValue();
+        boolean exposed = false;
+        int runLength = 0;
+        for (final var bits : rows) {
+          for (int bit = 0; bit < TILE_SIZE; ++bit) {
+            if ((((bits >>> bit) & 1) != 0) == exposed) {
+              ++runLength;
+            } else {
+              writeVarInt(out, runLength);
+              exposed = !exposed;
+              runLength = 1;
+            }
+          }
+        }
+        writeVarInt(out, runLength);
+      }
+    } catch (IOException e) {
+      // Can't happen for an in-memory stream.
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decodes an exposed area produced by {@link #toBytes()}.
+   *
+   * @param bytes The encoded exposed area.
+   * @return The decoded exposed area.
+   * @throws IllegalArgumentException if {@code bytes} is not a valid encoding.
+   */
+  public static ExposedAreaTiles fromBytes(byte[] bytes) {
+    try (final var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      final var version = in.readInt();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unsupported exposed area format: " + version);
+      }
+
+      final var result = new ExposedAreaTiles(in.readInt());
+      final var tileCount = in.readInt();
+      for (int i = 0; i < tileCount; ++i) {
+        final var key = in.readLong();
+        final var rows = new long[TILE_SIZE];
+
+        final int cellCount = TILE_SIZE * TILE_SIZE;
+        boolean exposed = false;
+        int cell = 0;
+        while (cell < cellCount) {
+          final var runLength = readVarInt(in);
+          if (runLength < 0 || runLength > cellCount - cell) {
+            throw new IllegalArgumentException("Exposed area run is out of bounds");
+          }
+          if (exposed) {
+            for (int j = cell; j < cell + runLength; ++j) {
+              rows[j / TILE_SIZE] |= 1L << (j % TILE_SIZE);
+            }
+          }
+          cell += runLength;
+          exposed = !exposed;
+        }
+
+        if (!isBlank(rows)) {
+          result.tiles.put(key, rows);
+        }
+      }
+      return result;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid exposed area data", e);
+    }
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      final int b = in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed variable length integer");
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import com.thoughtworks.xstream.converters.SingleValueConverter;
+import java.util.Base64;
+
+/**
+ * Writes {@link ExposedAreaTiles} to campaign files in its compact binary form, as Base64 text.
+ */
+public class ExposedAreaTilesConverter implements SingleValueConverter {
+  @Override
+  public boolean canConvert(Class type) {
+    return ExposedAreaTiles.class.equals(type);
+  }
+
+  @Override
+  public String toString(Object obj) {
+    return Base64.getEncoder().encodeToString(((ExposedAreaTiles) obj).toBytes());
+  }
+
+  @Override
+  public Object fromString(String str) {
+    return ExposedAreaTiles.fromBytes(Base64.getDecoder().decode(str));
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Finds a macro in a collection of macros by its label, without comparing the label of every
+ * macro.
+ *
+ * <p>The collection is owned by the caller, which must call {@link #invalidate()} whenever it adds,
+ * removes or relabels a macro. Changes made without doing so are still caught in most cases: the
+ * index is rebuilt if the collection is replaced or changes size, a macro is never returned once
+ * its label no longer matches, and a label that is not in the index is looked for the slow way
+ * before giving up.
+ */
+final class MacroLabelIndex {
+  /** The index and what it was built from. */
+  private record Snapshot(
+      Collection<MacroButtonProperties> macros,
+      int size,
+      Map<String, MacroButtonProperties> macrosByLabel) {}
+
+  private volatile @Nullable Snapshot snapshot;
+
+  /** Discards the index, so that it is rebuilt the next time it is used. */
+  public void invalidate() {
+    snapshot = null;
+  }
+
+  /**
+   * Finds the first macro with a label.
+   *
+   * @param label The label of the macro. Case is significant.
+   * @param macros The macros to search, in the order they would be searched without the index.
+   * @return the first macro with the label, or {@code null} if there is none.
+   */
+  public @Nullable MacroButtonProperties find(
+      String label, Collection<MacroButtonProperties> macros) {
+    var current = snapshot;
+    if (current == null || current.macros() != macros || current.size() != macros.size()) {
+      current = rebuild(macros);
+    }
+
+    var macro = current.macrosByLabel().get(label);
+    if (macro != null && label.equals(macro.getLabel())) {
+      return macro;
+    }
+
+    // The macro may have been relabelled without the index being told.
+    for (MacroButtonProperties m : macros) {
+      if (label.equals(m.getLabel())) {
+        rebuild(macros);
+        return m;
+      }
+    }
+    return null;
+  }
+
+  private Snapshot rebuild(Collection<MacroButtonProperties> macros) {
+    var macrosByLabel = new HashMap<String, MacroButtonProperties>(macros.size() * 2);
+    for (MacroButtonProperties macro : macros) {
+      if (macro.getLabel() != null) {
+        macrosByLabel.putIfAbsent(macro.getLabel(), macro);
+      }
+    }
+    var current = new Snapshot(macros, macros.size(), macrosByLabel);
+    snapshot = current;
+    return current;
+  }
+}
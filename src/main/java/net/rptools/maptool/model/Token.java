@@ -37,6 +37,7 @@
 import java.io.StringReader;
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -374,9 +375,26 @@ public String toString() {
 
   private CaseInsensitiveHashMap<Object> propertyMapCI = new CaseInsensitiveHashMap<>();
 
+  /**
+   * JSON parsed from property values, by lower case property name. Values are stored as strings, so
+   * without this a large JSON property would be parsed again every time it is read.
+   */
+  private transient Map<String, ParsedProperty> parsedPropertyCache = new ConcurrentHashMap<>();
+
+  /**
+   * A property value and the JSON parsed from it.
+   *
+   * @param source the property value.
+   * @param json the JSON object or array in the value, or {@code null} if it is not JSON.
+   */
+  private record ParsedProperty(String source, @Nullable JsonElement json) {}
+
   private Map<String, String> macroMap;
   private Map<Integer, MacroButtonProperties> macroPropertiesMap = new HashMap<>();
 
+  /** Finds the macros in {@link #macroPropertiesMap} by label. */
+  private transient MacroLabelIndex macroLabelIndex = new MacroLabelIndex();
+
   private Map<String, String> speechMap = new HashMap<>();
 
   private HeroLabData heroLabData;
@@ -483,6 +501,7 @@ public Token(Token token) {
     state.putAll(token.state);
     getPropertyMap().clear();
     getPropertyMap().putAll(token.propertyMapCI);
+    getParsedPropertyCache().clear();
     // Deep copy of the macros
     token.macroPropertiesMap.forEach(
         (key, value) ->
@@ -1780,10 +1799,12 @@ public void setAllStates(Object aValue) {
 
   public void resetProperty(String key) {
     getPropertyMap().remove(key);
+    getParsedPropertyCache().remove(key.toLowerCase());
   }
 
   public void setProperty(String key, Object value) {
     getPropertyMap().put(key, value);
+    getParsedPropertyCache().remove(key.toLowerCase());
   }
 
   public Object getProperty(String key) {
@@ -1805,7 +1826,9 @@ public Object getEvaluatedProperty(String key) {
   }
 
   /**
-   * Returns the evaluated property corresponding to the key.
+   * Returns the evaluated property corresponding to the key. Property values that are JSON objects
+   * or arrays are only parsed the first time they are read, so the same {@link JsonElement} is
+   * returned until the property changes and must not be modified.
    *
    * @param resolver the variable resolver to parse code inside the property
    * @param key the key of the value
@@ -1815,48 +1838,17 @@ public Object getEvaluatedProperty(MapToolVariableResolver resolver, String key)
     Object val = getProperty(key);
     if (val == null) {
       // Global default ?
-      List<TokenProperty> propertyList =
-          MapTool.getCampaign().getCampaignProperties().getTokenPropertyList(propertyType);
-      if (propertyList != null) {
-        for (TokenProperty property : propertyList) {
-          if (key.equalsIgnoreCase(property.getName())) {
-            val = property.getDefaultValue();
-            break;
-          }
-        }
+      TokenProperty property = MapTool.getCampaign().getTokenProperty(propertyType, key);
+      if (property != null) {
+        val = property.getDefaultValue();
       }
     }
     if (val == null) {
       return "";
     }
-    if (val.toString().trim().startsWith("{")) {
-      /*
-       * The normal Gson evaluator was too lenient in identifying JSON objects, so we had to move
-       * that lower (see #1560). But we would really like to avoid the performance cost of
-       * attempting to parse anything that actually is a proper JSON, so let's try a stricter
-       * evaluation process here first (see #2396).
-       */
-      try {
-        try (JsonReader reader = new JsonReader(new StringReader(val.toString()))) {
-          JsonObject result = strictGsonObjectAdapter.read(reader);
-          // in case of a situation like {"a": 1}{"b": 2}, the above would have stopped at the first
-          // complete object.  This next line will throw an exception on finding another top-level
-          // object, allowing us to move on with other evaluation.
-          reader.hasNext();
-          if (result.isJsonObject()) {
-            return result;
-          }
-        }
-      } catch (IOException e) {
-        // deliberately ignored - continue parsing
-      }
-    }
-    // try to convert it to a JSON array. Fixes #2057.
-    if (val.toString().trim().startsWith("[")) {
-      JsonElement json = JSONMacroFunctions.getInstance().asJsonElement(val.toString());
-      if (json.isJsonArray()) {
-        return json;
-      }
+    JsonElement json = getParsedJson(key, val.toString());
+    if (json != null) {
+      return json;
     }
     try {
       log.debug(
@@ -1901,6 +1893,80 @@ private CaseInsensitiveHashMap<Object> getPropertyMap() {
     return propertyMapCI;
   }
 
+  private Map<String, ParsedProperty> getParsedPropertyCache() {
+    // Transient fields are not restored when a token is deserialized.
+    if (parsedPropertyCache == null) {
+      parsedPropertyCache = new ConcurrentHashMap<>();
+    }
+    return parsedPropertyCache;
+  }
+
+  /**
+   * Returns the JSON object or array in a property value, parsing it only if the value has changed
+   * since it was last parsed.
+   *
+   * @param key the name of the property.
+   * @param value the value of the property, or its default value.
+   * @return the JSON, or {@code null} if the value is not a JSON object or array.
+   */
+  private @Nullable JsonElement getParsedJson(String key, String value) {
+    char first = firstNonWhitespace(value);
+    if (first != '{' && first != '[') {
+      return null;
+    }
+
+    var cache = getParsedPropertyCache();
+    var cacheKey = key.toLowerCase();
+    var cached = cache.get(cacheKey);
+    if (cached != null && cached.source().equals(value)) {
+      return cached.json();
+    }
+
+    JsonElement json = first == '{' ? parseStrictJsonObject(value) : parseJsonArray(value);
+    cache.put(cacheKey, new ParsedProperty(value, json));
+    return json;
+  }
+
+  private static char firstNonWhitespace(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      // Same definition of whitespace as String.trim().
+      if (value.charAt(i) > ' ') {
+        return value.charAt(i);
+      }
+    }
+    return ' ';
+  }
+
+  private static @Nullable JsonElement parseStrictJsonObject(String value) {
+    /*
+     * The normal Gson evaluator was too lenient in identifying JSON objects, so we had to move
+     * that lower (see #1560). But we would really like to avoid the performance cost of
+     * attempting to parse anything that actually is a proper JSON, so let's try a stricter
+     * evaluation process here first (see #2396).
+     */
+    try {
+      try (JsonReader reader = new JsonReader(new StringReader(value))) {
+        JsonObject result = strictGsonObjectAdapter.read(reader);
+        // in case of a situation like {"a": 1}{"b": 2}, the above would have stopped at the first
+        // complete object.  This next line will throw an exception on finding another top-level
+        // object, allowing us to move on with other evaluation.
+        reader.hasNext();
+        if (result.isJsonObject()) {
+          return result;
+        }
+      }
+    } catch (IOException e) {
+      // deliberately ignored - continue parsing
+    }
+    return null;
+  }
+
+  private static @Nullable JsonElement parseJsonArray(String value) {
+    // try to convert it to a JSON array. Fixes #2057.
+    JsonElement json = JSONMacroFunctions.getInstance().asJsonElement(value);
+    return json.isJsonArray() ? json : null;
+  }
+
   private void loadOldMacros() {
     if (macroMap == null) {
       return;
@@ -1952,14 +2018,19 @@ public MacroButtonProperties getMacro(int index, boolean secure) {
   // avoid this; it loads the first macro with this label, but there could be more than one macro
   // with that label
   public MacroButtonProperties getMacro(String label, boolean secure) {
-    Set<Integer> keys = getMacroPropertiesMap(secure).keySet();
-    for (int key : keys) {
-      MacroButtonProperties prop = macroPropertiesMap.get(key);
-      if (prop.getLabel().equals(label)) {
-        return prop;
-      }
+    var macros = getMacroPropertiesMap(secure);
+    if (macros.isEmpty()) {
+      return null;
     }
-    return null;
+    return getMacroLabelIndex().find(label, macros.values());
+  }
+
+  private MacroLabelIndex getMacroLabelIndex() {
+    // Transient fields are not restored when a token is deserialized.
+    if (macroLabelIndex == null) {
+      macroLabelIndex = new MacroLabelIndex();
+    }
+    return macroLabelIndex;
   }
 
   /**
@@ -1993,6 +2064,7 @@ public void saveMacroList(List<MacroButtonProperties> newMacroList, boolean clea
       }
       macroPropertiesMap.put(macro.getIndex(), macro);
     }
+    getMacroLabelIndex().invalidate();
   }
 
   /**
@@ -2002,6 +2074,7 @@ public void saveMacroList(List<MacroButtonProperties> newMacroList, boolean clea
    */
   public void saveMacro(MacroButtonProperties prop) {
     getMacroPropertiesMap(false).put(prop.getIndex(), prop);
+    getMacroLabelIndex().invalidate();
   }
 
   /**
@@ -2011,6 +2084,7 @@ public void saveMacro(MacroButtonProperties prop) {
    */
   public void deleteMacro(int index) {
     getMacroPropertiesMap(false).remove(index);
+    getMacroLabelIndex().invalidate();
   }
 
   public List<String> getMacroNames(boolean secure) {
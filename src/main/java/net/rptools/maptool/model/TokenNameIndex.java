@@ -0,0 +1,116 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Finds the tokens in a zone by a case-insensitive name, such as the token name or GM name.
+ *
+ * <p>The index does not watch tokens for changes; the zone must call {@link #put(Token)} again
+ * whenever a token may have been renamed. A token that was renamed without doing so is not found
+ * under its new name, but is also never returned under its old one.
+ */
+final class TokenNameIndex {
+  private final Function<Token, String> nameGetter;
+
+  /**
+   * The tokens under each name. Names are compared ignoring case, so that a lookup doesn't need to
+   * copy the name into a key.
+   */
+  private final Map<String, List<Token>> tokensByName =
+      new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+  /** The name each token is indexed under. */
+  private final Map<GUID, String> indexedNames = new HashMap<>();
+
+  /**
+   * Creates an empty index.
+   *
+   * @param nameGetter Gets the name to index a token under. May return {@code null} or an empty
+   *     string if the token should not be indexed.
+   */
+  public TokenNameIndex(Function<Token, String> nameGetter) {
+    this.nameGetter = nameGetter;
+  }
+
+  /**
+   * Adds a token to the index, or re-indexes it under its current name if it is already indexed.
+   *
+   * @param token The token to index.
+   */
+  public void put(Token token) {
+    remove(token.getId());
+
+    final var name = nameGetter.apply(token);
+    if (name == null || name.isEmpty()) {
+      return;
+    }
+    indexedNames.put(token.getId(), name);
+    tokensByName.computeIfAbsent(name, k -> new ArrayList<>(1)).add(token);
+  }
+
+  /**
+   * Removes a token from the index.
+   *
+   * @param id The ID of the token to remove.
+   */
+  public void remove(GUID id) {
+    final var key = indexedNames.remove(id);
+    if (key == null) {
+      return;
+    }
+    final var tokens = tokensByName.get(key);
+    tokens.removeIf(t -> t.getId().equals(id));
+    if (tokens.isEmpty()) {
+      tokensByName.remove(key);
+    }
+  }
+
+  public void clear() {
+    tokensByName.clear();
+    indexedNames.clear();
+  }
+
+  /**
+   * Finds a token by name. If several tokens have the name, the one lowest in Z order is returned,
+   * as when searching the zone's token list in order.
+   *
+   * @param name The name to look for. Matched case-insensitively.
+   * @return The token, or {@code null} if no indexed token currently has the name.
+   */
+  public @Nullable Token get(String name) {
+    final var tokens = tokensByName.get(name);
+    if (tokens == null) {
+      return null;
+    }
+
+    Token result = null;
+    for (int i = 0; i < tokens.size(); ++i) {
+      final var token = tokens.get(i);
+      if (name.equalsIgnoreCase(nameGetter.apply(token))
+          && (result == null || Zone.TOKEN_Z_ORDER_COMPARATOR.compare(token, result) < 0)) {
+        result = token;
+      }
+    }
+    return result;
+  }
+}
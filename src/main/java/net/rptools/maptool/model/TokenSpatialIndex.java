@@ -0,0 +1,167 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A spatial hash of the tokens in a zone, kept separately for each layer.
+ *
+ * <p>Each token is indexed by the square that contains its bounds at any rotation, so that a query
+ * only needs to look at the buckets overlapping the query region. The index does not watch tokens
+ * for changes; the zone must call {@link #put(Token, Rectangle)} again whenever a token's bounds or
+ * layer may have changed.
+ */
+final class TokenSpatialIndex {
+  /** The size of each bucket in zone pixels. */
+  private static final int BUCKET_SIZE = 256;
+
+  /** A token, and the layer and bounds it was indexed with. */
+  private record Entry(Token token, Zone.Layer layer, Rectangle bounds) {}
+
+  /** The IDs of the tokens in each bucket, for each layer. */
+  private final Map<Zone.Layer, Map<Long, Set<GUID>>> bucketsByLayer =
+      new EnumMap<>(Zone.Layer.class);
+
+  private final Map<GUID, Entry> entries = new HashMap<>();
+
+  /**
+   * Adds a token to the index, or moves it if it is already indexed.
+   *
+   * @param token The token to index.
+   * @param bounds The bounds of the token, as returned by {@link Token#getBounds(Zone)}.
+   */
+  public void put(Token token, Rectangle bounds) {
+    remove(token.getId());
+
+    // Cover the token at any rotation by using the circle around its bounds.
+    final var radius = (int) Math.ceil(Math.hypot(bounds.width, bounds.height) / 2);
+    final var indexedBounds =
+        new Rectangle(
+            (int) bounds.getCenterX() - radius,
+            (int) bounds.getCenterY() - radius,
+            2 * radius + 1,
+            2 * radius + 1);
+    entries.put(token.getId(), new Entry(token, token.getLayer(), indexedBounds));
+
+    final var buckets = bucketsByLayer.computeIfAbsent(token.getLayer(), l -> new HashMap<>());
+    forEachBucket(
+        indexedBounds,
+        key -> buckets.computeIfAbsent(key, k -> new HashSet<>()).add(token.getId()));
+  }
+
+  /**
+   * Removes a token from the index.
+   *
+   * @param id The ID of the token to remove.
+   */
+  public void remove(GUID id) {
+    final var entry = entries.remove(id);
+    if (entry == null) {
+      return;
+    }
+
+    final var buckets = bucketsByLayer.get(entry.layer());
+    forEachBucket(
+        entry.bounds(),
+        key -> {
+          final var bucket = buckets.get(key);
+          if (bucket != null) {
+            bucket.remove(id);
+            if (bucket.isEmpty()) {
+              buckets.remove(key);
+            }
+          }
+        });
+  }
+
+  public void clear() {
+    bucketsByLayer.clear();
+    entries.clear();
+  }
+
+  /**
+   * Finds the tokens that may intersect a region.
+   *
+   * <p>The result includes every token whose bounds intersect {@code region}, but may also include
+   * rotated tokens that lie just outside of it.
+   *
+   * @param region The region to search, in zone coordinates.
+   * @param layerFilter Which layers to search.
+   * @return The tokens found, in no particular order.
+   */
+  public List<Token> query(Rectangle region, Predicate<Zone.Layer> layerFilter) {
+    final var results = new ArrayList<Token>();
+
+    // For regions covering more buckets than there are tokens, checking each token is cheaper.
+    final long bucketCount =
+        (long) (region.width / BUCKET_SIZE + 2) * (long) (region.height / BUCKET_SIZE + 2);
+    if (bucketCount > entries.size()) {
+      for (final var entry : entries.values()) {
+        if (layerFilter.test(entry.layer()) && entry.bounds().intersects(region)) {
+          results.add(entry.token());
+        }
+      }
+      return results;
+    }
+
+    final var seen = new HashSet<GUID>();
+    bucketsByLayer.forEach(
+        (layer, buckets) -> {
+          if (!layerFilter.test(layer)) {
+            return;
+          }
+          forEachBucket(
+              region,
+              key -> {
+                final var bucket = buckets.get(key);
+                if (bucket == null) {
+                  return;
+                }
+                for (final var id : bucket) {
+                  final var entry = entries.get(id);
+                  if (entry.bounds().intersects(region) && seen.add(id)) {
+                    results.add(entry.token());
+                  }
+                }
+              });
+        });
+    return results;
+  }
+
+  private interface BucketConsumer {
+    void accept(long key);
+  }
+
+  private static void forEachBucket(Rectangle bounds, BucketConsumer consumer) {
+    final int minX = Math.floorDiv(bounds.x, BUCKET_SIZE);
+    final int minY = Math.floorDiv(bounds.y, BUCKET_SIZE);
+    final int maxX = Math.floorDiv(bounds.x + Math.max(bounds.width - 1, 0), BUCKET_SIZE);
+    final int maxY = Math.floorDiv(bounds.y + Math.max(bounds.height - 1, 0), BUCKET_SIZE);
+    for (int y = minY; y <= maxY; ++y) {
+      for (int x = minX; x <= maxX; ++x) {
+        consumer.accept(((long) x << 32) | (y & 0xFFFFFFFFL));
+      }
+    }
+  }
+}
@@ -14,6 +14,7 @@
  */
 package net.rptools.maptool.model;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.StringValue;
 import java.awt.Color;
 import java.awt.Point;
@@ -65,7 +66,6 @@
 import net.rptools.maptool.server.proto.DrawnElementListDto;
 import net.rptools.maptool.server.proto.TopologyTypeDto;
 import net.rptools.maptool.server.proto.ZoneDto;
-import net.rptools.maptool.util.StringUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -405,11 +405,32 @@ public String toString() {
   /** Token list ordered by Z. */
   private final List<Token> tokenOrderedList = new LinkedList<Token>();
 
+  /** Tokens indexed by their bounds. Built on first use, and dropped if the grid changes. */
+  private transient @Nullable TokenSpatialIndex tokenSpatialIndex;
+
+  /** The grid size {@link #tokenSpatialIndex} was built for. */
+  private transient int tokenSpatialIndexGridSize;
+
+  /** Tokens indexed by name. Built on first use. */
+  private transient @Nullable TokenNameIndex tokenNameIndex;
+
+  /** Tokens indexed by GM name. Built on first use. */
+  private transient @Nullable TokenNameIndex tokenGMNameIndex;
+
   private InitiativeList initiativeList = new InitiativeList(this);
 
-  /** The global exposed area. */
+  /** The global exposed area. Unused when {@link #exposedAreaTiles} is set. */
   private Area exposedArea = new Area();
 
+  /**
+   * The number of fog cells per grid cell side, or {@code 0} to store exposed areas exactly. When
+   * non-zero, exposed areas are kept in {@link ExposedAreaTiles}.
+   */
+  private int fogResolution = 0;
+
+  /** The global exposed area as tiled cells, if {@link #fogResolution} is non-zero. */
+  private @Nullable ExposedAreaTiles exposedAreaTiles;
+
   private boolean hasFog;
   private DrawablePaint fogPaint;
   private transient UndoPerZone undo;
@@ -666,6 +687,7 @@ public Zone(Zone zone, boolean keepIds) {
       }
     }
     exposedAreaMeta = new HashMap<GUID, ExposedAreaMetaData>(zone.exposedAreaMeta.size() * 4 / 3);
+    fogResolution = zone.fogResolution;
 
     // Copy the tokens, save a map between old and new for the initiative list.
     if (zone.initiativeList == null) {
@@ -724,6 +746,8 @@ public Zone(Zone zone, boolean keepIds) {
 
     boardPosition = (Point) zone.boardPosition.clone();
     exposedArea = (Area) zone.exposedArea.clone();
+    exposedAreaTiles =
+        zone.exposedAreaTiles == null ? null : new ExposedAreaTiles(zone.exposedAreaTiles);
     topology = (Area) zone.topology.clone();
     hillVbl = (Area) zone.hillVbl.clone();
     pitVbl = (Area) zone.pitVbl.clone();
@@ -774,6 +798,7 @@ public void setVisible(boolean isVisible) {
   public void setGrid(Grid grid) {
     this.grid = grid;
     grid.setZone(this);
+    tokenSpatialIndex = null;
     new MapToolEventBus().getMainEventBus().post(new GridChanged(this));
   }
 
@@ -891,6 +916,24 @@ public boolean isPointVisible(ZonePoint point, PlayerView view) {
     if (!hasFog() || view.isGMView()) {
       return true;
     }
+    if (exposedAreaTiles != null) {
+      if (exposedAreaTiles.contains(point.x, point.y)) {
+        return true;
+      }
+      if (MapTool.getServerPolicy().isUseIndividualFOW()
+          && getVisionType() != VisionType.OFF
+          && view.isUsingTokenView()) {
+        for (Token tok : view.getTokens()) { // only owned and HasSight tokens are returned
+          ExposedAreaMetaData meta = exposedAreaMeta.get(tok.getExposedAreaGUID());
+          if (meta != null
+              && meta.getExposedAreaTiles() != null
+              && meta.getExposedAreaTiles().contains(point.x, point.y)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
     if (MapTool.getServerPolicy().isUseIndividualFOW() && getVisionType() != VisionType.OFF) {
       Area combined = new Area(exposedArea);
       if (view.isUsingTokenView()) {
@@ -950,7 +993,7 @@ public boolean isTokenVisible(Token token) {
 
     // Token is visible, and there is fog
     Rectangle tokenSize = token.getBounds(this);
-    Area combined = new Area(exposedArea);
+    Area combined = new Area(getExposedArea());
     PlayerView view = MapTool.getFrame().getZoneRenderer(this).getPlayerView();
     if (MapTool.getServerPolicy().isUseIndividualFOW() && getVisionType() != VisionType.OFF) {
       // Jamz: Lets change the logic a bit looking for ownerships
@@ -986,7 +1029,7 @@ public boolean isTokenFootprintVisible(Token token) {
     // Token is visible, and there is fog
     Rectangle tokenSize = token.getBounds(this);
     Area tokenFootprint = getGrid().getTokenCellArea(tokenSize);
-    Area combined = new Area(exposedArea);
+    Area combined = new Area(getExposedArea());
     PlayerView view = MapTool.getFrame().getZoneRenderer(this).getPlayerView();
     if (MapTool.getServerPolicy().isUseIndividualFOW() && getVisionType() != VisionType.OFF) {
       if (view.isUsingTokenView()) {
@@ -1033,7 +1076,9 @@ public void addTopology(Area area, TopologyType topologyType) {
         };
     topology.add(area);
 
-    new MapToolEventBus().getMainEventBus().post(new TopologyChanged(this));
+    new MapToolEventBus()
+        .getMainEventBus()
+        .post(new TopologyChanged(this, topologyType, area, false));
   }
 
   public void addTopology(Area area) {
@@ -1059,7 +1104,9 @@ public void removeTopology(Area area, TopologyType topologyType) {
         };
     topology.subtract(area);
 
-    new MapToolEventBus().getMainEventBus().post(new TopologyChanged(this));
+    new MapToolEventBus()
+        .getMainEventBus()
+        .post(new TopologyChanged(this, topologyType, area, true));
   }
 
   public void removeTopology(Area area) {
@@ -1080,6 +1127,9 @@ public void tokenTopologyChanged() {
    * @param token the token that changed
    */
   public void tokenChanged(Token token) {
+    if (tokenMap.get(token.getId()) == token) {
+      updateTokenIndexes(token);
+    }
     new MapToolEventBus()
         .getMainEventBus()
         .post(new TokensChanged(this, Collections.singletonList(token)));
@@ -1091,7 +1141,7 @@ public void tokenChanged(Token token) {
    * @param token the token that had its macro changed
    */
   public void tokenMacroChanged(Token token) {
-    new MapToolEventBus().getMainEventBus().post(new TokenMacroChanged(token));
+    new MapToolEventBus().getMainEventBus().post(new TokenMacroChanged(this, token));
   }
 
   /**
@@ -1100,7 +1150,7 @@ public void tokenMacroChanged(Token token) {
    * @param token the token that had its panel appearance changed
    */
   public void tokenPanelChanged(Token token) {
-    new MapToolEventBus().getMainEventBus().post(new TokenPanelChanged(token));
+    new MapToolEventBus().getMainEventBus().post(new TokenPanelChanged(this, token));
   }
 
   /**
@@ -1110,6 +1160,9 @@ public void tokenPanelChanged(Token token) {
    */
   public void clearExposedArea(boolean globalOnly) {
     exposedArea = new Area();
+    if (exposedAreaTiles != null) {
+      exposedAreaTiles.clear();
+    }
     if (!globalOnly) {
       exposedAreaMeta.clear();
     }
@@ -1157,7 +1210,7 @@ public void exposeArea(Area area, Token tok) {
         GUID tea = tok.getExposedAreaGUID();
         ExposedAreaMetaData meta = exposedAreaMeta.get(tea);
         if (meta == null) {
-          meta = new ExposedAreaMetaData();
+          meta = createExposedAreaMetaData();
           exposedAreaMeta.put(tea, meta);
         }
         meta.addToExposedAreaHistory(area);
@@ -1173,7 +1226,7 @@ public void exposeArea(Area area, Token tok) {
         return; // FJE Added so that TEA isn't added to the GEA, below.
       }
     }
-    exposedArea.add(area);
+    addToGlobalExposedArea(area);
     new MapToolEventBus().getMainEventBus().post(new FogChanged(this));
   }
 
@@ -1192,7 +1245,7 @@ public void exposeArea(Area area, Set<GUID> selectedToks) {
       // Why is this done here and then again below???
       // And just because Vision==Off doesn't mean we aren't doing IF...
       // Jamz: if this exposedArea isn't done then it breaks getExposedTokens when vision is off...
-      exposedArea.add(area);
+      addToGlobalExposedArea(area);
     }
     if (selectedToks != null
         && !selectedToks.isEmpty()
@@ -1215,7 +1268,7 @@ public void exposeArea(Area area, Set<GUID> selectedToks) {
           GUID tea = tok.getExposedAreaGUID();
           meta = exposedAreaMeta.get(tea);
           if (meta == null) {
-            meta = new ExposedAreaMetaData();
+            meta = createExposedAreaMetaData();
             exposedAreaMeta.put(tea, meta);
           }
           meta.addToExposedAreaHistory(area);
@@ -1223,7 +1276,7 @@ public void exposeArea(Area area, Set<GUID> selectedToks) {
       }
     } else {
       // Not using IF so add the EA to the GEA instead of a TEA.
-      exposedArea.add(area);
+      addToGlobalExposedArea(area);
     }
     new MapToolEventBus().getMainEventBus().post(new FogChanged(this));
   }
@@ -1251,7 +1304,7 @@ public void setFogArea(Area area, Set<GUID> selectedToks) {
         }
         ExposedAreaMetaData meta = exposedAreaMeta.get(tok.getExposedAreaGUID());
         if (meta == null) {
-          meta = new ExposedAreaMetaData();
+          meta = createExposedAreaMetaData();
         }
         meta.clearExposedAreaHistory();
         meta.addToExposedAreaHistory(area);
@@ -1261,7 +1314,10 @@ public void setFogArea(Area area, Set<GUID> selectedToks) {
       }
     } else {
       exposedArea.reset();
-      exposedArea.add(area);
+      if (exposedAreaTiles != null) {
+        exposedAreaTiles.clear();
+      }
+      addToGlobalExposedArea(area);
     }
     new MapToolEventBus().getMainEventBus().post(new FogChanged(this));
   }
@@ -1271,7 +1327,7 @@ public void hideArea(Area area, Set<GUID> selectedToks) {
       return;
     }
     if (getVisionType() == VisionType.OFF) {
-      exposedArea.subtract(area);
+      removeFromGlobalExposedArea(area);
     }
     if (selectedToks != null
         && !selectedToks.isEmpty()
@@ -1290,7 +1346,7 @@ public void hideArea(Area area, Set<GUID> selectedToks) {
         }
         ExposedAreaMetaData meta = exposedAreaMeta.get(tok.getExposedAreaGUID());
         if (meta == null) {
-          meta = new ExposedAreaMetaData();
+          meta = createExposedAreaMetaData();
         }
         meta.removeExposedAreaHistory(area);
         exposedAreaMeta.put(tok.getExposedAreaGUID(), meta);
@@ -1298,7 +1354,7 @@ public void hideArea(Area area, Set<GUID> selectedToks) {
         putToken(tok);
       }
     } else {
-      exposedArea.subtract(area);
+      removeFromGlobalExposedArea(area);
     }
     new MapToolEventBus().getMainEventBus().post(new FogChanged(this));
   }
@@ -1321,6 +1377,9 @@ public ZonePoint getNearestVertex(ZonePoint point) {
    * @return the exposed area
    */
   public Area getExposedArea(PlayerView view) {
+    if (exposedAreaTiles != null) {
+      return getExposedAreaTiles(view).toArea();
+    }
     Area combined = new Area(exposedArea);
 
     // Don't need to worry about StrictTokenOwnership since the PlayerView only contains tokens we
@@ -1349,9 +1408,109 @@ public Area getExposedArea(PlayerView view) {
    * @return Area object representing exposed fog area visible to all tokens
    */
   public Area getExposedArea() {
+    if (exposedAreaTiles != null) {
+      return exposedAreaTiles.toArea();
+    }
     return exposedArea;
   }
 
+  /**
+   * Returns the cells of the exposed fog for the current tokens, combined the same way as {@link
+   * #getExposedArea(PlayerView)}. Only called when the zone uses tiled fog.
+   *
+   * @param view holds whether or not tokens are selected
+   * @return the exposed cells
+   */
+  private ExposedAreaTiles getExposedAreaTiles(PlayerView view) {
+    var combined = new ExposedAreaTiles(exposedAreaTiles);
+    if (!view.isUsingTokenView()) {
+      return combined;
+    }
+    for (Token tok : view.getTokens()) {
+      ExposedAreaMetaData meta = exposedAreaMeta.get(tok.getExposedAreaGUID());
+      if (meta != null) {
+        combined.add(meta.getExposedAreaTiles());
+      }
+    }
+    return combined;
+  }
+
+  /**
+   * @return the global exposed area as tiled cells, or {@code null} if the zone does not use tiled
+   *     fog.
+   */
+  public @Nullable ExposedAreaTiles getExposedAreaTiles() {
+    return exposedAreaTiles;
+  }
+
+  /**
+   * @return the number of fog cells per grid cell side, or {@code 0} if exposed areas are stored
+   *     exactly.
+   */
+  public int getFogResolution() {
+    return fogResolution;
+  }
+
+  /**
+   * Sets the resolution used to store exposed areas, converting the global and token exposed areas
+   * that have been exposed so far. Converting to tiles rounds the exposed areas to whole cells.
+   *
+   * @param fogResolution the number of fog cells per grid cell side, or {@code 0} to store exposed
+   *     areas exactly.
+   */
+  public void setFogResolution(int fogResolution) {
+    this.fogResolution = Math.max(0, fogResolution);
+    int cellSize = getFogCellSize();
+    int currentCellSize = exposedAreaTiles == null ? 0 : exposedAreaTiles.getCellSize();
+    if (cellSize != currentCellSize) {
+      Area exposed = getExposedArea();
+      if (cellSize > 0) {
+        exposedAreaTiles = new ExposedAreaTiles(cellSize);
+        exposedAreaTiles.add(exposed);
+        exposedArea = new Area();
+      } else {
+        exposedArea = new Area(exposed);
+        exposedAreaTiles = null;
+      }
+    }
+    for (ExposedAreaMetaData meta : getExposedAreaMetaData().values()) {
+      meta.setTileCellSize(cellSize);
+    }
+    new MapToolEventBus().getMainEventBus().post(new FogChanged(this));
+  }
+
+  /**
+   * @return the size in map pixels of a fog cell, or {@code 0} if exposed areas are stored exactly.
+   */
+  private int getFogCellSize() {
+    if (fogResolution <= 0) {
+      return 0;
+    }
+    return Math.max(1, grid.getSize() / fogResolution);
+  }
+
+  private ExposedAreaMetaData createExposedAreaMetaData() {
+    var meta = new ExposedAreaMetaData();
+    meta.setTileCellSize(getFogCellSize());
+    return meta;
+  }
+
+  private void addToGlobalExposedArea(Area area) {
+    if (exposedAreaTiles != null) {
+      exposedAreaTiles.add(area);
+    } else {
+      exposedArea.add(area);
+    }
+  }
+
+  private void removeFromGlobalExposedArea(Area area) {
+    if (exposedAreaTiles != null) {
+      exposedAreaTiles.subtract(area);
+    } else {
+      exposedArea.subtract(area);
+    }
+  }
+
   public double getUnitsPerCell() {
     return Math.max(unitsPerCell, 0);
   }
@@ -1407,9 +1566,9 @@ public void putLabel(Label label) {
     labels.put(label.getId(), label);
 
     if (newLabel) {
-      new MapToolEventBus().getMainEventBus().post(new LabelAdded(label));
+      new MapToolEventBus().getMainEventBus().post(new LabelAdded(this, label));
     } else {
-      new MapToolEventBus().getMainEventBus().post(new LabelChanged(label));
+      new MapToolEventBus().getMainEventBus().post(new LabelChanged(this, label));
     }
   }
 
@@ -1420,7 +1579,7 @@ public List<Label> getLabels() {
   public void removeLabel(GUID labelId) {
     Label label = labels.remove(labelId);
     if (label != null) {
-      new MapToolEventBus().getMainEventBus().post(new LabelRemoved(label));
+      new MapToolEventBus().getMainEventBus().post(new LabelRemoved(this, label));
     }
   }
 
@@ -1531,6 +1690,7 @@ public void putToken(Token token) {
     tokenOrderedList.remove(token);
     tokenOrderedList.add(token);
     tokenOrderedList.sort(TOKEN_Z_ORDER_COMPARATOR);
+    updateTokenIndexes(token);
 
     if (newToken) {
       new MapToolEventBus()
@@ -1578,6 +1738,7 @@ public void putTokens(List<Token> tokens) {
 
     for (Token t : tokens) {
       tokenMap.put(t.getId(), t);
+      updateTokenIndexes(t);
     }
     tokenOrderedList.removeAll(tokens);
     tokenOrderedList.addAll(tokens);
@@ -1600,6 +1761,7 @@ public void removeToken(GUID id) {
     Token token = tokenMap.remove(id);
     if (token != null) {
       tokenOrderedList.remove(token);
+      removeFromTokenIndexes(id);
       new MapToolEventBus()
           .getMainEventBus()
           .post(new TokensRemoved(this, Collections.singletonList(token)));
@@ -1618,6 +1780,7 @@ public void removeTokens(List<GUID> ids) {
         Token token = tokenMap.remove(id);
         if (token != null) {
           tokenOrderedList.remove(token);
+          removeFromTokenIndexes(id);
           removedTokens.add(token);
         }
       }
@@ -1627,6 +1790,35 @@ public void removeTokens(List<GUID> ids) {
     }
   }
 
+  /**
+   * Updates the indexes of a token that has been added or may have changed.
+   *
+   * @param token the token to update.
+   */
+  private void updateTokenIndexes(Token token) {
+    if (tokenSpatialIndex != null) {
+      tokenSpatialIndex.put(token, token.getBounds(this));
+    }
+    if (tokenNameIndex != null) {
+      tokenNameIndex.put(token);
+    }
+    if (tokenGMNameIndex != null) {
+      tokenGMNameIndex.put(token);
+    }
+  }
+
+  private void removeFromTokenIndexes(GUID id) {
+    if (tokenSpatialIndex != null) {
+      tokenSpatialIndex.remove(id);
+    }
+    if (tokenNameIndex != null) {
+      tokenNameIndex.remove(id);
+    }
+    if (tokenGMNameIndex != null) {
+      tokenGMNameIndex.remove(id);
+    }
+  }
+
   public Token getToken(GUID id) {
     return tokenMap.get(id);
   }
@@ -1636,12 +1828,11 @@ public Token getToken(GUID id) {
    * @return the first token with a given name. The name is matched case-insensitively.
    */
   public Token getTokenByName(String name) {
-    for (Token token : getAllTokens()) {
-      if (name.equalsIgnoreCase(token.getName())) {
-        return token;
-      }
+    if (tokenNameIndex == null) {
+      tokenNameIndex = new TokenNameIndex(Token::getName);
+      tokenOrderedList.forEach(tokenNameIndex::put);
     }
-    return null;
+    return tokenNameIndex.get(name);
   }
 
   /**
@@ -1674,15 +1865,11 @@ public Token resolveToken(String identifier) {
    * @return the first token with a given GM name. The name is matched case-insensitively.
    */
   public Token getTokenByGMName(String name) {
-    for (Token token : getAllTokens()) {
-      if (StringUtil.isEmpty(token.getGMName())) {
-        continue;
-      }
-      if (token.getGMName().equalsIgnoreCase(name)) {
-        return token;
-      }
+    if (tokenGMNameIndex == null) {
+      tokenGMNameIndex = new TokenNameIndex(Token::getGMName);
+      tokenOrderedList.forEach(tokenGMNameIndex::put);
     }
-    return null;
+    return tokenGMNameIndex.get(name);
   }
 
   public List<DrawnElement> getAllDrawnElements() {
@@ -1767,6 +1954,49 @@ public List<Token> getTokensFiltered(Filter filter) {
     return Collections.unmodifiableList(copy);
   }
 
+  /**
+   * Looks up the tokens that match a filter and may intersect a region, ordered by Z.
+   *
+   * <p>Tokens are found using a spatial index, so only tokens near the region are checked. The
+   * result includes every matching token whose bounds intersect {@code bounds}, but may include
+   * rotated tokens that lie just outside of it.
+   *
+   * @param bounds The region to search, in zone coordinates.
+   * @param filter The filter to apply to tokens in the region.
+   * @return A list of the tokens found.
+   */
+  public List<Token> getTokensFiltered(Rectangle bounds, Filter filter) {
+    List<Token> tokens = getTokenSpatialIndex().query(bounds, layer -> true);
+    tokens.removeIf(t -> !filter.matchToken(t));
+    tokens.sort(TOKEN_Z_ORDER_COMPARATOR);
+    return Collections.unmodifiableList(tokens);
+  }
+
+  /**
+   * Looks up the tokens on matching layers that may intersect a region, ordered by Z.
+   *
+   * @param bounds The region to search, in zone coordinates.
+   * @param layerFilter The predicate to match desired layers.
+   * @return A list of the tokens found.
+   * @see #getTokensFiltered(Rectangle, Filter)
+   */
+  public List<Token> getTokensForLayers(Rectangle bounds, Predicate<Layer> layerFilter) {
+    List<Token> tokens = getTokenSpatialIndex().query(bounds, layerFilter);
+    tokens.sort(TOKEN_Z_ORDER_COMPARATOR);
+    return Collections.unmodifiableList(tokens);
+  }
+
+  private TokenSpatialIndex getTokenSpatialIndex() {
+    if (tokenSpatialIndex == null || tokenSpatialIndexGridSize != grid.getSize()) {
+      tokenSpatialIndex = new TokenSpatialIndex();
+      tokenSpatialIndexGridSize = grid.getSize();
+      for (Token token : tokenOrderedList) {
+        tokenSpatialIndex.put(token, token.getBounds(this));
+      }
+    }
+    return tokenSpatialIndex;
+  }
+
   public List<Token> getTokensOnLayer(Layer layer) {
     return getTokensOnLayer(layer, true);
   }
@@ -1776,6 +2006,24 @@ public List<Token> getTokensOnLayer(Layer layer, boolean getAlwaysVisible) {
         t -> t.getLayer() == layer && (getAlwaysVisible || !t.isAlwaysVisible()));
   }
 
+  /**
+   * Looks up the tokens on a layer that may intersect a region, ordered by Z.
+   *
+   * @param layer The layer to search.
+   * @param getAlwaysVisible Whether to include tokens that are always visible.
+   * @param bounds The region to search, in zone coordinates.
+   * @return A list of the tokens found.
+   * @see #getTokensFiltered(Rectangle, Filter)
+   */
+  public List<Token> getTokensOnLayer(Layer layer, boolean getAlwaysVisible, Rectangle bounds) {
+    List<Token> tokens = getTokenSpatialIndex().query(bounds, l -> l == layer);
+    if (!getAlwaysVisible) {
+      tokens.removeIf(Token::isAlwaysVisible);
+    }
+    tokens.sort(TOKEN_Z_ORDER_COMPARATOR);
+    return Collections.unmodifiableList(tokens);
+  }
+
   /**
    * Looks up tokens for all matching layers.
    *
@@ -2224,7 +2472,7 @@ public ExposedAreaMetaData getExposedAreaMetaData(GUID tokenExposedAreaGUID) {
     if (meta != null) {
       return meta;
     }
-    meta = new ExposedAreaMetaData();
+    meta = createExposedAreaMetaData();
     exposedAreaMeta.put(tokenExposedAreaGUID, meta);
     return meta;
   }
@@ -2239,6 +2487,7 @@ public void setExposedAreaMetaData(GUID tokenExposedAreaGUID, ExposedAreaMetaDat
     if (exposedAreaMeta == null) {
       exposedAreaMeta = new HashMap<GUID, ExposedAreaMetaData>();
     }
+    meta.setTileCellSize(getFogCellSize());
     exposedAreaMeta.put(tokenExposedAreaGUID, meta);
     new MapToolEventBus().getMainEventBus().post(new FogChanged(this));
   }
@@ -2304,6 +2553,19 @@ public static Zone fromDto(ZoneDto dto) {
                     GUID.valueOf(id), new ExposedAreaMetaData(Mapper.map(area))));
     zone.initiativeList = InitiativeList.fromDto(dto.getInitiative());
     zone.exposedArea = Mapper.map(dto.getExposedArea());
+    zone.fogResolution = dto.getFogResolution();
+    if (zone.fogResolution > 0) {
+      zone.exposedAreaTiles =
+          dto.getExposedAreaTiles().isEmpty()
+              ? new ExposedAreaTiles(zone.getFogCellSize())
+              : ExposedAreaTiles.fromBytes(dto.getExposedAreaTiles().toByteArray());
+      dto.getExposedAreaMetaTilesMap()
+          .forEach(
+              (id, tiles) ->
+                  zone.exposedAreaMeta.put(
+                      GUID.valueOf(id),
+                      new ExposedAreaMetaData(ExposedAreaTiles.fromBytes(tiles.toByteArray()))));
+    }
     zone.hasFog = dto.getHasFog();
     zone.fogPaint = DrawablePaint.fromDto(dto.getFogPaint());
     zone.topology = Mapper.map(dto.getTopology());
@@ -2366,10 +2628,19 @@ public ZoneDto toDto() {
           if (id == null) {
             return;
           }
-          dto.putExposedAreaMeta(id.toString(), Mapper.map(area.getExposedAreaHistory()));
+          if (area.getExposedAreaTiles() != null) {
+            dto.putExposedAreaMetaTiles(
+                id.toString(), ByteString.copyFrom(area.getExposedAreaTiles().toBytes()));
+          } else {
+            dto.putExposedAreaMeta(id.toString(), Mapper.map(area.getExposedAreaHistory()));
+          }
         });
     dto.setInitiative(initiativeList.toDto());
     dto.setExposedArea(Mapper.map(exposedArea));
+    dto.setFogResolution(fogResolution);
+    if (exposedAreaTiles != null) {
+      dto.setExposedAreaTiles(ByteString.copyFrom(exposedAreaTiles.toBytes()));
+    }
     dto.setHasFog(hasFog);
     dto.setTopology(Mapper.map(topology));
     if (fogPaint == null) { // Account for old campaigns without fog paint
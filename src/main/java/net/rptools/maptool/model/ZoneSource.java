@@ -0,0 +1,38 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads the zones of a campaign that were left in the campaign file when it was loaded. See {@link
+ * Campaign#getZone(GUID)}.
+ */
+public interface ZoneSource {
+  /**
+   * @return the file the zones are read from.
+   */
+  File getFile();
+
+  /**
+   * Reads a zone.
+   *
+   * @param id the id of the zone.
+   * @return the zone.
+   * @throws IOException if the zone cannot be read.
+   */
+  Zone readZone(GUID id) throws IOException;
+}
@@ -0,0 +1,99 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import net.rptools.lib.MD5Key;
+import net.rptools.maptool.client.MapTool;
+
+/**
+ * The details of a {@link Zone} that are needed before the zone itself has been read from the
+ * campaign file, such as for listing the maps or finding which ones hold library tokens.
+ */
+public class ZoneSummary {
+  private final GUID id;
+  private final String name;
+  private final @Nullable String playerAlias;
+  private final boolean visible;
+  private final Set<MD5Key> assetIds;
+  private final boolean libraryTokens;
+
+  /**
+   * Creates a summary of a zone as it is now.
+   *
+   * @param zone the zone to summarize.
+   */
+  public ZoneSummary(Zone zone) {
+    id = zone.getId();
+    name = zone.getName();
+    playerAlias = zone.getPlayerAlias();
+    visible = zone.isVisible();
+    assetIds = new HashSet<>(zone.getAllAssetIds());
+    libraryTokens =
+        !zone.getTokensFiltered(t -> t.getName().toLowerCase().startsWith("lib:")).isEmpty();
+  }
+
+  public GUID getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public @Nullable String getPlayerAlias() {
+    return playerAlias;
+  }
+
+  /**
+   * @return the name of the zone as seen by players.
+   */
+  public @Nonnull String getDisplayName() {
+    return playerAlias == null ? name : playerAlias;
+  }
+
+  public boolean isVisible() {
+    return visible;
+  }
+
+  /**
+   * @return the assets used by the zone and its tokens.
+   */
+  public Set<MD5Key> getAssetIds() {
+    return Collections.unmodifiableSet(assetIds);
+  }
+
+  /**
+   * @return {@code true} if the zone holds any library tokens.
+   */
+  public boolean hasLibraryTokens() {
+    return libraryTokens;
+  }
+
+  @Override
+  public String toString() {
+    if (!MapTool.getPlayer().isGM()) {
+      return getDisplayName();
+    } else if (playerAlias == null || name.equals(playerAlias)) {
+      return name;
+    } else {
+      return playerAlias + " (" + name + ")";
+    }
+  }
+}
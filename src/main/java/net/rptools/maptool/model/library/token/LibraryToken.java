@@ -390,11 +390,9 @@ public Set<MacroDetails> getSlashCommands() {
    * @return the Token for the library.
    */
   private Token findLibrary(GUID id) {
-    for (var zone : MapTool.getCampaign().getZones()) {
-      var token = zone.getToken(id);
-      if (token != null) {
-        return token;
-      }
+    var entry = LibraryTokenIndex.getInstance().find(id);
+    if (entry != null) {
+      return entry.getToken();
     }
 
     throw new LibraryNotValidException(
@@ -0,0 +1,287 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model.library.token;
+
+import com.google.common.eventbus.Subscribe;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.swing.SwingUtilities;
+import net.rptools.maptool.client.MapTool;
+import net.rptools.maptool.model.Campaign;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.ZoneSummary;
+import net.rptools.maptool.model.zones.TokenEdited;
+import net.rptools.maptool.model.zones.TokensAdded;
+import net.rptools.maptool.model.zones.TokensChanged;
+import net.rptools.maptool.model.zones.TokensRemoved;
+import net.rptools.maptool.model.zones.ZoneReadFromCampaignFile;
+import net.rptools.maptool.model.zones.ZoneRemoved;
+
+/**
+ * Finds the lib:tokens of the current campaign by name or id, without searching every map.
+ *
+ * <p>The index follows the token events of the zones in the current campaign, so tokens are found
+ * under their current name as soon as they are added, renamed or removed. Events for zones that
+ * are not part of the current campaign, such as the server's copy, are ignored. When the campaign
+ * is replaced, the index is rebuilt the next time it is used on the Swing thread.
+ */
+public final class LibraryTokenIndex {
+  private static final LibraryTokenIndex instance = new LibraryTokenIndex();
+
+  /** A lib:token and the zone it is on. */
+  public static final class Entry {
+    private final Zone zone;
+    private final Token token;
+
+    /** The lower case name the token is indexed under, which it may since have changed from. */
+    private final String key;
+
+    /** The library for the token, created on the Swing thread. */
+    private volatile @Nullable LibraryToken library;
+
+    private Entry(Zone zone, Token token) {
+      this.zone = zone;
+      this.token = token;
+      this.key = token.getName().toLowerCase();
+    }
+
+    public Zone getZone() {
+      return zone;
+    }
+
+    public Token getToken() {
+      return token;
+    }
+
+    /**
+     * @note this must be run on the Swing Thread.
+     * @return the library for the token.
+     */
+    LibraryToken getLibrary() {
+      var lib = library;
+      if (lib == null) {
+        lib = new LibraryToken(token);
+        library = lib;
+      }
+      return lib;
+    }
+
+    /**
+     * @note This method is thread safe.
+     * @return the library for the token, or {@code null} if it has not been created yet.
+     */
+    @Nullable
+    LibraryToken getCachedLibrary() {
+      return library;
+    }
+  }
+
+  /** The campaign that is indexed. */
+  private @Nullable Campaign campaign;
+
+  /** The entries under each lower case token name. */
+  private final Map<String, List<Entry>> entriesByName = new LinkedHashMap<>();
+
+  /** The entry for each token id. */
+  private final Map<GUID, Entry> entriesById = new HashMap<>();
+
+  private LibraryTokenIndex() {}
+
+  /**
+   * @return the index.
+   */
+  public static LibraryTokenIndex getInstance() {
+    return instance;
+  }
+
+  /**
+   * Checks whether a token name is that of a lib:token.
+   *
+   * @param name the name of the token.
+   * @return {@code true} if the name starts with "lib:", in any case.
+   */
+  public static boolean isLibraryName(String name) {
+    return name.length() > 4 && name.regionMatches(true, 0, "lib:", 0, 4);
+  }
+
+  /**
+   * Finds the lib:tokens with a name.
+   *
+   * @param name the name of the lib:token, including the "lib:" prefix. Case is ignored.
+   * @return the matching tokens, which there should be at most one of.
+   */
+  public synchronized List<Entry> find(String name) {
+    if (!isCurrent()) {
+      return List.of();
+    }
+    var entries = entriesByName.get(name.toLowerCase());
+    return entries == null ? List.of() : List.copyOf(entries);
+  }
+
+  /**
+   * Finds a lib:token by its id.
+   *
+   * @param id the id of the token.
+   * @return the token, or {@code null} if it is not a lib:token in the current campaign.
+   */
+  public synchronized @Nullable Entry find(GUID id) {
+    return isCurrent() ? entriesById.get(id) : null;
+  }
+
+  /**
+   * @return all the lib:tokens in the current campaign.
+   */
+  public synchronized List<Entry> getEntries() {
+    if (!isCurrent()) {
+      return List.of();
+    }
+    var entries = new ArrayList<Entry>(entriesById.size());
+    entriesByName.values().forEach(entries::addAll);
+    return entries;
+  }
+
+  /** Empties the index. It is rebuilt the next time it is used on the Swing thread. */
+  public synchronized void clear() {
+    campaign = null;
+    entriesByName.clear();
+    entriesById.clear();
+  }
+
+  /** Indexes the current campaign if it has changed. Must be run on the Swing thread. */
+  synchronized void refresh() {
+    Campaign current = MapTool.getCampaign();
+    if (current == campaign) {
+      return;
+    }
+
+    entriesByName.clear();
+    entriesById.clear();
+    campaign = current;
+    if (current != null) {
+      for (Zone zone : current.getZones(ZoneSummary::hasLibraryTokens)) {
+        for (Token token : zone.getTokensFiltered(t -> isLibraryName(t.getName()))) {
+          put(zone, token).getLibrary();
+        }
+      }
+    }
+  }
+
+  private boolean isCurrent() {
+    if (SwingUtilities.isEventDispatchThread()) {
+      refresh();
+    }
+    return campaign != null && campaign == MapTool.getCampaign();
+  }
+
+  /** Indexes a token under its current name, replacing any entry it already has. */
+  private Entry put(Zone zone, Token token) {
+    remove(token.getId());
+    var entry = new Entry(zone, token);
+    if (isLibraryName(token.getName())) {
+      entriesById.put(token.getId(), entry);
+      entriesByName.computeIfAbsent(entry.key, k -> new ArrayList<>(1)).add(entry);
+    }
+    return entry;
+  }
+
+  private void remove(GUID id) {
+    var entry = entriesById.remove(id);
+    if (entry == null) {
+      return;
+    }
+    var entries = entriesByName.get(entry.key);
+    entries.remove(entry);
+    if (entries.isEmpty()) {
+      entriesByName.remove(entry.key);
+    }
+  }
+
+  private synchronized void tokensUpdated(Zone zone, List<Token> tokens) {
+    if (!MapTool.isCampaignZone(zone)) {
+      return;
+    }
+    if (campaign != MapTool.getCampaign()) {
+      // A new campaign is being installed, so there is no point updating the old one's index.
+      if (SwingUtilities.isEventDispatchThread()) {
+        refresh();
+      }
+      return;
+    }
+
+    var onSwingThread = SwingUtilities.isEventDispatchThread();
+    for (Token token : tokens) {
+      var entry = put(zone, token);
+      if (!isLibraryName(token.getName())) {
+        continue;
+      }
+      // Work out what the library offers now, while the token is in the state it was changed to.
+      if (onSwingThread) {
+        entry.getLibrary();
+      } else {
+        SwingUtilities.invokeLater(entry::getLibrary);
+      }
+    }
+  }
+
+  @Subscribe
+  void tokensAdded(TokensAdded event) {
+    tokensUpdated(event.zone(), event.tokens());
+  }
+
+  @Subscribe
+  void zoneReadFromCampaignFile(ZoneReadFromCampaignFile event) {
+    var zone = event.zone();
+    tokensUpdated(zone, zone.getTokensFiltered(t -> isLibraryName(t.getName())));
+  }
+
+  @Subscribe
+  void tokensChanged(TokensChanged event) {
+    tokensUpdated(event.zone(), event.tokens());
+  }
+
+  @Subscribe
+  void tokenEdited(TokenEdited event) {
+    tokensUpdated(event.zone(), List.of(event.token()));
+  }
+
+  @Subscribe
+  synchronized void tokensRemoved(TokensRemoved event) {
+    // The zone may already be gone from the campaign, so only remove tokens indexed on it.
+    for (Token token : event.tokens()) {
+      var entry = entriesById.get(token.getId());
+      if (entry != null && entry.zone == event.zone()) {
+        remove(token.getId());
+      }
+    }
+  }
+
+  @Subscribe
+  synchronized void zoneRemoved(ZoneRemoved event) {
+    var ids = new ArrayList<GUID>();
+    entriesById.forEach(
+        (id, entry) -> {
+          if (entry.zone == event.zone()) {
+            ids.add(id);
+          }
+        });
+    ids.forEach(this::remove);
+  }
+}
@@ -14,18 +14,12 @@
  */
 package net.rptools.maptool.model.library.token;
 
-import com.google.common.eventbus.Subscribe;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.SwingUtilities;
-import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.events.MapToolEventBus;
 import net.rptools.maptool.language.I18N;
 import net.rptools.maptool.model.GUID;
@@ -34,10 +28,6 @@
 import net.rptools.maptool.model.library.LibraryManager;
 import net.rptools.maptool.model.library.LibraryNotValidException;
 import net.rptools.maptool.model.library.LibraryNotValidException.Reason;
-import net.rptools.maptool.model.zones.TokenEdited;
-import net.rptools.maptool.model.zones.TokensAdded;
-import net.rptools.maptool.model.zones.TokensChanged;
-import net.rptools.maptool.model.zones.TokensRemoved;
 import net.rptools.maptool.util.threads.ThreadExecutionHelper;
 
 /** Class that represents Lib:Token libraries. */
@@ -73,97 +63,19 @@ public class LibraryTokenManager {
   /** The version number to return if the lin:token version is unknown. */
   private static final String LIB_VERSION_UNKNOWN = "unknown";
 
-  /** Map of library token names to library tokens. */
-  private final Map<String, LibraryToken> libraryTokens = new ConcurrentHashMap<>();
-
-  /** Class to listen to token changes. */
-  private TokenEventListener tokenEventListener = new TokenEventListener();
+  /** The lib:tokens in the current campaign. */
+  private final LibraryTokenIndex index = LibraryTokenIndex.getInstance();
 
   /** Removes all of the library tokens from the manager. */
   public void clearLibraries() {
-    libraryTokens.clear();
-  }
-
-  private class TokenEventListener {
-    @Subscribe
-    public void tokensAdded(TokensAdded event) {
-      SwingUtilities.invokeLater(
-          () -> {
-            addTokens(
-                event.tokens().stream()
-                    .filter(t -> t.getName().toLowerCase().startsWith("lib:"))
-                    .map(LibraryToken::new)
-                    .toList());
-          });
-    }
-
-    @Subscribe
-    public void tokensRemoved(TokensRemoved event) {
-      SwingUtilities.invokeLater(
-          () -> {
-            removeTokens(
-                event.tokens().stream()
-                    .filter(t -> t.getName().toLowerCase().startsWith("lib:"))
-                    .map(t -> LibraryToken.namespaceForName(t.getName()))
-                    .toList());
-          });
-    }
-
-    @Subscribe
-    public void tokensChanged(TokensChanged event) {
-      SwingUtilities.invokeLater(
-          () -> {
-            changeTokens(
-                event.tokens().stream()
-                    .filter(t -> t.getName().toLowerCase().startsWith("lib:"))
-                    .map(LibraryToken::new)
-                    .toList());
-          });
-    }
-
-    @Subscribe
-    public void tokenEdited(TokenEdited event) {
-      // Treat the same as a change.
-      tokensChanged(new TokensChanged(event.zone(), Collections.singletonList(event.token())));
-    }
-  }
-
-  private void addTokens(Collection<LibraryToken> libs) {
-    libs.forEach(
-        l -> {
-          String name = l.getName().join();
-          if (name.length() > 4 && name.toLowerCase().startsWith("lib:")) {
-            String namespace = l.getNamespace().join();
-            libraryTokens.put(namespace, l);
-          }
-        });
-  }
-
-  private void removeTokens(Collection<String> namespaces) {
-    namespaces.forEach(libraryTokens::remove);
-  }
-
-  private void changeTokens(Collection<LibraryToken> libs) {
-    libs.forEach(
-        l -> {
-          // name may have changed so we need to search by id
-          GUID id = l.getId();
-          var old = libraryTokens.values().stream().filter(l2 -> id.equals(l2.getId())).findFirst();
-          old.ifPresent(libraryToken -> removeTokens(List.of(libraryToken.getNamespace().join())));
-          addTokens(List.of(l));
-        });
+    index.clear();
   }
 
   public void init() {
     SwingUtilities.invokeLater(
         () -> {
-          var tokens = new ArrayList<Token>();
-          for (var zone : MapTool.getCampaign().getZones()) {
-            tokens.addAll(
-                zone.getTokensFiltered(f -> f.getName().toLowerCase().startsWith("lib:")));
-          }
-          addTokens(tokens.stream().map(LibraryToken::new).toList());
-          new MapToolEventBus().getMainEventBus().register(tokenEventListener);
+          index.refresh();
+          new MapToolEventBus().getMainEventBus().register(index);
         });
   }
 
@@ -205,15 +117,12 @@ private CompletableFuture<List<Library>> getMatchingLibraryList(String property,
         .runOnSwingThread(
             () -> {
               List<Library> tokenList = new ArrayList<>();
-              for (var zone : MapTool.getCampaign().getZones()) {
-                tokenList.addAll(
-                    zone
-                        .getTokensFiltered(t -> t.getName().toLowerCase().startsWith("lib:"))
-                        .stream()
-                        .filter(t -> property == null || t.getProperty(property) != null)
-                        .filter(t -> macro == null || t.getMacro(macro, false) != null)
-                        .map(LibraryToken::new)
-                        .toList());
+              for (var entry : index.getEntries()) {
+                Token t = entry.getToken();
+                if ((property == null || t.getProperty(property) != null)
+                    && (macro == null || t.getMacro(macro, false) != null)) {
+                  tokenList.add(entry.getLibrary());
+                }
               }
               return tokenList;
             });
@@ -229,11 +138,11 @@ public CompletableFuture<Library> getLibrary(String namespace) {
     return new ThreadExecutionHelper<Library>()
         .runOnSwingThread(
             () -> {
-              var tokenList = getTokensWithName("lib:" + namespace);
-              if (tokenList.isEmpty()) {
+              var entries = index.find("lib:" + namespace);
+              if (entries.isEmpty()) {
                 return null;
               } else {
-                return new LibraryToken(tokenList.get(0));
+                return entries.get(0).getLibrary();
               }
             });
   }
@@ -259,13 +168,13 @@ public CompletableFuture<Optional<Library>> getLibrary(URL path) {
    * @param path the path of the token to find.
    * @return the library token or {@code null} if it can not be found.
    */
-  private static Library findLibrary(URL path) {
+  private Library findLibrary(URL path) {
     String name = "lib:" + path.getHost();
-    List<Token> tokenList = getTokensWithName(name);
-    if (tokenList.size() > 0) {
-      Optional<Token> token = tokenList.stream().filter(Token::getAllowURIAccess).findFirst();
-      if (token.isPresent()) {
-        return new LibraryToken(token.get());
+    var entries = index.find(name);
+    if (entries.size() > 0) {
+      var entry = entries.stream().filter(e -> e.getToken().getAllowURIAccess()).findFirst();
+      if (entry.isPresent()) {
+        return entry.get().getLibrary();
       } else { // There are some tokens but none with "Allow URI Access"
         throw new LibraryNotValidException(
             Reason.MISSING_PERMISSIONS, I18N.getText("library.error.libtoken.no.access", name));
@@ -274,21 +183,6 @@ private static Library findLibrary(URL path) {
     return null;
   }
 
-  /**
-   * Returns a list of all tokens that match the specified name (case-insensitive)
-   *
-   * @param name the name to match.
-   * @return list of tokens.
-   */
-  private static List<Token> getTokensWithName(String name) {
-    List<Token> tokenList = new ArrayList<Token>();
-    for (var zone : MapTool.getCampaign().getZones()) {
-      tokenList.addAll(zone.getTokensFiltered(t -> name.equalsIgnoreCase(t.getName())));
-    }
-
-    return tokenList;
-  }
-
   /**
    * Returns the {@link Token} for the library.
    *
@@ -296,11 +190,9 @@ private static List<Token> getTokensWithName(String name) {
    * @return the Token for the library.
    */
   private Token findLibrary(GUID id) {
-    for (var zone : MapTool.getCampaign().getZones()) {
-      var token = zone.getToken(id);
-      if (token != null) {
-        return token;
-      }
+    var entry = index.find(id);
+    if (entry != null) {
+      return entry.getToken();
     }
 
     throw new LibraryNotValidException(
@@ -314,9 +206,14 @@ private Token findLibrary(GUID id) {
    * @return the list of tokens that have handlers for the specified legacy token events.
    */
   public CompletableFuture<List<Library>> getLegacyEventTargets(String eventName) {
-    var libs =
-        new ArrayList<Library>(
-            libraryTokens.values().stream().filter(l -> l.hasMacro(eventName)).toList());
+    var libs = new ArrayList<Library>();
+    for (var entry : index.getEntries()) {
+      // Only the libraries that are ready, as this can be called from any thread.
+      var library = entry.getCachedLibrary();
+      if (library != null && library.hasMacro(eventName)) {
+        libs.add(library);
+      }
+    }
     return CompletableFuture.completedFuture(libs);
   }
 }
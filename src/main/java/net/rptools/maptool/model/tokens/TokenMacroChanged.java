@@ -15,5 +15,6 @@
 package net.rptools.maptool.model.tokens;
 
 import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
 
-public record TokenMacroChanged(Token token) {}
+public record TokenMacroChanged(Zone zone, Token token) {}
@@ -15,7 +15,8 @@
 package net.rptools.maptool.model.tokens;
 
 import net.rptools.maptool.model.Token;
+import net.rptools.maptool.model.Zone;
 
 // TODO Get rid of this event. Panels can just listen for token changes rather than having callers
 //  guess whether an update is needed.
-public record TokenPanelChanged(Token token) {}
+public record TokenPanelChanged(Zone zone, Token token) {}
@@ -14,6 +14,29 @@
  */
 package net.rptools.maptool.model.zones;
 
+import java.awt.geom.Area;
+import javax.annotation.Nullable;
 import net.rptools.maptool.model.Zone;
 
-public record TopologyChanged(Zone zone) {}
+/**
+ * Posted when the topology of a zone changes.
+ *
+ * @param zone The zone whose topology changed.
+ * @param topologyType The type of topology that changed, or {@code null} if the extent of the
+ *     change is not known.
+ * @param area The area that was added to or removed from the topology, or {@code null} if the
+ *     extent of the change is not known.
+ * @param removed {@code true} if {@code area} was removed from the topology, {@code false} if it
+ *     was added.
+ */
+public record TopologyChanged(
+    Zone zone, @Nullable Zone.TopologyType topologyType, @Nullable Area area, boolean removed) {
+  /**
+   * Creates an event for a change of unknown extent.
+   *
+   * @param zone The zone whose topology changed.
+   */
+  public TopologyChanged(Zone zone) {
+    this(zone, null, null, false);
+  }
+}
@@ -0,0 +1,25 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model.zones;
+
+import net.rptools.maptool.model.Campaign;
+import net.rptools.maptool.model.Zone;
+
+/**
+ * Posted when a zone that was left in the campaign file is read into the campaign. The zone is not
+ * new to the campaign, so this is not a {@link ZoneAdded}. Nor is it {@link
+ * net.rptools.maptool.client.events.ZoneLoaded}, which is posted once a renderer has loaded a zone.
+ */
+public record ZoneReadFromCampaignFile(Campaign campaign, Zone zone) {}
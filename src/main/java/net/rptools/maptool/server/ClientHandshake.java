@@ -35,6 +35,7 @@
 import javax.swing.*;
 import net.rptools.clientserver.simple.MessageHandler;
 import net.rptools.clientserver.simple.connection.Connection;
+import net.rptools.clientserver.simple.connection.MessageCompressor;
 import net.rptools.lib.MD5Key;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.client.MapToolClient;
@@ -146,7 +147,9 @@ private void startHandshakeInternal() {
         ClientInitMsg.newBuilder()
             .setPlayerName(client.getPlayer().getName())
             .setVersion(MapTool.getVersion())
-            .setPublicKeyMd5(md5key.toString());
+            .setPublicKeyMd5(md5key.toString())
+            .setCompressionDictionaryId(MessageCompressor.getDictionaryId())
+            .setMessageEncoding(true);
     var handshakeMsg = HandshakeMsg.newBuilder().setClientInitMsg(clientInitMsg).build();
     sendMessage(State.AwaitingUseAuthType, handshakeMsg);
   }
@@ -332,6 +335,10 @@ private void handle(UseAuthTypeMsg useAuthTypeMsg)
   }
 
   private void handle(ConnectionSuccessfulMsg connectionSuccessfulMsg) throws IOException {
+    int dictionaryId = connectionSuccessfulMsg.getCompressionDictionaryId();
+    connection.setUseCompressionDictionary(
+        dictionaryId != 0 && dictionaryId == MessageCompressor.getDictionaryId());
+    connection.setUseMessageEncoding(connectionSuccessfulMsg.getMessageEncoding());
     var policy = ServerPolicy.fromDto(connectionSuccessfulMsg.getServerPolicyDto());
     client.setServerPolicy(policy);
     client
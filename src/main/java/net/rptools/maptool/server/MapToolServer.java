@@ -15,8 +15,11 @@
 package net.rptools.maptool.server;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
@@ -41,6 +44,7 @@
 import net.rptools.maptool.model.TextMessage;
 import net.rptools.maptool.model.player.Player;
 import net.rptools.maptool.model.player.ServerSidePlayerDatabase;
+import net.rptools.maptool.server.proto.CampaignDto;
 import net.rptools.maptool.server.proto.Message;
 import net.rptools.maptool.server.proto.PlayerConnectedMsg;
 import net.rptools.maptool.server.proto.PlayerDisconnectedMsg;
@@ -79,6 +83,9 @@ public enum State {
       Collections.synchronizedMap(new HashMap<String, AssetTransferManager>());
   private final AssetProducerThread assetProducerThread;
 
+  /** Applies changes to {@link #campaign}, which must not be changed from any other thread. */
+  private final ServerModelExecutor modelExecutor = new ServerModelExecutor();
+
   private final boolean useUPnP;
   private final ServiceAnnouncer announcer;
   private Campaign campaign;
@@ -112,6 +119,7 @@ public MapToolServer(
 
     // Make sure the server has a different copy than the client.
     this.campaign = new Campaign(campaign);
+    modelExecutor.start();
 
     assetProducerThread = new AssetProducerThread();
 
@@ -257,8 +265,21 @@ public void addLocalConnection(Connection conn, Player localPlayer) {
   private void addRemoteConnection(Connection conn, Player connPlayer) {
     installConnection(conn, connPlayer);
 
-    var msg2 = SetCampaignMsg.newBuilder().setCampaign(campaign.toDto());
-    sendMessage(conn.getId(), Message.newBuilder().setSetCampaignMsg(msg2).build());
+    // Serialize the campaign between changes rather than while one is being applied.
+    modelExecutor.execute(
+        () -> {
+          CampaignDto dto;
+          try {
+            dto = campaign.toDto();
+          } catch (UncheckedIOException e) {
+            // Rather than giving the player a campaign with maps missing.
+            log.error("Unable to send the campaign to {}", conn.getId(), e);
+            releaseClientConnection(conn);
+            return;
+          }
+          var msg2 = SetCampaignMsg.newBuilder().setCampaign(dto);
+          sendMessage(conn.getId(), Message.newBuilder().setSetCampaignMsg(msg2).build());
+        });
   }
 
   public void bootPlayer(String playerId) {
@@ -295,14 +316,49 @@ private void releaseClientConnection(Connection connection) {
   }
 
   public void addAssetProducer(String connectionId, AssetProducer producer) {
+    addAssetProducer(connectionId, producer, false);
+  }
+
+  /**
+   * Queue an asset to be sent to a client.
+   *
+   * @param connectionId the client's connection
+   * @param producer the asset to send, whose header has already been sent
+   * @param background whether the asset can wait until the client's other assets have been sent
+   */
+  public void addAssetProducer(String connectionId, AssetProducer producer, boolean background) {
+    AssetTransferManager manager = assetManagerMap.get(connectionId);
+    if (manager == null) {
+      // The client has disconnected.
+      return;
+    }
+    manager.addProducer(producer, background);
+    assetProducerThread.wake();
+  }
+
+  /**
+   * @param connectionId the client's connection
+   * @return the rate at which assets have been sent to the client in bytes per second, not counting
+   *     time when there was nothing to send.
+   */
+  public double getAssetThroughput(String connectionId) {
     AssetTransferManager manager = assetManagerMap.get(connectionId);
-    manager.addProducer(producer);
+    return manager == null ? 0 : manager.getThroughput();
   }
 
   public boolean isPlayerConnected(String playerId) {
     return getPlayer(playerId) != null;
   }
 
+  /**
+   * @param connectionId the client's connection
+   * @return the zone the client's player is on, or {@code null} if not known.
+   */
+  public @Nullable GUID getPlayerZoneId(String connectionId) {
+    var player = playerMap.get(connectionId.toUpperCase());
+    return player == null ? null : player.getZoneId();
+  }
+
   public void updatePlayerStatus(String playerName, GUID zoneId, boolean loaded) {
     var player = getPlayer(playerName);
     if (player != null) {
@@ -323,6 +379,13 @@ public Campaign getCampaign() {
     return campaign;
   }
 
+  /**
+   * @return the executor that applies changes to the server's campaign.
+   */
+  public ServerModelExecutor getModelExecutor() {
+    return modelExecutor;
+  }
+
   public ServerPolicy getPolicy() {
     return new ServerPolicy(policy);
   }
@@ -350,6 +413,7 @@ public void stop() {
     if (assetProducerThread != null) {
       assetProducerThread.shutdown();
     }
+    modelExecutor.shutdown();
 
     if (announcer != null) {
       announcer.stop();
@@ -437,7 +501,8 @@ public void sendMessage(String id, Object channel, Message message) {
 
   public void broadcastMessage(Message message) {
     log.debug("{} broadcast: {}", getName(), message.getMessageTypeCase());
-    router.broadcastMessage(message.toByteArray());
+    router.broadcastMessage(
+        new String[0], MessageCoalescing.keyFor(message), message.toByteArray());
   }
 
   public void broadcastMessage(String[] exclude, Message message) {
@@ -446,7 +511,7 @@ public void broadcastMessage(String[] exclude, Message message) {
         getName(),
         message.getMessageTypeCase(),
         String.join(",", exclude));
-    router.broadcastMessage(exclude, message.toByteArray());
+    router.broadcastMessage(exclude, MessageCoalescing.keyFor(message), message.toByteArray());
   }
 
   private class HeartbeatThread extends Thread {
@@ -535,8 +600,23 @@ public void shutdown() {
 
   ////
   // CLASSES
+  /**
+   * Sends asset chunks to the clients. Clients take turns, one chunk at a time, and the thread
+   * sleeps whenever there is nothing to send until a new asset is queued. A client that still has
+   * several chunks waiting to go out is skipped until it catches up, so a slow client neither
+   * holds up the others nor builds up a backlog of chunks in memory.
+   */
   private class AssetProducerThread extends Thread {
-    private boolean stop = false;
+    /** Clients with more image chunks than this waiting to be sent are skipped. */
+    private static final int MAX_PENDING_MESSAGES = 4;
+
+    /** How long to wait before checking again on clients that are catching up. */
+    private static final long CATCH_UP_DELAY_MILLIS = 20;
+
+    private volatile boolean stop = false;
+
+    /** Whether an asset was queued since the thread last looked for work. */
+    private boolean wakeRequested = false;
 
     public AssetProducerThread() {
       setName("AssetProducerThread");
@@ -545,37 +625,75 @@ public AssetProducerThread() {
     @Override
     public void run() {
       while (!stop) {
-        Entry<String, AssetTransferManager> entryForException = null;
-        try {
-          boolean lookForMore = false;
-          for (Entry<String, AssetTransferManager> entry : assetManagerMap.entrySet()) {
-            entryForException = entry;
-            var chunk = entry.getValue().nextChunk(ASSET_CHUNK_SIZE);
+        boolean sent = false;
+        boolean throttled = false;
+        List<Entry<String, AssetTransferManager>> entries;
+        synchronized (assetManagerMap) {
+          entries = new ArrayList<>(assetManagerMap.entrySet());
+        }
+
+        for (Entry<String, AssetTransferManager> entry : entries) {
+          var manager = entry.getValue();
+          if (!manager.hasProducers()) {
+            continue;
+          }
+          var connection = router.getConnection(entry.getKey());
+          if (connection != null
+              && connection.getPendingMessageCount(MapToolConstants.Channel.IMAGE)
+                  > MAX_PENDING_MESSAGES) {
+            throttled = true;
+            continue;
+          }
+
+          try {
+            var chunk = manager.nextChunk(ASSET_CHUNK_SIZE);
             if (chunk != null) {
-              lookForMore = true;
+              sent = true;
               var msg = UpdateAssetTransferMsg.newBuilder().setChunk(chunk);
               sendMessage(
                   entry.getKey(),
                   MapToolConstants.Channel.IMAGE,
                   Message.newBuilder().setUpdateAssetTransferMsg(msg).build());
+              if (!manager.hasProducers()) {
+                log.debug(
+                    "Sent all queued assets to {}: {} bytes so far at {} KB/s",
+                    entry.getKey(),
+                    manager.getBytesProduced(),
+                    Math.round(manager.getThroughput() / 1024));
+              }
             }
+          } catch (Exception e) {
+            log.warn("Couldn't retrieve AssetChunk for " + entry.getKey(), e);
+            // keep on going
           }
-          if (lookForMore) {
-            continue;
-          }
-          // Sleep for a bit
-          synchronized (this) {
-            Thread.sleep(500);
+        }
+        if (sent) {
+          continue;
+        }
+
+        synchronized (this) {
+          try {
+            if (!wakeRequested && !stop) {
+              // Nothing to do until an asset is queued, or a slow client catches up.
+              wait(throttled ? CATCH_UP_DELAY_MILLIS : 0);
+            }
+          } catch (InterruptedException e) {
+            // Check whether we have been stopped.
           }
-        } catch (Exception e) {
-          log.warn("Couldn't retrieve AssetChunk for " + entryForException.getKey(), e);
-          // keep on going
+          wakeRequested = false;
         }
       }
     }
 
+    /** Look for chunks to send, e.g. because a new asset has been queued. */
+    public synchronized void wake() {
+      wakeRequested = true;
+      notifyAll();
+    }
+
     public void shutdown() {
       stop = true;
+      wake();
     }
   }
 }
@@ -0,0 +1,54 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import javax.annotation.Nullable;
+import net.rptools.maptool.server.proto.Message;
+
+/**
+ * Decides which messages are updates that the next update for the same thing makes obsolete, such
+ * as the position of a token being dragged or of a player's pointer. Connections use the key to
+ * drop such an update if a newer one is queued before it has been sent.
+ *
+ * @see net.rptools.clientserver.simple.connection.Connection#sendMessage(Object, Object, byte[])
+ */
+public final class MessageCoalescing {
+  /**
+   * Identifies what a coalescable message updates.
+   *
+   * @param type the type of message.
+   * @param zoneId the zone the message applies to, or an empty string if none.
+   * @param targetId the token or player the message updates.
+   */
+  record Key(Message.MessageTypeCase type, String zoneId, String targetId) {}
+
+  private MessageCoalescing() {}
+
+  /**
+   * @param message the message.
+   * @return the key of the message, or {@code null} if it must always be sent.
+   */
+  public static @Nullable Object keyFor(Message message) {
+    return switch (message.getMessageTypeCase()) {
+      case UPDATE_TOKEN_MOVE_MSG -> {
+        var msg = message.getUpdateTokenMoveMsg();
+        yield new Key(message.getMessageTypeCase(), msg.getZoneGuid(), msg.getKeyTokenId());
+      }
+      case MOVE_POINTER_MSG ->
+          new Key(message.getMessageTypeCase(), "", message.getMovePointerMsg().getPlayer());
+      default -> null;
+    };
+  }
+}
@@ -32,6 +32,7 @@
 import javax.swing.SwingUtilities;
 import net.rptools.clientserver.simple.MessageHandler;
 import net.rptools.clientserver.simple.connection.Connection;
+import net.rptools.clientserver.simple.connection.MessageCompressor;
 import net.rptools.lib.MD5Key;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.language.I18N;
@@ -102,6 +103,12 @@ public class ServerHandshake implements Handshake<Player>, MessageHandler {
 
   private MD5Key playerPublicKeyMD5;
 
+  /** The compression dictionary shared with the client, or 0 if they do not share one. */
+  private int compressionDictionaryId;
+
+  /** Whether the client understands the encoding byte at the start of each message. */
+  private boolean useMessageEncoding;
+
   private final boolean useEasyConnect;
 
   /**
@@ -324,10 +331,15 @@ private void sendConnectionSuccessful() throws ExecutionException, InterruptedEx
             .setRoleDto(player.isGM() ? RoleDto.GM : RoleDto.PLAYER)
             .setServerPolicyDto(server.getPolicy().toDto())
             .setGameDataDto(new DataStoreManager().toDto().get())
-            .setAddOnLibraryListDto(new LibraryManager().addOnLibrariesToDto().get());
+            .setAddOnLibraryListDto(new LibraryManager().addOnLibrariesToDto().get())
+            .setCompressionDictionaryId(compressionDictionaryId)
+            .setMessageEncoding(true);
     var handshakeMsg =
         HandshakeMsg.newBuilder().setConnectionSuccessfulMsg(connectionSuccessfulMsg).build();
     sendMessage(State.Success, handshakeMsg);
+    // Only messages after this one may use the encoding and dictionary the client has confirmed.
+    connection.setUseCompressionDictionary(compressionDictionaryId != 0);
+    connection.setUseMessageEncoding(useMessageEncoding);
     future.complete(player);
   }
 
@@ -363,6 +375,11 @@ private void handle(ClientInitMsg clientInitMsg)
 
     playerPublicKeyMD5 = new MD5Key(clientInitMsg.getPublicKeyMd5());
 
+    int dictionaryId = MessageCompressor.getDictionaryId();
+    compressionDictionaryId =
+        clientInitMsg.getCompressionDictionaryId() == dictionaryId ? dictionaryId : 0;
+    useMessageEncoding = clientInitMsg.getMessageEncoding();
+
     try {
       setPlayer(playerDatabase.getPlayer(clientInitMsg.getPlayerName()));
     } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
@@ -19,8 +19,11 @@
 import java.awt.EventQueue;
 import java.awt.geom.Area;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import net.rptools.clientserver.simple.MessageHandler;
 import net.rptools.lib.MD5Key;
@@ -51,7 +54,9 @@
  * ServerCommandClientImpl ServerCommandClientImpl}. Once the command is received, this will update
  * the server data, before forwarding the command to the clients. Clients will then handle the
  * command through {@link ClientMessageHandler ClientMethodHandler}. Updating the server itself is
- * important as new client receive the server's campaign data when connecting.
+ * important as new client receive the server's campaign data when connecting. Changes to the server
+ * data are applied on the server's {@link ServerModelExecutor model thread}, not the Swing event
+ * queue.
  *
  * @author drice *
  */
@@ -59,6 +64,15 @@ public class ServerMessageHandler implements MessageHandler {
   private final MapToolServer server;
   private static final Logger log = LogManager.getLogger(ServerMessageHandler.class);
 
+  /** How long the assets used by a zone are cached for. */
+  private static final long ZONE_ASSETS_LIFETIME_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /** The assets used by a zone, as of {@code time}. */
+  private record ZoneAssets(Set<MD5Key> assetIds, long time) {}
+
+  /** The assets used by each zone. Only used from the model thread. */
+  private final Map<GUID, ZoneAssets> zoneAssetsCache = new HashMap<>();
+
   public ServerMessageHandler(MapToolServer server) {
     this.server = server;
   }
@@ -266,7 +280,7 @@ public void handleMessage(String id, byte[] message) {
   }
 
   private void handle(UpdateExposedAreaMetaMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           zone.setExposedAreaMetaData(
@@ -276,7 +290,7 @@ private void handle(UpdateExposedAreaMetaMsg msg) {
   }
 
   private void handle(UpdateGmMacrosMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var campaignMacros =
               msg.getMacrosList().stream()
@@ -287,7 +301,7 @@ private void handle(UpdateGmMacrosMsg msg) {
   }
 
   private void handle(UpdateCampaignMacrosMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var campaignMacros =
               msg.getMacrosList().stream()
@@ -298,7 +312,7 @@ private void handle(UpdateCampaignMacrosMsg msg) {
   }
 
   private void handle(UpdateTokenInitiativeMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           var tokenId = GUID.valueOf(msg.getTokenGuid());
@@ -318,23 +332,26 @@ private void handle(UpdateTokenInitiativeMsg msg) {
   }
 
   private void handle(UpdateInitiativeMsg msg) {
-    EventQueue.invokeLater(
-        () -> {
-          if (msg.hasList()) {
+    if (msg.hasList()) {
+      applyToCampaign(
+          () -> {
             var list = InitiativeList.fromDto(msg.getList());
             if (list.getZone() == null) return;
             Zone zone = server.getCampaign().getZone(list.getZone().getId());
             zone.setInitiativeList(list);
-          } else if (msg.hasOwnerPermission()) {
+          });
+    } else if (msg.hasOwnerPermission()) {
+      EventQueue.invokeLater(
+          () -> {
             MapTool.getFrame()
                 .getInitiativePanel()
                 .setOwnerPermissions(msg.getOwnerPermission().getValue());
-          }
-        });
+          });
+    }
   }
 
   private void handle(UpdateCampaignMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           server
               .getCampaign()
@@ -343,12 +360,12 @@ private void handle(UpdateCampaignMsg msg) {
   }
 
   private void handle(SetServerPolicyMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           server.updateServerPolicy(
               ServerPolicy.fromDto(msg.getPolicy())); // updates the server policy, fixes #1648
-          MapTool.getFrame().getToolbox().updateTools();
         });
+    EventQueue.invokeLater(() -> MapTool.getFrame().getToolbox().updateTools());
   }
 
   private void handle(UndoDrawMsg msg) {
@@ -365,7 +382,7 @@ private void handle(UndoDrawMsg msg) {
     // or flushing it entirely in the new zone. We'll save all of this for a separate patch against
     // 1.3 or
     // for 1.4.
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           zone.removeDrawable(GUID.valueOf(msg.getDrawableGuid()));
@@ -373,7 +390,7 @@ private void handle(UndoDrawMsg msg) {
   }
 
   private void handle(SetZoneVisibilityMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           server
               .getCampaign()
@@ -383,7 +400,7 @@ private void handle(SetZoneVisibilityMsg msg) {
   }
 
   private void handle(UpdateTokenPropertyMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           Token token = zone.getToken(GUID.valueOf(msg.getTokenGuid()));
@@ -395,7 +412,7 @@ private void handle(UpdateTokenPropertyMsg msg) {
   }
 
   private void handle(UpdateDrawingMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           zone.updateDrawable(DrawnElement.fromDto(msg.getDrawing()), Pen.fromDto(msg.getPen()));
@@ -403,7 +420,7 @@ private void handle(UpdateDrawingMsg msg) {
   }
 
   private void handle(SetZoneHasFowMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           zone.setHasFog(msg.getHasFow());
@@ -411,7 +428,7 @@ private void handle(SetZoneHasFowMsg msg) {
   }
 
   private void handle(SetZoneGridSizeMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           if (zone != null) {
@@ -424,7 +441,7 @@ private void handle(SetZoneGridSizeMsg msg) {
   }
 
   private void handle(SetVisionTypeMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           zone.setVisionType(VisionType.valueOf(msg.getVision().name()));
@@ -432,7 +449,7 @@ private void handle(SetVisionTypeMsg msg) {
   }
 
   private void handle(SetFowMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           var area = Mapper.map(msg.getArea());
@@ -443,21 +460,21 @@ private void handle(SetFowMsg msg) {
   }
 
   private void handle(SetCampaignNameMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           server.getCampaign().setName(msg.getName());
         });
   }
 
   private void handle(SetCampaignMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           server.setCampaign(Campaign.fromDto(msg.getCampaign()));
         });
   }
 
   private void handle(SendTokensToBackMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGuid = GUID.valueOf(msg.getZoneGuid());
           var tokens =
@@ -467,7 +484,7 @@ private void handle(SendTokensToBackMsg msg) {
   }
 
   private void handle(RenameZoneMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var name = msg.getName();
@@ -479,7 +496,7 @@ private void handle(RenameZoneMsg msg) {
   }
 
   private void handle(RemoveZoneMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var zone = server.getCampaign().getZone(zoneGUID);
@@ -494,7 +511,7 @@ private void handle(RemoveZoneMsg msg) {
   }
 
   private void handle(RemoveTopologyMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var area = Mapper.map(msg.getArea());
@@ -505,7 +522,7 @@ private void handle(RemoveTopologyMsg msg) {
   }
 
   private void handle(RemoveTokensMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var tokenGUIDs =
@@ -516,7 +533,7 @@ private void handle(RemoveTokensMsg msg) {
   }
 
   private void handle(RemoveTokenMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var tokenGUID = GUID.valueOf(msg.getTokenGuid());
@@ -526,10 +543,13 @@ private void handle(RemoveTokenMsg msg) {
   }
 
   private void handle(RemoveLabelMsg msg) {
-    var zoneGUID = GUID.valueOf(msg.getZoneGuid());
-    var labelGUID = GUID.valueOf(msg.getLabelGuid());
-    var zone = server.getCampaign().getZone(zoneGUID);
-    zone.removeLabel(labelGUID);
+    applyToCampaign(
+        () -> {
+          var zoneGUID = GUID.valueOf(msg.getZoneGuid());
+          var labelGUID = GUID.valueOf(msg.getLabelGuid());
+          var zone = server.getCampaign().getZone(zoneGUID);
+          zone.removeLabel(labelGUID);
+        });
   }
 
   private void handle(RemoveAssetMsg msg) {
@@ -537,7 +557,7 @@ private void handle(RemoveAssetMsg msg) {
   }
 
   private void handle(PutZoneMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           final var zone = Zone.fromDto(msg.getZone());
           server.getCampaign().putZone(zone);
@@ -549,7 +569,7 @@ private void handle(PutZoneMsg msg) {
   }
 
   private void handle(PutLabelMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           Zone zone = server.getCampaign().getZone(GUID.valueOf(msg.getZoneGuid()));
           zone.putLabel(Label.fromDto(msg.getLabel()));
@@ -557,14 +577,14 @@ private void handle(PutLabelMsg msg) {
   }
 
   private void handle(PutAssetMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           AssetManager.putAsset(Asset.fromDto(msg.getAsset()));
         });
   }
 
   private void handle(HideFowMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           var area = Mapper.map(msg.getArea());
@@ -577,14 +597,44 @@ private void handle(HideFowMsg msg) {
   }
 
   private void handle(String id, GetZoneMsg msg) {
-    getZone(id, GUID.valueOf(msg.getZoneGuid()));
+    // Send the zone as it is once the changes received before this request have been applied.
+    applyToCampaign(() -> getZone(id, GUID.valueOf(msg.getZoneGuid())));
   }
 
   private void handle(String id, GetAssetMsg msg) {
-    getAsset(id, new MD5Key(msg.getAssetId()));
+    var assetId = new MD5Key(msg.getAssetId());
+    // Whether the asset is for the player's current map decides its priority, and depends on the
+    // campaign, so work it out on the model thread.
+    applyToCampaign(() -> getAsset(id, assetId, !isUsedOnPlayerZone(id, assetId)));
+  }
+
+  /**
+   * Checks whether an asset is used on the zone that a client's player is on. Must be called from
+   * the model thread.
+   *
+   * @param id the client's connection.
+   * @param assetId the asset.
+   * @return {@code true} if the asset is used on the player's zone, or the zone is not known.
+   */
+  private boolean isUsedOnPlayerZone(String id, MD5Key assetId) {
+    var zoneId = server.getPlayerZoneId(id);
+    var zone = zoneId == null ? null : server.getCampaign().getZone(zoneId);
+    if (zone == null) {
+      return true;
+    }
+
+    // Clients ask for many assets at once when a zone is loaded, so don't work them out each time.
+    long now = System.nanoTime();
+    var zoneAssets = zoneAssetsCache.get(zoneId);
+    if (zoneAssets == null || now - zoneAssets.time() > ZONE_ASSETS_LIFETIME_NANOS) {
+      zoneAssets = new ZoneAssets(zone.getAllAssetIds(), now);
+      zoneAssetsCache.put(zoneId, zoneAssets);
+    }
+    return zoneAssets.assetIds().contains(assetId);
   }
 
   private void handle(ExposePcAreaMsg msg) {
+    // This works on the host's renderer rather than the server campaign.
     EventQueue.invokeLater(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
@@ -594,7 +644,7 @@ private void handle(ExposePcAreaMsg msg) {
   }
 
   private void handle(ExposeFowMsg msg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(msg.getZoneGuid());
           Zone zone = server.getCampaign().getZone(zoneGUID);
@@ -606,7 +656,7 @@ private void handle(ExposeFowMsg msg) {
   }
 
   private void handle(String clientId, PutTokenMsg putTokenMsg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(putTokenMsg.getZoneGuid());
           var token = Token.fromDto(putTokenMsg.getToken());
@@ -615,7 +665,7 @@ private void handle(String clientId, PutTokenMsg putTokenMsg) {
   }
 
   private void handle(String clientId, EditTokenMsg editTokenMsg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(editTokenMsg.getZoneGuid());
           var token = Token.fromDto(editTokenMsg.getToken());
@@ -624,7 +674,7 @@ private void handle(String clientId, EditTokenMsg editTokenMsg) {
   }
 
   private void handle(DrawMsg drawMsg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGuid = GUID.valueOf(drawMsg.getZoneGuid());
           var pen = Pen.fromDto(drawMsg.getPen());
@@ -635,7 +685,7 @@ private void handle(DrawMsg drawMsg) {
   }
 
   private void handle(ClearExposedAreaMsg clearExposedAreaMsg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(clearExposedAreaMsg.getZoneGuid());
           var globalOnly = clearExposedAreaMsg.getGlobalOnly();
@@ -645,7 +695,7 @@ private void handle(ClearExposedAreaMsg clearExposedAreaMsg) {
   }
 
   private void handle(ClearAllDrawingsMsg clearAllDrawingsMsg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(clearAllDrawingsMsg.getZoneGuid());
           var layer = Zone.Layer.valueOf(clearAllDrawingsMsg.getLayer());
@@ -655,18 +705,21 @@ private void handle(ClearAllDrawingsMsg clearAllDrawingsMsg) {
   }
 
   private void handle(ChangeZoneDisplayNameMsg changeZoneDisplayNameMsg, Message msg) {
-    var zoneGUID = GUID.valueOf(changeZoneDisplayNameMsg.getZoneGuid());
-    var name = changeZoneDisplayNameMsg.getName();
+    applyToCampaign(
+        () -> {
+          var zoneGUID = GUID.valueOf(changeZoneDisplayNameMsg.getZoneGuid());
+          var name = changeZoneDisplayNameMsg.getName();
 
-    Zone zone = server.getCampaign().getZone(zoneGUID);
-    if (zone != null) {
-      zone.setPlayerAlias(name);
-      sendToAllClients(msg);
-    }
+          Zone zone = server.getCampaign().getZone(zoneGUID);
+          if (zone != null) {
+            zone.setPlayerAlias(name);
+            sendToAllClients(msg);
+          }
+        });
   }
 
   private void handle(BringTokensToFrontMsg bringTokensToFrontMsg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGuid = GUID.valueOf(bringTokensToFrontMsg.getZoneGuid());
           var tokenSet =
@@ -678,7 +731,7 @@ private void handle(BringTokensToFrontMsg bringTokensToFrontMsg) {
   }
 
   private void handle(AddTopologyMsg addTopologyMsg) {
-    EventQueue.invokeLater(
+    applyToCampaign(
         () -> {
           var zoneGUID = GUID.valueOf(addTopologyMsg.getZoneGuid());
           var area = Mapper.map(addTopologyMsg.getArea());
@@ -703,6 +756,15 @@ private void handle(String id, UpdatePlayerStatusMsg updatePlayerStatusMsg) {
     server.updatePlayerStatus(playerName, zoneId, loaded);
   }
 
+  /**
+   * Apply a change to the server campaign on the server's model thread.
+   *
+   * @param change the change to apply.
+   */
+  private void applyToCampaign(Runnable change) {
+    server.getModelExecutor().execute(change);
+  }
+
   private void sendToClients(String excludedId, Message message) {
     server.broadcastMessage(new String[] {excludedId}, message);
   }
@@ -739,7 +801,7 @@ private void bringTokensToFront(GUID zoneGUID, Set<GUID> tokenSet) {
     zone.sortZOrder(); // update new ZOrder on server zone
   }
 
-  private void getAsset(String id, MD5Key assetID) {
+  private void getAsset(String id, MD5Key assetID, boolean background) {
     if (assetID == null) {
       return;
     }
@@ -754,7 +816,7 @@ private void getAsset(String id, MD5Key assetID) {
           id,
           MapToolConstants.Channel.IMAGE,
           Message.newBuilder().setStartAssetTransferMsg(msg).build());
-      server.addAssetProducer(id, producer);
+      server.addAssetProducer(id, producer, background);
 
     } catch (IllegalArgumentException iae) {
       // Sending an empty asset will cause a failure of the image to load on the client side,
@@ -0,0 +1,181 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Applies changes to the server's campaign on a single dedicated thread. Message handlers queue
+ * changes here instead of on the Swing event queue, so that the campaign is only ever changed by
+ * one thread and a busy UI on the hosting client does not hold up the other players.
+ *
+ * <p>Queued changes are applied in the order they were queued, in batches of whatever has arrived
+ * since the last batch. If too many changes are waiting, {@link #execute(Runnable)} blocks until
+ * there is room, which pushes back on the connection that is sending them.
+ */
+public class ServerModelExecutor {
+  private static final Logger log = LogManager.getLogger(ServerModelExecutor.class);
+
+  /** The most changes that can be waiting before callers block. */
+  private static final int QUEUE_CAPACITY = 10_000;
+
+  /** The most changes applied in one batch. */
+  private static final int MAX_BATCH_SIZE = 256;
+
+  /** A batch whose oldest change waited longer than this is logged. */
+  private static final long SLOW_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+  /**
+   * Counters describing how well the executor is keeping up.
+   *
+   * @param changesApplied the number of changes applied so far.
+   * @param batchesApplied the number of batches applied so far.
+   * @param queueDepth the number of changes currently waiting.
+   * @param maxQueueDepth the most changes that have been waiting at once.
+   * @param maxWaitMillis the longest a change has waited before being applied.
+   * @param blockedSubmissions the number of times a caller had to wait for room in the queue.
+   */
+  public record Stats(
+      long changesApplied,
+      long batchesApplied,
+      int queueDepth,
+      int maxQueueDepth,
+      long maxWaitMillis,
+      long blockedSubmissions) {}
+
+  private record QueuedChange(Runnable change, long queuedAt) {}
+
+  private final BlockingQueue<QueuedChange> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Thread thread;
+  private volatile boolean running = true;
+
+  private final AtomicLong changesApplied = new AtomicLong();
+  private final AtomicLong batchesApplied = new AtomicLong();
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final AtomicLong blockedSubmissions = new AtomicLong();
+
+  public ServerModelExecutor() {
+    thread = new Thread(this::run, "MapToolServer.ModelThread");
+    thread.setDaemon(true);
+  }
+
+  /** Start applying queued changes. */
+  public void start() {
+    thread.start();
+  }
+
+  /** Stop applying changes. Any changes that are still queued are discarded. */
+  public void shutdown() {
+    running = false;
+    thread.interrupt();
+    log.debug("Server model executor stopped: {}", getStats());
+  }
+
+  /**
+   * @return {@code true} if the current thread is the one that applies changes.
+   */
+  public boolean isModelThread() {
+    return Thread.currentThread() == thread;
+  }
+
+  /**
+   * Queue a change to the campaign. If called from the model thread, the change is applied
+   * immediately instead, since waiting for room in the queue from there could never finish.
+   *
+   * @param change the change to apply.
+   */
+  public void execute(Runnable change) {
+    if (isModelThread()) {
+      apply(change);
+      return;
+    }
+
+    var queued = new QueuedChange(change, System.nanoTime());
+    if (!queue.offer(queued)) {
+      blockedSubmissions.incrementAndGet();
+      try {
+        queue.put(queued);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        log.warn("Interrupted while waiting to queue a change to the server campaign");
+        return;
+      }
+    }
+    maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+  }
+
+  /**
+   * @return counters describing how well the executor is keeping up.
+   */
+  public Stats getStats() {
+    return new Stats(
+        changesApplied.get(),
+        batchesApplied.get(),
+        queue.size(),
+        maxQueueDepth.get(),
+        TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+        blockedSubmissions.get());
+  }
+
+  private void run() {
+    List<QueuedChange> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (running) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        // Check whether we have been shut down.
+        continue;
+      }
+      queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+      long start = System.nanoTime();
+      long oldestWait = start - batch.get(0).queuedAt();
+      maxWaitNanos.accumulateAndGet(oldestWait, Math::max);
+      for (QueuedChange queued : batch) {
+        apply(queued.change());
+      }
+      batchesApplied.incrementAndGet();
+
+      if (oldestWait > SLOW_WAIT_NANOS) {
+        log.warn(
+            "Server campaign changes are falling behind: applied {} after waiting {} ms, {} still"
+                + " waiting",
+            batch.size(),
+            TimeUnit.NANOSECONDS.toMillis(oldestWait),
+            queue.size());
+      }
+      batch.clear();
+    }
+  }
+
+  private void apply(Runnable change) {
+    try {
+      change.run();
+    } catch (Throwable t) {
+      // Don't let a bad message stop the server from applying any more changes.
+      log.error("Unable to apply change to the server campaign", t);
+    }
+    changesApplied.incrementAndGet();
+  }
+}
@@ -28,11 +28,23 @@ public class AssetTransferManager {
   private final Map<MD5Key, AssetConsumer> consumerMap = new HashMap<>();
   private final List<ConsumerListener> consumerListenerList = new CopyOnWriteArrayList<>();
   private final List<AssetProducer> producerList = new LinkedList<>();
+  private final List<AssetProducer> backgroundProducerList = new LinkedList<>();
+
+  /** Total number of bytes produced. */
+  private long bytesProduced;
+
+  /** Total time spent with producers waiting, in nanoseconds, not counting the current period. */
+  private long activeNanos;
+
+  /** When producers started waiting, or 0 if there are none. */
+  private long activeSince;
 
   /** Clear out all existing consumers and producers */
   public synchronized void flush() {
     consumerMap.clear();
     producerList.clear();
+    backgroundProducerList.clear();
+    updateActiveTime();
   }
 
   /**
@@ -42,26 +54,81 @@ public synchronized void flush() {
    * @param producer the new producer
    */
   public synchronized void addProducer(AssetProducer producer) {
-    producerList.add(producer);
+    addProducer(producer, false);
+  }
+
+  /**
+   * Add a new producer to the chunk queue. Assumes that the header has already been transferred to
+   * the consumer. Producer chunks can then be retrieved via nextChunk(). Chunks for background
+   * producers are only returned while there are no other producers.
+   *
+   * @param producer the new producer
+   * @param background whether the asset is not needed right away
+   */
+  public synchronized void addProducer(AssetProducer producer, boolean background) {
+    if (activeSince == 0) {
+      activeSince = System.nanoTime();
+    }
+    (background ? backgroundProducerList : producerList).add(producer);
+  }
+
+  /**
+   * @return true if there are producers with chunks still to send
+   */
+  public synchronized boolean hasProducers() {
+    return !producerList.isEmpty() || !backgroundProducerList.isEmpty();
   }
 
   /**
-   * Get the next chunk from the available producers
+   * Get the next chunk from the available producers. Producers take turns, so that one large asset
+   * does not hold up the others.
    *
    * @param size size of the data to retrieve
    * @throws IOException if an I/O error occurs or current position in the file is wrong
    * @return an {@link AssetChunkDto} with the next size bytes of data
    */
   public synchronized AssetChunkDto nextChunk(int size) throws IOException {
-    if (producerList.size() == 0) {
+    List<AssetProducer> producers = producerList.isEmpty() ? backgroundProducerList : producerList;
+    if (producers.isEmpty()) {
       return null;
     }
-    AssetProducer producer = producerList.remove(0);
-    AssetChunkDto chunk = producer.nextChunk(size);
-    if (!producer.isComplete()) {
-      producerList.add(producer);
+    AssetProducer producer = producers.remove(0);
+    try {
+      AssetChunkDto chunk = producer.nextChunk(size);
+      if (!producer.isComplete()) {
+        producers.add(producer);
+      }
+      bytesProduced += chunk.getData().size();
+      return chunk;
+    } finally {
+      updateActiveTime();
+    }
+  }
+
+  /**
+   * @return the total number of bytes returned by {@link #nextChunk(int)}.
+   */
+  public synchronized long getBytesProduced() {
+    return bytesProduced;
+  }
+
+  /**
+   * Get the rate at which chunks have been produced while there were producers waiting. Time spent
+   * with nothing to send is not counted.
+   *
+   * @return the throughput in bytes per second.
+   */
+  public synchronized double getThroughput() {
+    long nanos = activeNanos + (activeSince == 0 ? 0 : System.nanoTime() - activeSince);
+    return nanos == 0 ? 0 : bytesProduced * 1e9 / nanos;
+  }
+
+  /** Stop counting active time once there are no producers left. */
+  private void updateActiveTime() {
+    if (activeSince != 0 && !hasProducers()) {
+      activeNanos += System.nanoTime() - activeSince;
+      activeSince = 0;
     }
-    return chunk;
   }
 
   /**
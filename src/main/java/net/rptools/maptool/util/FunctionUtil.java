@@ -141,7 +141,7 @@ public static Token getTokenFromParam(
       if (token == null) {
         if (map == null) {
           throw new ParserException(I18N.getText(KEY_UNKNOWN_TOKEN, functionName, id));
-        } else if (MapTool.getFrame().getZoneRenderer(map) == null) {
+        } else if (MapTool.loadZone(map) == null) {
           throw new ParserException(I18N.getText(KEY_UNKNOWN_MAP, functionName, map));
         } else {
           throw new ParserException(I18N.getText(KEY_UNKNOWN_TOKEN_ON_MAP, functionName, id, map));
@@ -168,7 +168,7 @@ public static Token getTokenFromParam(
       throws ParserException {
     if (!GUID.isNotGUID(map)) {
       try {
-        final var zr = MapTool.getFrame().getZoneRenderer(GUID.valueOf(map));
+        final var zr = MapTool.loadZone(GUID.valueOf(map));
         if (zr != null) {
           return zr;
         }
@@ -177,7 +177,7 @@ public static Token getTokenFromParam(
       }
     }
 
-    ZoneRenderer zoneRenderer = MapTool.getFrame().getZoneRenderer(map);
+    ZoneRenderer zoneRenderer = MapTool.loadZone(map);
     if (zoneRenderer == null) {
       throw new ParserException(I18N.getText(KEY_UNKNOWN_MAP, functionName, map));
     }
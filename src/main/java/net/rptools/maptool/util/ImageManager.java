@@ -14,21 +14,24 @@
  */
 package net.rptools.maptool.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImageObserver;
 import java.net.URL;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import net.rptools.lib.MD5Key;
 import net.rptools.lib.image.ImageUtil;
+import net.rptools.maptool.client.AppPreferences;
 import net.rptools.maptool.client.ui.theme.Images;
 import net.rptools.maptool.client.ui.theme.RessourceManager;
 import net.rptools.maptool.model.Asset;
 import net.rptools.maptool.model.AssetAvailableListener;
 import net.rptools.maptool.model.AssetManager;
+import net.rptools.maptool.model.AssetManager.LoadPriority;
 import org.apache.commons.collections4.map.AbstractReferenceMap;
 import org.apache.commons.collections4.map.ReferenceMap;
 import org.apache.logging.log4j.LogManager;
@@ -37,18 +40,32 @@
 /**
  * The ImageManager class keeps a cache of loaded images. This class can be used to load the raw
  * image data from an asset. The loading of the raw image data into a usable class is done in the
- * background by one of two threads. The ImageManager will return a "?" (UNKNOWN_IMAGE) if the asset
- * is still downloading or the asset image is still being loaded, and a "X" (BROKEN_IMAGE) if the
- * asset or image is invalid. Small images are loaded using a different thread pool from large
- * images, and allows small images to load quicker.
+ * background by a thread pool with one thread per core. The ImageManager will return a "?"
+ * (UNKNOWN_IMAGE) if the asset is still downloading or the asset image is still being loaded, and a
+ * "X" (BROKEN_IMAGE) if the asset or image is invalid. Images needed on screen are loaded before
+ * prefetched ones, and within the same priority small images are loaded first.
  *
  * @author RPTools Team.
  */
 public class ImageManager {
   private static final Logger log = LogManager.getLogger(ImageManager.class);
 
-  /** Cache of images loaded for assets. */
-  private static final Map<MD5Key, BufferedImage> imageMap = new HashMap<MD5Key, BufferedImage>();
+  /**
+   * Cache of images loaded for assets. Least recently used images are evicted once their total size
+   * exceeds {@link AppPreferences#getImageCacheSize()}. Placeholder images are never evicted.
+   */
+  private static final Cache<MD5Key, BufferedImage> imageMap =
+      CacheBuilder.newBuilder()
+          .maximumWeight(AppPreferences.getImageCacheSize() * 1024L * 1024L)
+          .weigher((MD5Key key, BufferedImage image) -> getImageWeight(image))
+          .recordStats()
+          .build();
+
+  /** Images that are kept regardless of the cache size. See {@link #setPinnedImages(Set)}. */
+  private static final Map<MD5Key, BufferedImage> pinnedImageMap = new HashMap<>();
+
+  /** The images that should stay in memory. */
+  private static Set<MD5Key> pinnedImageIds = Set.of();
 
   /** Additional Soft-reference Cache of images that allows best . */
   private static final Map<MD5Key, BufferedImage> backupImageMap =
@@ -65,10 +82,9 @@ public class ImageManager {
   /** The broken image, a "X" is used for all situations where the asset or image was invalid. */
   public static BufferedImage BROKEN_IMAGE;
 
-  /** Small and large thread pools for background processing of asset raw image data. */
-  private static ExecutorService smallImageLoader = Executors.newFixedThreadPool(1);
-
-  private static ExecutorService largeImageLoader = Executors.newFixedThreadPool(1);
+  /** Thread pool for background processing of asset raw image data. */
+  private static final PriorityExecutor<LoadPriority> imageLoader =
+      new PriorityExecutor<>(Runtime.getRuntime().availableProcessors(), "image-loader-%d");
 
   private static final Object imageLoaderMutex = new Object();
 
@@ -90,7 +106,66 @@ public class ImageManager {
    * loading.
    */
   public static void flush() {
-    imageMap.clear();
+    synchronized (imageLoaderMutex) {
+      imageMap.invalidateAll();
+      pinnedImageMap.clear();
+    }
+  }
+
+  /**
+   * Keep the images for the given assets in memory, however large the image cache gets. This
+   * replaces any images that were previously pinned, which may then be evicted.
+   *
+   * @param assetIds the assets whose images to keep, usually those used by the current map
+   */
+  public static void setPinnedImages(Set<MD5Key> assetIds) {
+    synchronized (imageLoaderMutex) {
+      pinnedImageIds = new HashSet<>(assetIds);
+      pinnedImageMap.keySet().retainAll(pinnedImageIds);
+      for (MD5Key id : pinnedImageIds) {
+        BufferedImage image = imageMap.getIfPresent(id);
+        if (image != null && image != TRANSFERING_IMAGE) {
+          pinnedImageMap.put(id, image);
+        }
+      }
+    }
+    log.debug("Image cache: {}", imageMap.stats());
+  }
+
+  /**
+   * @return the hit, miss and eviction counts of the image cache.
+   */
+  public static CacheStats getImageCacheStats() {
+    return imageMap.stats();
+  }
+
+  /**
+   * Estimate the memory used by an image.
+   *
+   * @param image the image
+   * @return the approximate size of the image data in bytes, or 0 for the placeholder images.
+   */
+  private static int getImageWeight(BufferedImage image) {
+    if (image == TRANSFERING_IMAGE || image == BROKEN_IMAGE) {
+      return 0;
+    }
+    long bytes = (long) image.getWidth() * image.getHeight() * 4;
+    return (int) Math.min(bytes, Integer.MAX_VALUE);
+  }
+
+  private static BufferedImage getCachedImage(MD5Key assetId) {
+    BufferedImage image = imageMap.getIfPresent(assetId);
+    if (image == null) {
+      image = pinnedImageMap.get(assetId);
+    }
+    return image;
+  }
+
+  private static void putCachedImage(MD5Key assetId, BufferedImage image) {
+    imageMap.put(assetId, image);
+    if (image != TRANSFERING_IMAGE && pinnedImageIds.contains(assetId)) {
+      pinnedImageMap.put(assetId, image);
+    }
   }
 
   /**
@@ -111,11 +186,8 @@ public static BufferedImage getImageAndWait(MD5Key assetId) {
    */
   public static void flush(Set<MD5Key> exceptionSet) {
     synchronized (imageLoaderMutex) {
-      for (MD5Key id : new HashSet<MD5Key>(imageMap.keySet())) {
-        if (!exceptionSet.contains(id)) {
-          imageMap.remove(id);
-        }
-      }
+      imageMap.asMap().keySet().retainAll(exceptionSet);
+      pinnedImageMap.keySet().retainAll(exceptionSet);
     }
   }
 
@@ -182,7 +254,7 @@ public static BufferedImage getImage(
       return BROKEN_IMAGE;
     }
     synchronized (imageLoaderMutex) {
-      BufferedImage image = imageMap.get(assetId);
+      BufferedImage image = getCachedImage(assetId);
       if (image != null && image != TRANSFERING_IMAGE) {
         return image;
       }
@@ -190,7 +262,7 @@ public static BufferedImage getImage(
       // check if the soft reference still resolves image
       image = backupImageMap.get(assetId);
       if (image != null) {
-        imageMap.put(assetId, image);
+        putCachedImage(assetId, image);
         return image;
       }
 
@@ -202,11 +274,40 @@ public static BufferedImage getImage(
 
       // Force a load of the asset, this will trigger a transfer if the
       // asset is not available locally
-      AssetManager.getAssetAsynchronously(assetId, new AssetListener(assetId, hints));
+      AssetManager.getAssetAsynchronously(
+          assetId, LoadPriority.VISIBLE, new AssetListener(assetId, hints, LoadPriority.VISIBLE));
       return TRANSFERING_IMAGE;
     }
   }
 
+  /**
+   * Start loading the images for the assets in the background, so they are ready by the time they
+   * are needed. Images that are already loaded or loading are skipped. Prefetched images are
+   * loaded after any image requested by {@link #getImage(MD5Key, ImageObserver...)}.
+   *
+   * @param assetIds the assets whose images to load.
+   * @param priority how urgently the images are needed.
+   */
+  public static void prefetch(Collection<MD5Key> assetIds, LoadPriority priority) {
+    synchronized (imageLoaderMutex) {
+      for (MD5Key assetId : assetIds) {
+        if (assetId == null || getCachedImage(assetId) != null) {
+          continue;
+        }
+
+        BufferedImage image = backupImageMap.get(assetId);
+        if (image != null) {
+          putCachedImage(assetId, image);
+          continue;
+        }
+
+        imageMap.put(assetId, TRANSFERING_IMAGE);
+        AssetManager.getAssetAsynchronously(
+            assetId, priority, new AssetListener(assetId, null, priority));
+      }
+    }
+  }
+
   /**
    * Returns an image from an asset:// URL.<br>
    * The returned image may be scaled based on parameters in the URL:<br>
@@ -341,7 +442,10 @@ public static void flushImage(Asset asset) {
    */
   public static void flushImage(MD5Key assetId) {
     // LATER: investigate how this effects images that are already in progress
-    imageMap.remove(assetId);
+    synchronized (imageLoaderMutex) {
+      imageMap.invalidate(assetId);
+      pinnedImageMap.remove(assetId);
+    }
   }
 
   /**
@@ -383,7 +487,10 @@ public BackgroundImageLoader(Asset asset, Map<String, Object> hints) {
     /** Load the asset raw image data and notify observers that the image is loaded. */
     public void run() {
       log.debug("Loading asset: " + asset.getMD5Key());
-      BufferedImage image = imageMap.get(asset.getMD5Key());
+      BufferedImage image;
+      synchronized (imageLoaderMutex) {
+        image = getCachedImage(asset.getMD5Key());
+      }
 
       if (image != null && image != TRANSFERING_IMAGE) {
         // We've somehow already loaded this image
@@ -427,7 +534,7 @@ public void run() {
 
       synchronized (imageLoaderMutex) {
         // Replace placeholder with actual image
-        imageMap.put(asset.getMD5Key(), image);
+        putCachedImage(asset.getMD5Key(), image);
         backupImageMap.put(asset.getMD5Key(), image);
         notifyObservers(asset, image);
       }
@@ -457,23 +564,22 @@ private static void notifyObservers(Asset asset, BufferedImage image) {
    *
    * @param asset Load raw image data from this asset
    * @param hints Hints used when loading image data
+   * @param priority how urgently the image is needed
    */
-  private static void backgroundLoadImage(Asset asset, Map<String, Object> hints) {
-    // Use large image loader if the image is larger than 128kb.
-    if (asset.getData().length > 128 * 1024) {
-      largeImageLoader.execute(new BackgroundImageLoader(asset, hints));
-    } else {
-      smallImageLoader.execute(new BackgroundImageLoader(asset, hints));
-    }
+  private static void backgroundLoadImage(
+      Asset asset, Map<String, Object> hints, LoadPriority priority) {
+    imageLoader.execute(priority, asset.getData().length, new BackgroundImageLoader(asset, hints));
   }
 
   private static class AssetListener implements AssetAvailableListener {
     private final MD5Key id;
     private final Map<String, Object> hints;
+    private final LoadPriority priority;
 
-    public AssetListener(MD5Key id, Map<String, Object> hints) {
+    public AssetListener(MD5Key id, Map<String, Object> hints, LoadPriority priority) {
       this.id = id;
       this.hints = hints;
+      this.priority = priority;
     }
 
     public void assetAvailable(MD5Key key) {
@@ -485,7 +591,7 @@ public void assetAvailable(MD5Key key) {
 
       // Image is now available for loading
       log.debug("Asset available: " + id);
-      backgroundLoadImage(AssetManager.getAsset(id), hints);
+      backgroundLoadImage(AssetManager.getAsset(id), hints, priority);
     }
 
     @Override
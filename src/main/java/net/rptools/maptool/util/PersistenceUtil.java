@@ -15,10 +15,12 @@
 package net.rptools.maptool.util;
 
 import com.google.protobuf.util.JsonFormat;
+import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.converters.ConversionException;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -35,6 +37,9 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
 import javax.imageio.ImageIO;
 import net.rptools.lib.CodeTimer;
 import net.rptools.lib.FileUtil;
@@ -42,9 +47,11 @@
 import net.rptools.lib.ModelVersionManager;
 import net.rptools.lib.image.ImageUtil;
 import net.rptools.lib.io.PackedFile;
+import net.rptools.lib.io.PackedFileWriter;
 import net.rptools.maptool.client.AppConstants;
 import net.rptools.maptool.client.AppPreferences;
 import net.rptools.maptool.client.AppUtil;
+import net.rptools.maptool.client.DeveloperOptions;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.client.swing.SwingUtil;
 import net.rptools.maptool.client.ui.Scale;
@@ -61,6 +68,8 @@
 import net.rptools.maptool.model.MacroButtonProperties;
 import net.rptools.maptool.model.Token;
 import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.ZoneSource;
+import net.rptools.maptool.model.ZoneSummary;
 import net.rptools.maptool.model.campaign.CampaignManager;
 import net.rptools.maptool.model.gamedata.DataStoreManager;
 import net.rptools.maptool.model.gamedata.GameDataImporter;
@@ -124,6 +133,9 @@ public class PersistenceUtil {
   /** Represents the file path of the game data content file within a persisted campaign file. */
   private static final String GAME_DATA_FILE = GAME_DATA_DIR + "game-data.json";
 
+  /** The directory where zones are stored when they are saved separately from the campaign. */
+  private static final String ZONE_DIR = "zones/";
+
   /**
    * The version number of the campaign.
    *
@@ -252,6 +264,9 @@ public static class PersistedCampaign {
     public GUID currentZoneId;
     public Scale currentView;
     public String mapToolVersion;
+
+    /** The zones saved in their own entries, or {@code null} if they are part of the campaign. */
+    public List<ZoneSummary> zoneIndex;
   }
 
   /**
@@ -345,9 +360,14 @@ public static PersistedMap loadMap(File mapFile) throws IOException {
    * @return new name to use for the map
    */
   private static String fixupZoneName(String n) {
-    List<Zone> zones = MapTool.getCampaign().getZones();
-    for (Zone zone : zones) {
-      if (zone.getName().equals(n)) {
+    // The maps that are still in the campaign file have their names in their summaries, so there
+    // is no need to read them.
+    Campaign campaign = MapTool.getCampaign();
+    List<String> names = new ArrayList<>();
+    campaign.getLoadedZones().forEach(zone -> names.add(zone.getName()));
+    campaign.getUnloadedZones().forEach(summary -> names.add(summary.getName()));
+    for (String name : names) {
+      if (name.equals(n)) {
         String count = n.replaceFirst("Import (\\d+) of.*", "$1"); // $NON-NLS-1$
         int next = 1;
         try {
@@ -374,15 +394,12 @@ public static void saveCampaign(Campaign campaign, File campaignFile) throws IOE
         saveTimer -> {
           saveTimer.setThreshold(5);
 
-          // Strategy: save the file to a tmp location so that if there's a failure the original
-          // file won't be touched. Then once we're finished, replace the old with the new.
-          File tmpDir = AppUtil.getTmpDir();
-          File tmpFile = new File(tmpDir.getAbsolutePath(), campaignFile.getName());
-          if (tmpFile.exists()) tmpFile.delete();
-
-          PackedFile pakFile = null;
-          try {
-            pakFile = new PackedFile(tmpFile);
+          // Strategy: write the new file next to the original so that if there's a failure the
+          // original file won't be touched. Then once we're finished, move the new file over the
+          // old one. Each part is written straight to the new file, and unchanged assets are
+          // copied from the old file without being decompressed, so the campaign is never held in
+          // memory as a whole.
+          try (PackedFileWriter writer = new PackedFileWriter(campaignFile)) {
             // Configure the meta file (this is for legacy support)
             PersistedCampaign persistedCampaign = new PersistedCampaign();
 
@@ -405,78 +422,56 @@ public static void saveCampaign(Campaign campaign, File campaignFile) throws IOE
 
             // And store the asset elsewhere
             saveTimer.start("Save assets");
-            saveAssets(allAssetIds, pakFile);
+            saveAssets(allAssetIds, writer);
             saveTimer.stop("Save assets");
 
             // Store the Drop In Libraries.
             saveTimer.start("Save Drop In Libraries");
-            saveAddOnLibraries(pakFile);
+            saveAddOnLibraries(writer);
             saveTimer.stop("Save Drop In Libraries");
 
             // Store the Game Data
             saveTimer.start("Save Game Data");
-            saveGameData(pakFile);
+            saveGameData(writer);
             saveTimer.stop("Save Game Data");
 
+            // Zones that were never loaded can only be copied across as they are.
+            boolean zonesSeparately =
+                campaign.hasUnloadedZones()
+                    || DeveloperOptions.Toggle.SaveZonesSeparately.isEnabled();
+            if (zonesSeparately) {
+              saveTimer.start("Save zones");
+              persistedCampaign.zoneIndex = saveZones(campaign, writer);
+              writer.getXStream().omitField(Campaign.class, "zones");
+              saveTimer.stop("Save zones");
+            }
+
             try {
               saveTimer.start("Set content");
-
-              pakFile.setContent(persistedCampaign);
-              pakFile.setProperty(PROP_CAMPAIGN_VERSION, CAMPAIGN_VERSION);
-              pakFile.setProperty(PROP_VERSION, MapTool.getVersion());
-
+              writer.setContent(persistedCampaign);
+              writer.setProperty(PROP_CAMPAIGN_VERSION, CAMPAIGN_VERSION);
+              writer.setProperty(PROP_VERSION, MapTool.getVersion());
               saveTimer.stop("Set content");
-              saveTimer.start("Save");
-              pakFile.save();
-              saveTimer.stop("Save");
             } catch (OutOfMemoryError oom) {
               /*
-               * This error is normally because the heap space has been exceeded while trying to save the campaign. Since MapTool caches the images used by the current Zone, and since the
-               * VersionManager must keep the XML for objects in memory in order to apply transforms to them, the memory usage can spike very high during the save() operation. A common solution is
-               * to switch to an empty map and perform the save from there; this causes MapTool to unload any images that it may have had cached and this can frequently free up enough memory for the
-               * save() to work. We'll tell the user all this right here and then fail the save and they can try again.
+               * This error is normally because the heap space has been exceeded while trying to save the campaign. Since MapTool caches the images used by the current Zone, the memory usage
+               * can spike very high during the save() operation. A common solution is to switch to an empty map and perform the save from there; this causes MapTool to unload any images that it
+               * may have had cached and this can frequently free up enough memory for the save() to work. We'll tell the user all this right here and then fail the save and they can try again.
                */
-              saveTimer.start("OOM Close");
-              pakFile.close(); // Have to close the tmpFile first on some OSes
-              pakFile = null;
-              tmpFile.delete(); // Delete the temporary file
-              saveTimer.stop("OOM Close");
               MapTool.showError("msg.error.failedSaveCampaignOOM");
-              return;
-            }
-          } finally {
-            saveTimer.start("Close");
-            try {
-              if (pakFile != null) pakFile.close();
-            } catch (Exception e) {
+              return; // Closing the writer deletes the partial file.
             }
-            saveTimer.stop("Close");
-            pakFile = null;
-          }
-
-          /*
-           * Copy to the new location. Not the fastest solution in the world if renameTo() fails, but worth the safety net it provides. Jamz: So, renameTo() is causing more issues than it is worth. It
-           * has a tendency to lock a file under Google Drive/Drop box causing the save to fail. Removed the for final save location...
-           */
-          saveTimer.start("Backup");
-          File bakFile = new File(tmpDir.getAbsolutePath(), campaignFile.getName() + ".bak");
 
-          bakFile.delete(); // Delete the last backup file...
+            saveTimer.start("Save");
+            writer.commit();
+            saveTimer.stop("Save");
 
-          if (campaignFile.exists()) {
-            saveTimer.start("Backup campaignFile");
-            FileUtil.copyFile(campaignFile, bakFile);
-            // campaignFile.delete();
-            saveTimer.stop("Backup campaignFile");
+            if (zonesSeparately) {
+              // The file that any unloaded zones were in has just been replaced.
+              campaign.setZoneSource(new PackedZoneSource(campaignFile));
+            }
           }
 
-          saveTimer.start("Backup tmpFile");
-          FileUtil.copyFile(tmpFile, campaignFile);
-          tmpFile.delete();
-          saveTimer.stop("Backup tmpFile");
-          if (bakFile.exists()) bakFile.delete();
-          saveTimer.stop("Backup");
-
           // Save the campaign thumbnail
           saveTimer.start("Thumbnail");
           saveCampaignThumbnail(campaignFile.getName());
@@ -562,7 +557,12 @@ public static PersistedCampaign loadCampaign(File campaignFile) throws IOExcepti
         // Note that the values are all placeholders
         Set<MD5Key> allAssetIds = persistedCampaign.assetMap.keySet();
         loadAssets(allAssetIds, pakFile);
-        for (Zone zone : persistedCampaign.campaign.getZones()) {
+        if (persistedCampaign.zoneIndex != null) {
+          // Leave the zones in the file until they are needed.
+          persistedCampaign.campaign.setUnloadedZones(
+              persistedCampaign.zoneIndex, new PackedZoneSource(campaignFile));
+        }
+        for (Zone zone : persistedCampaign.campaign.getLoadedZones()) {
           zone.optimize();
         }
 
@@ -857,19 +857,12 @@ private static void loadAddOnLibraries(PackedFile packedFile) throws IOException
   }
 
   /**
-   * Saves the add-on libraries to the provided packed file.
+   * Saves the add-on libraries to the packed file being written.
    *
    * @param packedFile The packed file to save the add-on libraries to.
    * @throws IOException If an error occurs while saving the add-on libraries.
    */
-  private static void saveAddOnLibraries(PackedFile packedFile) throws IOException {
-    // remove all drop-in libraries from the packed file first.
-    for (String path : packedFile.getPaths()) {
-      if (path.startsWith(DROP_IN_LIBRARY_ASSET_DIR) && !path.equals(DROP_IN_LIBRARY_ASSET_DIR)) {
-        packedFile.removeFile(path);
-      }
-    }
-
+  private static void saveAddOnLibraries(PackedFileWriter packedFile) throws IOException {
     AddOnLibraryListDto dto = null;
     try {
       dto = new LibraryManager().addOnLibrariesToDto().get();
@@ -881,6 +874,11 @@ private static void saveAddOnLibraries(PackedFile packedFile) throws IOException
         JsonFormat.printer().print(dto).getBytes(StandardCharsets.UTF_8));
 
     for (var ldto : dto.getLibrariesList()) {
+      // Libraries are stored by the MD5 of their contents, so if one is already in the file being
+      // replaced, it hasn't changed.
+      if (packedFile.copyFromPrevious(DROP_IN_LIBRARY_ASSET_DIR + ldto.getMd5Hash())) {
+        continue;
+      }
       Asset asset = AssetManager.getAsset(new MD5Key(ldto.getMd5Hash()));
       packedFile.putFile(DROP_IN_LIBRARY_ASSET_DIR + asset.getMD5Key().toString(), asset.getData());
     }
@@ -912,19 +910,102 @@ private static void loadGameData(PackedFile packedFile) throws IOException {
   }
 
   /**
-   * Saves the game data to the specified packed file.
+   * Saves each zone in its own entry, so that it can be left in the file until it is needed when
+   * the campaign is loaded. Zones that have not been loaded since the campaign was read are copied
+   * across without being read.
    *
-   * @param packedFile The packed file to save the game data to.
-   * @throws IOException If an I/O error occurs while saving the game data.
+   * @param campaign the campaign whose zones to save.
+   * @param writer the packed file being written.
+   * @return the summaries of the saved zones, in campaign order.
+   * @throws IOException If an I/O error occurs while saving the zones.
    */
-  private static void saveGameData(PackedFile packedFile) throws IOException {
-    // Remove all the game data from the packed file first.
-    for (String path : packedFile.getPaths()) {
-      if (path.startsWith(GAME_DATA_DIR) && !path.equals(GAME_DATA_DIR)) {
-        packedFile.removeFile(path);
+  static List<ZoneSummary> saveZones(Campaign campaign, PackedFileWriter writer)
+      throws IOException {
+    // Take these first, so that a zone that is loaded in the meantime is still saved.
+    ZoneSource source = campaign.getZoneSource();
+    Map<GUID, ZoneSummary> unloaded = new HashMap<>();
+    for (ZoneSummary summary : campaign.getUnloadedZones()) {
+      unloaded.put(summary.getId(), summary);
+    }
+
+    List<ZoneSummary> index = new ArrayList<>();
+    for (GUID id : campaign.getZoneIds()) {
+      String path = getZonePath(id);
+      ZoneSummary summary = unloaded.get(id);
+      if (summary != null) {
+        if (!writer.copyFrom(source.getFile(), path)) {
+          throw new IOException("Zone " + id + " is missing from " + source.getFile());
+        }
+        index.add(summary);
+        continue;
       }
+
+      Zone zone = campaign.getZone(id);
+      if (zone != null) {
+        writer.putFile(path, zone);
+        index.add(new ZoneSummary(zone));
+      }
+    }
+    return index;
+  }
+
+  static String getZonePath(GUID zoneId) {
+    return ZONE_DIR + zoneId + ".xml";
+  }
+
+  /**
+   * Reads the zones written by {@link #saveZones(Campaign, PackedFileWriter)}. The zip file is not
+   * kept open between reads, as that would stop the campaign file from being replaced when it is
+   * saved, but the XStream is shared as it is far more costly to set up.
+   */
+  static class PackedZoneSource implements ZoneSource {
+    private final File file;
+    private @Nullable XStream xStream;
+
+    PackedZoneSource(File file) {
+      this.file = file;
     }
 
+    @Override
+    public File getFile() {
+      return file;
+    }
+
+    private synchronized XStream getXStream() {
+      if (xStream == null) {
+        xStream = FileUtil.getConfiguredXStream();
+        xStream.ignoreUnknownElements();
+      }
+      return xStream;
+    }
+
+    @Override
+    public Zone readZone(GUID id) throws IOException {
+      try (var zipFile = new ZipFile(file)) {
+        ZipEntry entry = zipFile.getEntry(getZonePath(id));
+        if (entry == null) {
+          throw new FileNotFoundException(getZonePath(id));
+        }
+        try (var reader =
+            new InputStreamReader(
+                new BufferedInputStream(zipFile.getInputStream(entry)), StandardCharsets.UTF_8)) {
+          if (!(getXStream().fromXML(reader) instanceof Zone zone)) {
+            throw new IOException("Zone " + id + " in " + file + " is not a zone");
+          }
+          zone.optimize();
+          return zone;
+        }
+      }
+    }
+  }
+
+  /**
+   * Saves the game data to the packed file being written.
+   *
+   * @param packedFile The packed file to save the game data to.
+   * @throws IOException If an I/O error occurs while saving the game data.
+   */
+  private static void saveGameData(PackedFileWriter packedFile) throws IOException {
     try {
       DataStoreManager dataStoreManager = new DataStoreManager();
       DataStoreDto dto = dataStoreManager.toDto().get();
@@ -938,6 +1019,51 @@ private static void saveGameData(PackedFile packedFile) throws IOException {
     }
   }
 
+  /**
+   * Saves a collection of assets to the packed file being written. Assets that are already in the
+   * file being replaced are copied from it rather than being loaded and compressed again.
+   *
+   * @param assetIds A collection of MD5Key objects representing the asset IDs to be saved.
+   * @param writer The writer for the file to save the assets to.
+   * @throws IOException If there is an error writing the assets to the file.
+   */
+  private static void saveAssets(Collection<MD5Key> assetIds, PackedFileWriter writer)
+      throws IOException {
+    writer.getXStream().processAnnotations(Asset.class);
+
+    // Assets are named for the MD5 of their data, so any already in the file are unchanged. Find
+    // the name of the binary file for each, since that also has the extension.
+    Set<String> previousPaths = writer.getPreviousPaths();
+    Map<String, String> previousDataPaths = new HashMap<>();
+    for (String path : previousPaths) {
+      int dot = path.indexOf('.', ASSET_DIR.length());
+      if (path.startsWith(ASSET_DIR) && dot > 0) {
+        previousDataPaths.put(path.substring(ASSET_DIR.length(), dot), path);
+      }
+    }
+
+    for (MD5Key assetId : assetIds) {
+      if (assetId == null) continue;
+
+      String dataPath = previousDataPaths.get(assetId.toString());
+      String descriptorPath = ASSET_DIR + assetId;
+      if (dataPath != null && previousPaths.contains(descriptorPath)) {
+        writer.copyFromPrevious(dataPath);
+        writer.copyFromPrevious(descriptorPath);
+        continue;
+      }
+
+      Asset asset = AssetManager.getAsset(assetId);
+      if (asset == null) {
+        log.error("AssetId " + assetId + " not found while saving?!");
+        continue;
+      }
+
+      writer.putFile(descriptorPath + "." + asset.getExtension(), asset.getData());
+      writer.putFile(descriptorPath, asset); // Does not write the image
+    }
+  }
+
   /**
    * Saves a collection of assets to a specified packed file.
    *
@@ -0,0 +1,101 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.util;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size thread pool that runs queued tasks in priority order rather than in the order they
+ * were submitted. Tasks with the same priority run smallest first, and tasks of the same priority
+ * and size run in submission order.
+ *
+ * @param <P> the type of the priority, where lower values run first.
+ */
+public class PriorityExecutor<P extends Comparable<P>> {
+  /** Used to keep tasks of equal priority and size in submission order. */
+  private final AtomicLong sequence = new AtomicLong();
+
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Creates a new executor.
+   *
+   * @param threads the number of threads to run tasks on.
+   * @param nameFormat the format of the thread names, e.g. {@code "image-loader-%d"}.
+   */
+  public PriorityExecutor(int threads, String nameFormat) {
+    ThreadFactory threadFactory =
+        (new com.google.common.util.concurrent.ThreadFactoryBuilder())
+            .setNameFormat(nameFormat)
+            .setDaemon(true)
+            .build();
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            threadFactory);
+  }
+
+  /**
+   * @return the number of threads that run tasks for this executor.
+   */
+  public int getThreadCount() {
+    return executor.getCorePoolSize();
+  }
+
+  /**
+   * Queue a task to run once all tasks of a more urgent priority have started.
+   *
+   * @param priority the priority of the task.
+   * @param size the relative cost of the task, e.g. the number of bytes to process.
+   * @param task the task to run.
+   */
+  public void execute(P priority, long size, Runnable task) {
+    executor.execute(new PrioritizedTask<>(priority, size, sequence.getAndIncrement(), task));
+  }
+
+  /**
+   * A task in the queue. The queue uses the natural order of its entries, so tasks must be given
+   * to {@link ThreadPoolExecutor#execute(Runnable)} directly rather than wrapped by {@code
+   * submit()}.
+   */
+  private record PrioritizedTask<P extends Comparable<P>>(
+      P priority, long size, long sequence, Runnable task)
+      implements Runnable, Comparable<PrioritizedTask<P>> {
+    @Override
+    public void run() {
+      task.run();
+    }
+
+    @Override
+    public int compareTo(PrioritizedTask<P> other) {
+      int result = priority.compareTo(other.priority);
+      if (result == 0) {
+        result = Long.compare(size, other.size);
+      }
+      if (result == 0) {
+        result = Long.compare(sequence, other.sequence);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.lib.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PackedFileWriterTest {
+  private static final String CAMPAIGN_FILE = "campaign.cmpgn";
+  private static final String ASSET_PATH = "assets/image";
+  private static final String ZONE_PATH = "zones/map.xml";
+
+  private static final String ASSET_TEXT = "not really an image";
+
+  /** Writes the campaign that the tests then replace. */
+  private File writeOriginal(File dir) throws IOException {
+    File file = new File(dir, CAMPAIGN_FILE);
+    try (var writer = new PackedFileWriter(file)) {
+      writer.setContent("original content");
+      writer.setProperty("version", "1.0");
+      writer.putFile(ASSET_PATH, ASSET_TEXT.getBytes(StandardCharsets.UTF_8));
+      writer.putFile(ZONE_PATH, "original map");
+      writer.commit();
+    }
+    return file;
+  }
+
+  private static String readString(PackedFile packedFile, String path) throws IOException {
+    try (InputStream in = packedFile.getFileAsInputStream(path)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  public void testReadBackWithPackedFile(@TempDir File dir) throws IOException {
+    File file = writeOriginal(dir);
+
+    try (var packedFile = new PackedFile(file)) {
+      assertEquals("original content", packedFile.getContent());
+      assertEquals("1.0", packedFile.getProperty("version"));
+      assertEquals("original map", packedFile.getFileObject(ZONE_PATH));
+      assertEquals(ASSET_TEXT, readString(packedFile, ASSET_PATH));
+    }
+    // Only the committed file is left behind.
+    assertArrayEquals(new String[] {CAMPAIGN_FILE}, dir.list());
+  }
+
+  @Test
+  public void testCopyFromPrevious(@TempDir File dir) throws IOException {
+    File file = writeOriginal(dir);
+
+    try (var writer = new PackedFileWriter(file)) {
+      assertEquals(
+          Set.of(PackedFile.CONTENT_FILE, PackedFile.PROPERTY_FILE, ASSET_PATH, ZONE_PATH),
+          writer.getPreviousPaths());
+
+      writer.setContent("new content");
+      writer.setProperty("version", "2.0");
+      assertTrue(writer.copyFromPrevious(ASSET_PATH));
+      assertTrue(writer.copyFromPrevious(ZONE_PATH));
+      assertFalse(writer.copyFromPrevious("assets/missing"));
+      // A path that has already been written is not written again.
+      writer.putFile(ZONE_PATH, "changed map");
+      writer.commit();
+    }
+
+    try (var packedFile = new PackedFile(file)) {
+      assertEquals("new content", packedFile.getContent());
+      assertEquals("2.0", packedFile.getProperty("version"));
+      assertEquals("original map", packedFile.getFileObject(ZONE_PATH));
+      assertEquals(ASSET_TEXT, readString(packedFile, ASSET_PATH));
+      assertFalse(packedFile.hasFile("assets/missing"));
+    }
+  }
+
+  @Test
+  public void testCopyFromOtherFile(@TempDir File dir) throws IOException {
+    File original = writeOriginal(dir);
+    File file = new File(dir, "other.cmpgn");
+
+    try (var writer = new PackedFileWriter(file)) {
+      assertTrue(writer.getPreviousPaths().isEmpty());
+      writer.setContent("other content");
+      assertTrue(writer.copyFrom(original, ASSET_PATH));
+      writer.commit();
+    }
+
+    try (var packedFile = new PackedFile(file)) {
+      assertEquals(ASSET_TEXT, readString(packedFile, ASSET_PATH));
+      assertFalse(packedFile.hasFile(ZONE_PATH));
+    }
+  }
+
+  @Test
+  public void testCloseWithoutCommitKeepsOriginal(@TempDir File dir) throws IOException {
+    File file = writeOriginal(dir);
+
+    try (var writer = new PackedFileWriter(file)) {
+      writer.setContent("abandoned content");
+    }
+
+    try (var packedFile = new PackedFile(file)) {
+      assertEquals("original content", packedFile.getContent());
+    }
+    assertArrayEquals(new String[] {CAMPAIGN_FILE}, dir.list());
+  }
+
+  @Test
+  public void testCopiesWhenMoveFails(@TempDir File dir) throws IOException {
+    File file = writeOriginal(dir);
+
+    var writer =
+        new PackedFileWriter(file) {
+          @Override
+          void moveIntoPlace(Path source, Path target) throws IOException {
+            // As when a sync tool holds the file open.
+            throw new AccessDeniedException(target.toString());
+          }
+        };
+    try (writer) {
+      writer.setContent("new content");
+      assertTrue(writer.copyFromPrevious(ZONE_PATH));
+      writer.commit();
+    }
+
+    try (var packedFile = new PackedFile(file)) {
+      assertEquals("new content", packedFile.getContent());
+      assertEquals("original map", packedFile.getFileObject(ZONE_PATH));
+    }
+    // The temporary file is removed after it has been copied.
+    assertArrayEquals(new String[] {CAMPAIGN_FILE}, dir.list());
+  }
+}
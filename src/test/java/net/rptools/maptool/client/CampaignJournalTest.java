@@ -0,0 +1,172 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import net.rptools.maptool.model.Campaign;
+import net.rptools.maptool.model.Grid;
+import net.rptools.maptool.model.SquareGrid;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.util.PersistenceUtil.PersistedCampaign;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CampaignJournalTest {
+  @TempDir File dir;
+
+  private File baseFile;
+  private File journalFile;
+  private CampaignJournal journal;
+  private Campaign campaign;
+  private Zone zone;
+  private PersistedCampaign base;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    // Only the size and modification time of the base file are checked.
+    baseFile = new File(dir, "base.cmpgn");
+    Files.writeString(baseFile.toPath(), "base campaign");
+    journalFile = new File(dir, "test.journal");
+    journal = new CampaignJournal(journalFile);
+
+    campaign = new Campaign();
+    zone = new Zone();
+    Grid grid = new SquareGrid();
+    grid.setSize(50);
+    zone.setGrid(grid);
+    zone.setName("Original");
+    campaign.putZone(zone);
+    journal.reset(baseFile, campaign);
+
+    // What loading the base file would give.
+    base = new PersistedCampaign();
+    base.campaign = new Campaign(campaign);
+  }
+
+  private String replayedName() throws IOException {
+    journal.replay(base);
+    return base.campaign.getZone(zone.getId()).getName();
+  }
+
+  @Test
+  void testUnchangedCampaignWritesNothing() throws IOException {
+    journal.write(journal.prepareDelta(campaign));
+    assertEquals(0, journal.write(journal.prepareDelta(campaign)));
+  }
+
+  @Test
+  void testZoneSettingsAreRecordedAndReplayed() throws IOException {
+    journal.write(journal.prepareDelta(campaign));
+    zone.setName("Renamed");
+    zone.setVisible(false);
+
+    assertTrue(journal.write(journal.prepareDelta(campaign)) > 0);
+    assertEquals(baseFile.getAbsoluteFile(), journal.getRecoveryFile());
+
+    journal.replay(base);
+    Zone replayed = base.campaign.getZone(zone.getId());
+    assertEquals("Renamed", replayed.getName());
+    assertFalse(replayed.isVisible());
+  }
+
+  @Test
+  void testChangesSinceFullSaveBeganAreRecorded() throws IOException {
+    var saved = journal.beginFullSave(campaign);
+    zone.setName("Renamed");
+    journal.fullSaveSucceeded(baseFile, campaign.getId(), saved);
+
+    journal.write(journal.prepareDelta(campaign));
+    assertEquals("Renamed", replayedName());
+  }
+
+  @Test
+  void testUncommittedTailIsDiscarded() throws IOException {
+    zone.setName("Renamed");
+    journal.write(journal.prepareDelta(campaign));
+    long committed = journalFile.length();
+
+    // A zone record whose payload was cut short, as if the application crashed writing it.
+    try (var out = new FileOutputStream(journalFile, true)) {
+      out.write(new byte[] {1, 0, 0, 1, 0, 42, 42, 42});
+    }
+
+    assertEquals("Renamed", replayedName());
+    assertEquals(committed, journalFile.length());
+  }
+
+  @Test
+  void testCorruptRecordLengthIsDiscarded() throws IOException {
+    zone.setName("Renamed");
+    journal.write(journal.prepareDelta(campaign));
+    long committed = journalFile.length();
+
+    // Records claiming to be longer than the file, and shorter than nothing.
+    try (var out = new FileOutputStream(journalFile, true)) {
+      out.write(new byte[] {1, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 42});
+    }
+    assertEquals("Renamed", replayedName());
+    assertEquals(committed, journalFile.length());
+
+    try (var out = new FileOutputStream(journalFile, true)) {
+      out.write(new byte[] {1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 42});
+    }
+    assertEquals("Renamed", replayedName());
+    assertEquals(committed, journalFile.length());
+  }
+
+  @Test
+  void testReplayIgnoresDeltaWithoutCommit() throws IOException {
+    zone.setName("Renamed");
+    journal.write(journal.prepareDelta(campaign));
+    long committed = journalFile.length();
+    zone.setName("Renamed again");
+    journal.write(journal.prepareDelta(campaign));
+
+    // Drop the commit record of the second delta.
+    try (var file = new RandomAccessFile(journalFile, "rw")) {
+      file.setLength(file.length() - 1);
+    }
+
+    assertEquals("Renamed", replayedName());
+    assertEquals(committed, journalFile.length());
+  }
+
+  @Test
+  void testFullSaveNeededOnceJournalIsTooBig() throws IOException {
+    zone.setName("Renamed");
+    journal.write(journal.prepareDelta(campaign));
+    assertFalse(journal.needsFullSave(campaign));
+
+    try (var file = new RandomAccessFile(journalFile, "rw")) {
+      file.setLength(CampaignJournal.MAX_JOURNAL_SIZE + 1);
+    }
+    assertTrue(journal.needsFullSave(campaign));
+  }
+
+  @Test
+  void testFullSaveNeededOnceBaseFileChanges() throws IOException {
+    assertFalse(journal.needsFullSave(campaign));
+
+    Files.writeString(baseFile.toPath(), "saved by another copy of the campaign");
+    assertTrue(journal.needsFullSave(campaign));
+  }
+}
@@ -19,6 +19,7 @@
 
 import java.math.BigDecimal;
 import java.util.Collections;
+import java.util.List;
 import net.rptools.dicelib.expression.Result;
 import net.rptools.maptool.model.CampaignFactory;
 import net.rptools.maptool.model.MacroButtonProperties;
@@ -200,6 +201,23 @@ public void testRollBranching() throws ParserException {
     assertEquals("three", res.getVariable("a"));
   }
 
+  @Test
+  public void testRolls() throws ParserException {
+    parseLine("[r: 1d1 + 2d1]", null, null);
+    assertEquals(List.of(1, 1, 1), parser.getRolled());
+    assertEquals(List.of(1, 1, 1), parser.getNewRolls());
+    assertEquals(List.of(), parser.getNewRolls());
+
+    // Each loop iteration adds its own rolls, and the previous rolls become the last rolls.
+    parseLine("[r, count(4): 1d1]", null, null);
+    assertEquals(List.of(1, 1, 1, 1), parser.getRolled());
+    assertEquals(List.of(1, 1, 1), parser.getLastRolled());
+
+    parser.clearRolls();
+    assertEquals(List.of(), parser.getRolled());
+    assertEquals(List.of(), parser.getLastRolled());
+  }
+
   @Test
   public void testConditional() throws ParserException {
 
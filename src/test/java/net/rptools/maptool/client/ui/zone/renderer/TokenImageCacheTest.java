@@ -0,0 +1,93 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone.renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.Test;
+
+public class TokenImageCacheTest {
+  private static int getLevel(double scale) {
+    return TokenImageCache.getLevel(AffineTransform.getScaleInstance(scale, scale), 100, 100);
+  }
+
+  @Test
+  void testFullSizeImageIsDrawnAsItIs() {
+    assertEquals(0, getLevel(1));
+    assertEquals(0, getLevel(2));
+    assertEquals(0, getLevel(0.6));
+    assertEquals(0, getLevel(0));
+  }
+
+  @Test
+  void testLevelIsAtLeastAsBigAsImageOnScreen() {
+    assertEquals(1, getLevel(0.5));
+    assertEquals(1, getLevel(0.3));
+    assertEquals(2, getLevel(0.25));
+    assertEquals(3, getLevel(0.1));
+  }
+
+  @Test
+  void testLevelFollowsMostShrunkSide() {
+    var transform = AffineTransform.getScaleInstance(0.5, 0.1);
+    assertEquals(3, TokenImageCache.getLevel(transform, 100, 100));
+  }
+
+  @Test
+  void testLevelIgnoresRotationAndFlips() {
+    var rotated = AffineTransform.getRotateInstance(Math.PI / 3);
+    rotated.scale(0.2, 0.2);
+    assertEquals(2, TokenImageCache.getLevel(rotated, 100, 100));
+
+    var flipped = AffineTransform.getScaleInstance(-0.2, 0.2);
+    assertEquals(2, TokenImageCache.getLevel(flipped, 100, 100));
+  }
+
+  @Test
+  void testTinyImagesAreDrawnAsTheyAre() {
+    var transform = AffineTransform.getScaleInstance(0.01, 0.01);
+    assertEquals(0, TokenImageCache.getLevel(transform, 32, 32));
+    assertEquals(0, TokenImageCache.getLevel(transform, 1000, 4));
+    assertEquals(6, TokenImageCache.getLevel(transform, 1000, 1000));
+  }
+
+  @Test
+  void testAdjustedTransformDrawsScaledImageAtOriginalSize() {
+    var image = new BufferedImage(100, 60, BufferedImage.TYPE_INT_ARGB);
+    var scaled = new BufferedImage(25, 15, BufferedImage.TYPE_INT_ARGB);
+    var original = new AffineTransform();
+    original.translate(40, 30);
+    original.rotate(Math.PI / 6);
+    original.scale(0.25, 0.25);
+
+    var transform = new AffineTransform(original);
+    TokenImageCache.adjustTransform(transform, image, scaled);
+
+    assertPointEquals(
+        original.transform(new Point2D.Double(100, 60), null),
+        transform.transform(new Point2D.Double(25, 15), null));
+    assertPointEquals(
+        original.transform(new Point2D.Double(50, 0), null),
+        transform.transform(new Point2D.Double(12.5, 0), null));
+  }
+
+  private static void assertPointEquals(Point2D expected, Point2D actual) {
+    assertEquals(expected.getX(), actual.getX(), 1e-9);
+    assertEquals(expected.getY(), actual.getY(), 1e-9);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.ui.zone.vbl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+class AreaTreeTest {
+  /** A square room with 10 unit thick walls, spanning (0, 0) to (200, 200). */
+  private static Area room() {
+    final var room = new Area(new Rectangle(0, 0, 200, 200));
+    room.subtract(new Area(new Rectangle(10, 10, 180, 180)));
+    return room;
+  }
+
+  private static void assertSameStructure(AreaTree expected, AreaTree actual) {
+    for (int x = -20; x <= 520; x += 5) {
+      for (int y = -20; y <= 220; y += 5) {
+        final var point = new Coordinate(x + 0.5, y + 0.5);
+        final var expectedLocation = expected.locate(point);
+        final var actualLocation = actual.locate(point);
+        assertEquals(
+            expectedLocation.island() == null,
+            actualLocation.island() == null,
+            "Island mismatch at " + point);
+        assertEquals(
+            expectedLocation.parentIsland() == null,
+            actualLocation.parentIsland() == null,
+            "Parent island mismatch at " + point);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Adding a pillar inside a room matches a full rebuild")
+  void testAddIslandInsideOcean() {
+    final var topology = room();
+    topology.add(new Area(new Rectangle(300, 50, 50, 50)));
+    final var tree = new AreaTree(topology);
+
+    final var pillar = new Area(new Rectangle(90, 90, 20, 20));
+    final var updatedTopology = new Area(topology);
+    updatedTopology.add(pillar);
+    final var updated = tree.update(updatedTopology, pillar.getBounds2D());
+
+    assertSameStructure(new AreaTree(updatedTopology), updated);
+    // The original tree must be left alone.
+    assertNull(tree.locate(new Coordinate(100, 100)).island());
+    assertNotNull(updated.locate(new Coordinate(100, 100)).island());
+  }
+
+  @Test
+  @DisplayName("Joining two islands matches a full rebuild")
+  void testJoinIslands() {
+    final var topology = room();
+    topology.add(new Area(new Rectangle(300, 50, 50, 50)));
+    final var tree = new AreaTree(topology);
+
+    final var bridge = new Area(new Rectangle(195, 60, 110, 10));
+    final var updatedTopology = new Area(topology);
+    updatedTopology.add(bridge);
+    final var updated = tree.update(updatedTopology, bridge.getBounds2D());
+
+    assertSameStructure(new AreaTree(updatedTopology), updated);
+  }
+
+  @Test
+  @DisplayName("Removing part of a wall matches a full rebuild")
+  void testRemoveWall() {
+    final var topology = room();
+    topology.add(new Area(new Rectangle(300, 50, 50, 50)));
+    final var tree = new AreaTree(topology);
+
+    final var door = new Area(new Rectangle(0, 90, 10, 20));
+    final var updatedTopology = new Area(topology);
+    updatedTopology.subtract(door);
+    final var updated = tree.update(updatedTopology, door.getBounds2D());
+
+    assertSameStructure(new AreaTree(updatedTopology), updated);
+  }
+
+  @Test
+  @DisplayName("Indexed lookup finds the same islands as a linear scan")
+  void testNodesIntersecting() {
+    final var topology = new Area();
+    for (int x = 0; x < 20; ++x) {
+      for (int y = 0; y < 20; ++y) {
+        topology.add(new Area(new Rectangle(x * 20, y * 20, 10, 10)));
+      }
+    }
+    final var tree = new AreaTree(topology);
+    final var bounds = new Envelope(95, 145, 15, 65);
+
+    var expected = 0;
+    for (final var island : tree.locate(new Coordinate(-1, -1)).nearestOcean().getChildren()) {
+      if (island.getMeta().getBoundingBox().intersects(bounds)) {
+        ++expected;
+      }
+    }
+
+    assertEquals(9, expected);
+    assertEquals(expected, tree.nodesIntersecting(bounds).size());
+    assertNotNull(tree.locate(new Coordinate(105, 25)).island());
+    assertNull(tree.locate(new Coordinate(115, 25)).island());
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.walker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import net.rptools.maptool.model.CellPoint;
+import net.rptools.maptool.model.Grid;
+import net.rptools.maptool.model.SquareGrid;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PassabilityGridTest {
+  private Grid grid;
+
+  /** A wall across the centre of the cells in column 1. */
+  private final Area wall = new Area(new Rectangle(60, -1000, 30, 2000));
+
+  @BeforeEach
+  public void setUp() {
+    grid = new SquareGrid();
+    grid.setSize(50);
+  }
+
+  @Test
+  public void testMoveBlockedInside() {
+    var passability = new PassabilityGrid(grid, wall, PassabilityGrid.Mode.BLOCKED_INSIDE);
+
+    assertTrue(passability.isMoveBlocked(new CellPoint(0, 0), 1, 0));
+    assertTrue(passability.isMoveBlocked(new CellPoint(0, 0), 1, 1));
+    assertFalse(passability.isMoveBlocked(new CellPoint(0, 0), 0, 1));
+    assertFalse(passability.isMoveBlocked(new CellPoint(-1, 0), 1, 0));
+    // Answers come from the bitset the second time.
+    assertTrue(passability.isMoveBlocked(new CellPoint(0, 0), 1, 0));
+    assertFalse(passability.isMoveBlocked(new CellPoint(0, 0), 0, 1));
+  }
+
+  @Test
+  public void testMoveBlockedOutside() {
+    var exposed = new Area(new Rectangle(0, 0, 100, 100));
+    var passability = new PassabilityGrid(grid, exposed, PassabilityGrid.Mode.BLOCKED_OUTSIDE);
+
+    assertFalse(passability.isMoveBlocked(new CellPoint(0, 0), 1, 1));
+    assertTrue(passability.isMoveBlocked(new CellPoint(1, 1), 1, 0));
+    assertTrue(passability.isMoveBlocked(new CellPoint(0, 0), -1, 0));
+  }
+
+  @Test
+  public void testEmptyAreaBlocksNothing() {
+    var passability = new PassabilityGrid(grid, new Area(), PassabilityGrid.Mode.BLOCKED_INSIDE);
+
+    assertFalse(passability.isMoveBlocked(new CellPoint(0, 0), 1, 0));
+    assertFalse(passability.isFootprintBlocked(grid.getDefaultFootprint(), 1, 0));
+  }
+
+  @Test
+  public void testFootprintBlocked() {
+    var passability = new PassabilityGrid(grid, wall, PassabilityGrid.Mode.BLOCKED_INSIDE);
+    var footprint = grid.getDefaultFootprint();
+
+    assertTrue(passability.isFootprintBlocked(footprint, 1, 0));
+    assertTrue(passability.isFootprintBlocked(footprint, new CellPoint(1, 5)));
+    assertFalse(passability.isFootprintBlocked(footprint, 0, 0));
+    assertFalse(passability.isFootprintBlocked(footprint, new CellPoint(2, 0)));
+  }
+
+  @Test
+  public void testIsFor() {
+    var passability = new PassabilityGrid(grid, wall, PassabilityGrid.Mode.BLOCKED_INSIDE);
+    assertTrue(passability.isFor(grid));
+
+    var otherGrid = new SquareGrid();
+    otherGrid.setSize(50);
+    assertFalse(passability.isFor(otherGrid));
+
+    grid.setOffset(10, 0);
+    assertFalse(passability.isFor(grid));
+
+    grid.setOffset(0, 0);
+    assertTrue(passability.isFor(grid));
+
+    grid.setSize(60);
+    assertFalse(passability.isFor(grid));
+  }
+
+  @Test
+  public void testUpdateForgetsAnswersNearTheChange() {
+    var passability = new PassabilityGrid(grid, wall, PassabilityGrid.Mode.BLOCKED_INSIDE);
+    assertTrue(passability.isMoveBlocked(new CellPoint(0, 0), 1, 0));
+    assertFalse(passability.isMoveBlocked(new CellPoint(100, 0), 1, 0));
+
+    var farWall = new Rectangle(5060, -1000, 30, 2000);
+    var newArea = new Area(wall);
+    newArea.add(new Area(farWall));
+    var updated = passability.update(newArea, farWall);
+
+    assertSame(newArea, updated.getArea());
+    assertTrue(updated.isMoveBlocked(new CellPoint(100, 0), 1, 0));
+    assertTrue(updated.isMoveBlocked(new CellPoint(0, 0), 1, 0));
+    // The original grid is left as it was.
+    assertFalse(passability.isMoveBlocked(new CellPoint(100, 0), 1, 0));
+  }
+
+  @Test
+  public void testUpdateKeepsAnswersAwayFromTheChange() {
+    var passability = new PassabilityGrid(grid, wall, PassabilityGrid.Mode.BLOCKED_INSIDE);
+    assertTrue(passability.isMoveBlocked(new CellPoint(0, 0), 1, 0));
+
+    // Only report the far change, so the answer next to the removed wall is kept as it was.
+    var farWall = new Rectangle(5060, -1000, 30, 2000);
+    var updated = passability.update(new Area(farWall), farWall);
+
+    assertTrue(updated.isMoveBlocked(new CellPoint(0, 0), 1, 0));
+    assertFalse(updated.isMoveBlocked(new CellPoint(0, 0), 0, 1));
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.client.walker.astar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class AStarNodesTest {
+  @Test
+  public void testFindNodes() {
+    var nodes = new AStarNodes();
+    // Enough nodes to grow the arrays several times, including negative coordinates.
+    for (int x = -50; x < 50; x++) {
+      for (int y = -20; y < 20; y++) {
+        int node = nodes.add(x, y, (x + y) % 2 == 0);
+        assertEquals(x, nodes.getX(node));
+        assertEquals(y, nodes.getY(node));
+      }
+    }
+    assertEquals(4000, nodes.size());
+
+    for (int x = -50; x < 50; x++) {
+      for (int y = -20; y < 20; y++) {
+        boolean isOdd = (x + y) % 2 == 0;
+        int node = nodes.find(x, y, isOdd);
+        assertNotEquals(AStarNodes.NONE, node);
+        assertEquals(isOdd, nodes.isOddStepOfOneTwoOneMovement(node));
+        assertEquals(AStarNodes.NONE, nodes.find(x, y, !isOdd));
+      }
+    }
+    assertEquals(AStarNodes.NONE, nodes.find(50, 0, false));
+
+    int node = nodes.find(3, 4, false);
+    assertEquals(node, nodes.findOrAdd(3, 4, false));
+    assertEquals(4000, nodes.size());
+
+    nodes.reset();
+    assertEquals(0, nodes.size());
+    assertEquals(AStarNodes.NONE, nodes.find(3, 4, false));
+    assertFalse(nodes.isClosed(0));
+  }
+
+  @Test
+  public void testOpenSetOrder() {
+    var nodes = new AStarNodes();
+    var random = new Random(42);
+    var expected = new ArrayList<Integer>();
+    for (int i = 0; i < 1000; i++) {
+      int node = nodes.add(i, 0, false);
+      nodes.setPath(node, AStarNodes.NONE, random.nextInt(500), 0, 0);
+      nodes.setH(node, random.nextDouble());
+      nodes.offer(node);
+      expected.add(node);
+    }
+
+    // Lower the cost of some nodes while they are in the open set.
+    for (int i = 0; i < 1000; i += 3) {
+      nodes.setPath(i, AStarNodes.NONE, nodes.getG(i) - random.nextInt(100), 0, 0);
+      nodes.decreased(i);
+    }
+    expected.sort(Comparator.comparingDouble(nodes::fCost));
+
+    List<Integer> actual = new ArrayList<>();
+    while (!nodes.isOpenEmpty()) {
+      int node = nodes.poll();
+      assertFalse(nodes.isOpen(node));
+      actual.add(node);
+    }
+    assertEquals(AStarNodes.NONE, nodes.poll());
+    assertEquals(
+        expected.stream().map(nodes::fCost).toList(), actual.stream().map(nodes::fCost).toList());
+  }
+
+  @Test
+  public void testClosedAndClearedNodes() {
+    var nodes = new AStarNodes();
+    int first = nodes.add(0, 0, false);
+    int second = nodes.add(0, 0, true);
+    nodes.setPath(second, first, 1.5, 1.5, 1);
+    nodes.offer(first);
+    nodes.offer(second);
+
+    assertEquals(first, nodes.getParent(second));
+    assertEquals(1.5, nodes.fCost(second));
+    assertTrue(nodes.isOpen(second));
+
+    nodes.close(first);
+    assertTrue(nodes.isClosed(first));
+    assertFalse(nodes.isClosed(second));
+
+    nodes.clearOpen();
+    assertTrue(nodes.isOpenEmpty());
+    assertFalse(nodes.isOpen(first));
+    assertFalse(nodes.isOpen(second));
+  }
+}
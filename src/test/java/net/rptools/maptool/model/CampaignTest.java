@@ -0,0 +1,198 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class CampaignTest {
+  /** Hands out copies of the zones it was given, counting how often each is read. */
+  private static class TestZoneSource implements ZoneSource {
+    private final Map<GUID, Zone> zones = new ConcurrentHashMap<>();
+    private final Map<GUID, AtomicInteger> reads = new ConcurrentHashMap<>();
+    private volatile CountDownLatch reading;
+    private volatile CountDownLatch release;
+    private volatile boolean failing;
+
+    TestZoneSource(Zone... zones) {
+      for (Zone zone : zones) {
+        this.zones.put(zone.getId(), zone);
+      }
+    }
+
+    int getReads(GUID id) {
+      var count = reads.get(id);
+      return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public File getFile() {
+      return new File("test.cmpgn");
+    }
+
+    @Override
+    public Zone readZone(GUID id) throws IOException {
+      reads.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+      if (reading != null) {
+        reading.countDown();
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+      }
+      if (failing) {
+        throw new IOException("Unreadable");
+      }
+      return new Zone(zones.get(id), true);
+    }
+  }
+
+  private static Zone createZone(String name) {
+    Zone zone = new Zone();
+    Grid grid = new SquareGrid();
+    grid.setSize(50);
+    zone.setGrid(grid);
+    zone.setName(name);
+    return zone;
+  }
+
+  private static Campaign createCampaign(TestZoneSource source, Zone... zones) {
+    Campaign campaign = new Campaign();
+    campaign.setUnloadedZones(Arrays.stream(zones).map(ZoneSummary::new).toList(), source);
+    return campaign;
+  }
+
+  @Test
+  void testZoneIsReadOnce() {
+    Zone zone = createZone("Tavern");
+    var source = new TestZoneSource(zone);
+    Campaign campaign = createCampaign(source, zone);
+
+    assertFalse(campaign.isZoneLoaded(zone.getId()));
+    Zone loaded = campaign.getZone(zone.getId());
+    assertEquals("Tavern", loaded.getName());
+    assertSame(loaded, campaign.getZone(zone.getId()));
+    assertTrue(campaign.isZoneLoaded(zone.getId()));
+    assertFalse(campaign.hasUnloadedZones());
+    assertEquals(1, source.getReads(zone.getId()));
+  }
+
+  @Test
+  void testOnlyMatchingZonesAreRead() {
+    Zone tavern = createZone("Tavern");
+    Zone dungeon = createZone("Dungeon");
+    var source = new TestZoneSource(tavern, dungeon);
+    Campaign campaign = createCampaign(source, tavern, dungeon);
+
+    List<Zone> zones = campaign.getZones(summary -> summary.getName().equals("Dungeon"));
+    assertEquals(1, zones.size());
+    assertEquals(dungeon.getId(), zones.get(0).getId());
+    assertEquals(0, source.getReads(tavern.getId()));
+    assertEquals(List.of(tavern.getId(), dungeon.getId()), campaign.getZoneIds());
+  }
+
+  @Test
+  void testFailedReadLeavesZoneUnloaded() {
+    Zone zone = createZone("Tavern");
+    var source = new TestZoneSource(zone);
+    source.failing = true;
+    Campaign campaign = createCampaign(source, zone);
+
+    assertNull(campaign.getZone(zone.getId()));
+    assertTrue(campaign.hasUnloadedZones());
+
+    source.failing = false;
+    assertNotNull(campaign.getZone(zone.getId()));
+    assertEquals(2, source.getReads(zone.getId()));
+  }
+
+  @Test
+  void testFailedReadFailsToDto() {
+    Zone zone = createZone("Tavern");
+    var source = new TestZoneSource(zone);
+    source.failing = true;
+    Campaign campaign = createCampaign(source, zone);
+
+    // Sending the campaign without the map would lose it.
+    assertThrows(UncheckedIOException.class, campaign::toDto);
+    assertTrue(campaign.hasUnloadedZones());
+  }
+
+  @Test
+  void testZonesCanBeUsedWhileOneIsRead() throws Exception {
+    Zone tavern = createZone("Tavern");
+    Zone dungeon = createZone("Dungeon");
+    var source = new TestZoneSource(tavern, dungeon);
+    Campaign campaign = createCampaign(source, tavern, dungeon);
+    campaign.getZone(dungeon.getId());
+
+    source.reading = new CountDownLatch(2);
+    source.release = new CountDownLatch(1);
+    var executor = Executors.newFixedThreadPool(2);
+    try {
+      var first = executor.submit(() -> campaign.getZone(tavern.getId()));
+      var second = executor.submit(() -> campaign.getZone(tavern.getId()));
+
+      // Only one of them reads it, and the campaign is not locked while it does.
+      assertFalse(source.reading.await(500, TimeUnit.MILLISECONDS));
+      assertEquals("Dungeon", campaign.getZone(dungeon.getId()).getName());
+      assertEquals(1, campaign.getUnloadedZones().size());
+
+      source.release.countDown();
+      assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+      assertEquals(1, source.getReads(tavern.getId()));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testZoneReplacedWhileReadIsKept() throws Exception {
+    Zone zone = createZone("Tavern");
+    var source = new TestZoneSource(zone);
+    Campaign campaign = createCampaign(source, zone);
+
+    source.reading = new CountDownLatch(1);
+    source.release = new CountDownLatch(1);
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      var reader = executor.submit(() -> campaign.getZone(zone.getId()));
+      assertTrue(source.reading.await(10, TimeUnit.SECONDS));
+
+      Zone replacement = new Zone(zone, true);
+      replacement.setName("Rebuilt tavern");
+      campaign.putZone(replacement);
+      source.release.countDown();
+
+      assertSame(replacement, reader.get(10, TimeUnit.SECONDS));
+      assertSame(replacement, campaign.getZone(zone.getId()));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
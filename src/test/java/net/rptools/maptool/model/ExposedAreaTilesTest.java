@@ -0,0 +1,151 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ExposedAreaTilesTest {
+  private static void assertSameArea(Area expected, Area actual) {
+    assertTrue(expected.equals(actual), "Expected " + expected.getBounds2D());
+  }
+
+  @Test
+  @DisplayName("Cells are exposed when their centres lie in the area")
+  void testAddRectangle() {
+    final var tiles = new ExposedAreaTiles(10);
+    tiles.add(new Area(new Rectangle(0, 0, 100, 50)));
+
+    assertTrue(tiles.contains(5, 5));
+    assertTrue(tiles.contains(95, 45));
+    assertFalse(tiles.contains(105, 5));
+    assertFalse(tiles.contains(5, 55));
+    assertSameArea(new Area(new Rectangle(0, 0, 100, 50)), tiles.toArea());
+  }
+
+  @Test
+  @DisplayName("Modifying the built area does not change the exposed cells")
+  void testToAreaReturnsCopy() {
+    final var tiles = new ExposedAreaTiles(10);
+    tiles.add(new Area(new Rectangle(0, 0, 100, 50)));
+
+    tiles.toArea().add(new Area(new Rectangle(0, 0, 500, 500)));
+
+    assertSameArea(new Area(new Rectangle(0, 0, 100, 50)), tiles.toArea());
+  }
+
+  @Test
+  @DisplayName("Areas spanning negative coordinates and several tiles are exposed")
+  void testAddAcrossTiles() {
+    final var tiles = new ExposedAreaTiles(1);
+    tiles.add(new Area(new Rectangle(-100, -100, 200, 200)));
+
+    assertEquals(16, tiles.getTileCount());
+    assertTrue(tiles.contains(-99.5, -99.5));
+    assertTrue(tiles.contains(99.5, 99.5));
+    assertFalse(tiles.contains(-100.5, 0));
+    assertSameArea(new Area(new Rectangle(-100, -100, 200, 200)), tiles.toArea());
+  }
+
+  @Test
+  @DisplayName("Subtracting hides cells and drops tiles that become empty")
+  void testSubtract() {
+    final var tiles = new ExposedAreaTiles(10);
+    tiles.add(new Area(new Rectangle(0, 0, 1000, 100)));
+    tiles.subtract(new Area(new Rectangle(640, 0, 360, 100)));
+
+    assertEquals(1, tiles.getTileCount());
+    assertTrue(tiles.contains(635, 50));
+    assertFalse(tiles.contains(645, 50));
+
+    tiles.subtract(new Area(new Rectangle(0, 0, 1000, 100)));
+    assertTrue(tiles.isEmpty());
+    assertTrue(tiles.toArea().isEmpty());
+  }
+
+  @Test
+  @DisplayName("Combining tiles matches adding the areas directly")
+  void testAddTiles() {
+    final var first = new Area(new Ellipse2D.Double(0, 0, 300, 200));
+    final var second = new Area(new Ellipse2D.Double(250, 150, 400, 400));
+
+    final var expected = new ExposedAreaTiles(5);
+    expected.add(first);
+    expected.add(second);
+
+    final var combined = new ExposedAreaTiles(5);
+    combined.add(first);
+    final var other = new ExposedAreaTiles(5);
+    other.add(second);
+    combined.add(other);
+
+    assertSameArea(expected.toArea(), combined.toArea());
+  }
+
+  @Test
+  @DisplayName("Exposed cells survive a round trip through bytes")
+  void testBytesRoundTrip() {
+    final var tiles = new ExposedAreaTiles(7);
+    tiles.add(new Area(new Ellipse2D.Double(-300, -200, 900, 500)));
+    tiles.subtract(new Area(new Rectangle(0, 0, 100, 100)));
+
+    final var copy = ExposedAreaTiles.fromBytes(tiles.toBytes());
+
+    assertEquals(7, copy.getCellSize());
+    assertEquals(tiles.getTileCount(), copy.getTileCount());
+    assertSameArea(tiles.toArea(), copy.toArea());
+  }
+
+  @Test
+  @DisplayName("Runs that leave their tile are rejected")
+  void testBytesWithNegativeRun() throws IOException {
+    final var bytes = new ByteArrayOutputStream();
+    try (final var out = new DataOutputStream(bytes)) {
+      // The version and cell size of an empty exposed area, followed by a single tile.
+      out.write(new ExposedAreaTiles(7).toBytes(), 0, 2 * Integer.BYTES);
+      out.writeInt(1);
+      out.writeLong(0);
+      // A run of -100 hidden cells, followed by an exposed one.
+      out.write(new byte[] {(byte) 0x9C, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 1});
+    }
+
+    final var encoded = bytes.toByteArray();
+    assertThrows(IllegalArgumentException.class, () -> ExposedAreaTiles.fromBytes(encoded));
+  }
+
+  @Test
+  @DisplayName("Token exposed areas can switch between exact and tiled storage")
+  void testMetaDataConversion() {
+    final var meta = new ExposedAreaMetaData();
+    meta.addToExposedAreaHistory(new Area(new Rectangle(0, 0, 50, 50)));
+
+    meta.setTileCellSize(10);
+    assertNotNull(meta.getExposedAreaTiles());
+    assertTrue(meta.getExposedAreaTiles().contains(45, 45));
+
+    meta.addToExposedAreaHistory(new Area(new Rectangle(50, 0, 50, 50)));
+    meta.setTileCellSize(0);
+    assertNull(meta.getExposedAreaTiles());
+    assertSameArea(new Area(new Rectangle(0, 0, 100, 50)), meta.getExposedAreaHistory());
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MacroLabelIndexTest {
+  private static MacroButtonProperties macro(int index, String label) {
+    final var macro = new MacroButtonProperties(index);
+    macro.setLabel(label);
+    return macro;
+  }
+
+  @Test
+  @DisplayName("Labels are matched exactly and the first macro wins")
+  void testFind() {
+    final var index = new MacroLabelIndex();
+    final var first = macro(1, "Attack");
+    final var macros = List.of(first, macro(2, "attack"), macro(3, "Attack"));
+
+    assertSame(first, index.find("Attack", macros));
+    assertSame(macros.get(1), index.find("attack", macros));
+    assertNull(index.find("Defend", macros));
+  }
+
+  @Test
+  @DisplayName("Added and removed macros are seen without invalidating")
+  void testChangedCollection() {
+    final var index = new MacroLabelIndex();
+    final var macros = new ArrayList<MacroButtonProperties>();
+    macros.add(macro(1, "Attack"));
+    assertNull(index.find("Defend", macros));
+
+    final var defend = macro(2, "Defend");
+    macros.add(defend);
+    assertSame(defend, index.find("Defend", macros));
+
+    macros.remove(defend);
+    assertNull(index.find("Defend", macros));
+  }
+
+  @Test
+  @DisplayName("Relabelled macros are only found under their new label")
+  void testRelabel() {
+    final var index = new MacroLabelIndex();
+    final var attack = macro(1, "Attack");
+    final var macros = List.of(attack, macro(2, "Defend"));
+    assertSame(attack, index.find("Attack", macros));
+
+    attack.setLabel("Strike");
+    assertNull(index.find("Attack", macros));
+    assertSame(attack, index.find("Strike", macros));
+
+    attack.setLabel("Attack");
+    index.invalidate();
+    assertSame(attack, index.find("Attack", macros));
+    assertNull(index.find("Strike", macros));
+  }
+}
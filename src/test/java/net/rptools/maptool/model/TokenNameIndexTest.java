@@ -0,0 +1,99 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TokenNameIndexTest {
+  private static Token token(String name, int z) {
+    final var token = new Token();
+    token.setName(name);
+    token.setZOrder(z);
+    return token;
+  }
+
+  @Test
+  @DisplayName("Names are matched case-insensitively")
+  void testGet() {
+    final var index = new TokenNameIndex(Token::getName);
+    final var dragon = token("Dragon", 0);
+    index.put(dragon);
+    index.put(token("Goblin", 1));
+
+    assertSame(dragon, index.get("dragon"));
+    assertSame(dragon, index.get("DRAGON"));
+    assertNull(index.get("Drago"));
+  }
+
+  @Test
+  @DisplayName("The token lowest in Z order wins when names are shared")
+  void testSharedName() {
+    final var index = new TokenNameIndex(Token::getName);
+    final var top = token("Guard", 5);
+    final var bottom = token("guard", 2);
+    index.put(top);
+    index.put(bottom);
+
+    assertSame(bottom, index.get("Guard"));
+
+    index.remove(bottom.getId());
+    assertSame(top, index.get("Guard"));
+  }
+
+  @Test
+  @DisplayName("Tokens stay indexed when the one that first used a name is removed")
+  void testRemoveFirstOfSharedName() {
+    final var index = new TokenNameIndex(Token::getName);
+    final var first = token("Guard", 0);
+    final var second = token("GUARD", 1);
+    index.put(first);
+    index.put(second);
+
+    index.remove(first.getId());
+    assertSame(second, index.get("guard"));
+
+    index.remove(second.getId());
+    assertNull(index.get("guard"));
+  }
+
+  @Test
+  @DisplayName("Renamed tokens are only found under their new name once re-indexed")
+  void testRename() {
+    final var index = new TokenNameIndex(Token::getName);
+    final var token = token("Old", 0);
+    index.put(token);
+
+    token.setName("New");
+    assertNull(index.get("Old"));
+
+    index.put(token);
+    assertSame(token, index.get("new"));
+    assertNull(index.get("Old"));
+  }
+
+  @Test
+  @DisplayName("Tokens without a name are not indexed")
+  void testEmptyName() {
+    final var index = new TokenNameIndex(Token::getGMName);
+    final var token = token("Named", 0);
+    token.setGMName("");
+    index.put(token);
+
+    assertNull(index.get(""));
+  }
+}
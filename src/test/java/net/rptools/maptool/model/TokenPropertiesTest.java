@@ -18,10 +18,13 @@
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import net.rptools.maptool.client.MapTool;
 import net.rptools.maptool.client.MapToolVariableResolver;
+import net.rptools.maptool.client.functions.json.JSONMacroFunctions;
+import net.rptools.parser.ParserException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -119,6 +122,55 @@ public void testJsonArray() {
     assertTrue(elem.isJsonArray());
   }
 
+  @Test
+  public void testJsonIsCachedUntilPropertyChanges() {
+    testToken.setProperty("jsonArr1", "[1, 2, 3]");
+    Object first = testToken.getEvaluatedProperty(variableResolver, "jsonArr1");
+    assertSame(first, testToken.getEvaluatedProperty(variableResolver, "JSONARR1"));
+
+    testToken.setProperty("jsonArr1", "[4, 5]");
+    JsonElement changed =
+        (JsonElement) testToken.getEvaluatedProperty(variableResolver, "jsonArr1");
+    assertEquals(2, changed.getAsJsonArray().size());
+
+    testToken.resetProperty("jsonArr1");
+    JsonElement reset = (JsonElement) testToken.getEvaluatedProperty(variableResolver, "jsonArr1");
+    assertEquals(4, reset.getAsJsonArray().get(0).getAsInt());
+  }
+
+  @Test
+  public void testJsonPathSetDoesNotChangeCachedProperty() throws ParserException {
+    testToken.setProperty("jsonObj1", "{\"outer\": {\"inner\": 1}}");
+    Object json = testToken.getEvaluatedProperty(variableResolver, "jsonObj1");
+
+    JsonObject changed =
+        (JsonObject)
+            JSONMacroFunctions.getInstance()
+                .childEvaluate(
+                    null, null, "json.path.set", List.of(json, "$.outer.inner", BigDecimal.TWO));
+    assertEquals(2, changed.getAsJsonObject("outer").get("inner").getAsInt());
+
+    JsonObject reread = (JsonObject) testToken.getEvaluatedProperty(variableResolver, "jsonObj1");
+    assertEquals(1, reread.getAsJsonObject("outer").get("inner").getAsInt());
+  }
+
+  @Test
+  public void testDefaultLookupIgnoresCase() {
+    Campaign campaign = MapTool.getCampaign();
+    assertEquals("10", campaign.getTokenProperty("testType", "PROP1").getDefaultValue());
+    assertNull(campaign.getTokenProperty("testType", "unknownProp"));
+    assertNull(campaign.getTokenProperty("unknownType", "prop1"));
+
+    propsList.add(new TokenProperty("addedLater", null, true, false, false, "added"));
+    assertEquals("added", campaign.getTokenProperty("testType", "addedLater").getDefaultValue());
+
+    // Renaming in place is only seen once the index is told about it.
+    propsList.get(0).setName("renamed");
+    campaign.tokenPropertiesChanged();
+    assertEquals("10", campaign.getTokenProperty("testType", "Renamed").getDefaultValue());
+    assertNull(campaign.getTokenProperty("testType", "prop1"));
+  }
+
   @Test
   public void testPlainStr() {
     Object val = testToken.getEvaluatedProperty(variableResolver, "plainStr1");
@@ -0,0 +1,92 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Rectangle;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TokenSpatialIndexTest {
+  private static Token token(Zone.Layer layer) {
+    final var token = new Token();
+    token.setLayer(layer);
+    return token;
+  }
+
+  @Test
+  @DisplayName("Only tokens near the region are returned")
+  void testQuery() {
+    final var index = new TokenSpatialIndex();
+    final var near = token(Zone.Layer.TOKEN);
+    final var far = token(Zone.Layer.TOKEN);
+    final var negative = token(Zone.Layer.TOKEN);
+    index.put(near, new Rectangle(100, 100, 50, 50));
+    index.put(far, new Rectangle(5000, 5000, 50, 50));
+    index.put(negative, new Rectangle(-1000, -1000, 50, 50));
+
+    assertEquals(List.of(near), index.query(new Rectangle(0, 0, 500, 500), l -> true));
+    assertEquals(List.of(negative), index.query(new Rectangle(-1100, -1100, 200, 200), l -> true));
+    assertTrue(index.query(new Rectangle(2000, 2000, 100, 100), l -> true).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Moving or removing a token updates the index")
+  void testMoveAndRemove() {
+    final var index = new TokenSpatialIndex();
+    final var token = token(Zone.Layer.TOKEN);
+    index.put(token, new Rectangle(0, 0, 50, 50));
+    index.put(token, new Rectangle(3000, 0, 50, 50));
+
+    assertTrue(index.query(new Rectangle(0, 0, 100, 100), l -> true).isEmpty());
+    assertEquals(List.of(token), index.query(new Rectangle(3000, 0, 100, 100), l -> true));
+
+    index.remove(token.getId());
+    assertTrue(index.query(new Rectangle(3000, 0, 100, 100), l -> true).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Queries only return tokens on matching layers")
+  void testLayerFilter() {
+    final var index = new TokenSpatialIndex();
+    final var onToken = token(Zone.Layer.TOKEN);
+    final var onGm = token(Zone.Layer.GM);
+    index.put(onToken, new Rectangle(0, 0, 50, 50));
+    index.put(onGm, new Rectangle(0, 0, 50, 50));
+
+    assertEquals(
+        List.of(onGm), index.query(new Rectangle(0, 0, 100, 100), l -> l == Zone.Layer.GM));
+
+    // Moving the token to another layer moves it in the index too.
+    onToken.setLayer(Zone.Layer.GM);
+    index.put(onToken, new Rectangle(0, 0, 50, 50));
+    assertTrue(
+        index.query(new Rectangle(0, 0, 100, 100), l -> l == Zone.Layer.TOKEN).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Large regions return the same tokens as small ones")
+  void testLargeRegion() {
+    final var index = new TokenSpatialIndex();
+    final var token = token(Zone.Layer.OBJECT);
+    index.put(token, new Rectangle(100, 100, 50, 50));
+
+    assertEquals(
+        List.of(token),
+        index.query(new Rectangle(-100000, -100000, 200000, 200000), l -> true));
+  }
+}
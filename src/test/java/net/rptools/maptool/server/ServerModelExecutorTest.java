@@ -0,0 +1,92 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ServerModelExecutorTest {
+  @Test
+  @DisplayName("Changes are applied in order on the model thread.")
+  void testOrder() throws InterruptedException {
+    final var executor = new ServerModelExecutor();
+    executor.start();
+    final List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+    final List<Integer> expected = new ArrayList<>();
+    final var done = new CountDownLatch(1);
+
+    for (int i = 0; i < 1000; i++) {
+      final int change = i;
+      expected.add(change);
+      executor.execute(
+          () -> {
+            assertTrue(executor.isModelThread());
+            applied.add(change);
+          });
+    }
+    executor.execute(done::countDown);
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(expected, applied);
+    assertEquals(1001, executor.getStats().changesApplied());
+    assertFalse(executor.isModelThread());
+    executor.shutdown();
+  }
+
+  @Test
+  @DisplayName("A failing change does not stop later changes.")
+  void testFailure() throws InterruptedException {
+    final var executor = new ServerModelExecutor();
+    executor.start();
+    final var done = new CountDownLatch(1);
+
+    executor.execute(
+        () -> {
+          throw new IllegalStateException("Expected");
+        });
+    executor.execute(done::countDown);
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    executor.shutdown();
+  }
+
+  @Test
+  @DisplayName("Changes queued from the model thread are applied immediately.")
+  void testNested() throws InterruptedException {
+    final var executor = new ServerModelExecutor();
+    executor.start();
+    final List<String> applied = Collections.synchronizedList(new ArrayList<>());
+    final var done = new CountDownLatch(1);
+
+    executor.execute(
+        () -> {
+          applied.add("outer start");
+          executor.execute(() -> applied.add("inner"));
+          applied.add("outer end");
+          done.countDown();
+        });
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(List.of("outer start", "inner", "outer end"), applied);
+    executor.shutdown();
+  }
+}
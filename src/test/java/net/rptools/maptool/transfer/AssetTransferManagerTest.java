@@ -20,6 +20,9 @@
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import net.rptools.lib.MD5Key;
 import net.rptools.maptool.server.proto.AssetChunkDto;
 import org.junit.jupiter.api.DisplayName;
@@ -78,6 +81,42 @@ void testBasicTransfer() throws Exception {
     consumer.getFilename().delete();
   }
 
+  @Test
+  @DisplayName("Background assets are sent after the others, and assets take turns.")
+  void testPriority() throws Exception {
+    File first = File.createTempFile("first", ".dat");
+    File second = File.createTempFile("second", ".dat");
+    File background = File.createTempFile("background", ".dat");
+    try {
+      Files.write(first.toPath(), new byte[20]);
+      Files.write(second.toPath(), new byte[20]);
+      Files.write(background.toPath(), new byte[20]);
+
+      AssetTransferManager manager = new AssetTransferManager();
+      assertFalse(manager.hasProducers());
+      manager.addProducer(new AssetProducer(new MD5Key("background"), "bg", background), true);
+      manager.addProducer(new AssetProducer(new MD5Key("first"), "first", first));
+      manager.addProducer(new AssetProducer(new MD5Key("second"), "second", second), false);
+      assertTrue(manager.hasProducers());
+
+      List<String> order = new ArrayList<>();
+      AssetChunkDto chunk;
+      while ((chunk = manager.nextChunk(10)) != null) {
+        order.add(chunk.getId());
+      }
+
+      assertEquals(
+          List.of("first", "second", "first", "second", "background", "background"), order);
+      assertFalse(manager.hasProducers());
+      assertEquals(60, manager.getBytesProduced());
+      assertTrue(manager.getThroughput() > 0);
+    } finally {
+      first.delete();
+      second.delete();
+      background.delete();
+    }
+  }
+
   @Test
   @DisplayName("Test Create Temporary File.")
   File createTempFile(byte[] data) throws IOException {
@@ -0,0 +1,128 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.ZipFile;
+import net.rptools.lib.io.PackedFileWriter;
+import net.rptools.maptool.model.Campaign;
+import net.rptools.maptool.model.GUID;
+import net.rptools.maptool.model.Grid;
+import net.rptools.maptool.model.SquareGrid;
+import net.rptools.maptool.model.Zone;
+import net.rptools.maptool.model.ZoneSummary;
+import net.rptools.maptool.util.PersistenceUtil.PackedZoneSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PersistenceUtilTest {
+  @TempDir File dir;
+
+  private static Zone createZone(String name) {
+    Zone zone = new Zone();
+    Grid grid = new SquareGrid();
+    grid.setSize(50);
+    zone.setGrid(grid);
+    zone.setName(name);
+    return zone;
+  }
+
+  /** Saves the zones the way a campaign saved with its zones separately does. */
+  private static List<ZoneSummary> saveZones(Campaign campaign, File file) throws IOException {
+    try (var writer = new PackedFileWriter(file)) {
+      var index = PersistenceUtil.saveZones(campaign, writer);
+      writer.setContent("campaign");
+      writer.commit();
+      return index;
+    }
+  }
+
+  /** Loads the campaign with all of its zones left in the file. */
+  private static Campaign loadCampaign(List<ZoneSummary> index, File file) {
+    var campaign = new Campaign();
+    campaign.setUnloadedZones(index, new PackedZoneSource(file));
+    return campaign;
+  }
+
+  private static byte[] readEntry(File file, GUID zoneId) throws IOException {
+    try (var zip = new ZipFile(file);
+        InputStream in = zip.getInputStream(zip.getEntry(PersistenceUtil.getZonePath(zoneId)))) {
+      return in.readAllBytes();
+    }
+  }
+
+  @Test
+  void testZonesAreReadBackWhenNeeded() throws IOException {
+    var campaign = new Campaign();
+    Zone tavern = createZone("Tavern");
+    Zone dungeon = createZone("Dungeon");
+    campaign.putZone(tavern);
+    campaign.putZone(dungeon);
+    File file = new File(dir, "campaign.cmpgn");
+    var index = saveZones(campaign, file);
+
+    var loaded = loadCampaign(index, file);
+    assertEquals(List.of(tavern.getId(), dungeon.getId()), loaded.getZoneIds());
+    assertEquals("Dungeon", loaded.getZone(dungeon.getId()).getName());
+    assertFalse(loaded.isZoneLoaded(tavern.getId()));
+    assertEquals("Tavern", loaded.getZone(tavern.getId()).getName());
+  }
+
+  @Test
+  void testUnloadedZonesAreCopiedRaw() throws IOException {
+    var campaign = new Campaign();
+    Zone tavern = createZone("Tavern");
+    Zone dungeon = createZone("Dungeon");
+    campaign.putZone(tavern);
+    campaign.putZone(dungeon);
+    File first = new File(dir, "first.cmpgn");
+    var loaded = loadCampaign(saveZones(campaign, first), first);
+
+    loaded.getZone(dungeon.getId()).setName("Flooded dungeon");
+    File second = new File(dir, "second.cmpgn");
+    var index = saveZones(loaded, second);
+
+    // Saving doesn't read the zone, but copies its entry as it is.
+    assertFalse(loaded.isZoneLoaded(tavern.getId()));
+    assertArrayEquals(readEntry(first, tavern.getId()), readEntry(second, tavern.getId()));
+
+    var reloaded = loadCampaign(index, second);
+    assertEquals("Tavern", reloaded.getZone(tavern.getId()).getName());
+    assertEquals("Flooded dungeon", reloaded.getZone(dungeon.getId()).getName());
+  }
+
+  @Test
+  void testUnloadedZonesSurviveSavingOverTheirFile() throws IOException {
+    var campaign = new Campaign();
+    Zone tavern = createZone("Tavern");
+    Zone dungeon = createZone("Dungeon");
+    campaign.putZone(tavern);
+    campaign.putZone(dungeon);
+    File file = new File(dir, "campaign.cmpgn");
+    var loaded = loadCampaign(saveZones(campaign, file), file);
+    loaded.getZone(dungeon.getId());
+
+    var index = saveZones(loaded, file);
+    loaded.setZoneSource(new PackedZoneSource(file));
+
+    assertEquals(2, index.size());
+    assertEquals("Tavern", loaded.getZone(tavern.getId()).getName());
+  }
+}
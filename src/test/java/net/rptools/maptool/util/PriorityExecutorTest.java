@@ -0,0 +1,74 @@
+/*
+ * This software Copyright by the RPTools.net development team, and
+ * licensed under the Affero GPL Version 3 or, at your option, any later
+ * version.
+ *
+ * MapTool Source Code is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License * along with this source Code.  If not, please visit
+ * <http://www.gnu.org/licenses/> and specifically the Affero license
+ * text at <http://www.gnu.org/licenses/agpl.html>.
+ */
+package net.rptools.maptool.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PriorityExecutorTest {
+  private enum Priority {
+    HIGH,
+    LOW
+  }
+
+  @Test
+  @DisplayName("Queued tasks run by priority, then size, then submission order.")
+  void testOrder() throws InterruptedException {
+    final var executor = new PriorityExecutor<Priority>(1, "priority-executor-test-%d");
+    final var blocker = new CountDownLatch(1);
+    final var done = new CountDownLatch(5);
+    final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    // Hold up the only thread so the remaining tasks are queued together.
+    executor.execute(
+        Priority.HIGH,
+        0,
+        () -> {
+          try {
+            blocker.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    executor.execute(Priority.LOW, 10, () -> record(order, done, "low-10"));
+    executor.execute(Priority.HIGH, 100, () -> record(order, done, "high-100"));
+    executor.execute(Priority.LOW, 1, () -> record(order, done, "low-1"));
+    executor.execute(Priority.HIGH, 5, () -> record(order, done, "high-5-first"));
+    executor.execute(Priority.HIGH, 5, () -> record(order, done, "high-5-second"));
+    blocker.countDown();
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(List.of("high-5-first", "high-5-second", "high-100", "low-1", "low-10"), order);
+  }
+
+  @Test
+  @DisplayName("Tasks run on the requested number of threads.")
+  void testThreadCount() {
+    final var executor = new PriorityExecutor<Priority>(3, "priority-executor-test-%d");
+    assertEquals(3, executor.getThreadCount());
+  }
+
+  private static void record(List<String> order, CountDownLatch done, String name) {
+    order.add(name);
+    done.countDown();
+  }
+}